@@ -0,0 +1,48 @@
+// Decoder for the column-oriented v2 list format served by the /all
+// endpoints when requested with ?format=columnar or with
+//   Accept: application/vnd.ucsb.columnar.v2.json
+//
+// Example document:
+// {
+//   "version": 2,
+//   "count": 2,
+//   "dates": ["dateReviewed"],
+//   "columns": {
+//     "id": [1, 2],
+//     "stars": [5, 3],
+//     "dateReviewed": [1641168000000, 1646956800000]
+//   }
+// }
+//
+// decodes to the same array of objects the plain JSON endpoint returns:
+// [
+//   { id: 1, stars: 5, dateReviewed: "2022-01-03T00:00:00" },
+//   { id: 2, stars: 3, dateReviewed: "2022-03-11T00:00:00" }
+// ]
+
+export const COLUMNAR_MEDIA_TYPE = "application/vnd.ucsb.columnar.v2.json";
+
+// Epoch millis (UTC) back to the ISO local date-time string the backend
+// uses in plain JSON, e.g. 1641168000000 -> "2022-01-03T00:00:00"
+export function epochMillisToLocalDateTime(millis) {
+  const iso = new Date(millis).toISOString();
+  return iso.endsWith(".000Z") ? iso.slice(0, 19) : iso.slice(0, 23);
+}
+
+export function decodeColumnar(doc) {
+  if (doc.version !== 2) {
+    throw new Error(`Unsupported columnar version: ${doc.version}`);
+  }
+  const names = Object.keys(doc.columns);
+  const dates = new Set(doc.dates);
+  const rows = [];
+  for (let i = 0; i < doc.count; i++) {
+    const row = {};
+    names.forEach((name) => {
+      const value = doc.columns[name][i];
+      row[name] = dates.has(name) && value !== null ? epochMillisToLocalDateTime(value) : value;
+    });
+    rows.push(row);
+  }
+  return rows;
+}
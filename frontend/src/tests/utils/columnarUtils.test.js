@@ -0,0 +1,44 @@
+import { decodeColumnar, epochMillisToLocalDateTime, COLUMNAR_MEDIA_TYPE } from "main/utils/columnarUtils";
+
+describe("columnarUtils tests", () => {
+
+  test("COLUMNAR_MEDIA_TYPE matches the backend", () => {
+    expect(COLUMNAR_MEDIA_TYPE).toBe("application/vnd.ucsb.columnar.v2.json");
+  });
+
+  test("epochMillisToLocalDateTime drops zero milliseconds", () => {
+    expect(epochMillisToLocalDateTime(1641168000000)).toBe("2022-01-03T00:00:00");
+  });
+
+  test("epochMillisToLocalDateTime keeps non-zero milliseconds", () => {
+    expect(epochMillisToLocalDateTime(1641168000123)).toBe("2022-01-03T00:00:00.123");
+  });
+
+  test("decodeColumnar rebuilds rows and converts date columns", () => {
+    const doc = {
+      version: 2,
+      count: 2,
+      dates: ["dateReviewed"],
+      columns: {
+        id: [1, 2],
+        stars: [5, 3],
+        comments: ["good", null],
+        dateReviewed: [1641168000000, null],
+      },
+    };
+
+    expect(decodeColumnar(doc)).toEqual([
+      { id: 1, stars: 5, comments: "good", dateReviewed: "2022-01-03T00:00:00" },
+      { id: 2, stars: 3, comments: null, dateReviewed: null },
+    ]);
+  });
+
+  test("decodeColumnar handles an empty document", () => {
+    expect(decodeColumnar({ version: 2, count: 0, dates: [], columns: {} })).toEqual([]);
+  });
+
+  test("decodeColumnar rejects other versions", () => {
+    expect(() => decodeColumnar({ version: 3, count: 0, dates: [], columns: {} }))
+      .toThrow("Unsupported columnar version: 3");
+  });
+});
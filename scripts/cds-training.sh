@@ -0,0 +1,59 @@
+#!/usr/bin/env bash
+#
+# Unpacks the Spring Boot jar and records an AppCDS archive from a training
+# start of the application. Run by `mvn -Plocalhost,cds package` (or
+# -Pproduction,cds); used by start.sh.
+#
+#   scripts/cds-training.sh <boot jar> <output directory> <h2 jar>
+#
+# CDS only archives classes loaded by the JDK's own class loaders, not by
+# Spring Boot's nested-jar loader, so the application runs unpacked from a
+# plain classpath. The archive is only valid for the same JDK and the same
+# classpath, which is why the classpath is stored next to it with absolute
+# paths and start.sh reuses it verbatim. The in-memory database the
+# training start needs is put on its module path instead: the archive only
+# checks the classpath, so H2 neither ships with the application nor breaks
+# the archive (it only turns off the JVM's optimized module handling).
+
+set -euo pipefail
+
+jar="$(realpath "$1")"
+out="$2"
+h2="$(realpath "$3")"
+
+rm -rf "$out"
+mkdir -p "$out"
+cd "$out"
+out="$(pwd)"
+
+jar -xf "$jar"
+
+# CDS refuses non-empty directories on the classpath, so the application's
+# own classes go back into a plain jar
+jar -cf application.jar -C BOOT-INF/classes .
+
+classpath="$out/application.jar"
+for lib in $(ls BOOT-INF/lib | sort); do
+  classpath="$classpath:$out/BOOT-INF/lib/$lib"
+done
+echo "$classpath" > classpath
+sed -n 's/^Start-Class: *//p' META-INF/MANIFEST.MF | tr -d '\r' > main-class
+
+# The training start runs with the production configuration (and so its
+# logging) against an in-memory database on a random port; warm-up
+# exercises Hibernate, Jackson and the handlers and then exits, at which
+# point the JVM writes every class it loaded to app.jsa.
+java -XX:ArchiveClassesAtExit=app.jsa \
+  --module-path "$h2" --add-modules com.h2database \
+  -cp "$classpath" "$(cat main-class)" \
+  --spring.profiles.active=production \
+  --spring.datasource.url=jdbc:h2:mem:cds-training \
+  --spring.datasource.username=sa \
+  --spring.datasource.password= \
+  --spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect \
+  --server.port=0 \
+  --app.warmup.iterations=5 \
+  --app.warmup.exit=true
+
+test -s app.jsa
+echo "AppCDS archive written to $out/app.jsa ($(du -h app.jsa | cut -f1))"
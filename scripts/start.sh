@@ -0,0 +1,34 @@
+#!/usr/bin/env bash
+#
+# Starts the application. START_MODE selects how:
+#
+#   cds   unpacked classpath with the AppCDS archive from `mvn -Pcds package`
+#   jar   the Spring Boot fat jar
+#   auto  cds if the archive exists, otherwise jar (default)
+#
+# APP_TARGET is the Maven target directory (default: target next to this
+# script), JAVA_OPTS is passed to the JVM and arguments to the application.
+
+set -euo pipefail
+
+target="${APP_TARGET:-$(cd "$(dirname "$0")/.." && pwd)/target}"
+cds="$target/cds"
+mode="${START_MODE:-auto}"
+
+if [ "$mode" = "auto" ]; then
+  if [ -s "$cds/app.jsa" ]; then mode=cds; else mode=jar; fi
+fi
+
+case "$mode" in
+  cds)
+    exec java -XX:SharedArchiveFile="$cds/app.jsa" ${JAVA_OPTS:-} \
+      -cp "$(cat "$cds/classpath")" "$(cat "$cds/main-class")" "$@"
+    ;;
+  jar)
+    exec java ${JAVA_OPTS:-} -jar "$(ls "$target"/*.jar | head -1)" "$@"
+    ;;
+  *)
+    echo "Unknown START_MODE $mode (expected cds, jar or auto)" >&2
+    exit 2
+    ;;
+esac
@@ -0,0 +1,17 @@
+package edu.ucsb.cs156.example.aop;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a handler whose queries should share one read-only transaction
+ * (see {@link ReadOnlyTransactionAspect}). Only handlers that go to the
+ * database on every call carry it; those answered from memory do not, so
+ * they never take a pooled connection.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ReadOnly {
+}
@@ -0,0 +1,75 @@
+package edu.ucsb.cs156.example.aop;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Runs the API controller handlers marked {@link ReadOnly} in one read-only
+ * transaction. With JPA that makes Hibernate load entities read-only (no
+ * snapshot copies for dirty checking), switches the session to manual
+ * flush and marks the JDBC connection read-only, for derived query methods
+ * and multi-query handlers too, which Spring Data would otherwise run
+ * without a transaction or in one transaction per repository call.
+ *
+ * The transaction holds a pooled connection for the whole handler, so it
+ * is opt-in: handlers answered from a cache, an in-memory service or
+ * another thread's queries are left unmarked and never take one.
+ */
+@Aspect
+@Component
+@ConditionalOnProperty(name = "app.read-only-gets.enabled", havingValue = "true", matchIfMissing = true)
+public class ReadOnlyTransactionAspect {
+  // language=PointcutExpression
+  private static final String pointcut = """
+      @annotation(edu.ucsb.cs156.example.aop.ReadOnly) &&
+      within(edu.ucsb.cs156.example.controllers.ApiController+)
+      """;
+
+  public static final TransactionDefinition READ_ONLY = readOnly();
+
+  private final TransactionTemplate readOnly;
+
+  @Autowired
+  public ReadOnlyTransactionAspect(PlatformTransactionManager transactionManager) {
+    this.readOnly = new TransactionTemplate(transactionManager, READ_ONLY);
+  }
+
+  @Around(pointcut)
+  public Object inReadOnlyTransaction(ProceedingJoinPoint joinPoint) throws Throwable {
+    try {
+      return readOnly.execute(status -> {
+        try {
+          return joinPoint.proceed();
+        } catch (RuntimeException | Error e) {
+          throw e;
+        } catch (Throwable e) {
+          throw new CheckedHandlerException(e);
+        }
+      });
+    } catch (CheckedHandlerException e) {
+      throw e.getCause();
+    }
+  }
+
+  private static TransactionDefinition readOnly() {
+    DefaultTransactionDefinition definition = new DefaultTransactionDefinition();
+    definition.setName("read-only");
+    definition.setReadOnly(true);
+    return definition;
+  }
+
+  /** Carries a checked exception from the handler through the TransactionTemplate callback */
+  private static class CheckedHandlerException extends RuntimeException {
+    CheckedHandlerException(Throwable cause) {
+      super(cause);
+    }
+  }
+}
@@ -0,0 +1,19 @@
+package edu.ucsb.cs156.example.bulkhead;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Puts a controller method, or every method of a controller, in a
+ * {@link BulkheadCategory}. A method annotation overrides the class one;
+ * handlers with neither are classified by HTTP method, reads as
+ * {@link BulkheadCategory#USER_READ} and everything else as
+ * {@link BulkheadCategory#ADMIN_WRITE}.
+ */
+@Target({ ElementType.METHOD, ElementType.TYPE })
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Bulkhead {
+  BulkheadCategory value();
+}
@@ -0,0 +1,27 @@
+package edu.ucsb.cs156.example.bulkhead;
+
+import org.springframework.http.HttpMethod;
+
+/**
+ * Classes of traffic that get separate request permits and, when enabled,
+ * separate database connection pools.
+ */
+public enum BulkheadCategory {
+  ADMIN_WRITE,
+  USER_READ,
+  EXPORT;
+
+  /** Category for handlers without a {@link Bulkhead} annotation. */
+  public static BulkheadCategory forMethod(String method) {
+    HttpMethod httpMethod = HttpMethod.resolve(method);
+    if (httpMethod == HttpMethod.GET || httpMethod == HttpMethod.HEAD || httpMethod == HttpMethod.OPTIONS) {
+      return USER_READ;
+    }
+    return ADMIN_WRITE;
+  }
+
+  /** Property and metric tag form, e.g. admin-write. */
+  public String key() {
+    return name().toLowerCase().replace('_', '-');
+  }
+}
@@ -0,0 +1,25 @@
+package edu.ucsb.cs156.example.bulkhead;
+
+/**
+ * The category of the request being handled on the current thread, set by
+ * {@link BulkheadInterceptor} for the duration of the handler.
+ */
+public final class BulkheadContext {
+
+  private static final ThreadLocal<BulkheadCategory> CURRENT = new ThreadLocal<>();
+
+  private BulkheadContext() {
+  }
+
+  public static BulkheadCategory current() {
+    return CURRENT.get();
+  }
+
+  static void set(BulkheadCategory category) {
+    CURRENT.set(category);
+  }
+
+  static void clear() {
+    CURRENT.remove();
+  }
+}
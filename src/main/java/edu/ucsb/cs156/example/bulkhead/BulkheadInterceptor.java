@@ -0,0 +1,100 @@
+package edu.ucsb.cs156.example.bulkhead;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Tags;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Holds a permit from the handler's category for as long as the handler
+ * runs, so a burst in one category (a bulk import, a full export) can tie
+ * up at most that category's share of request threads. A request that
+ * cannot get a permit within the configured wait is answered 503 with
+ * Retry-After.
+ *
+ * Exposes app.bulkhead.available and app.bulkhead.rejected, tagged with
+ * the category.
+ */
+@Slf4j
+public class BulkheadInterceptor implements HandlerInterceptor {
+
+  private static final String PERMIT = BulkheadInterceptor.class.getName() + ".permit";
+
+  private final Map<BulkheadCategory, Semaphore> permits = new EnumMap<>(BulkheadCategory.class);
+  private final Map<BulkheadCategory, Counter> rejections = new EnumMap<>(BulkheadCategory.class);
+  private final long maxWaitMillis;
+
+  public BulkheadInterceptor(Map<BulkheadCategory, Integer> maxConcurrent, long maxWaitMillis) {
+    this.maxWaitMillis = maxWaitMillis;
+    for (BulkheadCategory category : BulkheadCategory.values()) {
+      Semaphore semaphore = new Semaphore(maxConcurrent.get(category), true);
+      permits.put(category, semaphore);
+      Tags tags = Tags.of("category", category.key());
+      Metrics.gauge("app.bulkhead.available", tags, semaphore, Semaphore::availablePermits);
+      rejections.put(category, Metrics.counter("app.bulkhead.rejected", tags));
+    }
+  }
+
+  static BulkheadCategory categoryOf(HandlerMethod handler, HttpServletRequest request) {
+    Bulkhead bulkhead = AnnotatedElementUtils.findMergedAnnotation(handler.getMethod(), Bulkhead.class);
+    if (bulkhead == null) {
+      bulkhead = AnnotatedElementUtils.findMergedAnnotation(handler.getBeanType(), Bulkhead.class);
+    }
+    return bulkhead != null ? bulkhead.value() : BulkheadCategory.forMethod(request.getMethod());
+  }
+
+  int available(BulkheadCategory category) {
+    return permits.get(category).availablePermits();
+  }
+
+  @Override
+  public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+      throws Exception {
+    if (!(handler instanceof HandlerMethod handlerMethod)) {
+      return true;
+    }
+    BulkheadCategory category = categoryOf(handlerMethod, request);
+
+    if (!permits.get(category).tryAcquire(maxWaitMillis, TimeUnit.MILLISECONDS)) {
+      rejections.get(category).increment();
+      log.debug("Bulkhead {} full, rejecting {} {}", category.key(), request.getMethod(), request.getRequestURI());
+      response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+      response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+      response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+      response.getWriter().write(
+          "{\"type\":\"BulkheadFull\",\"message\":\"Too many concurrent %s requests, retry shortly\"}"
+              .formatted(category.key()));
+      return false;
+    }
+
+    request.setAttribute(PERMIT, category);
+    BulkheadContext.set(category);
+    return true;
+  }
+
+  @Override
+  public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+      Exception ex) {
+    BulkheadCategory category = (BulkheadCategory) request.getAttribute(PERMIT);
+    if (category != null) {
+      request.removeAttribute(PERMIT);
+      BulkheadContext.clear();
+      permits.get(category).release();
+    }
+  }
+}
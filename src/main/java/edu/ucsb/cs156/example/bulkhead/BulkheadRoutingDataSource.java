@@ -0,0 +1,37 @@
+package edu.ucsb.cs156.example.bulkhead;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import java.io.Closeable;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Hands out connections from the pool of the current request's
+ * {@link BulkheadCategory}, so that one category holding all of its
+ * connections leaves the others' pools untouched. Work outside a request
+ * (startup, schema updates) uses the {@link BulkheadCategory#USER_READ}
+ * pool.
+ */
+public class BulkheadRoutingDataSource extends AbstractRoutingDataSource implements Closeable {
+
+  private final Map<BulkheadCategory, HikariDataSource> pools;
+
+  public BulkheadRoutingDataSource(Map<BulkheadCategory, HikariDataSource> pools) {
+    this.pools = pools;
+    setTargetDataSources(new HashMap<>(pools));
+    setDefaultTargetDataSource(pools.get(BulkheadCategory.USER_READ));
+  }
+
+  @Override
+  protected Object determineCurrentLookupKey() {
+    return BulkheadContext.current();
+  }
+
+  @Override
+  public void close() {
+    pools.values().forEach(HikariDataSource::close);
+  }
+}
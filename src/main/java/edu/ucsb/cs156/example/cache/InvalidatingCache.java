@@ -0,0 +1,75 @@
+package edu.ucsb.cs156.example.cache;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Read-through cache that is emptied as a whole by {@link #invalidate()},
+ * meant to be owned by the controller that performs every write to the data
+ * it caches.
+ *
+ * Entries are stamped with the generation that was current when their load
+ * started. A load that overlaps an invalidation may still be returned to its
+ * own caller, but is never served to anyone else, so a write is visible to
+ * every request that starts after it.
+ */
+public class InvalidatingCache<K, V> {
+
+  private record Entry<V>(long generation, V value) {}
+
+  private final AtomicLong generation = new AtomicLong();
+  private final Map<K, Entry<V>> entries = new ConcurrentHashMap<>();
+
+  public V get(K key, Supplier<V> loader) {
+    long current = generation.get();
+    Entry<V> entry = entries.get(key);
+    if (entry != null && entry.generation() == current) {
+      return entry.value();
+    }
+    V value = loader.get();
+    entries.put(key, new Entry<>(current, value));
+    return value;
+  }
+
+  /**
+   * Like {@link #get} for several keys at once, in the order given: the
+   * missing ones are loaded together by one call to {@code loader}, which
+   * answers for each key it is asked about (a key it leaves out is cached
+   * as null).
+   */
+  public Map<K, V> getAll(Collection<K> keys, Function<Set<K>, Map<K, V>> loader) {
+    long current = generation.get();
+    Map<K, V> values = new LinkedHashMap<>();
+    Set<K> missing = new LinkedHashSet<>();
+    for (K key : keys) {
+      Entry<V> entry = entries.get(key);
+      if (entry != null && entry.generation() == current) {
+        values.put(key, entry.value());
+      } else {
+        values.put(key, null);
+        missing.add(key);
+      }
+    }
+    if (!missing.isEmpty()) {
+      Map<K, V> loaded = loader.apply(missing);
+      for (K key : missing) {
+        V value = loaded.get(key);
+        entries.put(key, new Entry<>(current, value));
+        values.put(key, value);
+      }
+    }
+    return values;
+  }
+
+  public void invalidate() {
+    generation.incrementAndGet();
+    entries.clear();
+  }
+}
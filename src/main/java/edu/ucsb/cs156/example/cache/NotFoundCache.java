@@ -0,0 +1,125 @@
+package edu.ucsb.cs156.example.cache;
+
+import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Short-lived memory of ids that were just looked up and not found, so a
+ * client polling a deleted or never-existing id is answered without a
+ * query. Owners must call {@link #forget(Object)} when they create an id;
+ * entries otherwise expire after the TTL, which bounds how long an id
+ * inserted behind the owner's back can be reported missing.
+ *
+ * Every forget advances a generation, and a miss is only recorded if no id
+ * was forgotten since its lookup started ({@link #stamp()}), so a lookup
+ * that overlaps the creation of its id cannot hide the new row for the TTL.
+ *
+ * Handlers check it before any transaction is opened (they are not marked
+ * {@link edu.ucsb.cs156.example.aop.ReadOnly}), so a hit costs no pooled
+ * connection either.
+ *
+ * The map is cleared wholesale if it ever exceeds {@link #MAX_ENTRIES}, so a
+ * scan over random ids cannot grow it without limit.
+ */
+public class NotFoundCache<K> {
+
+  public static final Duration DEFAULT_TTL = Duration.ofSeconds(30);
+  static final int MAX_ENTRIES = 10_000;
+
+  private final Class<?> entityType;
+  private final long ttlNanos;
+  private final LongSupplier nanoClock;
+  private final Map<K, Long> expiries = new ConcurrentHashMap<>();
+  private final AtomicLong generation = new AtomicLong();
+
+  public NotFoundCache(Class<?> entityType) {
+    this(entityType, DEFAULT_TTL, System::nanoTime);
+  }
+
+  NotFoundCache(Class<?> entityType, Duration ttl, LongSupplier nanoClock) {
+    this.entityType = entityType;
+    this.ttlNanos = ttl.toNanos();
+    this.nanoClock = nanoClock;
+  }
+
+  /**
+   * Throws a stackless {@link EntityNotFoundException} if {@code id} was
+   * recorded missing within the TTL.
+   */
+  public void check(K id) {
+    if (isMissing(id)) {
+      throw EntityNotFoundException.stackless(entityType, id);
+    }
+  }
+
+  /** True if {@code id} was recorded missing within the TTL */
+  public boolean isMissing(K id) {
+    Long expiry = expiries.get(id);
+    if (expiry == null) {
+      return false;
+    }
+    if (nanoClock.getAsLong() - expiry < 0) {
+      return true;
+    }
+    expiries.remove(id, expiry);
+    return false;
+  }
+
+  /**
+   * Runs {@code lookup} for {@code id} and, when it finds nothing, records
+   * the id as missing.
+   */
+  public <V> Optional<V> find(K id, Supplier<Optional<V>> lookup) {
+    long stamp = stamp();
+    Optional<V> found = lookup.get();
+    if (found.isEmpty()) {
+      remember(id, stamp);
+    }
+    return found;
+  }
+
+  /** The exception to throw for a missing {@code id} */
+  public EntityNotFoundException notFound(K id) {
+    return EntityNotFoundException.stackless(entityType, id);
+  }
+
+  /** The generation to pass to {@link #remember}, taken before the lookup */
+  public long stamp() {
+    return generation.get();
+  }
+
+  /**
+   * Records {@code id} as missing, unless an id was forgotten since
+   * {@code stamp} was taken.
+   */
+  public void remember(K id, long stamp) {
+    if (generation.get() != stamp) {
+      return;
+    }
+    if (expiries.size() >= MAX_ENTRIES) {
+      expiries.clear();
+    }
+    Long expiry = nanoClock.getAsLong() + ttlNanos;
+    expiries.put(id, expiry);
+    // a forget that ran meanwhile may have missed the entry just put
+    if (generation.get() != stamp) {
+      expiries.remove(id, expiry);
+    }
+  }
+
+  public void forget(K id) {
+    generation.incrementAndGet();
+    expiries.remove(id);
+  }
+
+  public void clear() {
+    expiries.clear();
+  }
+}
@@ -0,0 +1,36 @@
+package edu.ucsb.cs156.example.cache;
+
+import lombok.Value;
+
+import org.springframework.util.DigestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * A response body serialized once, kept both as-is and gzipped, with a
+ * strong ETag computed from the uncompressed bytes.
+ */
+@Value
+public class SerializedBody {
+  byte[] identity;
+  byte[] gzip;
+  String etag;
+
+  public static SerializedBody of(byte[] identity) {
+    return new SerializedBody(identity, gzip(identity),
+        "\"" + DigestUtils.md5DigestAsHex(identity) + "\"");
+  }
+
+  private static byte[] gzip(byte[] bytes) {
+    ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 4 + 32);
+    try (GZIPOutputStream gz = new GZIPOutputStream(out)) {
+      gz.write(bytes);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return out.toByteArray();
+  }
+}
@@ -0,0 +1,71 @@
+package edu.ucsb.cs156.example.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent loads of the same key: the first caller runs the
+ * loader, and anyone asking for that key while it is still running waits for
+ * and shares its result instead of issuing a second load. Nothing is kept
+ * once the load finishes, so this is not a cache; the next request after
+ * completion goes to the loader again.
+ *
+ * Only the loader queries, so waiters hold no database connection as long
+ * as the caller has not opened a transaction first; handlers that use this
+ * are not marked {@link edu.ucsb.cs156.example.aop.ReadOnly}.
+ *
+ * Loads are counted in the {@code app.singleflight.loads} meter, tagged with
+ * the name given here and {@code result=issued} or {@code result=coalesced}.
+ */
+public class SingleFlight<K, V> {
+
+  private final Map<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+  private final Counter issued;
+  private final Counter coalesced;
+
+  public SingleFlight(String name) {
+    issued = Metrics.counter("app.singleflight.loads", "name", name, "result", "issued");
+    coalesced = Metrics.counter("app.singleflight.loads", "name", name, "result", "coalesced");
+  }
+
+  public V load(K key, Supplier<V> loader) {
+    CompletableFuture<V> mine = new CompletableFuture<>();
+    CompletableFuture<V> theirs = inFlight.putIfAbsent(key, mine);
+    if (theirs != null) {
+      coalesced.increment();
+      return await(theirs);
+    }
+
+    issued.increment();
+    try {
+      V value = loader.get();
+      mine.complete(value);
+      return value;
+    } catch (RuntimeException | Error e) {
+      mine.completeExceptionally(e);
+      throw e;
+    } finally {
+      inFlight.remove(key, mine);
+    }
+  }
+
+  private static <V> V await(CompletableFuture<V> future) {
+    try {
+      return future.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+      if (e.getCause() instanceof Error cause) {
+        throw cause;
+      }
+      throw e;
+    }
+  }
+}
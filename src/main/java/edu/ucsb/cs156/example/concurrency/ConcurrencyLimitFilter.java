@@ -0,0 +1,102 @@
+package edu.ucsb.cs156.example.concurrency;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Tags;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Sheds /api requests with 503 and Retry-After once the adaptive limit for
+ * their {@link EndpointGroup} is reached, before any security or controller
+ * work is done for them.
+ *
+ * Exposes app.concurrency.limit, app.concurrency.inflight and
+ * app.concurrency.rejected, each tagged with the group.
+ */
+@Slf4j
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 50)
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+  private final boolean enabled;
+  private final int retryAfterSeconds;
+  private final Map<EndpointGroup, GradientLimit> limits = new EnumMap<>(EndpointGroup.class);
+  private final Map<EndpointGroup, Counter> rejections = new EnumMap<>(EndpointGroup.class);
+
+  public ConcurrencyLimitFilter(
+      @Value("${app.concurrency.enabled:true}") boolean enabled,
+      @Value("${app.concurrency.retry-after-seconds:1}") int retryAfterSeconds,
+      @Value("${app.concurrency.min-limit:4}") int minLimit,
+      @Value("${app.concurrency.admin.max-limit:10}") int adminMax,
+      @Value("${app.concurrency.writes.max-limit:40}") int writesMax,
+      @Value("${app.concurrency.reads.max-limit:150}") int readsMax) {
+    this.enabled = enabled;
+    this.retryAfterSeconds = retryAfterSeconds;
+    limits.put(EndpointGroup.ADMIN, new GradientLimit(adminMax / 2, minLimit, adminMax));
+    limits.put(EndpointGroup.WRITES, new GradientLimit(writesMax / 2, minLimit, writesMax));
+    limits.put(EndpointGroup.READS, new GradientLimit(readsMax / 2, minLimit, readsMax));
+
+    limits.forEach((group, limit) -> {
+      Tags tags = Tags.of("group", group.tag());
+      Metrics.gauge("app.concurrency.limit", tags, limit, GradientLimit::getLimit);
+      Metrics.gauge("app.concurrency.inflight", tags, limit, GradientLimit::getInFlight);
+      rejections.put(group, Metrics.counter("app.concurrency.rejected", tags));
+    });
+  }
+
+  GradientLimit limitFor(EndpointGroup group) {
+    return limits.get(group);
+  }
+
+  @Override
+  protected boolean shouldNotFilter(HttpServletRequest request) {
+    return !enabled || !request.getRequestURI().startsWith(request.getContextPath() + "/api/");
+  }
+
+  @Override
+  protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+      throws ServletException, IOException {
+    EndpointGroup group = EndpointGroup.of(request);
+    GradientLimit limit = limits.get(group);
+
+    if (!limit.tryAcquire()) {
+      rejections.get(group).increment();
+      log.debug("Shedding {} {}: {} limit {} reached", request.getMethod(), request.getRequestURI(),
+          group.tag(), limit.getLimit());
+      response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+      response.setHeader(HttpHeaders.RETRY_AFTER, Integer.toString(retryAfterSeconds));
+      response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+      response.getWriter().write(
+          "{\"type\":\"ConcurrencyLimitExceeded\",\"message\":\"Too many concurrent %s requests, retry shortly\"}"
+              .formatted(group.tag()));
+      return;
+    }
+
+    long start = System.nanoTime();
+    boolean dropped = true;
+    try {
+      chain.doFilter(request, response);
+      dropped = response.getStatus() >= 500;
+    } finally {
+      limit.release(System.nanoTime() - start, dropped);
+    }
+  }
+}
@@ -0,0 +1,33 @@
+package edu.ucsb.cs156.example.concurrency;
+
+import javax.servlet.http.HttpServletRequest;
+
+/**
+ * The budgets API requests are limited under: admin endpoints, other
+ * writes and other reads each get their own, so a flood of one kind cannot
+ * starve the others of worker threads.
+ */
+public enum EndpointGroup {
+  ADMIN,
+  WRITES,
+  READS;
+
+  public static EndpointGroup of(HttpServletRequest request) {
+    String path = request.getRequestURI().substring(request.getContextPath().length());
+    if (path.startsWith("/api/admin/")) {
+      return ADMIN;
+    }
+    if (path.equals("/api/graphql")) {
+      // POSTed, but only ever reads
+      return READS;
+    }
+    return switch (request.getMethod()) {
+      case "GET", "HEAD", "OPTIONS" -> READS;
+      default -> WRITES;
+    };
+  }
+
+  public String tag() {
+    return name().toLowerCase();
+  }
+}
@@ -0,0 +1,98 @@
+package edu.ucsb.cs156.example.concurrency;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Concurrency limit that adapts to observed latency, after the gradient
+ * algorithm in Netflix's concurrency-limits.
+ *
+ * A slow moving average of response times stands in for the latency the
+ * service has when it is not queueing. Each completed request compares its
+ * own time against that average: when requests start taking longer than
+ * usual the gradient drops below one and the limit shrinks towards the
+ * concurrency the backend can actually serve; while latency stays flat the
+ * limit grows by roughly its square root per sample. Requests that fail with
+ * a server error back the limit off multiplicatively (the AIMD half).
+ *
+ * Samples taken while less than half of the limit is in use carry no
+ * information about capacity and leave the limit alone.
+ */
+public class GradientLimit {
+
+  private static final double SMOOTHING = 0.2;
+  private static final double RTT_TOLERANCE = 1.5;
+  private static final double LONG_RTT_ALPHA = 2.0 / (600 + 1);
+  private static final double DROP_BACKOFF = 0.9;
+
+  private final int minLimit;
+  private final int maxLimit;
+  private final AtomicInteger inFlight = new AtomicInteger();
+
+  private volatile double limit;
+  private double longRttNanos;
+
+  public GradientLimit(int initialLimit, int minLimit, int maxLimit) {
+    this.minLimit = minLimit;
+    this.maxLimit = maxLimit;
+    this.limit = clamp(initialLimit);
+  }
+
+  /**
+   * Claims a slot if fewer than {@link #getLimit()} requests are in flight.
+   * Every successful call must be paired with {@link #release}.
+   */
+  public boolean tryAcquire() {
+    while (true) {
+      int current = inFlight.get();
+      if (current >= (int) limit) {
+        return false;
+      }
+      if (inFlight.compareAndSet(current, current + 1)) {
+        return true;
+      }
+    }
+  }
+
+  public void release(long rttNanos, boolean dropped) {
+    int inFlightAtEnd = inFlight.getAndDecrement();
+    update(rttNanos, inFlightAtEnd, dropped);
+  }
+
+  private synchronized void update(long rttNanos, int inFlightAtEnd, boolean dropped) {
+    if (dropped) {
+      limit = clamp(limit * DROP_BACKOFF);
+      return;
+    }
+
+    if (longRttNanos == 0) {
+      longRttNanos = rttNanos;
+    } else {
+      longRttNanos += (rttNanos - longRttNanos) * LONG_RTT_ALPHA;
+    }
+    // after a sustained slowdown the average lags far behind; let it catch
+    // up quickly so the limit can recover once latency returns to normal
+    if (longRttNanos > 2 * rttNanos) {
+      longRttNanos *= 0.95;
+    }
+
+    if (inFlightAtEnd < limit / 2) {
+      return;
+    }
+
+    double gradient = Math.max(0.5, Math.min(1.0, RTT_TOLERANCE * longRttNanos / Math.max(rttNanos, 1)));
+    double newLimit = limit * gradient + Math.sqrt(limit);
+    limit = clamp(limit * (1 - SMOOTHING) + newLimit * SMOOTHING);
+  }
+
+  private double clamp(double value) {
+    return Math.max(minLimit, Math.min(maxLimit, value));
+  }
+
+  public int getLimit() {
+    return (int) limit;
+  }
+
+  public int getInFlight() {
+    return inFlight.get();
+  }
+}
@@ -0,0 +1,40 @@
+package edu.ucsb.cs156.example.config;
+
+import edu.ucsb.cs156.example.bulkhead.BulkheadCategory;
+import edu.ucsb.cs156.example.bulkhead.BulkheadInterceptor;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.Map;
+
+/**
+ * Registers the {@link BulkheadInterceptor} for /api handlers, with the
+ * per-category permits from app.bulkhead.*.
+ */
+@Configuration
+public class BulkheadConfig implements WebMvcConfigurer {
+
+  @Value("${app.bulkhead.admin-write.max-concurrent:10}")
+  private int adminWriteMaxConcurrent;
+
+  @Value("${app.bulkhead.user-read.max-concurrent:100}")
+  private int userReadMaxConcurrent;
+
+  @Value("${app.bulkhead.export.max-concurrent:4}")
+  private int exportMaxConcurrent;
+
+  @Value("${app.bulkhead.max-wait-ms:50}")
+  private long maxWaitMillis;
+
+  @Override
+  public void addInterceptors(InterceptorRegistry registry) {
+    registry.addInterceptor(new BulkheadInterceptor(Map.of(
+        BulkheadCategory.ADMIN_WRITE, adminWriteMaxConcurrent,
+        BulkheadCategory.USER_READ, userReadMaxConcurrent,
+        BulkheadCategory.EXPORT, exportMaxConcurrent), maxWaitMillis))
+        .addPathPatterns("/api/**");
+  }
+}
@@ -0,0 +1,51 @@
+package edu.ucsb.cs156.example.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import edu.ucsb.cs156.example.bulkhead.BulkheadCategory;
+import edu.ucsb.cs156.example.bulkhead.BulkheadRoutingDataSource;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Replaces the single Hikari pool with one pool per {@link BulkheadCategory},
+ * all built from the usual spring.datasource.* settings, including the
+ * spring.datasource.hikari.* pool settings the single pool would get, and
+ * sized by app.bulkhead.datasource.&lt;category&gt;.pool-size. Off unless
+ * app.bulkhead.datasource.enabled=true, since the combined pools need more
+ * database connections than the default single pool.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.bulkhead.datasource.enabled", havingValue = "true")
+public class BulkheadDataSourceConfig {
+
+  private static final Map<BulkheadCategory, Integer> DEFAULT_POOL_SIZES = Map.of(
+      BulkheadCategory.ADMIN_WRITE, 3,
+      BulkheadCategory.USER_READ, 6,
+      BulkheadCategory.EXPORT, 2);
+
+  @Bean
+  public BulkheadRoutingDataSource dataSource(DataSourceProperties properties, Environment env) {
+    Map<BulkheadCategory, HikariDataSource> pools = new EnumMap<>(BulkheadCategory.class);
+    Binder binder = Binder.get(env);
+    for (BulkheadCategory category : BulkheadCategory.values()) {
+      HikariDataSource pool = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+      // what @ConfigurationProperties("spring.datasource.hikari") does for the single pool
+      binder.bind("spring.datasource.hikari", Bindable.ofInstance(pool));
+      pool.setPoolName("bulkhead-" + category.key());
+      pool.setMaximumPoolSize(env.getProperty("app.bulkhead.datasource.%s.pool-size".formatted(category.key()),
+          Integer.class, DEFAULT_POOL_SIZES.get(category)));
+      pools.put(category, pool);
+    }
+    return new BulkheadRoutingDataSource(pools);
+  }
+}
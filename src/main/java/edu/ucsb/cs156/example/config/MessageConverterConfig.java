@@ -0,0 +1,50 @@
+package edu.ucsb.cs156.example.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+import edu.ucsb.cs156.example.converters.ColumnarJsonHttpMessageConverter;
+import edu.ucsb.cs156.example.converters.JsonRowsHttpMessageConverter;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+/**
+ * Adds binary Jackson encodings next to the default JSON converter, so any
+ * handler answers <code>Accept: application/x-jackson-smile</code> or
+ * <code>Accept: application/cbor</code> and reads request bodies sent with
+ * those content types. JSON stays first in the list and remains the default.
+ *
+ * Also adds the opt-in column-oriented v2 list format, see
+ * {@link ColumnarJsonHttpMessageConverter}, and, ahead of Jackson, the
+ * writer for list bodies built by the database, see
+ * {@link JsonRowsHttpMessageConverter}.
+ */
+@Configuration
+public class MessageConverterConfig implements WebMvcConfigurer {
+
+  @Autowired
+  private Jackson2ObjectMapperBuilder objectMapperBuilder;
+
+  @Autowired
+  private ObjectMapper objectMapper;
+
+  @Override
+  public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+    // Same modules and features as the JSON mapper, only the wire format differs
+    converters.add(new MappingJackson2SmileHttpMessageConverter(
+        objectMapperBuilder.factory(new SmileFactory()).build()));
+    converters.add(new MappingJackson2CborHttpMessageConverter(
+        objectMapperBuilder.factory(new CBORFactory()).build()));
+    converters.add(new ColumnarJsonHttpMessageConverter(objectMapper));
+    converters.add(0, new JsonRowsHttpMessageConverter());
+  }
+}
@@ -0,0 +1,83 @@
+package edu.ucsb.cs156.example.config;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springdoc.core.SwaggerUiConfigProperties;
+import org.springframework.beans.factory.annotation.AnnotatedBeanDefinition;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * With app.openapi.static=true, Swagger UI reads the OpenAPI document that
+ * the openapi build profile wrote into the jar, instead of having springdoc
+ * scan every controller to produce it, and the springdoc beans are only
+ * created on first access to /v3/api-docs or the Swagger UI pages.
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(name = "app.openapi.static", havingValue = "true")
+public class OpenApiStaticConfig {
+
+  /** Classpath location written by the openapi build profile */
+  public static final String STATIC_SPEC_RESOURCE = "static/openapi/openapi.json";
+
+  /** Path the static resource handler serves it under */
+  public static final String STATIC_SPEC_URL = "/openapi/openapi.json";
+
+  @Bean
+  public static BeanFactoryPostProcessor lazySpringdocBeans() {
+    return beanFactory -> {
+      for (String name : beanFactory.getBeanDefinitionNames()) {
+        BeanDefinition definition = beanFactory.getBeanDefinition(name);
+        if (!isSpringdoc(definition)) {
+          continue;
+        }
+        // MVC configurers are collected while the dispatcher is set up, and
+        // the one serving /swagger-ui/** would otherwise never be registered
+        Class<?> type = beanFactory.getType(name, false);
+        if (type == null || !WebMvcConfigurer.class.isAssignableFrom(type)) {
+          definition.setLazyInit(true);
+        }
+      }
+    };
+  }
+
+  @Bean
+  public static BeanPostProcessor staticSpecUrl() {
+    boolean present = new ClassPathResource(STATIC_SPEC_RESOURCE).exists();
+    if (!present) {
+      log.warn("app.openapi.static is set but {} is not on the classpath (build with -Popenapi); "
+          + "Swagger UI falls back to /v3/api-docs", STATIC_SPEC_RESOURCE);
+    }
+    return pointSwaggerUiAtStaticSpec(present);
+  }
+
+  static BeanPostProcessor pointSwaggerUiAtStaticSpec(boolean present) {
+    return new BeanPostProcessor() {
+      @Override
+      public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (present && bean instanceof SwaggerUiConfigProperties properties && properties.getUrl() == null) {
+          properties.setUrl(STATIC_SPEC_URL);
+        }
+        return bean;
+      }
+    };
+  }
+
+  /**
+   * Beans declared by springdoc's configuration classes; the configuration
+   * classes themselves stay eager, since some of them fill in settings (such
+   * as the Swagger UI version) that the UI resource handler depends on.
+   */
+  static boolean isSpringdoc(BeanDefinition definition) {
+    return definition instanceof AnnotatedBeanDefinition annotated
+        && annotated.getFactoryMethodMetadata() != null
+        && annotated.getFactoryMethodMetadata().getDeclaringClassName().startsWith("org.springdoc.");
+  }
+}
@@ -1,30 +1,294 @@
 package edu.ucsb.cs156.example.controllers;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import edu.ucsb.cs156.example.cache.InvalidatingCache;
+import edu.ucsb.cs156.example.cache.NotFoundCache;
+import edu.ucsb.cs156.example.cache.SerializedBody;
+import edu.ucsb.cs156.example.errors.BadRequestException;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 
+import edu.ucsb.cs156.example.models.BatchResult;
+import edu.ucsb.cs156.example.models.Counts;
 import edu.ucsb.cs156.example.models.CurrentUser;
+import edu.ucsb.cs156.example.models.GroupCount;
 import edu.ucsb.cs156.example.services.CurrentUserService;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
 
+import javax.servlet.http.HttpServletRequest;
+
+import java.beans.PropertyDescriptor;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 @Slf4j
 public abstract class ApiController {
+  /** Most ids a single multi-get may ask for */
+  public static final int MAX_BATCH_IDS = 100;
+
   @Autowired
   private CurrentUserService currentUserService;
 
+  @Autowired
+  private ObjectMapper objectMapper;
+
+  // jpa (the repositories), jdbc (ListRowsRepository) or json (JsonRowsRepository,
+  // Postgres only) for the list endpoints that support them
+  @Value("${app.list-reads.engine:jpa}")
+  String listReadEngine;
+
   protected CurrentUser getCurrentUser() {
     return currentUserService.getCurrentUser();
   }
 
+  protected boolean jdbcListReads() {
+    return "jdbc".equals(listReadEngine);
+  }
+
+  /**
+   * Whether list requests should be answered with JSON built by the
+   * database; callers still check that the database supports it.
+   */
+  protected boolean databaseJsonListReads() {
+    return "json".equals(listReadEngine);
+  }
+
+  /** As above, for handlers that also serve other representations */
+  protected boolean databaseJsonListReads(HttpServletRequest request) {
+    return databaseJsonListReads() && wantsJson(request);
+  }
+
   protected Object genericMessage(String message) {
     return Map.of("message", message);
   }
 
+  /**
+   * Checks a sparse fieldset against the entity's properties and returns
+   * its names once each, in the order they were first requested. Throws
+   * BadRequestException for an empty list, blank names, or names that are
+   * not entity properties.
+   */
+  protected List<String> checkedFields(List<String> fields, Class<?> entityType) {
+    Set<String> checked = new LinkedHashSet<>();
+    for (String field : fields) {
+      if (field == null || field.isBlank()) {
+        throw new BadRequestException("fields must be a comma separated list of field names");
+      }
+      if (!hasProperty(entityType, field)) {
+        throw new BadRequestException("Unknown field %s for %s"
+            .formatted(field, entityType.getSimpleName()));
+      }
+      checked.add(field);
+    }
+    if (checked.isEmpty()) {
+      throw new BadRequestException("fields must be a comma separated list of field names");
+    }
+    return List.copyOf(checked);
+  }
+
+  /**
+   * Loads the entities for several ids with one findAllById (a single IN
+   * query), skipping ids {@code missingIds} already knows are missing. Items
+   * come back in request order, once per id; ids that matched nothing are
+   * reported and remembered. Throws BadRequestException for no ids, an
+   * empty id in the list, or more than {@link #MAX_BATCH_IDS} ids.
+   */
+  protected <T, K> BatchResult<T, K> findAllById(List<K> ids, CrudRepository<T, K> repository,
+      Function<T, K> idOf, NotFoundCache<K> missingIds) {
+    if (ids.isEmpty()) {
+      throw new BadRequestException("ids must not be empty");
+    }
+    if (ids.size() > MAX_BATCH_IDS) {
+      throw new BadRequestException("At most %d ids may be requested at once".formatted(MAX_BATCH_IDS));
+    }
+    // an empty list element binds as null for numeric ids and "" for codes
+    if (ids.stream().anyMatch(id -> id == null || id instanceof String code && code.isBlank())) {
+      throw new BadRequestException("ids must not contain empty values");
+    }
+
+    long stamp = missingIds.stamp();
+    Set<K> wanted = new LinkedHashSet<>(ids);
+    List<K> toLoad = new ArrayList<>(wanted.size());
+    for (K id : wanted) {
+      if (!missingIds.isMissing(id)) {
+        toLoad.add(id);
+      }
+    }
+
+    Map<K, T> found = new HashMap<>();
+    if (!toLoad.isEmpty()) {
+      for (T entity : repository.findAllById(toLoad)) {
+        found.put(idOf.apply(entity), entity);
+      }
+    }
+
+    List<T> items = new ArrayList<>(found.size());
+    List<K> missing = new ArrayList<>();
+    for (K id : wanted) {
+      T entity = found.get(id);
+      if (entity != null) {
+        items.add(entity);
+      } else {
+        missing.add(id);
+        missingIds.remember(id, stamp);
+      }
+    }
+    return new BatchResult<>(items, missing);
+  }
+
+  /**
+   * Counts the rows of {@code repository}, or with {@code groupBy} the rows
+   * per value of that column using one of {@code groupings}, as a single
+   * aggregate query whose answer is kept in {@code cache} until the owning
+   * controller invalidates it.
+   */
+  protected Counts cachedCounts(InvalidatingCache<String, Counts> cache, String groupBy,
+      CrudRepository<?, ?> repository, Map<String, Supplier<List<GroupCount>>> groupings) {
+    if (groupBy == null) {
+      return cache.get("", () -> Counts.of(repository.count()));
+    }
+    Supplier<List<GroupCount>> grouping = groupings.get(groupBy);
+    if (grouping == null) {
+      throw new BadRequestException("groupBy must be one of " + String.join(", ", new TreeSet<>(groupings.keySet())));
+    }
+    return cache.get(groupBy, () -> Counts.grouped(grouping.get()));
+  }
+
+  /**
+   * Answers a JSON list request from a body serialized once and kept in
+   * {@code cache} until the owning controller invalidates it, honouring
+   * If-None-Match and Accept-Encoding: gzip. Requests asking for another
+   * representation (Smile, CBOR, columnar) get the loaded list as usual.
+   */
+  protected ResponseEntity<?> cachedJson(InvalidatingCache<String, SerializedBody> cache,
+      HttpServletRequest request, Supplier<Object> loader) {
+    if (!wantsJson(request)) {
+      return ResponseEntity.ok(loader.get());
+    }
+
+    SerializedBody body = cache.get("all", () -> {
+      try {
+        return SerializedBody.of(objectMapper.writeValueAsBytes(loader.get()));
+      } catch (JsonProcessingException e) {
+        throw new UncheckedIOException(e);
+      }
+    });
+
+    if (etagMatches(request.getHeader(HttpHeaders.IF_NONE_MATCH), body.getEtag())) {
+      return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(body.getEtag()).build();
+    }
+
+    boolean gzip = acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+    byte[] bytes = gzip ? body.getGzip() : body.getIdentity();
+    ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+        .contentType(MediaType.APPLICATION_JSON)
+        .contentLength(bytes.length)
+        .eTag(body.getEtag())
+        .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+    if (gzip) {
+      response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+    }
+    return response.body(bytes);
+  }
+
+  /**
+   * Whether an If-None-Match value, * or a comma separated list of entity
+   * tags, matches {@code etag}; weak tags match by their opaque part, as
+   * If-None-Match compares weakly.
+   */
+  static boolean etagMatches(String ifNoneMatch, String etag) {
+    if (ifNoneMatch == null) {
+      return false;
+    }
+    for (String candidate : ifNoneMatch.split(",")) {
+      candidate = candidate.trim();
+      if (candidate.startsWith("W/")) {
+        candidate = candidate.substring(2);
+      }
+      if (candidate.equals("*") || candidate.equals(etag)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Whether an Accept-Encoding value gives gzip a non-zero quality, either
+   * by name or through *; gzip;q=0 and *;q=0 without gzip refuse it.
+   */
+  static boolean acceptsGzip(String acceptEncoding) {
+    if (acceptEncoding == null) {
+      return false;
+    }
+    Double gzip = null;
+    Double any = null;
+    for (String coding : acceptEncoding.split(",")) {
+      String[] parts = coding.split(";");
+      String name = parts[0].trim().toLowerCase();
+      double quality = 1;
+      for (int i = 1; i < parts.length; i++) {
+        String parameter = parts[i].trim().toLowerCase();
+        if (parameter.startsWith("q=")) {
+          try {
+            quality = Double.parseDouble(parameter.substring(2).trim());
+          } catch (NumberFormatException e) {
+            quality = 0;
+          }
+        }
+      }
+      if (name.equals("gzip") || name.equals("x-gzip")) {
+        gzip = quality;
+      } else if (name.equals("*")) {
+        any = quality;
+      }
+    }
+    double quality = (gzip != null) ? gzip : (any != null) ? any : 0;
+    return quality > 0;
+  }
+
+  private static boolean wantsJson(HttpServletRequest request) {
+    if (request.getParameter("format") != null) {
+      return false;
+    }
+    String accept = request.getHeader(HttpHeaders.ACCEPT);
+    if (accept == null || accept.isBlank()) {
+      return true;
+    }
+    List<MediaType> acceptable;
+    try {
+      acceptable = MediaType.parseMediaTypes(accept);
+    } catch (InvalidMediaTypeException e) {
+      throw new BadRequestException("Invalid Accept header: " + e.getMessage());
+    }
+    MediaType.sortBySpecificityAndQuality(acceptable);
+    return acceptable.get(0).isCompatibleWith(MediaType.APPLICATION_JSON);
+  }
+
+  private static boolean hasProperty(Class<?> type, String name) {
+    PropertyDescriptor pd = BeanUtils.getPropertyDescriptor(type, name);
+    return pd != null && pd.getReadMethod() != null && !"class".equals(name);
+  }
+
   @ExceptionHandler({ EntityNotFoundException.class })
   @ResponseStatus(HttpStatus.NOT_FOUND)
   public Object handleGenericException(Throwable e) {
@@ -33,4 +297,13 @@ public abstract class ApiController {
       "message", e.getMessage()
     );
   }
+
+  @ExceptionHandler({ BadRequestException.class })
+  @ResponseStatus(HttpStatus.BAD_REQUEST)
+  public Object handleBadRequest(Throwable e) {
+    return Map.of(
+      "type", e.getClass().getSimpleName(),
+      "message", e.getMessage()
+    );
+  }
 }
@@ -1,9 +1,16 @@
 package edu.ucsb.cs156.example.controllers;
 
+import edu.ucsb.cs156.example.aop.ReadOnly;
+import edu.ucsb.cs156.example.cache.NotFoundCache;
+import edu.ucsb.cs156.example.cache.SingleFlight;
 import edu.ucsb.cs156.example.entities.Articles;
 import edu.ucsb.cs156.example.entities.UCSBDate;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.models.BatchResult;
 import edu.ucsb.cs156.example.repositories.ArticlesRepository;
+import edu.ucsb.cs156.example.repositories.JsonRowsRepository;
+import edu.ucsb.cs156.example.repositories.ListRowsRepository;
+import edu.ucsb.cs156.example.repositories.SelectedFieldsRepository;
 import edu.ucsb.cs156.example.repositories.UCSBDateRepository;
 
 import io.swagger.v3.oas.annotations.Operation;
@@ -25,9 +32,12 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.validation.Valid;
 
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
 
 @Tag(name = "Articles")
 @RequestMapping("/api/articles")
@@ -37,12 +47,39 @@ public class ArticlesController extends ApiController{
     @Autowired
     ArticlesRepository articlesRepository;
 
+    @Autowired
+    ListRowsRepository listRows;
+
+    @Autowired
+    JsonRowsRepository jsonRows;
+
+    @Autowired
+    SelectedFieldsRepository selectedFields;
+
+    // concurrent GETs for the same id share one findById
+    final SingleFlight<Long, Optional<Articles>> byIdLoads = new SingleFlight<>("articles");
+
+    // ids recently found missing, answered without a query until they expire or are created
+    final NotFoundCache<Long> missingIds = new NotFoundCache<>(Articles.class);
+
     @Operation(summary= "List all articles")
     @PreAuthorize("hasRole('ROLE_USER')")
+    @ReadOnly
     @GetMapping("/all")
-    public Iterable<Articles> allArticles() {
-        Iterable<Articles> articles = articlesRepository.findAll();
-        return articles;
+    public Object allArticles(
+            @Parameter(name="fields", description="optional comma separated list of fields to return, e.g. id,title,dateAdded") @RequestParam(required = false) List<String> fields,
+            HttpServletRequest request) {
+        if (fields == null) {
+            if (databaseJsonListReads(request) && jsonRows.isSupported()) {
+                return jsonRows.articles();
+            }
+            if (jdbcListReads()) {
+                return listRows.articles();
+            }
+            Iterable<Articles> articles = articlesRepository.findAll();
+            return articles;
+        }
+        return selectedFields.findAll(Articles.class, checkedFields(fields, Articles.class));
     }
 
     @Operation(summary= "Create a article")
@@ -69,6 +106,7 @@ public class ArticlesController extends ApiController{
         article.setDateAdded(dateAdded);
 
         Articles savedArticle = articlesRepository.save(article);
+        missingIds.forget(savedArticle.getId());
 
         return savedArticle;
     }
@@ -78,12 +116,21 @@ public class ArticlesController extends ApiController{
     @GetMapping("")
     public Articles getById(
             @Parameter(name="id") @RequestParam Long id) {
-        Articles articles = articlesRepository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException(Articles.class, id));
+        missingIds.check(id);
+        Articles articles = byIdLoads.load(id, () -> missingIds.find(id, () -> articlesRepository.findById(id)))
+                .orElseThrow(() -> missingIds.notFound(id));
 
         return articles;
     }
 
+    @Operation(summary= "Get several articles at once, in the order asked for")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping(value = "", params = "ids")
+    public BatchResult<Articles, Long> getByIds(
+            @Parameter(name="ids", description="comma separated ids, at most " + MAX_BATCH_IDS) @RequestParam List<Long> ids) {
+        return findAllById(ids, articlesRepository, Articles::getId, missingIds);
+    }
+
     @Operation(summary= "Delete an article")
     @PreAuthorize("hasRole('ROLE_ADMIN')")
     @DeleteMapping("")
@@ -0,0 +1,28 @@
+package edu.ucsb.cs156.example.controllers;
+
+import edu.ucsb.cs156.example.models.Dashboard;
+import edu.ucsb.cs156.example.services.DashboardService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@Tag(name = "Dashboard")
+@RequestMapping("/api/dashboard")
+@RestController
+public class DashboardController extends ApiController {
+
+    @Autowired
+    DashboardService dashboardService;
+
+    @Operation(summary= "Get the count and latest rows of every entity in one request; slow sources are left out")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("")
+    public Dashboard getDashboard() {
+        return dashboardService.getDashboard();
+    }
+}
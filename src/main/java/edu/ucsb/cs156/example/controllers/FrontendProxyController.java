@@ -12,7 +12,7 @@ import java.net.ConnectException;
 @Profile("development")
 @RestController
 public class FrontendProxyController {
-  @GetMapping({"/", "/{path:^(?!api|oauth2|swagger-ui|h2-console).*}/**"})
+  @GetMapping({"/", "/{path:^(?!api|oauth2|swagger-ui|openapi|h2-console).*}/**"})
   public ResponseEntity<?> proxy(ProxyExchange<byte []> proxy) {
     String path = proxy.path("/");
     try {
@@ -0,0 +1,38 @@
+package edu.ucsb.cs156.example.controllers;
+
+import edu.ucsb.cs156.example.bulkhead.Bulkhead;
+import edu.ucsb.cs156.example.bulkhead.BulkheadCategory;
+import edu.ucsb.cs156.example.errors.BadRequestException;
+import edu.ucsb.cs156.example.models.GraphQLRequest;
+import edu.ucsb.cs156.example.services.GraphQLService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+@Tag(name = "GraphQL")
+@RequestMapping("/api/graphql")
+@RestController
+public class GraphQLController extends ApiController {
+
+    @Autowired
+    GraphQLService graphQLService;
+
+    @Operation(summary= "Run a read-only GraphQL query over the entities (schema: graphql/schema.graphqls)")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @Bulkhead(BulkheadCategory.USER_READ) // a POST, but it only reads
+    @PostMapping("")
+    public Map<String, Object> query(@RequestBody GraphQLRequest request) {
+        if (request.getQuery() == null || request.getQuery().isBlank()) {
+            throw new BadRequestException("query must not be empty");
+        }
+        return graphQLService.execute(request.getQuery(), request.getOperationName(), request.getVariables());
+    }
+}
@@ -1,9 +1,20 @@
 package edu.ucsb.cs156.example.controllers;
 
+import edu.ucsb.cs156.example.aop.ReadOnly;
+import edu.ucsb.cs156.example.bulkhead.Bulkhead;
+import edu.ucsb.cs156.example.bulkhead.BulkheadCategory;
+import edu.ucsb.cs156.example.cache.InvalidatingCache;
+import edu.ucsb.cs156.example.cache.NotFoundCache;
+import edu.ucsb.cs156.example.cache.SingleFlight;
 import edu.ucsb.cs156.example.entities.HelpRequest;
 import edu.ucsb.cs156.example.entities.UCSBDate;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.models.BatchResult;
+import edu.ucsb.cs156.example.models.Counts;
 import edu.ucsb.cs156.example.repositories.HelpRequestRepository;
+import edu.ucsb.cs156.example.repositories.JsonRowsRepository;
+import edu.ucsb.cs156.example.repositories.ListRowsRepository;
+import edu.ucsb.cs156.example.repositories.SelectedFieldsRepository;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -25,7 +36,11 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.validation.Valid;
 
 @Tag(name = "HelpRequests")
@@ -36,12 +51,52 @@ public class HelpRequestController extends ApiController{
     @Autowired
     HelpRequestRepository helpRequestRepository;
 
+    @Autowired
+    ListRowsRepository listRows;
+
+    @Autowired
+    JsonRowsRepository jsonRows;
+
+    @Autowired
+    SelectedFieldsRepository selectedFields;
+
+    // concurrent GETs for the same id share one findById
+    final SingleFlight<Long, Optional<HelpRequest>> byIdLoads = new SingleFlight<>("helprequests");
+
+    // ids recently found missing, answered without a query until they expire or are created
+    final NotFoundCache<Long> missingIds = new NotFoundCache<>(HelpRequest.class);
+
+    // /count answers, dropped on every write below
+    final InvalidatingCache<String, Counts> countCache = new InvalidatingCache<>();
+
     @Operation(summary= "List all help requests")
     @PreAuthorize("hasRole('ROLE_USER')")
+    @ReadOnly
     @GetMapping("/all")
-    public Iterable<HelpRequest> allHelpRequests() {
-        Iterable<HelpRequest> requests = helpRequestRepository.findAll();
-        return requests;
+    public Object allHelpRequests(
+            @Parameter(name="fields", description="optional comma separated list of fields to return, e.g. id,teamId,requestTime") @RequestParam(required = false) List<String> fields,
+            HttpServletRequest request) {
+        if (fields == null) {
+            if (databaseJsonListReads(request) && jsonRows.isSupported()) {
+                return jsonRows.helpRequests();
+            }
+            if (jdbcListReads()) {
+                return listRows.helpRequests();
+            }
+            Iterable<HelpRequest> requests = helpRequestRepository.findAll();
+            return requests;
+        }
+        return selectedFields.findAll(HelpRequest.class, checkedFields(fields, HelpRequest.class));
+    }
+
+    @Operation(summary= "Count help requests, optionally per value of solved or teamId")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/count")
+    public Counts count(
+            @Parameter(name="groupBy", description="optional column to count per value of: solved or teamId") @RequestParam(required = false) String groupBy) {
+        return cachedCounts(countCache, groupBy, helpRequestRepository, Map.of(
+                "solved", helpRequestRepository::countGroupedBySolved,
+                "teamId", helpRequestRepository::countGroupedByTeamId));
     }
 
     @Operation(summary= "Create a new help request")
@@ -70,20 +125,48 @@ public class HelpRequestController extends ApiController{
         helpRequest.setRequestTime(requestTime);
 
         HelpRequest savedHelpRequest = helpRequestRepository.save(helpRequest);
+        missingIds.forget(savedHelpRequest.getId());
+        countCache.invalidate();
 
         return savedHelpRequest;
     }
 
+    @Operation(summary= "Create several help requests at once (JSON, Smile or CBOR body)")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @Bulkhead(BulkheadCategory.ADMIN_WRITE)
+    @PostMapping("/bulk")
+    public Iterable<HelpRequest> postHelpRequests(
+            @RequestBody @Valid List<HelpRequest> incoming) {
+
+        // ids are always assigned by the database
+        incoming.forEach(helpRequest -> helpRequest.setId(0));
+
+        Iterable<HelpRequest> savedHelpRequests = helpRequestRepository.saveAll(incoming);
+        countCache.invalidate();
+        savedHelpRequests.forEach(saved -> missingIds.forget(saved.getId()));
+
+        return savedHelpRequests;
+    }
+
     @Operation(summary= "Get a single help request")
     @PreAuthorize("hasRole('ROLE_USER')")
     @GetMapping("")
     public HelpRequest getById(
             @Parameter(name="id") @RequestParam Long id) {
-        HelpRequest helpRequest = helpRequestRepository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException(HelpRequest.class, id));
+        missingIds.check(id);
+        HelpRequest helpRequest = byIdLoads.load(id, () -> missingIds.find(id, () -> helpRequestRepository.findById(id)))
+                .orElseThrow(() -> missingIds.notFound(id));
 
         return helpRequest;
     }
+
+    @Operation(summary= "Get several help requests at once, in the order asked for")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping(value = "", params = "ids")
+    public BatchResult<HelpRequest, Long> getByIds(
+            @Parameter(name="ids", description="comma separated ids, at most " + MAX_BATCH_IDS) @RequestParam List<Long> ids) {
+        return findAllById(ids, helpRequestRepository, HelpRequest::getId, missingIds);
+    }
     
     @Operation(summary= "Update a single help request")
     @PreAuthorize("hasRole('ROLE_ADMIN')")
@@ -103,6 +186,7 @@ public class HelpRequestController extends ApiController{
         helpRequest.setSolved(incoming.getSolved());
 
         helpRequestRepository.save(helpRequest);
+        countCache.invalidate();
 
         return helpRequest;
     }
@@ -116,6 +200,7 @@ public class HelpRequestController extends ApiController{
                 .orElseThrow(() -> new EntityNotFoundException(HelpRequest.class, id));
 
         helpRequestRepository.delete(helpRequest);
+        countCache.invalidate();
         return genericMessage("HelpRequest with id %s deleted".formatted(id));
     }
 }
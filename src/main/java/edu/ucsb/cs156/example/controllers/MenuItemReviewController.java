@@ -1,9 +1,18 @@
 package edu.ucsb.cs156.example.controllers;
 
+import edu.ucsb.cs156.example.aop.ReadOnly;
+import edu.ucsb.cs156.example.bulkhead.Bulkhead;
+import edu.ucsb.cs156.example.bulkhead.BulkheadCategory;
+import edu.ucsb.cs156.example.cache.NotFoundCache;
+import edu.ucsb.cs156.example.cache.SingleFlight;
 import edu.ucsb.cs156.example.entities.MenuItemReview;
 import edu.ucsb.cs156.example.entities.UCSBDate;
 import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.events.MenuItemReviewsChanged;
+import edu.ucsb.cs156.example.models.BatchResult;
+import edu.ucsb.cs156.example.repositories.JsonRowsRepository;
+import edu.ucsb.cs156.example.repositories.ListRowsRepository;
 import edu.ucsb.cs156.example.repositories.MenuItemReviewRepository;
 import edu.ucsb.cs156.example.repositories.UCSBDateRepository;
 import io.swagger.v3.oas.annotations.Operation;
@@ -14,6 +23,8 @@ import lombok.extern.slf4j.Slf4j;
 import com.fasterxml.jackson.core.JsonProcessingException;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.util.Streamable;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -25,9 +36,12 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.validation.Valid;
 
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
 
 @Tag(name = "MenuItemReview")
 @RequestMapping("/api/menuitemreview")
@@ -38,10 +52,33 @@ public class MenuItemReviewController extends ApiController{
     @Autowired
     MenuItemReviewRepository menuItemReviewRepository;
 
+    @Autowired
+    ListRowsRepository listRows;
+
+    @Autowired
+    JsonRowsRepository jsonRows;
+
+    // tells the in-memory review statistics about every write below
+    @Autowired
+    ApplicationEventPublisher events;
+
+    // concurrent GETs for the same id share one findById
+    final SingleFlight<Long, Optional<MenuItemReview>> byIdLoads = new SingleFlight<>("menuitemreviews");
+
+    // ids recently found missing, answered without a query until they expire or are created
+    final NotFoundCache<Long> missingIds = new NotFoundCache<>(MenuItemReview.class);
+
     @Operation(summary= "List all menu item reviews")
     @PreAuthorize("hasRole('ROLE_USER')")
+    @ReadOnly
     @GetMapping("/all")
-    public Iterable<MenuItemReview> allMenuItemReview() {
+    public Object allMenuItemReview(HttpServletRequest request) {
+        if (databaseJsonListReads(request) && jsonRows.isSupported()) {
+            return jsonRows.menuItemReviews();
+        }
+        if (jdbcListReads()) {
+            return listRows.menuItemReviews();
+        }
         Iterable<MenuItemReview> reviews = menuItemReviewRepository.findAll();
         return reviews;
     }
@@ -68,22 +105,50 @@ public class MenuItemReviewController extends ApiController{
         menuItemReview.setComments(comments);
 
         MenuItemReview savedMenuItemReview = menuItemReviewRepository.save(menuItemReview);
+        missingIds.forget(savedMenuItemReview.getId());
+        events.publishEvent(MenuItemReviewsChanged.added(List.of(savedMenuItemReview)));
 
         return savedMenuItemReview;
     }
 
+    @Operation(summary= "Create several menu item reviews at once (JSON, Smile or CBOR body)")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @Bulkhead(BulkheadCategory.ADMIN_WRITE)
+    @PostMapping("/bulk")
+    public Iterable<MenuItemReview> postMenuItemReviews(
+            @RequestBody @Valid List<MenuItemReview> incoming) {
+
+        // ids are always assigned by the database
+        incoming.forEach(review -> review.setId(0));
+
+        Iterable<MenuItemReview> savedReviews = menuItemReviewRepository.saveAll(incoming);
+        savedReviews.forEach(saved -> missingIds.forget(saved.getId()));
+        events.publishEvent(MenuItemReviewsChanged.added(Streamable.of(savedReviews).toList()));
+
+        return savedReviews;
+    }
+
         //get mapping
     @Operation(summary= "Get a single review record")
     @PreAuthorize("hasRole('ROLE_USER')")
     @GetMapping("")
     public MenuItemReview getById(
             @Parameter(name="id") @RequestParam Long id) {
-        MenuItemReview menuItemReview = menuItemReviewRepository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException(MenuItemReview.class, id));
+        missingIds.check(id);
+        MenuItemReview menuItemReview = byIdLoads.load(id, () -> missingIds.find(id, () -> menuItemReviewRepository.findById(id)))
+                .orElseThrow(() -> missingIds.notFound(id));
 
         return menuItemReview;
     }
 
+    @Operation(summary= "Get several menu item reviews at once, in the order asked for")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping(value = "", params = "ids")
+    public BatchResult<MenuItemReview, Long> getByIds(
+            @Parameter(name="ids", description="comma separated ids, at most " + MAX_BATCH_IDS) @RequestParam List<Long> ids) {
+        return findAllById(ids, menuItemReviewRepository, MenuItemReview::getId, missingIds);
+    }
+
 
     //delete mapping
     @Operation(summary= "Delete a MenuItemReview")
@@ -95,6 +160,7 @@ public class MenuItemReviewController extends ApiController{
                 .orElseThrow(() -> new EntityNotFoundException(MenuItemReview.class, id));
 
         menuItemReviewRepository.delete(menuItemReview);
+        events.publishEvent(MenuItemReviewsChanged.removed(menuItemReview));
         return genericMessage("MenuItemReview with id %s deleted".formatted(id));
     }
 
@@ -108,6 +174,7 @@ public class MenuItemReviewController extends ApiController{
 
         MenuItemReview menuItemReview = menuItemReviewRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException(MenuItemReview.class, id));
+        MenuItemReview before = menuItemReview.toBuilder().build();
 
         menuItemReview.setItemid(incoming.getItemid());
         menuItemReview.setReviewerEmail(incoming.getReviewerEmail());
@@ -117,6 +184,7 @@ public class MenuItemReviewController extends ApiController{
 
 
         menuItemReviewRepository.save(menuItemReview);
+        events.publishEvent(MenuItemReviewsChanged.replaced(before, menuItemReview));
 
         return menuItemReview;
     }
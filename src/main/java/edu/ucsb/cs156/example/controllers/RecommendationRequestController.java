@@ -1,8 +1,17 @@
 package edu.ucsb.cs156.example.controllers;
 
+import edu.ucsb.cs156.example.aop.ReadOnly;
+import edu.ucsb.cs156.example.cache.InvalidatingCache;
+import edu.ucsb.cs156.example.cache.NotFoundCache;
+import edu.ucsb.cs156.example.cache.SingleFlight;
 import edu.ucsb.cs156.example.entities.RecommendationRequest;
 import edu.ucsb.cs156.example.entities.UCSBDate;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.models.BatchResult;
+import edu.ucsb.cs156.example.models.Counts;
+import edu.ucsb.cs156.example.repositories.JsonRowsRepository;
+import edu.ucsb.cs156.example.repositories.ListRowsRepository;
+import edu.ucsb.cs156.example.repositories.SelectedFieldsRepository;
 import edu.ucsb.cs156.example.repositories.RecommendationRequestRepository;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -23,9 +32,13 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.validation.Valid;
 
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 @Tag(name = "RecommendationRequests")
 @RequestMapping("/api/recommendationrequests")
@@ -36,12 +49,42 @@ public class RecommendationRequestController extends ApiController {
     @Autowired
     RecommendationRequestRepository recommendationRequestRepository;
 
+    @Autowired
+    ListRowsRepository listRows;
+
+    @Autowired
+    JsonRowsRepository jsonRows;
+
+    @Autowired
+    SelectedFieldsRepository selectedFields;
+
+    // concurrent GETs for the same id share one findById
+    final SingleFlight<Long, Optional<RecommendationRequest>> byIdLoads = new SingleFlight<>("recommendationrequests");
+
+    // ids recently found missing, answered without a query until they expire or are created
+    final NotFoundCache<Long> missingIds = new NotFoundCache<>(RecommendationRequest.class);
+
+    // /count answers, dropped on every write below
+    final InvalidatingCache<String, Counts> countCache = new InvalidatingCache<>();
+
     @Operation(summary= "List all recommendation requests")
     @PreAuthorize("hasRole('ROLE_USER')")
+    @ReadOnly
     @GetMapping("/all")
-    public Iterable<RecommendationRequest> allUCSBDates() {
-        Iterable<RecommendationRequest> dates = recommendationRequestRepository.findAll();
-        return dates;
+    public Object allUCSBDates(
+            @Parameter(name="fields", description="optional comma separated list of fields to return, e.g. id,requesterEmail,dateNeeded") @RequestParam(required = false) List<String> fields,
+            HttpServletRequest request) {
+        if (fields == null) {
+            if (databaseJsonListReads(request) && jsonRows.isSupported()) {
+                return jsonRows.recommendationRequests();
+            }
+            if (jdbcListReads()) {
+                return listRows.recommendationRequests();
+            }
+            Iterable<RecommendationRequest> dates = recommendationRequestRepository.findAll();
+            return dates;
+        }
+        return selectedFields.findAll(RecommendationRequest.class, checkedFields(fields, RecommendationRequest.class));
     }
 
     // private long id;
@@ -52,6 +95,15 @@ public class RecommendationRequestController extends ApiController {
     // LocalDateTime dateNeeded;
     // boolean done;
 
+    @Operation(summary= "Count recommendation requests, optionally per value of done")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/count")
+    public Counts count(
+            @Parameter(name="groupBy", description="optional column to count per value of: done") @RequestParam(required = false) String groupBy) {
+        return cachedCounts(countCache, groupBy, recommendationRequestRepository, Map.of(
+                "done", recommendationRequestRepository::countGroupedByDone));
+    }
+
     @Operation(summary= "Create a new recommendation request")
     @PreAuthorize("hasRole('ROLE_ADMIN')")
     @PostMapping("/post")
@@ -79,6 +131,8 @@ public class RecommendationRequestController extends ApiController {
         recommendationRequest.setDone(done);
 
         RecommendationRequest savedRecommendationRequest = recommendationRequestRepository.save(recommendationRequest);
+        missingIds.forget(savedRecommendationRequest.getId());
+        countCache.invalidate();
 
         return savedRecommendationRequest;
     }
@@ -88,12 +142,21 @@ public class RecommendationRequestController extends ApiController {
     @GetMapping("")
     public RecommendationRequest getById(
             @Parameter(name="id") @RequestParam Long id) {
-        RecommendationRequest recommendationRequest = recommendationRequestRepository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException(RecommendationRequest.class, id));
+        missingIds.check(id);
+        RecommendationRequest recommendationRequest = byIdLoads.load(id, () -> missingIds.find(id, () -> recommendationRequestRepository.findById(id)))
+                .orElseThrow(() -> missingIds.notFound(id));
 
         return recommendationRequest;
     }
 
+    @Operation(summary= "Get several recommendation requests at once, in the order asked for")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping(value = "", params = "ids")
+    public BatchResult<RecommendationRequest, Long> getByIds(
+            @Parameter(name="ids", description="comma separated ids, at most " + MAX_BATCH_IDS) @RequestParam List<Long> ids) {
+        return findAllById(ids, recommendationRequestRepository, RecommendationRequest::getId, missingIds);
+    }
+
     @Operation(summary= "Delete a recommendation request")
     @PreAuthorize("hasRole('ROLE_ADMIN')")
     @DeleteMapping("")
@@ -103,6 +166,7 @@ public class RecommendationRequestController extends ApiController {
                 .orElseThrow(() -> new EntityNotFoundException(RecommendationRequest.class, id));
 
         recommendationRequestRepository.delete(recommendationRequest);
+        countCache.invalidate();
         return genericMessage("RecommendationRequest with id %s deleted".formatted(id));
     }
 
@@ -124,6 +188,7 @@ public class RecommendationRequestController extends ApiController {
         recommendationRequest.setDone(incoming.getDone());
 
         recommendationRequestRepository.save(recommendationRequest);
+        countCache.invalidate();
 
         return recommendationRequest;
     }
@@ -0,0 +1,39 @@
+package edu.ucsb.cs156.example.controllers;
+
+import edu.ucsb.cs156.example.models.ReviewStats;
+import edu.ucsb.cs156.example.services.ReviewAnalyticsService;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Tag(name = "MenuItemReview")
+@RequestMapping("/api/menuitemreview/analytics")
+@RestController
+public class ReviewAnalyticsController extends ApiController {
+
+    @Autowired
+    ReviewAnalyticsService reviewAnalyticsService;
+
+    @Operation(summary= "Count and average stars of menu item reviews per item, reviewer or week")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("")
+    public List<ReviewStats> reviewStats(
+            @Parameter(name="groupBy", description="item, reviewer or week (keyed by the Monday it starts on)") @RequestParam String groupBy,
+            @Parameter(name="itemid", description="optional: only this item's reviews") @RequestParam(required = false) Long itemid,
+            @Parameter(name="from", description="optional: only reviews on or after this day, e.g. 2022-01-03") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @Parameter(name="to", description="optional: only reviews on or before this day") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return reviewAnalyticsService.stats(groupBy, itemid, from, to);
+    }
+}
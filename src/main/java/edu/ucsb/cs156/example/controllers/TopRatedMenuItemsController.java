@@ -0,0 +1,35 @@
+package edu.ucsb.cs156.example.controllers;
+
+import edu.ucsb.cs156.example.models.TopRatedItem;
+import edu.ucsb.cs156.example.services.TopRatedMenuItemsService;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@Tag(name = "UCSBDiningCommonsMenuItem")
+@RequestMapping("/api/ucsbdiningcommonsmenuitem/toprated")
+@RestController
+public class TopRatedMenuItemsController extends ApiController {
+
+    @Autowired
+    TopRatedMenuItemsService topRatedMenuItemsService;
+
+    @Operation(summary= "The best rated menu items of a dining commons, by average stars weighted towards a prior for items with few reviews")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("")
+    public List<TopRatedItem> topRated(
+            @Parameter(name="diningCommonsCode") @RequestParam String diningCommonsCode,
+            @Parameter(name="k", description="how many items, best first") @RequestParam(defaultValue = "10") int k) {
+        return topRatedMenuItemsService.topRated(diningCommonsCode, k);
+    }
+}
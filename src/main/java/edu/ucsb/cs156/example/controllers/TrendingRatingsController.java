@@ -0,0 +1,35 @@
+package edu.ucsb.cs156.example.controllers;
+
+import edu.ucsb.cs156.example.models.TrendingRating;
+import edu.ucsb.cs156.example.services.TrendingRatingsService;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@Tag(name = "MenuItemReview")
+@RequestMapping("/api/menuitemreview/trending")
+@RestController
+public class TrendingRatingsController extends ApiController {
+
+    @Autowired
+    TrendingRatingsService trendingRatingsService;
+
+    @Operation(summary= "Review counts and average stars of menu items over the last 1, 7 and 30 days, most improved first")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("")
+    public List<TrendingRating> trending(
+            @Parameter(name="itemid", description="optional: only this item, whatever its number of reviews") @RequestParam(required = false) Long itemid,
+            @Parameter(name="limit", description="how many items, most improved first") @RequestParam(defaultValue = "10") int limit) {
+        return trendingRatingsService.trending(itemid, limit);
+    }
+}
@@ -1,7 +1,15 @@
 package edu.ucsb.cs156.example.controllers;
 
+import edu.ucsb.cs156.example.cache.InvalidatingCache;
+import edu.ucsb.cs156.example.cache.NotFoundCache;
+import edu.ucsb.cs156.example.cache.SerializedBody;
+import edu.ucsb.cs156.example.cache.SingleFlight;
 import edu.ucsb.cs156.example.entities.UCSBDate;
+import edu.ucsb.cs156.example.errors.BadRequestException;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.models.BatchResult;
+import edu.ucsb.cs156.example.models.Counts;
+import edu.ucsb.cs156.example.models.Quarter;
 import edu.ucsb.cs156.example.repositories.UCSBDateRepository;
 
 import io.swagger.v3.oas.annotations.Operation;
@@ -13,6 +21,7 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -23,9 +32,19 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.validation.Valid;
 
+import java.time.Clock;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 @Tag(name = "UCSBDates")
 @RequestMapping("/api/ucsbdates")
@@ -36,11 +55,88 @@ public class UCSBDatesController extends ApiController {
     @Autowired
     UCSBDateRepository ucsbDateRepository;
 
+    // concurrent GETs for the same id share one findById
+    final SingleFlight<Long, Optional<UCSBDate>> byIdLoads = new SingleFlight<>("ucsbdates");
+
+    // ids recently found missing, answered without a query until they expire or are created
+    final NotFoundCache<Long> missingIds = new NotFoundCache<>(UCSBDate.class);
+
+    // serialized /all body, dropped on every write below
+    final InvalidatingCache<String, SerializedBody> allCache = new InvalidatingCache<>();
+
+    // /count answers, dropped on every write below
+    final InvalidatingCache<String, Counts> countCache = new InvalidatingCache<>();
+
+    // dates of each quarter by quarter key, dropped on every write below
+    final InvalidatingCache<Integer, List<UCSBDate>> quarterCache = new InvalidatingCache<>();
+
+    // what decides the current quarter: the time in Santa Barbara
+    Clock clock = Clock.system(ZoneId.of("America/Los_Angeles"));
+
+    static final int MAX_QUARTERS = 40;
+
     @Operation(summary= "List all ucsb dates")
     @PreAuthorize("hasRole('ROLE_USER')")
     @GetMapping("/all")
-    public Iterable<UCSBDate> allUCSBDates() {
-        Iterable<UCSBDate> dates = ucsbDateRepository.findAll();
+    public ResponseEntity<?> allUCSBDates(HttpServletRequest request) {
+        return cachedJson(allCache, request, () -> ucsbDateRepository.findAll());
+    }
+
+    @Operation(summary= "Count ucsb dates, optionally per value of quarterYYYYQ")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/count")
+    public Counts count(
+            @Parameter(name="groupBy", description="optional column to count per value of: quarterYYYYQ") @RequestParam(required = false) String groupBy) {
+        return cachedCounts(countCache, groupBy, ucsbDateRepository, Map.of(
+                "quarterYYYYQ", ucsbDateRepository::countGroupedByQuarterYYYYQ));
+    }
+
+    @Operation(summary= "List the dates of a range of quarters, by quarter and then time")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/quarters")
+    public List<UCSBDate> datesInQuarters(
+            @Parameter(name="from", description="first quarter, as YYYYQ, e.g. 20221") @RequestParam String from,
+            @Parameter(name="to", description="last quarter, as YYYYQ, at most " + MAX_QUARTERS + " quarters from the first") @RequestParam String to) {
+        Quarter first = Quarter.parse(from);
+        Quarter last = Quarter.parse(to);
+        if (first.key() > last.key()) {
+            throw new BadRequestException("from %s is after to %s".formatted(first, last));
+        }
+        List<Integer> keys = new ArrayList<>();
+        for (Quarter quarter = first; quarter.key() <= last.key(); quarter = quarter.next()) {
+            if (keys.size() == MAX_QUARTERS) {
+                throw new BadRequestException("at most %d quarters at a time".formatted(MAX_QUARTERS));
+            }
+            keys.add(quarter.key());
+        }
+        return datesIn(keys);
+    }
+
+    @Operation(summary= "List the dates of the current quarter, by time",
+            description= "The current quarter is the one in session in Santa Barbara, or between quarters the next one, "
+                    + "using typical UCSB boundaries (Winter from Dec 15, Spring from Mar 25, Summer from Jun 15, Fall from Sep 22); "
+                    + "near a boundary this approximates the registrar's calendar for the year")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/quarters/current")
+    public List<UCSBDate> datesInCurrentQuarter() {
+        return datesIn(List.of(Quarter.containing(LocalDate.now(clock)).key()));
+    }
+
+    private List<UCSBDate> datesIn(List<Integer> quarterKeys) {
+        Map<Integer, List<UCSBDate>> byQuarter = quarterCache.getAll(quarterKeys, missing -> {
+            // one range query over the quarters not cached, split per quarter
+            Map<Integer, List<UCSBDate>> loaded = new HashMap<>();
+            missing.forEach(key -> loaded.put(key, new ArrayList<>()));
+            for (UCSBDate date : ucsbDateRepository.findAllInQuarters(Collections.min(missing), Collections.max(missing))) {
+                List<UCSBDate> dates = loaded.get(date.getQuarterKey());
+                if (dates != null) {
+                    dates.add(date);
+                }
+            }
+            return loaded;
+        });
+        List<UCSBDate> dates = new ArrayList<>();
+        byQuarter.values().forEach(dates::addAll);
         return dates;
     }
 
@@ -58,12 +154,19 @@ public class UCSBDatesController extends ApiController {
 
         log.info("localDateTime={}", localDateTime);
 
+        // refuse strings that name no quarter; the entity encodes it as quarterKey
+        Quarter.parse(quarterYYYYQ);
+
         UCSBDate ucsbDate = new UCSBDate();
         ucsbDate.setQuarterYYYYQ(quarterYYYYQ);
         ucsbDate.setName(name);
         ucsbDate.setLocalDateTime(localDateTime);
 
         UCSBDate savedUcsbDate = ucsbDateRepository.save(ucsbDate);
+        missingIds.forget(savedUcsbDate.getId());
+        allCache.invalidate();
+        countCache.invalidate();
+        quarterCache.invalidate();
 
         return savedUcsbDate;
     }
@@ -73,12 +176,21 @@ public class UCSBDatesController extends ApiController {
     @GetMapping("")
     public UCSBDate getById(
             @Parameter(name="id") @RequestParam Long id) {
-        UCSBDate ucsbDate = ucsbDateRepository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException(UCSBDate.class, id));
+        missingIds.check(id);
+        UCSBDate ucsbDate = byIdLoads.load(id, () -> missingIds.find(id, () -> ucsbDateRepository.findById(id)))
+                .orElseThrow(() -> missingIds.notFound(id));
 
         return ucsbDate;
     }
 
+    @Operation(summary= "Get several ucsb dates at once, in the order asked for")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping(value = "", params = "ids")
+    public BatchResult<UCSBDate, Long> getByIds(
+            @Parameter(name="ids", description="comma separated ids, at most " + MAX_BATCH_IDS) @RequestParam List<Long> ids) {
+        return findAllById(ids, ucsbDateRepository, UCSBDate::getId, missingIds);
+    }
+
     @Operation(summary= "Delete a UCSBDate")
     @PreAuthorize("hasRole('ROLE_ADMIN')")
     @DeleteMapping("")
@@ -88,6 +200,9 @@ public class UCSBDatesController extends ApiController {
                 .orElseThrow(() -> new EntityNotFoundException(UCSBDate.class, id));
 
         ucsbDateRepository.delete(ucsbDate);
+        allCache.invalidate();
+        countCache.invalidate();
+        quarterCache.invalidate();
         return genericMessage("UCSBDate with id %s deleted".formatted(id));
     }
 
@@ -100,12 +215,16 @@ public class UCSBDatesController extends ApiController {
 
         UCSBDate ucsbDate = ucsbDateRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException(UCSBDate.class, id));
+        Quarter.parse(incoming.getQuarterYYYYQ());
 
         ucsbDate.setQuarterYYYYQ(incoming.getQuarterYYYYQ());
         ucsbDate.setName(incoming.getName());
         ucsbDate.setLocalDateTime(incoming.getLocalDateTime());
 
         ucsbDateRepository.save(ucsbDate);
+        allCache.invalidate();
+        countCache.invalidate();
+        quarterCache.invalidate();
 
         return ucsbDate;
     }
@@ -1,7 +1,15 @@
 package edu.ucsb.cs156.example.controllers;
 
+import java.util.List;
+import java.util.Optional;
+
+import edu.ucsb.cs156.example.cache.InvalidatingCache;
+import edu.ucsb.cs156.example.cache.NotFoundCache;
+import edu.ucsb.cs156.example.cache.SerializedBody;
+import edu.ucsb.cs156.example.cache.SingleFlight;
 import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.models.BatchResult;
 import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsRepository;
 
 import io.swagger.v3.oas.annotations.Operation;
@@ -10,6 +18,7 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.extern.slf4j.Slf4j;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -20,6 +29,7 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.validation.Valid;
 
 @Tag(name = "UCSBDiningCommons")
@@ -31,12 +41,20 @@ public class UCSBDiningCommonsController extends ApiController {
     @Autowired
     UCSBDiningCommonsRepository ucsbDiningCommonsRepository;
 
+    // concurrent GETs for the same id share one findById
+    final SingleFlight<String, Optional<UCSBDiningCommons>> byIdLoads = new SingleFlight<>("ucsbdiningcommons");
+
+    // ids recently found missing, answered without a query until they expire or are created
+    final NotFoundCache<String> missingIds = new NotFoundCache<>(UCSBDiningCommons.class);
+
+    // serialized /all body, dropped on every write below
+    final InvalidatingCache<String, SerializedBody> allCache = new InvalidatingCache<>();
+
     @Operation(summary= "List all ucsb dining commons")
     @PreAuthorize("hasRole('ROLE_USER')")
     @GetMapping("/all")
-    public Iterable<UCSBDiningCommons> allCommonss() {
-        Iterable<UCSBDiningCommons> commons = ucsbDiningCommonsRepository.findAll();
-        return commons;
+    public ResponseEntity<?> allCommonss(HttpServletRequest request) {
+        return cachedJson(allCache, request, () -> ucsbDiningCommonsRepository.findAll());
     }
 
     @Operation(summary= "Create a new commons")
@@ -63,6 +81,8 @@ public class UCSBDiningCommonsController extends ApiController {
         commons.setLongitude(longitude);
 
         UCSBDiningCommons savedCommons = ucsbDiningCommonsRepository.save(commons);
+        missingIds.forget(code);
+        allCache.invalidate();
 
         return savedCommons;
     }
@@ -72,12 +92,21 @@ public class UCSBDiningCommonsController extends ApiController {
     @GetMapping("")
     public UCSBDiningCommons getById(
             @Parameter(name="code") @RequestParam String code) {
-        UCSBDiningCommons commons = ucsbDiningCommonsRepository.findById(code)
-                .orElseThrow(() -> new EntityNotFoundException(UCSBDiningCommons.class, code));
+        missingIds.check(code);
+        UCSBDiningCommons commons = byIdLoads.load(code, () -> missingIds.find(code, () -> ucsbDiningCommonsRepository.findById(code)))
+                .orElseThrow(() -> missingIds.notFound(code));
 
         return commons;
     }
 
+    @Operation(summary= "Get several dining commons at once, in the order asked for")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping(value = "", params = "codes")
+    public BatchResult<UCSBDiningCommons, String> getByIds(
+            @Parameter(name="codes", description="comma separated codes, at most " + MAX_BATCH_IDS) @RequestParam List<String> codes) {
+        return findAllById(codes, ucsbDiningCommonsRepository, UCSBDiningCommons::getCode, missingIds);
+    }
+
     @Operation(summary= "Delete a UCSBDiningCommons")
     @PreAuthorize("hasRole('ROLE_ADMIN')")
     @DeleteMapping("")
@@ -87,6 +116,7 @@ public class UCSBDiningCommonsController extends ApiController {
                 .orElseThrow(() -> new EntityNotFoundException(UCSBDiningCommons.class, code));
 
         ucsbDiningCommonsRepository.delete(commons);
+        allCache.invalidate();
         return genericMessage("UCSBDiningCommons with id %s deleted".formatted(code));
     }
 
@@ -109,6 +139,7 @@ public class UCSBDiningCommonsController extends ApiController {
         commons.setLongitude(incoming.getLongitude());
 
         ucsbDiningCommonsRepository.save(commons);
+        allCache.invalidate();
 
         return commons;
     }
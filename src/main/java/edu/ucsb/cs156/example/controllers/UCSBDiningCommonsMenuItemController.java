@@ -1,8 +1,18 @@
 package edu.ucsb.cs156.example.controllers;
 
+import edu.ucsb.cs156.example.aop.ReadOnly;
+import edu.ucsb.cs156.example.cache.InvalidatingCache;
+import edu.ucsb.cs156.example.cache.NotFoundCache;
+import edu.ucsb.cs156.example.cache.SingleFlight;
 import edu.ucsb.cs156.example.controllers.ApiController;
 import edu.ucsb.cs156.example.entities.UCSBDiningCommonsMenuItem;
+import edu.ucsb.cs156.example.errors.BadRequestException;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.events.MenuItemsChanged;
+import edu.ucsb.cs156.example.models.BatchResult;
+import edu.ucsb.cs156.example.models.Counts;
+import edu.ucsb.cs156.example.models.MenuItemRating;
+import edu.ucsb.cs156.example.models.StationRatings;
 import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsMenuItemRepository;
 
 import io.swagger.v3.oas.annotations.Operation;
@@ -13,6 +23,7 @@ import lombok.extern.slf4j.Slf4j;
 import com.fasterxml.jackson.core.JsonProcessingException;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -27,6 +38,11 @@ import org.springframework.web.bind.annotation.RestController;
 import javax.validation.Valid;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 @Tag(name = "UCSBDiningCommonsMenuItem")
 @RequestMapping("/api/ucsbdiningcommonsmenuitem")
@@ -34,17 +50,64 @@ import java.time.LocalDateTime;
 @Slf4j
 public class UCSBDiningCommonsMenuItemController extends ApiController{
 
+    static final int MAX_STATIONS_PAGE = 100;
+
     @Autowired
     UCSBDiningCommonsMenuItemRepository ucsbDiningCommonsMenuItemRepository;
 
+    // tells the in-memory top rated rankings about every write below
+    @Autowired
+    ApplicationEventPublisher events;
+
+    // concurrent GETs for the same id share one findById
+    final SingleFlight<Long, Optional<UCSBDiningCommonsMenuItem>> byIdLoads = new SingleFlight<>("ucsbdiningcommonsmenuitems");
+
+    // ids recently found missing, answered without a query until they expire or are created
+    final NotFoundCache<Long> missingIds = new NotFoundCache<>(UCSBDiningCommonsMenuItem.class);
+
+    // /count answers, dropped on every write below
+    final InvalidatingCache<String, Counts> countCache = new InvalidatingCache<>();
+
     @Operation(summary= "List all ucsb dining commons menu items")
     @PreAuthorize("hasRole('ROLE_USER')")
+    @ReadOnly
     @GetMapping("/all")
     public Iterable<UCSBDiningCommonsMenuItem> allUCSBDiningCommonsMenuItems() {
         Iterable<UCSBDiningCommonsMenuItem> items = ucsbDiningCommonsMenuItemRepository.findAll();
         return items;
     }
 
+    @Operation(summary= "List a dining commons' menu items with their review counts and average stars, a page of stations at a time",
+            description= "Items without a station are listed under a station of null, after every named station")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/ratings")
+    public List<StationRatings> ratingsByStation(
+            @Parameter(name="diningCommonsCode") @RequestParam String diningCommonsCode,
+            @Parameter(name="page", description="zero based page of stations, in station order") @RequestParam(defaultValue = "0") int page,
+            @Parameter(name="size", description="stations per page, at most " + MAX_STATIONS_PAGE) @RequestParam(defaultValue = "10") int size) {
+        if (page < 0 || size < 1 || size > MAX_STATIONS_PAGE) {
+            throw new BadRequestException("page must be at least 0 and size between 1 and " + MAX_STATIONS_PAGE);
+        }
+
+        Map<String, List<MenuItemRating>> byStation = new LinkedHashMap<>();
+        for (MenuItemRating rating : ucsbDiningCommonsMenuItemRepository.findRatingsByStation(diningCommonsCode, size, (long) page * size)) {
+            byStation.computeIfAbsent(rating.getStation(), station -> new ArrayList<>()).add(rating);
+        }
+
+        List<StationRatings> stations = new ArrayList<>(byStation.size());
+        byStation.forEach((station, items) -> stations.add(new StationRatings(station, items)));
+        return stations;
+    }
+
+    @Operation(summary= "Count menu items, optionally per value of diningCommonsCode")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/count")
+    public Counts count(
+            @Parameter(name="groupBy", description="optional column to count per value of: diningCommonsCode") @RequestParam(required = false) String groupBy) {
+        return cachedCounts(countCache, groupBy, ucsbDiningCommonsMenuItemRepository, Map.of(
+                "diningCommonsCode", ucsbDiningCommonsMenuItemRepository::countGroupedByDiningCommonsCode));
+    }
+
     @Operation(summary= "Create a dining commons menu item")
     @PreAuthorize("hasRole('ROLE_ADMIN')")
     @PostMapping("/post")
@@ -59,6 +122,9 @@ public class UCSBDiningCommonsMenuItemController extends ApiController{
         ucsbDiningCommonsMenuItem.setStation(station);
 
         UCSBDiningCommonsMenuItem savedUcsbDiningCommonsMenuItem = ucsbDiningCommonsMenuItemRepository.save(ucsbDiningCommonsMenuItem);
+        missingIds.forget(savedUcsbDiningCommonsMenuItem.getId());
+        countCache.invalidate();
+        events.publishEvent(MenuItemsChanged.added(savedUcsbDiningCommonsMenuItem));
 
         return savedUcsbDiningCommonsMenuItem;
     }
@@ -68,12 +134,21 @@ public class UCSBDiningCommonsMenuItemController extends ApiController{
     @GetMapping("")
     public UCSBDiningCommonsMenuItem getById(
             @Parameter(name="id") @RequestParam Long id) {
-        UCSBDiningCommonsMenuItem ucsbDiningCommonsMenuItem = ucsbDiningCommonsMenuItemRepository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException(UCSBDiningCommonsMenuItem.class, id));
+        missingIds.check(id);
+        UCSBDiningCommonsMenuItem ucsbDiningCommonsMenuItem = byIdLoads.load(id, () -> missingIds.find(id, () -> ucsbDiningCommonsMenuItemRepository.findById(id)))
+                .orElseThrow(() -> missingIds.notFound(id));
 
         return ucsbDiningCommonsMenuItem;
     }
 
+    @Operation(summary= "Get several ucsb dining menu items at once, in the order asked for")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping(value = "", params = "ids")
+    public BatchResult<UCSBDiningCommonsMenuItem, Long> getByIds(
+            @Parameter(name="ids", description="comma separated ids, at most " + MAX_BATCH_IDS) @RequestParam List<Long> ids) {
+        return findAllById(ids, ucsbDiningCommonsMenuItemRepository, UCSBDiningCommonsMenuItem::getId, missingIds);
+    }
+
     @Operation(summary= "Delete a UCSBDiningCommonsMenuItem")
     @PreAuthorize("hasRole('ROLE_ADMIN')")
     @DeleteMapping("")
@@ -83,6 +158,8 @@ public class UCSBDiningCommonsMenuItemController extends ApiController{
                 .orElseThrow(() -> new EntityNotFoundException(UCSBDiningCommonsMenuItem.class, id));
 
         ucsbDiningCommonsMenuItemRepository.delete(ucsbDiningCommonsMenuItem);
+        countCache.invalidate();
+        events.publishEvent(MenuItemsChanged.removed(ucsbDiningCommonsMenuItem));
         return genericMessage("UCSBDiningCommonsMenuItem with id %s deleted".formatted(id));
     }
 
@@ -95,12 +172,15 @@ public class UCSBDiningCommonsMenuItemController extends ApiController{
 
         UCSBDiningCommonsMenuItem ucsbDiningCommonsMenuItem = ucsbDiningCommonsMenuItemRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException(UCSBDiningCommonsMenuItem.class, id));
+        UCSBDiningCommonsMenuItem before = ucsbDiningCommonsMenuItem.toBuilder().build();
 
         ucsbDiningCommonsMenuItem.setDiningCommonsCode(incoming.getDiningCommonsCode());
         ucsbDiningCommonsMenuItem.setName(incoming.getName());
         ucsbDiningCommonsMenuItem.setStation(incoming.getStation());
 
         ucsbDiningCommonsMenuItemRepository.save(ucsbDiningCommonsMenuItem);
+        countCache.invalidate();
+        events.publishEvent(MenuItemsChanged.replaced(before, ucsbDiningCommonsMenuItem));
 
         return ucsbDiningCommonsMenuItem;
     }
@@ -1,7 +1,17 @@
 package edu.ucsb.cs156.example.controllers;
 
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import edu.ucsb.cs156.example.cache.InvalidatingCache;
+import edu.ucsb.cs156.example.cache.NotFoundCache;
+import edu.ucsb.cs156.example.cache.SerializedBody;
+import edu.ucsb.cs156.example.cache.SingleFlight;
 import edu.ucsb.cs156.example.entities.UCSBOrganization;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.models.BatchResult;
+import edu.ucsb.cs156.example.models.Counts;
 import edu.ucsb.cs156.example.repositories.UCSBOrganizationRepository;
 
 import io.swagger.v3.oas.annotations.Operation;
@@ -10,6 +20,7 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.extern.slf4j.Slf4j;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -20,6 +31,7 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.validation.Valid;
 
 @Tag(name = "UCSBOrganization")
@@ -31,12 +43,32 @@ public class UCSBOrganizationController extends ApiController {
     @Autowired
     UCSBOrganizationRepository ucsbOrganizationRepository;
 
+    // concurrent GETs for the same id share one findById
+    final SingleFlight<String, Optional<UCSBOrganization>> byIdLoads = new SingleFlight<>("ucsborganizations");
+
+    // ids recently found missing, answered without a query until they expire or are created
+    final NotFoundCache<String> missingIds = new NotFoundCache<>(UCSBOrganization.class);
+
+    // serialized /all body, dropped on every write below
+    final InvalidatingCache<String, SerializedBody> allCache = new InvalidatingCache<>();
+
+    // /count answers, dropped on every write below
+    final InvalidatingCache<String, Counts> countCache = new InvalidatingCache<>();
+
     @Operation(summary= "List all UCSB Organizations")
     @PreAuthorize("hasRole('ROLE_USER')")
     @GetMapping("/all")
-    public Iterable<UCSBOrganization> allCommonss() {
-        Iterable<UCSBOrganization> commons = ucsbOrganizationRepository.findAll();
-        return commons;
+    public ResponseEntity<?> allCommonss(HttpServletRequest request) {
+        return cachedJson(allCache, request, () -> ucsbOrganizationRepository.findAll());
+    }
+
+    @Operation(summary= "Count organizations, optionally per value of inactive")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/count")
+    public Counts count(
+            @Parameter(name="groupBy", description="optional column to count per value of: inactive") @RequestParam(required = false) String groupBy) {
+        return cachedCounts(countCache, groupBy, ucsbOrganizationRepository, Map.of(
+                "inactive", ucsbOrganizationRepository::countGroupedByInactive));
     }
 
     @Operation(summary= "Create a new organization")
@@ -57,6 +89,9 @@ public class UCSBOrganizationController extends ApiController {
         commons.setInactive(inactive);
 
         UCSBOrganization savedCommons = ucsbOrganizationRepository.save(commons);
+        missingIds.forget(orgcode);
+        allCache.invalidate();
+        countCache.invalidate();
 
         return savedCommons;
     }
@@ -66,12 +101,21 @@ public class UCSBOrganizationController extends ApiController {
     @GetMapping("")
     public UCSBOrganization getById(
             @Parameter(name="orgcode") @RequestParam String orgcode) {
-        UCSBOrganization commons = ucsbOrganizationRepository.findById(orgcode)
-                .orElseThrow(() -> new EntityNotFoundException(UCSBOrganization.class, orgcode));
+        missingIds.check(orgcode);
+        UCSBOrganization commons = byIdLoads.load(orgcode, () -> missingIds.find(orgcode, () -> ucsbOrganizationRepository.findById(orgcode)))
+                .orElseThrow(() -> missingIds.notFound(orgcode));
 
         return commons;
     }
 
+    @Operation(summary= "Get several organizations at once, in the order asked for")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping(value = "", params = "orgcodes")
+    public BatchResult<UCSBOrganization, String> getByIds(
+            @Parameter(name="orgcodes", description="comma separated orgcodes, at most " + MAX_BATCH_IDS) @RequestParam List<String> orgcodes) {
+        return findAllById(orgcodes, ucsbOrganizationRepository, UCSBOrganization::getOrgcode, missingIds);
+    }
+
     @Operation(summary= "Delete a UCSBOrganization")
     @PreAuthorize("hasRole('ROLE_ADMIN')")
     @DeleteMapping("")
@@ -81,6 +125,8 @@ public class UCSBOrganizationController extends ApiController {
                 .orElseThrow(() -> new EntityNotFoundException(UCSBOrganization.class, orgcode));
 
         ucsbOrganizationRepository.delete(commons);
+        allCache.invalidate();
+        countCache.invalidate();
         return genericMessage("UCSBOrganization with id %s deleted".formatted(orgcode));
     }
 
@@ -100,6 +146,8 @@ public class UCSBOrganizationController extends ApiController {
         commons.setInactive(incoming.getInactive());
 
         ucsbOrganizationRepository.save(commons);
+        allCache.invalidate();
+        countCache.invalidate();
 
         return commons;
     }
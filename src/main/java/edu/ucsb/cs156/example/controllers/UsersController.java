@@ -1,38 +1,118 @@
 package edu.ucsb.cs156.example.controllers;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.http.ResponseEntity;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.MediaType;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import edu.ucsb.cs156.example.bulkhead.Bulkhead;
+import edu.ucsb.cs156.example.bulkhead.BulkheadCategory;
 import edu.ucsb.cs156.example.entities.User;
+import edu.ucsb.cs156.example.errors.BadRequestException;
+import edu.ucsb.cs156.example.models.JsonRows;
+import edu.ucsb.cs156.example.repositories.JsonRowsRepository;
 import edu.ucsb.cs156.example.repositories.UserRepository;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 
+import javax.annotation.PostConstruct;
+import javax.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
 
 @Tag(name="User information (admin only)")
 @RequestMapping("/api/admin/users")
 @RestController
 public class UsersController extends ApiController {
+    static final int MAX_PAGE_SIZE = 1000;
+
+    // users read per query when listing them all
+    static final int BATCH_ROWS = 500;
+
     @Autowired
     UserRepository userRepository;
 
+    @Autowired
+    JsonRowsRepository jsonRows;
+
     @Autowired
     ObjectMapper mapper;
 
+    private ObjectWriter userWriter;
+
+    @PostConstruct
+    void initUserWriter() {
+        // Built once: resolves the User serializer up front and leaves the
+        // servlet stream open so the container can finish the response.
+        userWriter = mapper.writerFor(User.class)
+            .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    }
+
     @Operation(summary= "Get a list of all users")
     @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @Bulkhead(BulkheadCategory.EXPORT)
     @GetMapping("")
-    public ResponseEntity<String> users()
-            throws JsonProcessingException {
-        Iterable<User> users = userRepository.findAll();
-        String body = mapper.writeValueAsString(users);
-        return ResponseEntity.ok().body(body);
+    public void users(
+            @Parameter(name="page", description="zero based page number; omit for all users") @RequestParam(required = false) Integer page,
+            @Parameter(name="size", description="page size, at most " + MAX_PAGE_SIZE + ", default 100; only together with page") @RequestParam(required = false) Integer size,
+            @Parameter(name="admin", description="if given, only users whose admin flag matches") @RequestParam(required = false) Boolean admin,
+            HttpServletResponse response)
+            throws IOException {
+        if (page == null && size != null) {
+            throw new BadRequestException("size may only be given together with page");
+        }
+        int pageSize = (size == null) ? 100 : size;
+        if (page != null && (page < 0 || pageSize < 1 || pageSize > MAX_PAGE_SIZE)) {
+            throw new BadRequestException("page must be at least 0 and size between 1 and " + MAX_PAGE_SIZE);
+        }
+
+        if (databaseJsonListReads() && jsonRows.isSupported()) {
+            JsonRows rows = (page == null) ? jsonRows.users(admin) : jsonRows.usersPage(admin, page, pageSize);
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+            rows.writeTo(response.getOutputStream());
+            return;
+        }
+
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        try (SequenceWriter out = userWriter.writeValuesAsArray(response.getOutputStream())) {
+            if (page != null) {
+                Pageable pageable = PageRequest.of(page, pageSize, Sort.by("id"));
+                for (User user : (admin == null) ? userRepository.findAll(pageable) : userRepository.findAllByAdmin(admin, pageable)) {
+                    out.write(user);
+                }
+                return;
+            }
+
+            // every user, a keyset slice at a time, so neither the whole table
+            // nor a connection is held while the response is written
+            Pageable batch = PageRequest.of(0, BATCH_ROWS, Sort.by("id"));
+            long after = Long.MIN_VALUE;
+            Slice<User> slice;
+            do {
+                slice = (admin == null) ? userRepository.findAllByIdGreaterThan(after, batch)
+                        : userRepository.findAllByAdminAndIdGreaterThan(admin, after, batch);
+                for (User user : slice) {
+                    out.write(user);
+                    after = user.getId();
+                }
+            } while (slice.hasNext());
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,166 @@
+package edu.ucsb.cs156.example.converters;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.introspect.BeanPropertyDefinition;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Writes a list of rows as one column-oriented JSON document instead of an
+ * array of objects, so every field name appears once:
+ *
+ * <pre>
+ * {"version":2,"count":2,"dates":["dateReviewed"],
+ *  "columns":{"id":[1,2],"stars":[5,3],"dateReviewed":[1641168000000,1646956800000]}}
+ * </pre>
+ *
+ * LocalDateTime values are sent as epoch milliseconds (read as UTC) and listed
+ * in "dates" so the client knows which columns to convert back. Rows are
+ * serialized with a copy of the application ObjectMapper, so the columns are
+ * exactly the fields of the regular JSON response.
+ *
+ * The media type deliberately has no +json suffix: the regular Jackson
+ * converter claims application/*+json and would answer with plain JSON.
+ */
+public class ColumnarJsonHttpMessageConverter extends AbstractHttpMessageConverter<Iterable<?>> {
+
+  public static final MediaType COLUMNAR_JSON = MediaType.parseMediaType("application/vnd.ucsb.columnar.v2.json");
+
+  private final ObjectMapper mapper;
+
+  private final Map<Class<?>, Set<String>> dateProperties = new ConcurrentHashMap<>();
+
+  public ColumnarJsonHttpMessageConverter(ObjectMapper mapper) {
+    super(COLUMNAR_JSON);
+    this.mapper = mapper.copy().registerModule(new SimpleModule()
+        .addSerializer(LocalDateTime.class, new EpochMillisSerializer()));
+  }
+
+  @Override
+  protected boolean supports(Class<?> clazz) {
+    return Iterable.class.isAssignableFrom(clazz);
+  }
+
+  @Override
+  public boolean canRead(Class<?> clazz, MediaType mediaType) {
+    return false;
+  }
+
+  @Override
+  protected Iterable<?> readInternal(Class<? extends Iterable<?>> clazz, HttpInputMessage inputMessage) {
+    throw new HttpMessageNotReadableException("Columnar JSON is a response-only format", inputMessage);
+  }
+
+  @Override
+  protected void writeInternal(Iterable<?> rows, HttpOutputMessage outputMessage) throws IOException {
+    Map<String, ArrayNode> columns = new LinkedHashMap<>();
+    Set<String> dates = new LinkedHashSet<>();
+    int count = 0;
+
+    for (Object row : rows) {
+      JsonNode node = mapper.valueToTree(row);
+      if (!node.isObject()) {
+        throw new HttpMessageNotWritableException(
+            "Columnar JSON needs object rows, got %s".formatted(node.getNodeType()));
+      }
+      dates.addAll(dateFieldsOf(row));
+
+      for (Iterator<Map.Entry<String, JsonNode>> it = node.fields(); it.hasNext();) {
+        Map.Entry<String, JsonNode> field = it.next();
+        columnFor(columns, field.getKey(), count).add(field.getValue());
+      }
+      count++;
+      // keep columns aligned when a row lacks a field the others have
+      for (ArrayNode column : columns.values()) {
+        while (column.size() < count) {
+          column.addNull();
+        }
+      }
+    }
+
+    try (JsonGenerator gen = mapper.getFactory().createGenerator(outputMessage.getBody(), JsonEncoding.UTF8)) {
+      gen.writeStartObject();
+      gen.writeNumberField("version", 2);
+      gen.writeNumberField("count", count);
+      gen.writeArrayFieldStart("dates");
+      for (String date : dates) {
+        gen.writeString(date);
+      }
+      gen.writeEndArray();
+      gen.writeObjectFieldStart("columns");
+      for (Map.Entry<String, ArrayNode> column : columns.entrySet()) {
+        gen.writeFieldName(column.getKey());
+        mapper.writeTree(gen, column.getValue());
+      }
+      gen.writeEndObject();
+      gen.writeEndObject();
+    }
+  }
+
+  private static class EpochMillisSerializer extends StdSerializer<LocalDateTime> {
+    EpochMillisSerializer() {
+      super(LocalDateTime.class);
+    }
+
+    @Override
+    public void serialize(LocalDateTime value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+      gen.writeNumber(value.toInstant(ZoneOffset.UTC).toEpochMilli());
+    }
+  }
+
+  private static ArrayNode columnFor(Map<String, ArrayNode> columns, String name, int rowsSoFar) {
+    return columns.computeIfAbsent(name, n -> {
+      ArrayNode column = JsonNodeFactory.instance.arrayNode();
+      for (int i = 0; i < rowsSoFar; i++) {
+        column.addNull();
+      }
+      return column;
+    });
+  }
+
+  private Set<String> dateFieldsOf(Object row) {
+    if (row instanceof Map<?, ?> map) {
+      Set<String> result = new LinkedHashSet<>();
+      map.forEach((key, value) -> {
+        if (value instanceof LocalDateTime) {
+          result.add(key.toString());
+        }
+      });
+      return result;
+    }
+    return dateProperties.computeIfAbsent(row.getClass(), type -> {
+      BeanDescription description = mapper.getSerializationConfig().introspect(mapper.constructType(type));
+      Set<String> result = new LinkedHashSet<>();
+      for (BeanPropertyDefinition property : description.findProperties()) {
+        if (LocalDateTime.class.equals(property.getRawPrimaryType())) {
+          result.add(property.getName());
+        }
+      }
+      return result;
+    });
+  }
+}
@@ -0,0 +1,43 @@
+package edu.ucsb.cs156.example.converters;
+
+import edu.ucsb.cs156.example.models.JsonRows;
+
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes {@link JsonRows} bodies as they are, without Jackson. Handlers only
+ * return them when the client asked for JSON.
+ */
+public class JsonRowsHttpMessageConverter extends AbstractHttpMessageConverter<JsonRows> {
+
+  public JsonRowsHttpMessageConverter() {
+    super(StandardCharsets.UTF_8, MediaType.APPLICATION_JSON);
+  }
+
+  @Override
+  protected boolean supports(Class<?> clazz) {
+    return JsonRows.class.isAssignableFrom(clazz);
+  }
+
+  @Override
+  public boolean canRead(Class<?> clazz, MediaType mediaType) {
+    return false;
+  }
+
+  @Override
+  protected JsonRows readInternal(Class<? extends JsonRows> clazz, HttpInputMessage inputMessage) {
+    throw new HttpMessageNotReadableException("Database JSON is a response-only format", inputMessage);
+  }
+
+  @Override
+  protected void writeInternal(JsonRows rows, HttpOutputMessage outputMessage) throws IOException {
+    rows.writeTo(outputMessage.getBody());
+  }
+}
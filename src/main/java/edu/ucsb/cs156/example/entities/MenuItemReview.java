@@ -6,6 +6,8 @@ import javax.persistence.Entity;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.GeneratedValue;
+import javax.persistence.Index;
+import javax.persistence.Table;
 
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -15,14 +17,18 @@ import lombok.Builder;
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
-@Builder
+@Builder(toBuilder = true)
 
 @Entity(name = "menuitemreviews")
+@Table(indexes = @Index(columnList = "itemid"))
 public class MenuItemReview {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private long id;
 
+    // no foreign key to ucsbdiningcommonsmenuitem: nothing checks itemid
+    // when a review is written and items can be deleted under their
+    // reviews, so existing rows may name items that don't exist
     private long itemid;
     private String reviewerEmail;
     private int stars;
@@ -5,7 +5,15 @@ import java.time.LocalDateTime;
 import javax.persistence.Entity;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.GeneratedValue;
+import javax.persistence.PrePersist;
+import javax.persistence.PreUpdate;
+import javax.persistence.Table;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import edu.ucsb.cs156.example.models.Quarter;
 
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -17,6 +25,7 @@ import lombok.Builder;
 @NoArgsConstructor
 @Builder
 @Entity(name = "ucsbdates")
+@Table(indexes = @Index(columnList = "quarterKey"))
 public class UCSBDate {
   @Id
   @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -25,4 +34,15 @@ public class UCSBDate {
   private String quarterYYYYQ;
   private String name;  
   private LocalDateTime localDateTime;
+
+  // quarterYYYYQ as a number (20224 for Fall 2022), for indexed range
+  // queries; null while the string names no quarter
+  @JsonIgnore
+  private Integer quarterKey;
+
+  @PrePersist
+  @PreUpdate
+  void encodeQuarter() {
+    quarterKey = Quarter.keyOrNull(quarterYYYYQ);
+  }
 }
\ No newline at end of file
@@ -2,6 +2,8 @@ package edu.ucsb.cs156.example.entities;
 
 import javax.persistence.Entity;
 import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
 
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -13,8 +15,9 @@ import lombok.Builder;
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
-@Builder
+@Builder(toBuilder = true)
 @Entity(name = "ucsbdiningcommonsmenuitem")
+@Table(indexes = @Index(columnList = "diningCommonsCode, station"))
 public class UCSBDiningCommonsMenuItem {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
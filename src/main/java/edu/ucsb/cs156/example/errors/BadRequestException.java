@@ -0,0 +1,12 @@
+package edu.ucsb.cs156.example.errors;
+
+/**
+ * A request the client got wrong, such as an unknown field name or a
+ * parameter out of range; answered with 400 and this message, which is
+ * written for the client to read.
+ */
+public class BadRequestException extends RuntimeException {
+  public BadRequestException(String message) {
+    super(message);
+  }
+}
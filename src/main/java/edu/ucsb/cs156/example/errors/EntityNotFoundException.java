@@ -2,7 +2,23 @@ package edu.ucsb.cs156.example.errors;
 
 public class EntityNotFoundException extends RuntimeException {
   public EntityNotFoundException(Class<?> entityType, Object id) {
-    super("%s with id %s not found"
-      .formatted(entityType.getSimpleName(), id.toString()));
+    super(message(entityType, id));
+  }
+
+  private EntityNotFoundException(String message, boolean writableStackTrace) {
+    super(message, null, false, writableStackTrace);
+  }
+
+  /**
+   * Same exception and message, without filling in a stack trace. Used on
+   * lookup paths where missing ids are routine and the trace is never read.
+   */
+  public static EntityNotFoundException stackless(Class<?> entityType, Object id) {
+    return new EntityNotFoundException(message(entityType, id), false);
+  }
+
+  private static String message(Class<?> entityType, Object id) {
+    return "%s with id %s not found"
+      .formatted(entityType.getSimpleName(), id.toString());
   }
 }
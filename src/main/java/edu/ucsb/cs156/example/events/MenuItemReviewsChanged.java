@@ -0,0 +1,26 @@
+package edu.ucsb.cs156.example.events;
+
+import edu.ucsb.cs156.example.entities.MenuItemReview;
+
+import java.util.List;
+
+/**
+ * Published by MenuItemReviewController once reviews have been saved or
+ * deleted, so the in-memory review statistics can follow the write without
+ * rereading the table: {@code removed} holds the reviews as they were
+ * before it, {@code added} as they are after it, and an update is in both.
+ */
+public record MenuItemReviewsChanged(List<MenuItemReview> removed, List<MenuItemReview> added) {
+
+  public static MenuItemReviewsChanged added(List<MenuItemReview> reviews) {
+    return new MenuItemReviewsChanged(List.of(), reviews);
+  }
+
+  public static MenuItemReviewsChanged removed(MenuItemReview review) {
+    return new MenuItemReviewsChanged(List.of(review), List.of());
+  }
+
+  public static MenuItemReviewsChanged replaced(MenuItemReview before, MenuItemReview after) {
+    return new MenuItemReviewsChanged(List.of(before), List.of(after));
+  }
+}
@@ -0,0 +1,26 @@
+package edu.ucsb.cs156.example.events;
+
+import edu.ucsb.cs156.example.entities.UCSBDiningCommonsMenuItem;
+
+import java.util.List;
+
+/**
+ * Published by UCSBDiningCommonsMenuItemController once a menu item has
+ * been saved or deleted, so in-memory rankings can follow the write without
+ * rereading the table: {@code removed} holds the items as they were before
+ * it, {@code added} as they are after it, and an update is in both.
+ */
+public record MenuItemsChanged(List<UCSBDiningCommonsMenuItem> removed, List<UCSBDiningCommonsMenuItem> added) {
+
+  public static MenuItemsChanged added(UCSBDiningCommonsMenuItem item) {
+    return new MenuItemsChanged(List.of(), List.of(item));
+  }
+
+  public static MenuItemsChanged removed(UCSBDiningCommonsMenuItem item) {
+    return new MenuItemsChanged(List.of(item), List.of());
+  }
+
+  public static MenuItemsChanged replaced(UCSBDiningCommonsMenuItem before, UCSBDiningCommonsMenuItem after) {
+    return new MenuItemsChanged(List.of(before), List.of(after));
+  }
+}
@@ -0,0 +1,129 @@
+package edu.ucsb.cs156.example.health;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.AbstractHealthIndicator;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.LongSupplier;
+
+/**
+ * Readiness check that reports {@link #DEGRADED} when the database has
+ * recently been slow to answer or requests are queueing for connections,
+ * so the load balancer can steer traffic to other instances before this one
+ * times out. DEGRADED is mapped to 503 in application.properties.
+ *
+ * The latency is the time to take a connection from the pool plus a
+ * {@link Connection#isValid(int)} round trip on it, so a starved pool shows
+ * up as well as a slow database. It is measured at most once per probe
+ * interval and smoothed as an exponentially weighted moving average. The
+ * pending count is the number of threads currently waiting on the Hikari
+ * pool(s), summed over the bulkhead pools when those are enabled. A failing
+ * probe reports DOWN.
+ */
+@Component("databaseLatency")
+public class DatabaseLatencyHealthIndicator extends AbstractHealthIndicator {
+
+  public static final Status DEGRADED = new Status("DEGRADED");
+
+  private static final double ALPHA = 0.3;
+
+  private final DataSource dataSource;
+  private final long latencyThresholdNanos;
+  private final int pendingThreadsThreshold;
+  private final long probeIntervalNanos;
+  private final LongSupplier nanoClock;
+
+  private double averageLatencyNanos = -1;
+  private long lastProbeNanos;
+
+  @Autowired
+  public DatabaseLatencyHealthIndicator(DataSource dataSource,
+      @Value("${app.health.db.latency-threshold-ms:250}") long latencyThresholdMillis,
+      @Value("${app.health.db.pending-threads-threshold:5}") int pendingThreadsThreshold,
+      @Value("${app.health.db.probe-interval-ms:1000}") long probeIntervalMillis) {
+    this(dataSource, latencyThresholdMillis, pendingThreadsThreshold, probeIntervalMillis, System::nanoTime);
+  }
+
+  DatabaseLatencyHealthIndicator(DataSource dataSource, long latencyThresholdMillis,
+      int pendingThreadsThreshold, long probeIntervalMillis, LongSupplier nanoClock) {
+    super("Database latency check failed");
+    this.dataSource = dataSource;
+    this.latencyThresholdNanos = latencyThresholdMillis * 1_000_000;
+    this.pendingThreadsThreshold = pendingThreadsThreshold;
+    this.probeIntervalNanos = probeIntervalMillis * 1_000_000;
+    this.nanoClock = nanoClock;
+  }
+
+  @Override
+  protected void doHealthCheck(Health.Builder builder) throws Exception {
+    double latencyNanos = probe();
+    int pending = pendingThreads();
+
+    boolean slow = latencyNanos > latencyThresholdNanos;
+    boolean queueing = pending > pendingThreadsThreshold;
+    builder.status(slow || queueing ? DEGRADED : Status.UP)
+        .withDetail("latencyMillis", Math.round(latencyNanos / 1_000_000.0 * 10) / 10.0)
+        .withDetail("latencyThresholdMillis", latencyThresholdNanos / 1_000_000)
+        .withDetail("pendingThreads", pending)
+        .withDetail("pendingThreadsThreshold", pendingThreadsThreshold);
+  }
+
+  private synchronized double probe() throws SQLException {
+    long now = nanoClock.getAsLong();
+    if (averageLatencyNanos >= 0 && now - lastProbeNanos < probeIntervalNanos) {
+      return averageLatencyNanos;
+    }
+
+    long elapsed;
+    long start = nanoClock.getAsLong();
+    try (Connection connection = dataSource.getConnection()) {
+      if (!connection.isValid(5)) {
+        throw new SQLException("Connection failed validation");
+      }
+      elapsed = nanoClock.getAsLong() - start;
+    }
+
+    averageLatencyNanos = averageLatencyNanos < 0
+        ? elapsed
+        : averageLatencyNanos + (elapsed - averageLatencyNanos) * ALPHA;
+    lastProbeNanos = now;
+    return averageLatencyNanos;
+  }
+
+  private int pendingThreads() {
+    int pending = 0;
+    for (HikariDataSource pool : hikariPools()) {
+      HikariPoolMXBean mxBean = pool.getHikariPoolMXBean();
+      if (mxBean != null) {
+        pending += mxBean.getThreadsAwaitingConnection();
+      }
+    }
+    return pending;
+  }
+
+  private List<HikariDataSource> hikariPools() {
+    List<HikariDataSource> pools = new ArrayList<>();
+    if (dataSource instanceof AbstractRoutingDataSource routing) {
+      routing.getResolvedDataSources().values().stream()
+          .filter(HikariDataSource.class::isInstance)
+          .map(HikariDataSource.class::cast)
+          .forEach(pools::add);
+    } else if (dataSource instanceof HikariDataSource hikari) {
+      pools.add(hikari);
+    }
+    return pools;
+  }
+}
@@ -0,0 +1,20 @@
+package edu.ucsb.cs156.example.models;
+
+import lombok.Value;
+
+import java.time.LocalDateTime;
+
+/**
+ * Immutable row of {@link edu.ucsb.cs156.example.entities.Articles} read by
+ * {@link edu.ucsb.cs156.example.repositories.ListRowsRepository}; serializes
+ * to the same JSON as the entity.
+ */
+@Value
+public class ArticleRow {
+  long id;
+  String title;
+  String url;
+  String explanation;
+  String email;
+  LocalDateTime dateAdded;
+}
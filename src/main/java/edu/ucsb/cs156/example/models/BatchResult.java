@@ -0,0 +1,15 @@
+package edu.ucsb.cs156.example.models;
+
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * Answer to a multi-get: the entities found, in the order their ids were
+ * asked for, and the ids that matched nothing.
+ */
+@Value
+public class BatchResult<T, K> {
+  List<T> items;
+  List<K> missingIds;
+}
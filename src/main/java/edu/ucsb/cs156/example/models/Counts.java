@@ -0,0 +1,26 @@
+package edu.ucsb.cs156.example.models;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * The answer of a /count endpoint: the number of rows and, when grouped,
+ * the number per distinct value of the grouping column.
+ */
+@Value
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class Counts {
+  long total;
+  List<GroupCount> groups;
+
+  public static Counts of(long total) {
+    return new Counts(total, null);
+  }
+
+  public static Counts grouped(List<GroupCount> groups) {
+    return new Counts(groups.stream().mapToLong(GroupCount::getCount).sum(), groups);
+  }
+}
@@ -0,0 +1,15 @@
+package edu.ucsb.cs156.example.models;
+
+import lombok.Value;
+
+import java.util.Map;
+
+/**
+ * Summaries of every entity for the landing page, keyed by source name;
+ * complete is false when any section is missing.
+ */
+@Value
+public class Dashboard {
+  boolean complete;
+  Map<String, DashboardSection> sections;
+}
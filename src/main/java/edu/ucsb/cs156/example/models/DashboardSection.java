@@ -0,0 +1,41 @@
+package edu.ucsb.cs156.example.models;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * One source of the dashboard: its row count and latest rows, or only a
+ * status saying why it is missing.
+ */
+@Value
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class DashboardSection {
+  public static final String OK = "ok";
+  /** The source did not answer within its timeout */
+  public static final String TIMEOUT = "timeout";
+  /** The source's query failed */
+  public static final String FAILED = "failed";
+  /** The dashboard pool and its queue were full */
+  public static final String REJECTED = "rejected";
+
+  String status;
+  Long count;
+  List<?> latest;
+
+  public static DashboardSection ok(long count, List<?> latest) {
+    return new DashboardSection(OK, count, latest);
+  }
+
+  public static DashboardSection unavailable(String status) {
+    return new DashboardSection(status, null, null);
+  }
+
+  @JsonIgnore
+  public boolean isOk() {
+    return OK.equals(status);
+  }
+}
@@ -0,0 +1,19 @@
+package edu.ucsb.cs156.example.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+/** Body of a GraphQL request: the query and, optionally, which operation and variables */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class GraphQLRequest {
+  private String query;
+  private String operationName;
+  private Map<String, Object> variables;
+}
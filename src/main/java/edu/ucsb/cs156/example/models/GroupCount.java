@@ -0,0 +1,10 @@
+package edu.ucsb.cs156.example.models;
+
+/**
+ * How many rows share one value of the column a count endpoint groups by,
+ * as read by the repositories' countGroupedBy... queries.
+ */
+public interface GroupCount {
+  Object getValue();
+  long getCount();
+}
@@ -0,0 +1,21 @@
+package edu.ucsb.cs156.example.models;
+
+import lombok.Value;
+
+import java.time.LocalDateTime;
+
+/**
+ * Immutable row of {@link edu.ucsb.cs156.example.entities.HelpRequest} read by
+ * {@link edu.ucsb.cs156.example.repositories.ListRowsRepository}; serializes
+ * to the same JSON as the entity.
+ */
+@Value
+public class HelpRequestRow {
+  long id;
+  String requesterEmail;
+  String teamId;
+  String tableOrBreakoutRoom;
+  LocalDateTime requestTime;
+  String explanation;
+  boolean solved;
+}
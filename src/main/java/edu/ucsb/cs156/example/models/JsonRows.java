@@ -0,0 +1,15 @@
+package edu.ucsb.cs156.example.models;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * A JSON array response body that writes itself, used for lists whose JSON
+ * is built by the database (see
+ * {@link edu.ucsb.cs156.example.repositories.JsonRowsRepository}). Nothing
+ * is read until the body is written.
+ */
+@FunctionalInterface
+public interface JsonRows {
+  void writeTo(OutputStream out) throws IOException;
+}
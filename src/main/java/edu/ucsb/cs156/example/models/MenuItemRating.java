@@ -0,0 +1,14 @@
+package edu.ucsb.cs156.example.models;
+
+/**
+ * A menu item with the count and average stars of its reviews, as read by
+ * {@link edu.ucsb.cs156.example.repositories.UCSBDiningCommonsMenuItemRepository#findRatingsByStation}.
+ * The average is null for items without reviews.
+ */
+public interface MenuItemRating {
+  long getId();
+  String getStation();
+  String getName();
+  long getReviewCount();
+  Double getAverageStars();
+}
@@ -0,0 +1,20 @@
+package edu.ucsb.cs156.example.models;
+
+import lombok.Value;
+
+import java.time.LocalDateTime;
+
+/**
+ * Immutable row of {@link edu.ucsb.cs156.example.entities.MenuItemReview} read by
+ * {@link edu.ucsb.cs156.example.repositories.ListRowsRepository}; serializes
+ * to the same JSON as the entity.
+ */
+@Value
+public class MenuItemReviewRow {
+  long id;
+  long itemid;
+  String reviewerEmail;
+  int stars;
+  LocalDateTime dateReviewed;
+  String comments;
+}
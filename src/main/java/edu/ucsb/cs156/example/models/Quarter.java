@@ -0,0 +1,85 @@
+package edu.ucsb.cs156.example.models;
+
+import edu.ucsb.cs156.example.errors.BadRequestException;
+
+import java.time.LocalDate;
+import java.time.MonthDay;
+import java.util.regex.Pattern;
+
+/**
+ * A UCSB quarter: 1 Winter, 2 Spring, 3 Summer, 4 Fall. Its {@link #key()}
+ * is the quarterYYYYQ string read as a number, so keys sort, compare and
+ * range like the quarters themselves.
+ */
+public record Quarter(int year, int quarter) {
+
+  private static final Pattern YYYYQ = Pattern.compile("[1-9]\\d{3}[1-4]");
+
+  // first days of the quarters as containing(LocalDate) counts them
+  private static final MonthDay SPRING_STARTS = MonthDay.of(3, 25);
+  private static final MonthDay SUMMER_STARTS = MonthDay.of(6, 15);
+  private static final MonthDay FALL_STARTS = MonthDay.of(9, 22);
+  private static final MonthDay WINTER_STARTS = MonthDay.of(12, 15);
+
+  public Quarter {
+    if (year < 1000 || year > 9999 || quarter < 1 || quarter > 4) {
+      throw new IllegalArgumentException("no quarter %d of year %d".formatted(quarter, year));
+    }
+  }
+
+  /** The quarter a quarterYYYYQ string such as 20224 names */
+  public static Quarter parse(String quarterYYYYQ) {
+    if (quarterYYYYQ == null || !YYYYQ.matcher(quarterYYYYQ).matches()) {
+      throw new BadRequestException(
+          "quarterYYYYQ must be a year followed by a quarter 1-4, e.g. 20224, not " + quarterYYYYQ);
+    }
+    return fromKey(Integer.parseInt(quarterYYYYQ));
+  }
+
+  /** Like {@link #parse} but null where the string names no quarter */
+  public static Integer keyOrNull(String quarterYYYYQ) {
+    return quarterYYYYQ != null && YYYYQ.matcher(quarterYYYYQ).matches() ? Integer.valueOf(quarterYYYYQ) : null;
+  }
+
+  public static Quarter fromKey(int key) {
+    return new Quarter(key / 10, key % 10);
+  }
+
+  /**
+   * The quarter in session on the date, or between quarters the one that
+   * starts next. The boundaries are those of a typical UCSB year (Winter
+   * from the end of Fall finals in mid December, Spring from late March,
+   * Summer from mid June, Fall from late September); the registrar's dates
+   * move by a few days from year to year, so near a boundary this is an
+   * approximation.
+   */
+  public static Quarter containing(LocalDate date) {
+    MonthDay day = MonthDay.from(date);
+    if (!day.isBefore(WINTER_STARTS)) {
+      return new Quarter(date.getYear() + 1, 1);
+    }
+    if (!day.isBefore(FALL_STARTS)) {
+      return new Quarter(date.getYear(), 4);
+    }
+    if (!day.isBefore(SUMMER_STARTS)) {
+      return new Quarter(date.getYear(), 3);
+    }
+    if (!day.isBefore(SPRING_STARTS)) {
+      return new Quarter(date.getYear(), 2);
+    }
+    return new Quarter(date.getYear(), 1);
+  }
+
+  public int key() {
+    return year * 10 + quarter;
+  }
+
+  public Quarter next() {
+    return quarter == 4 ? new Quarter(year + 1, 1) : new Quarter(year, quarter + 1);
+  }
+
+  @Override
+  public String toString() {
+    return String.valueOf(key());
+  }
+}
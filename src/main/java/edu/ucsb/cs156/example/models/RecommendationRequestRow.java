@@ -0,0 +1,21 @@
+package edu.ucsb.cs156.example.models;
+
+import lombok.Value;
+
+import java.time.LocalDateTime;
+
+/**
+ * Immutable row of {@link edu.ucsb.cs156.example.entities.RecommendationRequest} read by
+ * {@link edu.ucsb.cs156.example.repositories.ListRowsRepository}; serializes
+ * to the same JSON as the entity.
+ */
+@Value
+public class RecommendationRequestRow {
+  long id;
+  String requesterEmail;
+  String professorEmail;
+  String explanation;
+  LocalDateTime dateRequested;
+  LocalDateTime dateNeeded;
+  boolean done;
+}
@@ -0,0 +1,15 @@
+package edu.ucsb.cs156.example.models;
+
+import lombok.Value;
+
+/**
+ * The number and average stars of the reviews in one group of a review
+ * analytics query; the key is an item id, a reviewer's email or the Monday
+ * a week starts on.
+ */
+@Value
+public class ReviewStats {
+  Object key;
+  long count;
+  double averageStars;
+}
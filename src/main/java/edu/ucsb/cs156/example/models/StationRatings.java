@@ -0,0 +1,12 @@
+package edu.ucsb.cs156.example.models;
+
+import lombok.Value;
+
+import java.util.List;
+
+/** The rated menu items of one station of a dining commons, in name order; station is null for items without one */
+@Value
+public class StationRatings {
+  String station;
+  List<MenuItemRating> items;
+}
@@ -0,0 +1,18 @@
+package edu.ucsb.cs156.example.models;
+
+import lombok.Value;
+
+/**
+ * One menu item in a dining commons' top rated list: its review count and
+ * average stars, and the score it is ranked by, which is the average pulled
+ * towards a prior so a few reviews cannot outrank many.
+ */
+@Value
+public class TopRatedItem {
+  long id;
+  String name;
+  String station;
+  long reviews;
+  double averageStars;
+  double score;
+}
@@ -0,0 +1,25 @@
+package edu.ucsb.cs156.example.models;
+
+import lombok.Value;
+
+/**
+ * A menu item's reviews over the last day, 7 days and 30 days, counted in
+ * calendar days including today. The trend is the 7 day average less the
+ * 30 day one, so an item getting better lately has a positive trend; it is
+ * null when the item has no reviews in the last 7 days.
+ */
+@Value
+public class TrendingRating {
+  long itemid;
+  Window lastDay;
+  Window last7Days;
+  Window last30Days;
+  Double trend;
+
+  /** The number and average stars of an item's reviews in one window; no average without reviews */
+  @Value
+  public static class Window {
+    long reviews;
+    Double averageStars;
+  }
+}
@@ -3,11 +3,11 @@ package edu.ucsb.cs156.example.repositories;
 import edu.ucsb.cs156.example.entities.Articles;
 import edu.ucsb.cs156.example.entities.UCSBDate;
 
-import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.PagingAndSortingRepository;
 import org.springframework.stereotype.Repository;
 
 
 @Repository
-public interface ArticlesRepository extends CrudRepository<Articles, Long> {
+public interface ArticlesRepository extends PagingAndSortingRepository<Articles, Long> {
 
 }
@@ -1,12 +1,22 @@
 package edu.ucsb.cs156.example.repositories;
 
 import edu.ucsb.cs156.example.entities.HelpRequest;
+import edu.ucsb.cs156.example.models.GroupCount;
 
-import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.PagingAndSortingRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 
 @Repository
-public interface HelpRequestRepository extends CrudRepository<HelpRequest, Long> {
+public interface HelpRequestRepository extends PagingAndSortingRepository<HelpRequest, Long> {
   Iterable<HelpRequest> findAllByRequesterEmail(String requesterEmail);
+
+  @Query("select h.solved as value, count(h) as count from helprequest h group by h.solved order by h.solved")
+  List<GroupCount> countGroupedBySolved();
+
+  @Query("select h.teamId as value, count(h) as count from helprequest h group by h.teamId order by h.teamId")
+  List<GroupCount> countGroupedByTeamId();
 }
\ No newline at end of file
@@ -0,0 +1,196 @@
+package edu.ucsb.cs156.example.repositories;
+
+import edu.ucsb.cs156.example.models.JsonRows;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Has Postgres build the JSON for list endpoints and copies its bytes to the
+ * response, skipping entity mapping and Jackson. Tables are read in keyset
+ * windows of app.list-reads.json-window-rows rows (id greater than the last
+ * id seen), each window aggregated into one text value with row_to_json and
+ * string_agg, so memory stays bounded by one window whatever the table size.
+ * The windows are read while the response is written, after the handler's
+ * transaction has ended, so each body opens its own read-only repeatable
+ * read transaction around them: all windows see one snapshot, and a row
+ * inserted or deleted between two of them cannot tear the list.
+ *
+ * Column aliases reproduce the entities' JSON property names and order, and
+ * Postgres renders timestamps in the same ISO form as Jackson, so the body is
+ * the JSON the JPA path produces. Only Postgres has these functions;
+ * {@link #isSupported()} tells callers when to stay on the JPA path.
+ */
+@Repository
+public class JsonRowsRepository {
+
+  static final String HELP_REQUEST_COLUMNS = """
+      id, requester_email as "requesterEmail", team_id as "teamId",
+      table_or_breakout_room as "tableOrBreakoutRoom", request_time as "requestTime",
+      explanation, solved""";
+
+  static final String MENU_ITEM_REVIEW_COLUMNS = """
+      id, itemid, reviewer_email as "reviewerEmail", stars, date_reviewed as "dateReviewed", comments""";
+
+  static final String ARTICLE_COLUMNS = """
+      id, title, url, explanation, email, date_added as "dateAdded\"""";
+
+  static final String RECOMMENDATION_REQUEST_COLUMNS = """
+      id, requester_email as "requesterEmail", professor_email as "professorEmail", explanation,
+      date_requested as "dateRequested", date_needed as "dateNeeded", done""";
+
+  static final String USER_COLUMNS = """
+      id, email, google_sub as "googleSub", picture_url as "pictureUrl", full_name as "fullName",
+      given_name as "givenName", family_name as "familyName", email_verified as "emailVerified",
+      locale, hosted_domain as "hostedDomain", admin""";
+
+  // %1$s columns, %2$s table, %3$s extra conditions, %4$s limit/offset
+  private static final String WINDOW = """
+      select string_agg(row_to_json(t)::text, ',' order by t.id), max(t.id), count(*)
+      from (select %1$s from %2$s where id > ?%3$s order by id %4$s) t""";
+
+  private static final byte[] OPEN = { '[' };
+  private static final byte[] COMMA = { ',' };
+  private static final byte[] CLOSE = { ']' };
+
+  private record Window(byte[] json, long lastId, long rows) {}
+
+  private static final ResultSetExtractor<Window> WINDOW_EXTRACTOR = rs -> {
+    rs.next();
+    // text comes back as the raw UTF-8 bytes of the value
+    return new Window(rs.getBytes(1), rs.getLong(2), rs.getLong(3));
+  };
+
+  private final JdbcTemplate jdbcTemplate;
+  private final TransactionTemplate snapshot;
+  private final int windowRows;
+
+  private volatile Boolean supported;
+
+  @Autowired
+  public JsonRowsRepository(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+      @Value("${app.list-reads.json-window-rows:1000}") int windowRows) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.snapshot = new TransactionTemplate(transactionManager, snapshot());
+    this.windowRows = windowRows;
+  }
+
+  /** True when the database is Postgres; checked once */
+  public boolean isSupported() {
+    Boolean known = supported;
+    if (known == null) {
+      known = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection ->
+          "PostgreSQL".equals(connection.getMetaData().getDatabaseProductName()));
+      supported = known;
+    }
+    return known;
+  }
+
+  public JsonRows helpRequests() {
+    return allRows(HELP_REQUEST_COLUMNS, "helprequest", "");
+  }
+
+  public JsonRows menuItemReviews() {
+    return allRows(MENU_ITEM_REVIEW_COLUMNS, "menuitemreviews", "");
+  }
+
+  public JsonRows articles() {
+    return allRows(ARTICLE_COLUMNS, "articles", "");
+  }
+
+  public JsonRows recommendationRequests() {
+    return allRows(RECOMMENDATION_REQUEST_COLUMNS, "recommendationrequests", "");
+  }
+
+  /** All users, or only those whose admin flag matches when admin is given */
+  public JsonRows users(Boolean admin) {
+    return admin == null
+        ? allRows(USER_COLUMNS, "users", "")
+        : allRows(USER_COLUMNS, "users", " and admin = ?", admin);
+  }
+
+  /** One page of users ordered by id, optionally filtered by admin flag */
+  public JsonRows usersPage(Boolean admin, int page, int size) {
+    String sql = WINDOW.formatted(USER_COLUMNS, "users", admin == null ? "" : " and admin = ?", "limit ? offset ?");
+    List<Object> args = new ArrayList<>(List.of(Long.MIN_VALUE));
+    if (admin != null) {
+      args.add(admin);
+    }
+    args.add(size);
+    args.add((long) page * size);
+    return out -> {
+      Window window = jdbcTemplate.query(sql, WINDOW_EXTRACTOR, args.toArray());
+      out.write(OPEN);
+      if (window.json() != null) {
+        out.write(window.json());
+      }
+      out.write(CLOSE);
+    };
+  }
+
+  private JsonRows allRows(String columns, String table, String condition, Object... conditionArgs) {
+    String sql = WINDOW.formatted(columns, table, condition, "limit ?");
+    return out -> {
+      try {
+        snapshot.executeWithoutResult(status -> {
+          try {
+            writeWindows(out, sql, conditionArgs);
+          } catch (IOException e) {
+            throw new UncheckedIOException(e);
+          }
+        });
+      } catch (UncheckedIOException e) {
+        throw e.getCause();
+      }
+    };
+  }
+
+  private void writeWindows(OutputStream out, String sql, Object[] conditionArgs) throws IOException {
+    out.write(OPEN);
+    long lastId = Long.MIN_VALUE;
+    Window window;
+    do {
+      window = jdbcTemplate.query(sql, WINDOW_EXTRACTOR, windowArgs(lastId, conditionArgs));
+      if (window.json() == null) {
+        break;
+      }
+      if (lastId != Long.MIN_VALUE) {
+        out.write(COMMA);
+      }
+      out.write(window.json());
+      lastId = window.lastId();
+    } while (window.rows() == windowRows);
+    out.write(CLOSE);
+  }
+
+  private static TransactionDefinition snapshot() {
+    DefaultTransactionDefinition definition = new DefaultTransactionDefinition();
+    definition.setName("json-rows");
+    definition.setReadOnly(true);
+    // Postgres takes one snapshot for the whole transaction only from repeatable read up
+    definition.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+    return definition;
+  }
+
+  private Object[] windowArgs(long lastId, Object[] conditionArgs) {
+    Object[] args = Arrays.copyOf(new Object[] { lastId }, conditionArgs.length + 2);
+    System.arraycopy(conditionArgs, 0, args, 1, conditionArgs.length);
+    args[args.length - 1] = windowRows;
+    return args;
+  }
+}
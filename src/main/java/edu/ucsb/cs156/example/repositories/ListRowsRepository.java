@@ -0,0 +1,82 @@
+package edu.ucsb.cs156.example.repositories;
+
+import edu.ucsb.cs156.example.models.ArticleRow;
+import edu.ucsb.cs156.example.models.HelpRequestRow;
+import edu.ucsb.cs156.example.models.MenuItemReviewRow;
+import edu.ucsb.cs156.example.models.RecommendationRequestRow;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Reads whole tables for the /all endpoints straight into immutable row
+ * objects with {@link JdbcTemplate}, bypassing the persistence context:
+ * no managed entities, no snapshots, no Hibernate result processing. Each
+ * mapper reads its columns by position in the order its query selects them.
+ *
+ * Used when app.list-reads.engine=jdbc; the controllers read through their
+ * JPA repositories otherwise.
+ */
+@Repository
+public class ListRowsRepository {
+
+  static final String HELP_REQUESTS = """
+      select id, requester_email, team_id, table_or_breakout_room, request_time, explanation, solved
+      from helprequest order by id""";
+
+  static final String MENU_ITEM_REVIEWS = """
+      select id, itemid, reviewer_email, stars, date_reviewed, comments
+      from menuitemreviews order by id""";
+
+  static final String ARTICLES = """
+      select id, title, url, explanation, email, date_added
+      from articles order by id""";
+
+  static final String RECOMMENDATION_REQUESTS = """
+      select id, requester_email, professor_email, explanation, date_requested, date_needed, done
+      from recommendationrequests order by id""";
+
+  static final RowMapper<HelpRequestRow> HELP_REQUEST_ROW = (rs, n) -> new HelpRequestRow(
+      rs.getLong(1), rs.getString(2), rs.getString(3), rs.getString(4),
+      rs.getObject(5, LocalDateTime.class), rs.getString(6), rs.getBoolean(7));
+
+  static final RowMapper<MenuItemReviewRow> MENU_ITEM_REVIEW_ROW = (rs, n) -> new MenuItemReviewRow(
+      rs.getLong(1), rs.getLong(2), rs.getString(3), rs.getInt(4),
+      rs.getObject(5, LocalDateTime.class), rs.getString(6));
+
+  static final RowMapper<ArticleRow> ARTICLE_ROW = (rs, n) -> new ArticleRow(
+      rs.getLong(1), rs.getString(2), rs.getString(3), rs.getString(4), rs.getString(5),
+      rs.getObject(6, LocalDateTime.class));
+
+  static final RowMapper<RecommendationRequestRow> RECOMMENDATION_REQUEST_ROW = (rs, n) -> new RecommendationRequestRow(
+      rs.getLong(1), rs.getString(2), rs.getString(3), rs.getString(4),
+      rs.getObject(5, LocalDateTime.class), rs.getObject(6, LocalDateTime.class), rs.getBoolean(7));
+
+  private final JdbcTemplate jdbcTemplate;
+
+  @Autowired
+  public ListRowsRepository(JdbcTemplate jdbcTemplate) {
+    this.jdbcTemplate = jdbcTemplate;
+  }
+
+  public List<HelpRequestRow> helpRequests() {
+    return jdbcTemplate.query(HELP_REQUESTS, HELP_REQUEST_ROW);
+  }
+
+  public List<MenuItemReviewRow> menuItemReviews() {
+    return jdbcTemplate.query(MENU_ITEM_REVIEWS, MENU_ITEM_REVIEW_ROW);
+  }
+
+  public List<ArticleRow> articles() {
+    return jdbcTemplate.query(ARTICLES, ARTICLE_ROW);
+  }
+
+  public List<RecommendationRequestRow> recommendationRequests() {
+    return jdbcTemplate.query(RECOMMENDATION_REQUESTS, RECOMMENDATION_REQUEST_ROW);
+  }
+}
@@ -4,9 +4,23 @@ import edu.ucsb.cs156.example.entities.MenuItemReview;
 import edu.ucsb.cs156.example.entities.UCSBDate;
 
 import org.springframework.beans.propertyeditors.StringArrayPropertyEditor;
-import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.PagingAndSortingRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 
-public interface MenuItemReviewRepository extends CrudRepository<MenuItemReview, Long> {
+
+public interface MenuItemReviewRepository extends PagingAndSortingRepository<MenuItemReview, Long> {
+
+  /** The first {@code first} reviews of each item, by id, in one query */
+  @Query(nativeQuery = true, value = """
+      select r.* from menuitemreviews r
+      join (select id, row_number() over (partition by itemid order by id) as n
+            from menuitemreviews where itemid in (:itemids)) w on w.id = r.id
+      where w.n <= :first
+      order by r.itemid, r.id""")
+  List<MenuItemReview> findFirstPerItem(@Param("itemids") Collection<Long> itemids, @Param("first") int first);
 }
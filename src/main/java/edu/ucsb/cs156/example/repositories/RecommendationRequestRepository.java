@@ -1,11 +1,17 @@
 package edu.ucsb.cs156.example.repositories;
 
 import edu.ucsb.cs156.example.entities.RecommendationRequest;
+import edu.ucsb.cs156.example.models.GroupCount;
 
-import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.PagingAndSortingRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 @Repository
-public interface RecommendationRequestRepository extends CrudRepository<RecommendationRequest, Long> {
-    
+public interface RecommendationRequestRepository extends PagingAndSortingRepository<RecommendationRequest, Long> {
+
+    @Query("select r.done as value, count(r) as count from recommendationrequests r group by r.done order by r.done")
+    List<GroupCount> countGroupedByDone();
 }
@@ -0,0 +1,48 @@
+package edu.ucsb.cs156.example.repositories;
+
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Tuple;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Selection;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads only the requested properties of every row of an entity's table,
+ * for sparse fieldset (fields=) list requests: the SELECT names just those
+ * columns and each row comes back as a map of them, in the order asked for,
+ * without loading or managing entities. Callers check the names first.
+ */
+@Repository
+public class SelectedFieldsRepository {
+
+  @PersistenceContext
+  EntityManager entityManager;
+
+  public List<Map<String, Object>> findAll(Class<?> entityType, List<String> fields) {
+    CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+    CriteriaQuery<Tuple> query = builder.createTupleQuery();
+    Root<?> root = query.from(entityType);
+    List<Selection<?>> columns = new ArrayList<>(fields.size());
+    fields.forEach(field -> columns.add(root.get(field)));
+    query.multiselect(columns).orderBy(builder.asc(root.get("id")));
+
+    List<Map<String, Object>> rows = new ArrayList<>();
+    for (Tuple tuple : entityManager.createQuery(query).getResultList()) {
+      Map<String, Object> row = new LinkedHashMap<>();
+      for (int i = 0; i < fields.size(); i++) {
+        row.put(fields.get(i), tuple.get(i));
+      }
+      rows.add(row);
+    }
+    return rows;
+  }
+}
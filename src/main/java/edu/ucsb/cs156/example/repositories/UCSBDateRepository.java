@@ -1,12 +1,28 @@
 package edu.ucsb.cs156.example.repositories;
 
 import edu.ucsb.cs156.example.entities.UCSBDate;
+import edu.ucsb.cs156.example.models.GroupCount;
 
-import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.PagingAndSortingRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 
 @Repository
-public interface UCSBDateRepository extends CrudRepository<UCSBDate, Long> {
+public interface UCSBDateRepository extends PagingAndSortingRepository<UCSBDate, Long> {
   Iterable<UCSBDate> findAllByQuarterYYYYQ(String quarterYYYYQ);
-}
\ No newline at end of file
+
+  @Query("select d.quarterYYYYQ as value, count(d) as count from ucsbdates d group by d.quarterYYYYQ order by d.quarterYYYYQ")
+  List<GroupCount> countGroupedByQuarterYYYYQ();
+
+  /** The dates of quarters from through to, both included, by quarter and then time */
+  @Query("select d from ucsbdates d where d.quarterKey between :from and :to order by d.quarterKey, d.localDateTime, d.id")
+  List<UCSBDate> findAllInQuarters(@Param("from") int fromKey, @Param("to") int toKey);
+
+  /** Rows written before quarterKey existed, or whose quarterYYYYQ names no quarter */
+  List<UCSBDate> findAllByQuarterKeyIsNullAndIdGreaterThan(long afterId, Pageable page);
+}
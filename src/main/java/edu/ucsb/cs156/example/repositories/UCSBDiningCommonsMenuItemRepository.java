@@ -1,10 +1,51 @@
 package edu.ucsb.cs156.example.repositories;
 
 import edu.ucsb.cs156.example.entities.UCSBDiningCommonsMenuItem;
+import edu.ucsb.cs156.example.models.GroupCount;
+import edu.ucsb.cs156.example.models.MenuItemRating;
 
-import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.PagingAndSortingRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+
 @Repository
-public interface UCSBDiningCommonsMenuItemRepository extends CrudRepository<UCSBDiningCommonsMenuItem, Long> {
+public interface UCSBDiningCommonsMenuItemRepository extends PagingAndSortingRepository<UCSBDiningCommonsMenuItem, Long> {
+
+  /** The first {@code first} items of each commons, by id, in one query */
+  @Query(nativeQuery = true, value = """
+      select i.* from ucsbdiningcommonsmenuitem i
+      join (select id, row_number() over (partition by dining_commons_code order by id) as n
+            from ucsbdiningcommonsmenuitem where dining_commons_code in (:codes)) w on w.id = i.id
+      where w.n <= :first
+      order by i.dining_commons_code, i.id""")
+  List<UCSBDiningCommonsMenuItem> findFirstPerCommons(@Param("codes") Collection<String> diningCommonsCodes,
+      @Param("first") int first);
+
+  @Query("select i.diningCommonsCode as value, count(i) as count from ucsbdiningcommonsmenuitem i group by i.diningCommonsCode order by i.diningCommonsCode")
+  List<GroupCount> countGroupedByDiningCommonsCode();
+
+  /**
+   * Review count and average stars of every item at a window of a commons'
+   * stations (in station order), in one query. Items without a station count
+   * as one more station, after all the named ones. Native because JPQL cannot
+   * limit the station subquery.
+   */
+  @Query(nativeQuery = true, value = """
+      select i.id as "id", i.station as "station", i.name as "name",
+             count(r.id) as "reviewCount", avg(cast(r.stars as double precision)) as "averageStars"
+      from ucsbdiningcommonsmenuitem i
+      join (select distinct s.station from ucsbdiningcommonsmenuitem s
+            where s.dining_commons_code = :code
+            order by s.station nulls last limit :stations offset :offset) w
+        on i.station = w.station or (i.station is null and w.station is null)
+      left join menuitemreviews r on r.itemid = i.id
+      where i.dining_commons_code = :code
+      group by i.id, i.station, i.name
+      order by i.station nulls last, i.name, i.id""")
+  List<MenuItemRating> findRatingsByStation(@Param("code") String diningCommonsCode,
+      @Param("stations") int stations, @Param("offset") long offset);
 }
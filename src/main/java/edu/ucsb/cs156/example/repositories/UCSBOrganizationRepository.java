@@ -1,13 +1,19 @@
 package edu.ucsb.cs156.example.repositories;
 
 import edu.ucsb.cs156.example.entities.UCSBOrganization;
+import edu.ucsb.cs156.example.models.GroupCount;
 
 import org.springframework.beans.propertyeditors.StringArrayPropertyEditor;
-import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.PagingAndSortingRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 
 @Repository
-public interface UCSBOrganizationRepository extends CrudRepository<UCSBOrganization, String> {
- 
+public interface UCSBOrganizationRepository extends PagingAndSortingRepository<UCSBOrganization, String> {
+
+  @Query("select o.inactive as value, count(o) as count from ucsborganization o group by o.inactive order by o.inactive")
+  List<GroupCount> countGroupedByInactive();
 }
\ No newline at end of file
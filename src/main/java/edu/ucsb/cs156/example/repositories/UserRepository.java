@@ -1,12 +1,18 @@
 package edu.ucsb.cs156.example.repositories;
 
 import edu.ucsb.cs156.example.entities.User;
-import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.repository.PagingAndSortingRepository;
 import org.springframework.stereotype.Repository;
 
 import java.util.Optional;
 
 @Repository
-public interface UserRepository extends CrudRepository<User, Long> {
+public interface UserRepository extends PagingAndSortingRepository<User, Long> {
   Optional<User> findByEmail(String email);
+  Page<User> findAllByAdmin(boolean admin, Pageable pageable);
+  Slice<User> findAllByIdGreaterThan(long id, Pageable pageable);
+  Slice<User> findAllByAdminAndIdGreaterThan(boolean admin, long id, Pageable pageable);
 }
@@ -0,0 +1,165 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.models.Dashboard;
+import edu.ucsb.cs156.example.models.DashboardSection;
+import edu.ucsb.cs156.example.repositories.ArticlesRepository;
+import edu.ucsb.cs156.example.repositories.HelpRequestRepository;
+import edu.ucsb.cs156.example.repositories.MenuItemReviewRepository;
+import edu.ucsb.cs156.example.repositories.RecommendationRequestRepository;
+import edu.ucsb.cs156.example.repositories.UCSBDateRepository;
+import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsMenuItemRepository;
+import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsRepository;
+import edu.ucsb.cs156.example.repositories.UCSBOrganizationRepository;
+
+import io.micrometer.core.instrument.Metrics;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.repository.PagingAndSortingRepository;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Loads the landing page's summaries, the row count and latest rows of each
+ * entity, in parallel on a small bounded pool, so the page takes about as
+ * long as its slowest query instead of the sum of them. A source that misses
+ * app.dashboard.source-timeout-ms, fails, or finds the pool and its queue
+ * full is reported with that status and the rest are returned without it.
+ *
+ * A source that times out keeps its thread until its query returns; the
+ * bound on the pool is what keeps a slow database from piling them up.
+ */
+@Slf4j
+@Service
+public class DashboardService {
+
+  /** One entity to summarize; latest means highest orderBy values first */
+  record Source(String name, PagingAndSortingRepository<?, ?> repository, String orderBy) {}
+
+  @Autowired
+  UCSBDateRepository ucsbDateRepository;
+
+  @Autowired
+  UCSBDiningCommonsRepository ucsbDiningCommonsRepository;
+
+  @Autowired
+  UCSBOrganizationRepository ucsbOrganizationRepository;
+
+  @Autowired
+  UCSBDiningCommonsMenuItemRepository ucsbDiningCommonsMenuItemRepository;
+
+  @Autowired
+  MenuItemReviewRepository menuItemReviewRepository;
+
+  @Autowired
+  ArticlesRepository articlesRepository;
+
+  @Autowired
+  HelpRequestRepository helpRequestRepository;
+
+  @Autowired
+  RecommendationRequestRepository recommendationRequestRepository;
+
+  @Value("${app.dashboard.threads:8}")
+  int threads;
+
+  @Value("${app.dashboard.queue-capacity:32}")
+  int queueCapacity;
+
+  @Value("${app.dashboard.source-timeout-ms:500}")
+  long sourceTimeoutMillis;
+
+  @Value("${app.dashboard.latest:5}")
+  int latest;
+
+  private ThreadPoolExecutor executor;
+
+  @PostConstruct
+  void startExecutor() {
+    AtomicInteger created = new AtomicInteger();
+    executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+          Thread thread = new Thread(runnable, "dashboard-" + created.incrementAndGet());
+          thread.setDaemon(true);
+          return thread;
+        });
+  }
+
+  @PreDestroy
+  void stopExecutor() {
+    executor.shutdownNow();
+  }
+
+  List<Source> sources() {
+    // the commons and organizations have no generated ids, so theirs are
+    // the last codes in alphabetical order
+    return List.of(
+        new Source("ucsbDates", ucsbDateRepository, "id"),
+        new Source("ucsbDiningCommons", ucsbDiningCommonsRepository, "code"),
+        new Source("ucsbOrganizations", ucsbOrganizationRepository, "orgcode"),
+        new Source("menuItems", ucsbDiningCommonsMenuItemRepository, "id"),
+        new Source("menuItemReviews", menuItemReviewRepository, "id"),
+        new Source("articles", articlesRepository, "id"),
+        new Source("helpRequests", helpRequestRepository, "id"),
+        new Source("recommendationRequests", recommendationRequestRepository, "id"));
+  }
+
+  public Dashboard getDashboard() {
+    Map<String, CompletableFuture<DashboardSection>> pending = new LinkedHashMap<>();
+    for (Source source : sources()) {
+      pending.put(source.name(), submit(source));
+    }
+
+    boolean complete = true;
+    Map<String, DashboardSection> sections = new LinkedHashMap<>();
+    for (Map.Entry<String, CompletableFuture<DashboardSection>> entry : pending.entrySet()) {
+      DashboardSection section = entry.getValue().join();
+      Metrics.counter("app.dashboard.sources", "source", entry.getKey(), "status", section.getStatus()).increment();
+      complete = complete && section.isOk();
+      sections.put(entry.getKey(), section);
+    }
+    return new Dashboard(complete, sections);
+  }
+
+  private CompletableFuture<DashboardSection> submit(Source source) {
+    CompletableFuture<DashboardSection> summary;
+    try {
+      summary = CompletableFuture.supplyAsync(() -> summarize(source), executor);
+    } catch (RejectedExecutionException e) {
+      return CompletableFuture.completedFuture(DashboardSection.unavailable(DashboardSection.REJECTED));
+    }
+    return summary
+        .orTimeout(sourceTimeoutMillis, TimeUnit.MILLISECONDS)
+        .exceptionally(e -> {
+          Throwable cause = (e instanceof CompletionException && e.getCause() != null) ? e.getCause() : e;
+          if (cause instanceof TimeoutException) {
+            return DashboardSection.unavailable(DashboardSection.TIMEOUT);
+          }
+          log.warn("Dashboard source {} failed", source.name(), cause);
+          return DashboardSection.unavailable(DashboardSection.FAILED);
+        });
+  }
+
+  private DashboardSection summarize(Source source) {
+    Page<?> page = source.repository().findAll(PageRequest.of(0, latest, Sort.by(Sort.Direction.DESC, source.orderBy())));
+    return DashboardSection.ok(page.getTotalElements(), page.getContent());
+  }
+}
@@ -0,0 +1,106 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.entities.MenuItemReview;
+import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
+import edu.ucsb.cs156.example.entities.UCSBDiningCommonsMenuItem;
+import edu.ucsb.cs156.example.repositories.MenuItemReviewRepository;
+import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsMenuItemRepository;
+import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsRepository;
+
+import org.dataloader.BatchLoader;
+import org.dataloader.DataLoaderFactory;
+import org.dataloader.DataLoaderRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Builds the data loaders for one GraphQL request. Each collects the keys
+ * its fields ask for while a level of the query resolves and loads them
+ * with one IN query when the level is dispatched, caching the results for
+ * the rest of the request, so a nested selection costs one query per level
+ * rather than one per parent. List loaders are keyed by the parent and the
+ * number of rows asked for, and read only that many rows per parent.
+ */
+@Component
+public class GraphQLDataLoaders {
+
+  public static final String COMMONS_BY_CODE = "commonsByCode";
+  public static final String MENU_ITEM_BY_ID = "menuItemById";
+  public static final String MENU_ITEMS_BY_COMMONS = "menuItemsByCommons";
+  public static final String REVIEW_BY_ID = "reviewById";
+  public static final String REVIEWS_BY_ITEM = "reviewsByItem";
+
+  /** A parent whose list field asks for its first rows */
+  public record FirstRows<K>(K parent, int first) {}
+
+  @Autowired
+  UCSBDiningCommonsRepository ucsbDiningCommonsRepository;
+
+  @Autowired
+  UCSBDiningCommonsMenuItemRepository ucsbDiningCommonsMenuItemRepository;
+
+  @Autowired
+  MenuItemReviewRepository menuItemReviewRepository;
+
+  public DataLoaderRegistry newRegistry() {
+    BatchLoader<String, UCSBDiningCommons> commonsByCode = codes -> completed(
+        byKey(codes, ucsbDiningCommonsRepository.findAllById(codes), UCSBDiningCommons::getCode));
+    BatchLoader<Long, UCSBDiningCommonsMenuItem> menuItemById = ids -> completed(
+        byKey(ids, ucsbDiningCommonsMenuItemRepository.findAllById(ids), UCSBDiningCommonsMenuItem::getId));
+    BatchLoader<FirstRows<String>, List<UCSBDiningCommonsMenuItem>> menuItemsByCommons = keys -> completed(
+        firstRowsByKey(keys, ucsbDiningCommonsMenuItemRepository::findFirstPerCommons,
+            UCSBDiningCommonsMenuItem::getDiningCommonsCode));
+    BatchLoader<Long, MenuItemReview> reviewById = ids -> completed(
+        byKey(ids, menuItemReviewRepository.findAllById(ids), MenuItemReview::getId));
+    BatchLoader<FirstRows<Long>, List<MenuItemReview>> reviewsByItem = keys -> completed(
+        firstRowsByKey(keys, menuItemReviewRepository::findFirstPerItem, MenuItemReview::getItemid));
+
+    return DataLoaderRegistry.newRegistry()
+        .register(COMMONS_BY_CODE, DataLoaderFactory.newDataLoader(commonsByCode))
+        .register(MENU_ITEM_BY_ID, DataLoaderFactory.newDataLoader(menuItemById))
+        .register(MENU_ITEMS_BY_COMMONS, DataLoaderFactory.newDataLoader(menuItemsByCommons))
+        .register(REVIEW_BY_ID, DataLoaderFactory.newDataLoader(reviewById))
+        .register(REVIEWS_BY_ITEM, DataLoaderFactory.newDataLoader(reviewsByItem))
+        .build();
+  }
+
+  // the loads run on the request thread, inside its transaction
+  private static <V> CompletableFuture<List<V>> completed(List<V> values) {
+    return CompletableFuture.completedFuture(values);
+  }
+
+  /** The entity for each key, in key order; null where there is none */
+  static <K, V> List<V> byKey(List<K> keys, Iterable<V> loaded, Function<V, K> keyOf) {
+    Map<K, V> found = new HashMap<>();
+    loaded.forEach(value -> found.put(keyOf.apply(value), value));
+    List<V> values = new ArrayList<>(keys.size());
+    keys.forEach(key -> values.add(found.get(key)));
+    return values;
+  }
+
+  /**
+   * The first rows of each key's list, in key order and then loaded order;
+   * empty where there are none. One load per distinct number of rows asked
+   * for, which is one for most queries.
+   */
+  static <K, V> List<List<V>> firstRowsByKey(List<FirstRows<K>> keys,
+      BiFunction<List<K>, Integer, Iterable<V>> load, Function<V, K> keyOf) {
+    Map<Integer, List<K>> parentsByFirst = new LinkedHashMap<>();
+    keys.forEach(key -> parentsByFirst.computeIfAbsent(key.first(), first -> new ArrayList<>()).add(key.parent()));
+    Map<FirstRows<K>, List<V>> found = new HashMap<>();
+    parentsByFirst.forEach((first, parents) -> load.apply(parents, first).forEach(value ->
+        found.computeIfAbsent(new FirstRows<>(keyOf.apply(value), first), key -> new ArrayList<>()).add(value)));
+    List<List<V>> values = new ArrayList<>(keys.size());
+    keys.forEach(key -> values.add(found.getOrDefault(key, List.of())));
+    return values;
+  }
+}
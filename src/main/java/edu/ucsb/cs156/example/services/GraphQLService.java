@@ -0,0 +1,286 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.aop.ReadOnlyTransactionAspect;
+import edu.ucsb.cs156.example.controllers.ApiController;
+import edu.ucsb.cs156.example.entities.MenuItemReview;
+import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
+import edu.ucsb.cs156.example.entities.UCSBDiningCommonsMenuItem;
+import edu.ucsb.cs156.example.errors.BadRequestException;
+import edu.ucsb.cs156.example.repositories.ArticlesRepository;
+import edu.ucsb.cs156.example.repositories.HelpRequestRepository;
+import edu.ucsb.cs156.example.repositories.RecommendationRequestRepository;
+import edu.ucsb.cs156.example.repositories.UCSBDateRepository;
+import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsRepository;
+import edu.ucsb.cs156.example.repositories.UCSBOrganizationRepository;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import graphql.ExecutionInput;
+import graphql.ExecutionResult;
+import graphql.GraphQL;
+import graphql.analysis.FieldComplexityEnvironment;
+import graphql.analysis.MaxQueryComplexityInstrumentation;
+import graphql.analysis.MaxQueryDepthInstrumentation;
+import graphql.execution.instrumentation.ChainedInstrumentation;
+import graphql.execution.instrumentation.dataloader.DataLoaderDispatcherInstrumentation;
+import graphql.language.StringValue;
+import graphql.schema.Coercing;
+import graphql.schema.CoercingParseLiteralException;
+import graphql.schema.CoercingParseValueException;
+import graphql.schema.CoercingSerializeException;
+import graphql.schema.DataFetcher;
+import graphql.schema.DataFetchingEnvironment;
+import graphql.schema.GraphQLScalarType;
+import graphql.schema.GraphQLSchema;
+import graphql.schema.GraphQLTypeUtil;
+import graphql.schema.idl.RuntimeWiring;
+import graphql.schema.idl.SchemaGenerator;
+import graphql.schema.idl.SchemaParser;
+import graphql.schema.idl.TypeDefinitionRegistry;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Runs GraphQL queries against the schema in graphql/schema.graphqls, each
+ * in one read-only transaction with its own {@link GraphQLDataLoaders}.
+ * Every list returns at most app.graphql.max-list-size rows, fewer when the
+ * query asks for its first n, and at most {@link ApiController#MAX_BATCH_IDS}
+ * ids or codes may be looked up at once.
+ *
+ * Queries nested deeper than app.graphql.max-depth, or costing more than
+ * app.graphql.max-complexity, are refused before anything is loaded. A
+ * field costs one, and a list field one plus its selection's cost for each
+ * row it can return. Nested lists read only their first rows for each
+ * parent, so the complexity bounds the rows loaded as well as the values in
+ * the response. Dates are written by the application's ObjectMapper, as the
+ * REST API writes them.
+ */
+@Service
+public class GraphQLService {
+
+  static final String SCHEMA = "graphql/schema.graphqls";
+
+  @Autowired
+  GraphQLDataLoaders dataLoaders;
+
+  @Autowired
+  UCSBDiningCommonsRepository ucsbDiningCommonsRepository;
+
+  @Autowired
+  UCSBDateRepository ucsbDateRepository;
+
+  @Autowired
+  UCSBOrganizationRepository ucsbOrganizationRepository;
+
+  @Autowired
+  ArticlesRepository articlesRepository;
+
+  @Autowired
+  HelpRequestRepository helpRequestRepository;
+
+  @Autowired
+  RecommendationRequestRepository recommendationRequestRepository;
+
+  @Autowired
+  PlatformTransactionManager transactionManager;
+
+  @Autowired
+  ObjectMapper mapper;
+
+  @Value("${app.graphql.max-depth:6}")
+  int maxDepth;
+
+  @Value("${app.graphql.max-complexity:5000}")
+  int maxComplexity;
+
+  @Value("${app.graphql.max-list-size:100}")
+  int maxListSize;
+
+  private GraphQL graphQL;
+  private TransactionTemplate readOnly;
+
+  @PostConstruct
+  void buildSchema() throws IOException {
+    TypeDefinitionRegistry types;
+    try (InputStream in = new ClassPathResource(SCHEMA).getInputStream();
+        Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8)) {
+      types = new SchemaParser().parse(reader);
+    }
+    GraphQLSchema schema = new SchemaGenerator().makeExecutableSchema(types, wiring());
+    graphQL = GraphQL.newGraphQL(schema)
+        .instrumentation(new ChainedInstrumentation(List.of(
+            new MaxQueryDepthInstrumentation(maxDepth),
+            new MaxQueryComplexityInstrumentation(maxComplexity, this::complexity),
+            new DataLoaderDispatcherInstrumentation())))
+        .build();
+    readOnly = new TransactionTemplate(transactionManager, ReadOnlyTransactionAspect.READ_ONLY);
+  }
+
+  /** Runs one query and returns its result in the GraphQL response format */
+  public Map<String, Object> execute(String query, String operationName, Map<String, Object> variables) {
+    ExecutionInput input = ExecutionInput.newExecutionInput()
+        .query(query)
+        .operationName(operationName)
+        .variables(variables == null ? Map.of() : variables)
+        .dataLoaderRegistry(dataLoaders.newRegistry())
+        .build();
+    ExecutionResult result = readOnly.execute(status -> graphQL.execute(input));
+    return result.toSpecification();
+  }
+
+  private RuntimeWiring wiring() {
+    return RuntimeWiring.newRuntimeWiring()
+        .type("Query", type -> type
+            .dataFetcher("diningCommons", env -> {
+              List<String> codes = env.getArgument("codes");
+              return codes == null
+                  ? ucsbDiningCommonsRepository.findAll(firstRows(env, "code")).getContent()
+                  : env.<String, UCSBDiningCommons>getDataLoader(GraphQLDataLoaders.COMMONS_BY_CODE).loadMany(batch(codes));
+            })
+            .dataFetcher("menuItems", env ->
+                env.<Long, UCSBDiningCommonsMenuItem>getDataLoader(GraphQLDataLoaders.MENU_ITEM_BY_ID).loadMany(ids(env)))
+            .dataFetcher("menuItemReviews", env ->
+                env.<Long, MenuItemReview>getDataLoader(GraphQLDataLoaders.REVIEW_BY_ID).loadMany(ids(env)))
+            .dataFetcher("ucsbDates", env -> ucsbDateRepository.findAll(firstRows(env, "id")).getContent())
+            .dataFetcher("ucsbOrganizations", env -> ucsbOrganizationRepository.findAll(firstRows(env, "orgcode")).getContent())
+            .dataFetcher("articles", env -> articlesRepository.findAll(firstRows(env, "id")).getContent())
+            .dataFetcher("helpRequests", env -> helpRequestRepository.findAll(firstRows(env, "id")).getContent())
+            .dataFetcher("recommendationRequests", env -> recommendationRequestRepository.findAll(firstRows(env, "id")).getContent()))
+        .type("DiningCommons", type -> type
+            .dataFetcher("menuItems", batchedList(GraphQLDataLoaders.MENU_ITEMS_BY_COMMONS,
+                (UCSBDiningCommons commons) -> commons.getCode())))
+        .type("MenuItem", type -> type
+            .dataFetcher("diningCommons", batched(GraphQLDataLoaders.COMMONS_BY_CODE,
+                (UCSBDiningCommonsMenuItem item) -> item.getDiningCommonsCode()))
+            .dataFetcher("reviews", batchedList(GraphQLDataLoaders.REVIEWS_BY_ITEM,
+                (UCSBDiningCommonsMenuItem item) -> item.getId())))
+        .type("MenuItemReview", type -> type
+            .dataFetcher("item", batched(GraphQLDataLoaders.MENU_ITEM_BY_ID,
+                (MenuItemReview review) -> review.getItemid())))
+        .scalar(dateTime())
+        .build();
+  }
+
+  /** One for a field, and one plus its selection for each row a list field can return */
+  private int complexity(FieldComplexityEnvironment env, int childComplexity) {
+    if (!GraphQLTypeUtil.isList(GraphQLTypeUtil.unwrapNonNull(env.getFieldDefinition().getType()))) {
+      return 1 + childComplexity;
+    }
+    return (int) Math.min(Integer.MAX_VALUE, 1 + (long) rows(env.getArguments()) * childComplexity);
+  }
+
+  /** The most rows a list field with these arguments can return */
+  private int rows(Map<String, Object> arguments) {
+    for (String keys : List.of("ids", "codes")) {
+      if (arguments.get(keys) instanceof List<?> values) {
+        return values.size();
+      }
+    }
+    return arguments.get("first") instanceof Integer first ? Math.max(1, Math.min(first, maxListSize)) : maxListSize;
+  }
+
+  /** The first argument, defaulting to and at most app.graphql.max-list-size */
+  private int first(DataFetchingEnvironment env) {
+    Integer first = env.getArgument("first");
+    if (first == null) {
+      return maxListSize;
+    }
+    if (first < 1 || first > maxListSize) {
+      throw new BadRequestException("first must be between 1 and " + maxListSize);
+    }
+    return first;
+  }
+
+  private Pageable firstRows(DataFetchingEnvironment env, String orderedBy) {
+    return PageRequest.of(0, first(env), Sort.by(orderedBy));
+  }
+
+  private static <K> List<K> batch(List<K> keys) {
+    if (keys.size() > ApiController.MAX_BATCH_IDS) {
+      throw new BadRequestException("At most %d ids may be requested at once".formatted(ApiController.MAX_BATCH_IDS));
+    }
+    return keys;
+  }
+
+  private static List<Long> ids(DataFetchingEnvironment env) {
+    List<String> ids = env.getArgument("ids");
+    return batch(ids).stream().map(Long::valueOf).toList();
+  }
+
+  /** Dates and times written and read by the application's ObjectMapper, as in the REST API */
+  private GraphQLScalarType dateTime() {
+    return GraphQLScalarType.newScalar()
+        .name("DateTime")
+        .coercing(new Coercing<LocalDateTime, String>() {
+          @Override
+          public String serialize(Object value) {
+            try {
+              return mapper.convertValue(value, String.class);
+            } catch (IllegalArgumentException e) {
+              throw new CoercingSerializeException("Not a date and time: " + value, e);
+            }
+          }
+
+          @Override
+          public LocalDateTime parseValue(Object input) {
+            try {
+              return mapper.convertValue(input, LocalDateTime.class);
+            } catch (IllegalArgumentException e) {
+              throw new CoercingParseValueException("Not a date and time: " + input, e);
+            }
+          }
+
+          @Override
+          public LocalDateTime parseLiteral(Object input) {
+            if (!(input instanceof StringValue value)) {
+              throw new CoercingParseLiteralException("A date and time must be a string");
+            }
+            try {
+              return mapper.convertValue(value.getValue(), LocalDateTime.class);
+            } catch (IllegalArgumentException e) {
+              throw new CoercingParseLiteralException("Not a date and time: " + value.getValue(), e);
+            }
+          }
+        })
+        .build();
+  }
+
+  /** A field loaded through the named loader, keyed by a property of its parent */
+  private static <P, K> DataFetcher<?> batched(String loaderName, Function<P, K> keyOf) {
+    return env -> {
+      K key = keyOf.apply(env.getSource());
+      return key == null ? null : env.<K, Object>getDataLoader(loaderName).load(key);
+    };
+  }
+
+  /** A list field loaded through the named loader, which reads only its first rows */
+  private <P, K> DataFetcher<?> batchedList(String loaderName, Function<P, K> keyOf) {
+    return env -> {
+      int first = first(env);
+      K key = keyOf.apply(env.getSource());
+      return key == null ? List.of()
+          : env.<GraphQLDataLoaders.FirstRows<K>, Object>getDataLoader(loaderName)
+              .load(new GraphQLDataLoaders.FirstRows<>(key, first));
+    };
+  }
+}
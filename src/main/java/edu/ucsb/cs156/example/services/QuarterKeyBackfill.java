@@ -0,0 +1,71 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.entities.UCSBDate;
+import edu.ucsb.cs156.example.models.Quarter;
+import edu.ucsb.cs156.example.repositories.UCSBDateRepository;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fills in UCSBDate.quarterKey for rows written before it existed, in
+ * batches by id, before the application reports ready. Rows whose
+ * quarterYYYYQ names no quarter are logged and left without a key, so they
+ * stay out of the quarter endpoints until they are corrected.
+ */
+@Slf4j
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class QuarterKeyBackfill implements ApplicationRunner {
+
+  @Autowired
+  UCSBDateRepository ucsbDateRepository;
+
+  @Value("${app.quarter-key.backfill-batch:500}")
+  int batchSize;
+
+  @Override
+  public void run(ApplicationArguments args) {
+    int filled = backfill();
+    if (filled > 0) {
+      log.info("Filled in quarterKey for {} ucsb dates", filled);
+    }
+  }
+
+  /** Keys every row it can; returns how many it keyed */
+  int backfill() {
+    int filled = 0;
+    long afterId = Long.MIN_VALUE;
+    List<UCSBDate> batch;
+    do {
+      batch = ucsbDateRepository.findAllByQuarterKeyIsNullAndIdGreaterThan(afterId,
+          PageRequest.of(0, batchSize, Sort.by("id")));
+      List<UCSBDate> keyed = new ArrayList<>();
+      for (UCSBDate date : batch) {
+        Integer key = Quarter.keyOrNull(date.getQuarterYYYYQ());
+        if (key == null) {
+          log.warn("ucsb date {} has quarterYYYYQ {}, which names no quarter", date.getId(), date.getQuarterYYYYQ());
+        } else {
+          date.setQuarterKey(key);
+          keyed.add(date);
+        }
+        afterId = date.getId();
+      }
+      ucsbDateRepository.saveAll(keyed);
+      filled += keyed.size();
+    } while (batch.size() == batchSize);
+    return filled;
+  }
+}
@@ -0,0 +1,377 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.aop.ReadOnlyTransactionAspect;
+import edu.ucsb.cs156.example.errors.BadRequestException;
+import edu.ucsb.cs156.example.events.MenuItemReviewsChanged;
+import edu.ucsb.cs156.example.models.ReviewStats;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Answers review aggregates (count and average stars by item, by reviewer
+ * or by week) from an in-memory copy of the menuitemreviews table kept as
+ * one primitive array per column: id, itemid, stars, the day reviewed as an
+ * epoch day, and the reviewer as a code into a dictionary of emails. A query
+ * is a fork-join scan over these arrays, so it touches a few bytes per
+ * review instead of loading entities.
+ *
+ * The copy is read with JDBC at startup and then follows
+ * {@link MenuItemReviewsChanged} events. Rows are kept in id order, which
+ * is the order reviews are written in, so a review is found by binary
+ * search; deleted rows are only marked until they make up half the table.
+ * Scans hold the read lock, and writes and the initial load the write lock.
+ */
+@Slf4j
+@Service
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+public class ReviewAnalyticsService implements ApplicationRunner {
+
+  public static final String BY_ITEM = "item";
+  public static final String BY_REVIEWER = "reviewer";
+  public static final String BY_WEEK = "week";
+
+  static final int NO_DAY = Integer.MIN_VALUE;
+
+  // fewest rows one scan task handles without splitting further
+  static final int LEAF_ROWS = 1 << 15;
+
+  // widest key range always counted in arrays rather than a hash table
+  static final int DENSE_KEYS = 1 << 16;
+
+  private static final String LOAD = "select id, itemid, stars, date_reviewed, reviewer_email from menuitemreviews";
+
+  @Autowired
+  JdbcTemplate jdbcTemplate;
+
+  @Autowired
+  PlatformTransactionManager transactionManager;
+
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+  // all guarded by lock
+  private int rows;
+  private int removedRows;
+  private long[] ids = new long[1024];
+  private long[] itemids = new long[1024];
+  private int[] stars = new int[1024];
+  private int[] days = new int[1024];
+  private int[] reviewers = new int[1024];
+  private boolean[] removed = new boolean[1024];
+  private final List<String> reviewerEmails = new ArrayList<>();
+  private final Map<String, Integer> reviewerCodes = new HashMap<>();
+  // bounds of every itemid and day put since the last load; never narrowed
+  private long minItemid = Long.MAX_VALUE;
+  private long maxItemid = Long.MIN_VALUE;
+  private int minDay = Integer.MAX_VALUE;
+  private int maxDay = Integer.MIN_VALUE;
+
+  @Override
+  public void run(ApplicationArguments args) {
+    load();
+  }
+
+  /** Replaces the copy with the table's current contents */
+  void load() {
+    lock.writeLock().lock();
+    try {
+      rows = 0;
+      removedRows = 0;
+      minItemid = Long.MAX_VALUE;
+      maxItemid = Long.MIN_VALUE;
+      minDay = Integer.MAX_VALUE;
+      maxDay = Integer.MIN_VALUE;
+      long started = System.nanoTime();
+      // a fetch size only streams on Postgres inside a transaction
+      new TransactionTemplate(transactionManager, ReadOnlyTransactionAspect.READ_ONLY).executeWithoutResult(status ->
+          jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(LOAD + " order by id");
+            statement.setFetchSize(10_000);
+            return statement;
+          }, rs -> {
+            Timestamp reviewed = rs.getTimestamp(4);
+            put(rs.getLong(1), rs.getLong(2), rs.getInt(3),
+                reviewed == null ? null : reviewed.toLocalDateTime(), rs.getString(5));
+          }));
+      log.info("Loaded {} menu item reviews for analytics in {} ms", rows, (System.nanoTime() - started) / 1_000_000);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  @EventListener
+  public void reviewsChanged(MenuItemReviewsChanged change) {
+    lock.writeLock().lock();
+    try {
+      change.removed().forEach(review -> remove(review.getId()));
+      change.added().forEach(review -> put(review.getId(), review.getItemid(), review.getStars(),
+          review.getDateReviewed(), review.getReviewerEmail()));
+      if (removedRows > rows / 2) {
+        compact();
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Count and average stars of the reviews matching the filters, per item
+   * (by id), per reviewer (by email) or per week (by the Monday starting
+   * it). Any filter may be null; reviews without a date only match when
+   * neither from nor to is given, and have no week.
+   */
+  public List<ReviewStats> stats(String groupBy, Long itemid, LocalDate from, LocalDate to) {
+    if (!BY_ITEM.equals(groupBy) && !BY_REVIEWER.equals(groupBy) && !BY_WEEK.equals(groupBy)) {
+      throw new BadRequestException("groupBy must be one of item, reviewer, week");
+    }
+    lock.readLock().lock();
+    try {
+      // about four tasks per worker, so each fills one set of totals
+      int leafRows = Math.max(LEAF_ROWS, rows / (4 * ForkJoinPool.commonPool().getParallelism()));
+      Scan scan = new Scan(groupBy, itemid,
+          from == null ? Integer.MIN_VALUE : (int) from.toEpochDay(),
+          to == null ? Integer.MAX_VALUE : (int) to.toEpochDay(),
+          from != null || to != null, leafRows, 0, rows);
+      long[] keyRange = keyRange(groupBy, itemid);
+      if (keyRange[1] >= 0 && keyRange[1] <= Math.max(DENSE_KEYS, leafRows)) {
+        scan.denseKeys(keyRange[0], (int) keyRange[1]);
+      }
+      StarTotals totals = ForkJoinPool.commonPool().invoke(scan);
+      return toStats(groupBy, totals);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /** Reviews currently held, not counting deleted ones */
+  public int size() {
+    lock.readLock().lock();
+    try {
+      return rows - removedRows;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /** The lowest key a scan may count and the number of possible keys, or -1 if unknown */
+  private long[] keyRange(String groupBy, Long itemid) {
+    switch (groupBy) {
+      case BY_REVIEWER:
+        return new long[] { 0, reviewerEmails.size() };
+      case BY_WEEK:
+        if (maxDay < minDay) {
+          return new long[] { 0, 0 };
+        }
+        long firstWeek = Math.floorDiv(minDay + 3, 7);
+        return new long[] { firstWeek, Math.floorDiv(maxDay + 3, 7) - firstWeek + 1 };
+      default:
+        if (itemid != null) {
+          return new long[] { itemid, 1 };
+        }
+        if (maxItemid < minItemid) {
+          return new long[] { 0, 0 };
+        }
+        // negative when the bounds are too far apart for a long
+        long range = maxItemid - minItemid + 1;
+        return new long[] { minItemid, range > 0 ? range : -1 };
+    }
+  }
+
+  private List<ReviewStats> toStats(String groupBy, StarTotals totals) {
+    List<ReviewStats> stats = new ArrayList<>(totals.size());
+    totals.forEach((key, count, starSum) -> stats.add(new ReviewStats(keyOf(groupBy, key), count, (double) starSum / count)));
+    Comparator<ReviewStats> order = switch (groupBy) {
+      case BY_REVIEWER -> Comparator.comparing(s -> (String) s.getKey());
+      case BY_WEEK -> Comparator.comparing(s -> (LocalDate) s.getKey());
+      default -> Comparator.comparing(s -> (Long) s.getKey());
+    };
+    stats.sort(order);
+    return stats;
+  }
+
+  private Object keyOf(String groupBy, long key) {
+    return switch (groupBy) {
+      case BY_REVIEWER -> reviewerEmails.get((int) key);
+      // weeks are counted from Monday 1969-12-29
+      case BY_WEEK -> LocalDate.ofEpochDay(key * 7 - 3);
+      default -> key;
+    };
+  }
+
+  /** A scan of rows [start, end), split in halves until they are small enough */
+  private final class Scan extends RecursiveTask<StarTotals> {
+    private final String groupBy;
+    private final Long itemid;
+    private final int fromDay;
+    private final int toDay;
+    private final boolean dated;
+    private final int leafRows;
+    private final int start;
+    private final int end;
+    private long keyBase;
+    private int keyRange = -1;
+
+    Scan(String groupBy, Long itemid, int fromDay, int toDay, boolean dated, int leafRows, int start, int end) {
+      this.groupBy = groupBy;
+      this.itemid = itemid;
+      this.fromDay = fromDay;
+      this.toDay = toDay;
+      this.dated = dated;
+      this.leafRows = leafRows;
+      this.start = start;
+      this.end = end;
+    }
+
+    /** Counts in arrays, every key being in [base, base + range) */
+    void denseKeys(long base, int range) {
+      keyBase = base;
+      keyRange = range;
+    }
+
+    private Scan part(int partStart, int partEnd) {
+      Scan part = new Scan(groupBy, itemid, fromDay, toDay, dated, leafRows, partStart, partEnd);
+      part.keyBase = keyBase;
+      part.keyRange = keyRange;
+      return part;
+    }
+
+    @Override
+    protected StarTotals compute() {
+      if (end - start > leafRows) {
+        int middle = (start + end) >>> 1;
+        Scan left = part(start, middle);
+        left.fork();
+        StarTotals totals = part(middle, end).compute();
+        totals.addAll(left.join());
+        return totals;
+      }
+      StarTotals totals = keyRange < 0 ? new StarTotals() : new StarTotals(keyBase, keyRange);
+      boolean anyItem = itemid == null;
+      long wantedItem = anyItem ? 0 : itemid;
+      // resolved once per leaf rather than per row
+      boolean byWeek = BY_WEEK.equals(groupBy);
+      boolean byReviewer = BY_REVIEWER.equals(groupBy);
+      boolean skipUndated = dated || byWeek;
+      for (int row = start; row < end; row++) {
+        if (removed[row] || (!anyItem && itemids[row] != wantedItem)) {
+          continue;
+        }
+        int day = days[row];
+        if (day == NO_DAY ? skipUndated : (day < fromDay || day > toDay)) {
+          continue;
+        }
+        long key = byWeek ? Math.floorDiv(day + 3, 7) : byReviewer ? reviewers[row] : itemids[row];
+        totals.add(key, 1, stars[row]);
+      }
+      return totals;
+    }
+  }
+
+  // the rest run under the write lock
+
+  private void put(long id, long itemid, int starCount, LocalDateTime reviewed, String reviewerEmail) {
+    int row = rowOf(id);
+    if (row < 0) {
+      row = -row - 1;
+      if (rows == ids.length) {
+        grow();
+      }
+      if (row < rows) {
+        // written out of id order: make room
+        shift(row, row + 1, rows - row);
+      }
+      rows++;
+    } else if (removed[row]) {
+      removedRows--;
+    }
+    ids[row] = id;
+    itemids[row] = itemid;
+    minItemid = Math.min(minItemid, itemid);
+    maxItemid = Math.max(maxItemid, itemid);
+    stars[row] = starCount;
+    days[row] = reviewed == null ? NO_DAY : (int) reviewed.toLocalDate().toEpochDay();
+    if (reviewed != null) {
+      minDay = Math.min(minDay, days[row]);
+      maxDay = Math.max(maxDay, days[row]);
+    }
+    reviewers[row] = reviewerCodes.computeIfAbsent(reviewerEmail == null ? "" : reviewerEmail, email -> {
+      reviewerEmails.add(email);
+      return reviewerEmails.size() - 1;
+    });
+    removed[row] = false;
+  }
+
+  private void remove(long id) {
+    int row = rowOf(id);
+    if (row >= 0 && !removed[row]) {
+      removed[row] = true;
+      removedRows++;
+    }
+  }
+
+  /** The row holding id, or -(insertion point) - 1 */
+  private int rowOf(long id) {
+    if (rows == 0 || id > ids[rows - 1]) {
+      return -rows - 1;
+    }
+    return Arrays.binarySearch(ids, 0, rows, id);
+  }
+
+  private void shift(int from, int to, int length) {
+    System.arraycopy(ids, from, ids, to, length);
+    System.arraycopy(itemids, from, itemids, to, length);
+    System.arraycopy(stars, from, stars, to, length);
+    System.arraycopy(days, from, days, to, length);
+    System.arraycopy(reviewers, from, reviewers, to, length);
+    System.arraycopy(removed, from, removed, to, length);
+  }
+
+  private void grow() {
+    int capacity = ids.length * 2;
+    ids = Arrays.copyOf(ids, capacity);
+    itemids = Arrays.copyOf(itemids, capacity);
+    stars = Arrays.copyOf(stars, capacity);
+    days = Arrays.copyOf(days, capacity);
+    reviewers = Arrays.copyOf(reviewers, capacity);
+    removed = Arrays.copyOf(removed, capacity);
+  }
+
+  private void compact() {
+    int kept = 0;
+    for (int row = 0; row < rows; row++) {
+      if (!removed[row]) {
+        if (kept != row) {
+          shift(row, kept, 1);
+        }
+        kept++;
+      }
+    }
+    rows = kept;
+    removedRows = 0;
+  }
+}
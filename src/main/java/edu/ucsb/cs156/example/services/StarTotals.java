@@ -0,0 +1,123 @@
+package edu.ucsb.cs156.example.services;
+
+/**
+ * Review counts and star sums by long key, in primitive arrays so a scan
+ * over millions of reviews boxes nothing. Keys known to fall in a small
+ * range (reviewer codes, weeks, generated item ids) are counted in arrays
+ * indexed by key; any others in an open-addressed table. Not thread-safe:
+ * each scan task fills its own and the results are merged.
+ */
+final class StarTotals {
+
+  interface Visitor {
+    void accept(long key, long count, long stars);
+  }
+
+  // dense keys are [base, base + counts.length); sparse ones use keys/used
+  private final boolean dense;
+  private final long base;
+  private long[] keys;
+  private long[] counts;
+  private long[] stars;
+  private boolean[] used;
+  private int size;
+
+  /** Totals for any keys */
+  StarTotals() {
+    dense = false;
+    base = 0;
+    keys = new long[64];
+    counts = new long[64];
+    stars = new long[64];
+    used = new boolean[64];
+  }
+
+  /** Totals for keys in [base, base + range) only */
+  StarTotals(long base, int range) {
+    dense = true;
+    this.base = base;
+    counts = new long[range];
+    stars = new long[range];
+  }
+
+  void add(long key, long count, long starSum) {
+    if (dense) {
+      int slot = (int) (key - base);
+      if (counts[slot] == 0) {
+        size++;
+      }
+      counts[slot] += count;
+      stars[slot] += starSum;
+      return;
+    }
+    if (2 * (size + 1) > keys.length) {
+      grow();
+    }
+    int slot = slotOf(key, keys, used);
+    if (!used[slot]) {
+      used[slot] = true;
+      keys[slot] = key;
+      size++;
+    }
+    counts[slot] += count;
+    stars[slot] += starSum;
+  }
+
+  void addAll(StarTotals other) {
+    if (dense && other.dense && base == other.base && counts.length == other.counts.length) {
+      for (int slot = 0; slot < counts.length; slot++) {
+        if (other.counts[slot] != 0) {
+          if (counts[slot] == 0) {
+            size++;
+          }
+          counts[slot] += other.counts[slot];
+          stars[slot] += other.stars[slot];
+        }
+      }
+      return;
+    }
+    other.forEach(this::add);
+  }
+
+  void forEach(Visitor visitor) {
+    for (int slot = 0; slot < counts.length; slot++) {
+      if (dense ? counts[slot] != 0 : used[slot]) {
+        visitor.accept(dense ? base + slot : keys[slot], counts[slot], stars[slot]);
+      }
+    }
+  }
+
+  int size() {
+    return size;
+  }
+
+  private static int slotOf(long key, long[] keys, boolean[] used) {
+    int mask = keys.length - 1;
+    int slot = Long.hashCode(key * 0x9E3779B97F4A7C15L) & mask;
+    while (used[slot] && keys[slot] != key) {
+      slot = (slot + 1) & mask;
+    }
+    return slot;
+  }
+
+  private void grow() {
+    long[] oldKeys = keys;
+    long[] oldCounts = counts;
+    long[] oldStars = stars;
+    boolean[] oldUsed = used;
+    int capacity = oldKeys.length * 2;
+    keys = new long[capacity];
+    counts = new long[capacity];
+    stars = new long[capacity];
+    used = new boolean[capacity];
+    for (int old = 0; old < oldKeys.length; old++) {
+      if (oldUsed[old]) {
+        int slot = slotOf(oldKeys[old], keys, used);
+        used[slot] = true;
+        keys[slot] = oldKeys[old];
+        counts[slot] = oldCounts[old];
+        stars[slot] = oldStars[old];
+      }
+    }
+  }
+}
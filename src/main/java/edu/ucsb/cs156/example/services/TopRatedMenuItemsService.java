@@ -0,0 +1,233 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.aop.ReadOnlyTransactionAspect;
+import edu.ucsb.cs156.example.entities.MenuItemReview;
+import edu.ucsb.cs156.example.entities.UCSBDiningCommonsMenuItem;
+import edu.ucsb.cs156.example.errors.BadRequestException;
+import edu.ucsb.cs156.example.events.MenuItemReviewsChanged;
+import edu.ucsb.cs156.example.events.MenuItemsChanged;
+import edu.ucsb.cs156.example.models.TopRatedItem;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps every dining commons' menu items ranked by a Bayesian average of
+ * their stars, (priorReviews * priorStars + star sum) / (priorReviews +
+ * reviews), and serves the top of each ranking from a list built when it
+ * last changed, so a read costs neither a query nor a lock.
+ *
+ * Reviews and items are read with JDBC at startup and then follow
+ * {@link MenuItemReviewsChanged} and {@link MenuItemsChanged} events. The
+ * service remembers what each review id counts for, so an event applies
+ * idempotently: one for a write the startup load already saw (queued while
+ * it ran) changes nothing, and removing a review that was never counted
+ * takes nothing away. The prior is fixed by configuration rather than taken
+ * from the overall mean, so a review moves only its own item. Items without
+ * reviews are not ranked.
+ */
+@Slf4j
+@Service
+@Order(Ordered.HIGHEST_PRECEDENCE + 2)
+public class TopRatedMenuItemsService implements ApplicationRunner {
+
+  private static final String LOAD_ITEMS = "select id, dining_commons_code, name, station from ucsbdiningcommonsmenuitem";
+  private static final String LOAD_REVIEWS = "select id, itemid, stars from menuitemreviews";
+
+  /** An item's place in its commons' ranking: best score first, then lowest id */
+  private record Ranked(long id, String diningCommonsCode, double score) {}
+
+  private static final Comparator<Ranked> BEST_FIRST =
+      Comparator.comparingDouble(Ranked::score).reversed().thenComparingLong(Ranked::id);
+
+  private static final class Totals {
+    long reviews;
+    long stars;
+  }
+
+  /** What one review adds to its item's totals */
+  private record Counted(long itemid, int stars) {}
+
+  @Autowired
+  JdbcTemplate jdbcTemplate;
+
+  @Autowired
+  PlatformTransactionManager transactionManager;
+
+  @Value("${app.top-rated.max-k:50}")
+  int maxK;
+
+  @Value("${app.top-rated.prior-reviews:10}")
+  double priorReviews;
+
+  @Value("${app.top-rated.prior-stars:3}")
+  double priorStars;
+
+  // all guarded by this
+  private final Map<Long, Counted> reviews = new HashMap<>();
+  private final Map<Long, UCSBDiningCommonsMenuItem> items = new HashMap<>();
+  private final Map<Long, Totals> totals = new HashMap<>();
+  private final Map<Long, Ranked> ranks = new HashMap<>();
+  private final Map<String, TreeSet<Ranked>> rankings = new HashMap<>();
+
+  // the first maxK of each ranking, replaced whole after every change to it
+  private final Map<String, List<TopRatedItem>> top = new ConcurrentHashMap<>();
+
+  @Override
+  public void run(ApplicationArguments args) {
+    load();
+  }
+
+  /** Replaces the rankings with ones built from the tables' current contents */
+  synchronized void load() {
+    reviews.clear();
+    items.clear();
+    totals.clear();
+    ranks.clear();
+    rankings.clear();
+    top.clear();
+    long started = System.nanoTime();
+    new TransactionTemplate(transactionManager, ReadOnlyTransactionAspect.READ_ONLY).executeWithoutResult(status -> {
+      jdbcTemplate.query(LOAD_ITEMS, rs -> {
+        items.put(rs.getLong(1), new UCSBDiningCommonsMenuItem(rs.getLong(1), rs.getString(2), rs.getString(3), rs.getString(4)));
+      });
+      jdbcTemplate.query(LOAD_REVIEWS, rs -> {
+        Counted review = new Counted(rs.getLong(2), rs.getInt(3));
+        reviews.put(rs.getLong(1), review);
+        count(review, 1);
+      });
+    });
+    Set<String> changed = new HashSet<>();
+    items.keySet().forEach(id -> rerank(id, changed));
+    changed.forEach(this::publish);
+    log.info("Ranked {} menu items in {} dining commons in {} ms",
+        ranks.size(), rankings.size(), (System.nanoTime() - started) / 1_000_000);
+  }
+
+  /**
+   * The k best rated items of a dining commons, best first; empty when it
+   * has no reviewed items.
+   */
+  public List<TopRatedItem> topRated(String diningCommonsCode, int k) {
+    if (k < 1 || k > maxK) {
+      throw new BadRequestException("k must be between 1 and " + maxK);
+    }
+    List<TopRatedItem> best = top.getOrDefault(diningCommonsCode, List.of());
+    return best.subList(0, Math.min(k, best.size()));
+  }
+
+  @EventListener
+  public synchronized void reviewsChanged(MenuItemReviewsChanged change) {
+    Set<Long> touched = new HashSet<>();
+    for (MenuItemReview review : change.removed()) {
+      // take away what was counted for the id, which the event's copy may not match
+      Counted was = reviews.remove(review.getId());
+      if (was != null) {
+        touched.add(count(was, -1));
+      }
+    }
+    for (MenuItemReview review : change.added()) {
+      Counted now = new Counted(review.getItemid(), review.getStars());
+      Counted was = reviews.put(review.getId(), now);
+      if (!now.equals(was)) {
+        if (was != null) {
+          touched.add(count(was, -1));
+        }
+        touched.add(count(now, 1));
+      }
+    }
+    Set<String> changed = new HashSet<>();
+    touched.forEach(id -> rerank(id, changed));
+    changed.forEach(this::publish);
+  }
+
+  @EventListener
+  public synchronized void menuItemsChanged(MenuItemsChanged change) {
+    Set<Long> touched = new HashSet<>();
+    change.removed().forEach(item -> {
+      items.remove(item.getId());
+      touched.add(item.getId());
+    });
+    change.added().forEach(item -> {
+      items.put(item.getId(), item.toBuilder().build());
+      touched.add(item.getId());
+    });
+    Set<String> changed = new HashSet<>();
+    touched.forEach(id -> rerank(id, changed));
+    changed.forEach(this::publish);
+  }
+
+  // the rest run while holding this
+
+  private long count(Counted review, int sign) {
+    Totals itemTotals = totals.computeIfAbsent(review.itemid(), id -> new Totals());
+    itemTotals.reviews += sign;
+    itemTotals.stars += sign * review.stars();
+    if (itemTotals.reviews <= 0) {
+      totals.remove(review.itemid());
+    }
+    return review.itemid();
+  }
+
+  /** Moves an item to where its current totals put it, noting the commons whose ranking changed */
+  private void rerank(long id, Set<String> changed) {
+    Ranked old = ranks.remove(id);
+    if (old != null) {
+      TreeSet<Ranked> ranking = rankings.get(old.diningCommonsCode());
+      ranking.remove(old);
+      if (ranking.isEmpty()) {
+        rankings.remove(old.diningCommonsCode());
+      }
+      changed.add(old.diningCommonsCode());
+    }
+    UCSBDiningCommonsMenuItem item = items.get(id);
+    Totals itemTotals = totals.get(id);
+    if (item == null || itemTotals == null || item.getDiningCommonsCode() == null) {
+      return;
+    }
+    Ranked ranked = new Ranked(id, item.getDiningCommonsCode(), (priorReviews * priorStars + itemTotals.stars) / (priorReviews + itemTotals.reviews));
+    ranks.put(id, ranked);
+    rankings.computeIfAbsent(item.getDiningCommonsCode(), code -> new TreeSet<>(BEST_FIRST)).add(ranked);
+    changed.add(item.getDiningCommonsCode());
+  }
+
+  private void publish(String diningCommonsCode) {
+    TreeSet<Ranked> ranking = rankings.get(diningCommonsCode);
+    if (ranking == null) {
+      top.remove(diningCommonsCode);
+      return;
+    }
+    List<TopRatedItem> best = new ArrayList<>(Math.min(maxK, ranking.size()));
+    for (Ranked ranked : ranking) {
+      if (best.size() == maxK) {
+        break;
+      }
+      UCSBDiningCommonsMenuItem item = items.get(ranked.id());
+      Totals itemTotals = totals.get(ranked.id());
+      best.add(new TopRatedItem(item.getId(), item.getName(), item.getStation(),
+          itemTotals.reviews, (double) itemTotals.stars / itemTotals.reviews, ranked.score()));
+    }
+    top.put(diningCommonsCode, List.copyOf(best));
+  }
+}
@@ -0,0 +1,268 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.aop.ReadOnlyTransactionAspect;
+import edu.ucsb.cs156.example.entities.MenuItemReview;
+import edu.ucsb.cs156.example.errors.BadRequestException;
+import edu.ucsb.cs156.example.events.MenuItemReviewsChanged;
+import edu.ucsb.cs156.example.models.TrendingRating;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Counts and star sums of each menu item's reviews over the last 30 days,
+ * in a ring of one bucket per day, from which the 1, 7 and 30 day averages
+ * and the trend between them are read without a windowed query. A bucket
+ * remembers its day, so one left over from an earlier lap of the ring is
+ * treated as empty and reused.
+ *
+ * The rings are rebuilt from dateReviewed at startup with one query over
+ * the reviews of the last 30 days and later, and then follow {@link
+ * MenuItemReviewsChanged} events. Reviews dated after today are held back
+ * and counted once their day comes; reviews without a date or older than
+ * the window are not counted. The service remembers what each review id
+ * counts for, so an event applies idempotently: one for a write the startup
+ * load already saw changes nothing, and removing a review that was never
+ * counted takes nothing away.
+ */
+@Slf4j
+@Service
+@Order(Ordered.HIGHEST_PRECEDENCE + 3)
+public class TrendingRatingsService implements ApplicationRunner {
+
+  static final int DAYS = 30;
+
+  private static final String LOAD = """
+      select id, itemid, cast(date_reviewed as date), stars from menuitemreviews
+      where date_reviewed >= ?""";
+
+  /** What one review adds to its item's ring, on the epoch day it was reviewed */
+  private record Counted(long itemid, long day, int stars) {}
+
+  /** One item's ring; slot day % DAYS holds that day's reviews while days[slot] says it does */
+  private static final class DayBuckets {
+    final long[] days = new long[DAYS];
+    final long[] counts = new long[DAYS];
+    final long[] stars = new long[DAYS];
+
+    DayBuckets() {
+      Arrays.fill(days, Long.MIN_VALUE);
+    }
+
+    void add(long day, int starCount) {
+      int slot = (int) Math.floorMod(day, DAYS);
+      if (days[slot] != day) {
+        days[slot] = day;
+        counts[slot] = 0;
+        stars[slot] = 0;
+      }
+      counts[slot]++;
+      stars[slot] += starCount;
+    }
+
+    void remove(long day, int starCount) {
+      int slot = (int) Math.floorMod(day, DAYS);
+      if (days[slot] == day) {
+        counts[slot]--;
+        stars[slot] -= starCount;
+      }
+    }
+
+    /** Reviews and star sum of the last `window` days up to today */
+    long[] totals(long today, int window) {
+      long count = 0;
+      long starSum = 0;
+      for (int slot = 0; slot < DAYS; slot++) {
+        if (days[slot] <= today && days[slot] > today - window) {
+          count += counts[slot];
+          starSum += stars[slot];
+        }
+      }
+      return new long[] { count, starSum };
+    }
+  }
+
+  @Autowired
+  JdbcTemplate jdbcTemplate;
+
+  @Autowired
+  PlatformTransactionManager transactionManager;
+
+  @Value("${app.trending.min-reviews:3}")
+  int minReviews;
+
+  @Value("${app.trending.max-items:100}")
+  int maxItems;
+
+  // what decides which day a review falls on: the time in Santa Barbara
+  Clock clock = Clock.system(ZoneId.of("America/Los_Angeles"));
+
+  // all guarded by this
+  private final Map<Long, DayBuckets> buckets = new HashMap<>();
+  // the reviews in the window or later, by id
+  private final Map<Long, Counted> reviews = new HashMap<>();
+  // the reviews dated after countedThrough, by day, not yet in any ring
+  private final NavigableMap<Long, Map<Long, Counted>> later = new TreeMap<>();
+  // the rings hold every known review in the window up to this epoch day
+  private long countedThrough;
+
+  @Override
+  public void run(ApplicationArguments args) {
+    load();
+  }
+
+  /** Rebuilds every ring from the reviews of the last DAYS days, holding back later ones */
+  synchronized void load() {
+    buckets.clear();
+    reviews.clear();
+    later.clear();
+    long started = System.nanoTime();
+    LocalDate today = LocalDate.now(clock);
+    countedThrough = today.toEpochDay();
+    new TransactionTemplate(transactionManager, ReadOnlyTransactionAspect.READ_ONLY).executeWithoutResult(status ->
+        jdbcTemplate.query(LOAD,
+            (RowCallbackHandler) rs -> count(rs.getLong(1), new Counted(rs.getLong(2), rs.getDate(3).toLocalDate().toEpochDay(), rs.getInt(4))),
+            Timestamp.valueOf(today.minusDays(DAYS - 1).atStartOfDay())));
+    log.info("Loaded the last {} days of reviews of {} menu items for trending in {} ms",
+        DAYS, buckets.size(), (System.nanoTime() - started) / 1_000_000);
+  }
+
+  @EventListener
+  public synchronized void reviewsChanged(MenuItemReviewsChanged change) {
+    long today = catchUp();
+    for (MenuItemReview review : change.removed()) {
+      // take away what was counted for the id, which the event's copy may not match
+      uncount(review.getId());
+    }
+    for (MenuItemReview review : change.added()) {
+      Counted now = review.getDateReviewed() == null ? null
+          : new Counted(review.getItemid(), review.getDateReviewed().toLocalDate().toEpochDay(), review.getStars());
+      if (now != null && now.equals(reviews.get(review.getId()))) {
+        continue;
+      }
+      uncount(review.getId());
+      if (now != null && now.day() > today - DAYS) {
+        count(review.getId(), now);
+      }
+    }
+  }
+
+  /**
+   * With an itemid, that item's ratings, or none when it has no reviews in
+   * the last 30 days. Without one, the most improved items first, at most
+   * limit of them, counting only items with app.trending.min-reviews or
+   * more reviews in the last 7 days.
+   */
+  public synchronized List<TrendingRating> trending(Long itemid, int limit) {
+    if (limit < 1 || limit > maxItems) {
+      throw new BadRequestException("limit must be between 1 and " + maxItems);
+    }
+    long today = catchUp();
+    if (itemid != null) {
+      DayBuckets itemBuckets = buckets.get(itemid);
+      TrendingRating rating = itemBuckets == null ? null : rating(itemid, itemBuckets, today);
+      return rating == null || rating.getLast30Days().getReviews() == 0 ? List.of() : List.of(rating);
+    }
+    List<TrendingRating> ratings = new ArrayList<>();
+    for (Iterator<Map.Entry<Long, DayBuckets>> it = buckets.entrySet().iterator(); it.hasNext();) {
+      Map.Entry<Long, DayBuckets> entry = it.next();
+      TrendingRating rating = rating(entry.getKey(), entry.getValue(), today);
+      if (rating.getLast30Days().getReviews() == 0) {
+        // every bucket has aged out
+        it.remove();
+      } else if (rating.getLast7Days().getReviews() >= Math.max(1, minReviews)) {
+        // at least one, so there is a trend to sort by
+        ratings.add(rating);
+      }
+    }
+    ratings.sort(Comparator.comparing(TrendingRating::getTrend).reversed()
+        .thenComparingLong(TrendingRating::getItemid));
+    return ratings.subList(0, Math.min(limit, ratings.size()));
+  }
+
+  // the rest run while holding this
+
+  /** Moves the reviews whose day has come into the rings and forgets aged out ones; returns today */
+  private long catchUp() {
+    long today = LocalDate.now(clock).toEpochDay();
+    if (today > countedThrough) {
+      countedThrough = today;
+      Map<Long, Map<Long, Counted>> due = later.headMap(today, true);
+      due.values().forEach(dayReviews -> dayReviews.values().forEach(this::addToRing));
+      due.clear();
+      reviews.values().removeIf(review -> review.day() <= today - DAYS);
+    }
+    return today;
+  }
+
+  private void count(long id, Counted review) {
+    reviews.put(id, review);
+    if (review.day() <= countedThrough) {
+      addToRing(review);
+    } else {
+      later.computeIfAbsent(review.day(), day -> new HashMap<>()).put(id, review);
+    }
+  }
+
+  private void uncount(long id) {
+    Counted review = reviews.remove(id);
+    if (review == null) {
+      return;
+    }
+    if (review.day() <= countedThrough) {
+      DayBuckets itemBuckets = buckets.get(review.itemid());
+      if (itemBuckets != null) {
+        itemBuckets.remove(review.day(), review.stars());
+      }
+      return;
+    }
+    Map<Long, Counted> dayReviews = later.get(review.day());
+    dayReviews.remove(id);
+    if (dayReviews.isEmpty()) {
+      later.remove(review.day());
+    }
+  }
+
+  private void addToRing(Counted review) {
+    buckets.computeIfAbsent(review.itemid(), id -> new DayBuckets()).add(review.day(), review.stars());
+  }
+
+  private static TrendingRating rating(long itemid, DayBuckets itemBuckets, long today) {
+    TrendingRating.Window lastDay = window(itemBuckets.totals(today, 1));
+    TrendingRating.Window last7Days = window(itemBuckets.totals(today, 7));
+    TrendingRating.Window last30Days = window(itemBuckets.totals(today, DAYS));
+    Double trend = last7Days.getAverageStars() == null ? null
+        : last7Days.getAverageStars() - last30Days.getAverageStars();
+    return new TrendingRating(itemid, lastDay, last7Days, last30Days, trend);
+  }
+
+  private static TrendingRating.Window window(long[] totals) {
+    return new TrendingRating.Window(totals[0], totals[0] == 0 ? null : (double) totals[1] / totals[0]);
+  }
+}
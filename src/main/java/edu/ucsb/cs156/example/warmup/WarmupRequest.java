@@ -0,0 +1,78 @@
+package edu.ucsb.cs156.example.warmup;
+
+import javax.servlet.DispatcherType;
+import javax.servlet.http.HttpServletRequest;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The servlet request warm-up calls hand to handlers that take one: a GET
+ * of {@code path} without headers, parameters, cookies or session, whose
+ * attributes live in a map. Anything else answers as that request would,
+ * with null, false, -1 for absent headers and lengths, or 0.
+ */
+final class WarmupRequest implements InvocationHandler {
+
+  private final String path;
+  private final Map<String, Object> attributes = new HashMap<>();
+
+  private WarmupRequest(String path) {
+    this.path = path;
+  }
+
+  static HttpServletRequest get(String path) {
+    return (HttpServletRequest) Proxy.newProxyInstance(WarmupRequest.class.getClassLoader(),
+        new Class<?>[] {HttpServletRequest.class}, new WarmupRequest(path));
+  }
+
+  @Override
+  public Object invoke(Object proxy, Method method, Object[] args) {
+    return switch (method.getName()) {
+      case "getMethod" -> "GET";
+      case "getRequestURI", "getServletPath" -> path;
+      case "getRequestURL" -> new StringBuffer("http://localhost").append(path);
+      case "getContextPath" -> "";
+      case "getScheme" -> "http";
+      case "getServerName", "getRemoteAddr", "getRemoteHost" -> "localhost";
+      case "getProtocol" -> "HTTP/1.1";
+      case "getDispatcherType" -> DispatcherType.REQUEST;
+      case "getLocale" -> Locale.getDefault();
+      case "getLocales" -> Collections.enumeration(List.of(Locale.getDefault()));
+      case "getParameterMap" -> Map.of();
+      case "getAttribute" -> attributes.get((String) args[0]);
+      case "getAttributeNames" -> Collections.enumeration(attributes.keySet());
+      case "setAttribute" -> attributes.put((String) args[0], args[1]);
+      case "removeAttribute" -> attributes.remove((String) args[0]);
+      case "getIntHeader", "getDateHeader", "getContentLength", "getContentLengthLong" ->
+          method.getReturnType() == int.class ? (Object) (-1) : (Object) (-1L);
+      case "equals" -> proxy == args[0];
+      case "hashCode" -> System.identityHashCode(proxy);
+      case "toString" -> "warm-up GET " + path;
+      default -> emptyValue(method.getReturnType());
+    };
+  }
+
+  private static Object emptyValue(Class<?> type) {
+    if (type == Enumeration.class) {
+      return Collections.emptyEnumeration();
+    }
+    if (type == boolean.class) {
+      return false;
+    }
+    if (type == int.class) {
+      return 0;
+    }
+    if (type == long.class) {
+      return 0L;
+    }
+    return null;
+  }
+}
@@ -0,0 +1,325 @@
+package edu.ucsb.cs156.example.warmup;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.MethodParameter;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.core.convert.TypeDescriptor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.PathMatcher;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ValueConstants;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.metamodel.EntityType;
+import javax.servlet.http.HttpServletRequest;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.InvocationTargetException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Runs the application's read paths a number of times before it reports
+ * ready, so the first real requests after a deploy don't pay for class
+ * loading and interpretation of Hibernate, Jackson and the filter chain.
+ *
+ * Each iteration
+ * <ul>
+ *   <li>loads a few rows of every entity and serializes them with the
+ *       application's ObjectMapper, inside a read-only transaction that is
+ *       always rolled back, and</li>
+ *   <li>calls every /api GET handler whose parameters all have defaults,
+ *       are optional or are the servlet request, through its proxy and as
+ *       a signed-in ROLE_USER, so method security, the aspects, the handler
+ *       and its services run, and serializes what it returns. Each call
+ *       gets a bare GET of its path, also bound as the current request.
+ *       Handlers that read whole tables (app.warmup.whole-table-paths) are
+ *       only called in the first app.warmup.whole-table-iterations
+ *       iterations, and</li>
+ *   <li>sends a GET over loopback to every /api GET mapping without
+ *       required parameters. These are unauthenticated, so they stop at
+ *       method security, but they take the servlet, security filter and
+ *       MVC dispatch path the direct calls skip.</li>
+ * </ul>
+ * Mappings with required parameters are left out of both, since calling
+ * them would only produce 400s and a warning each.
+ *
+ * Readiness is REFUSING_TRAFFIC while this runs and ACCEPTING_TRAFFIC once
+ * it has finished, published as {@link AvailabilityChangeEvent}s.
+ */
+@Slf4j
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE)
+public class WarmupRunner implements ApplicationRunner {
+
+  @Value("${app.warmup.enabled:true}")
+  boolean enabled;
+
+  @Value("${app.warmup.iterations:20}")
+  int iterations;
+
+  @Value("${app.warmup.rows:20}")
+  int rows;
+
+  @Value("${app.warmup.whole-table-iterations:2}")
+  int wholeTableIterations;
+
+  @Value("${app.warmup.whole-table-paths:/api/**/all,/api/dashboard}")
+  String[] wholeTablePaths;
+
+  // set for the CDS training start (scripts/cds-training.sh): stop the JVM
+  // once warm-up has loaded everything worth archiving
+  @Value("${app.warmup.exit:false}")
+  boolean exitWhenDone;
+
+  @PersistenceContext
+  EntityManager entityManager;
+
+  @Autowired
+  PlatformTransactionManager transactionManager;
+
+  @Autowired
+  ObjectMapper objectMapper;
+
+  @Autowired
+  @Qualifier("requestMappingHandlerMapping")
+  RequestMappingHandlerMapping handlerMapping;
+
+  @Autowired
+  @Qualifier("mvcConversionService")
+  ConversionService conversionService;
+
+  @Autowired
+  ApplicationContext applicationContext;
+
+  @Autowired
+  ApplicationEventPublisher eventPublisher;
+
+  /**
+   * A GET handler, its path and the arguments its parameters' defaults
+   * convert to, with the servlet request left to each call
+   */
+  record HandlerCall(HandlerMethod handler, String path, Object[] defaults, boolean wholeTable) {
+
+    Object[] arguments(HttpServletRequest request) {
+      Object[] arguments = defaults.clone();
+      MethodParameter[] parameters = handler.getMethodParameters();
+      for (int i = 0; i < parameters.length; i++) {
+        if (isServletRequest(parameters[i])) {
+          arguments[i] = request;
+        }
+      }
+      return arguments;
+    }
+  }
+
+  private final PathMatcher pathMatcher = new AntPathMatcher();
+
+  private final HttpClient httpClient = HttpClient.newBuilder()
+      .connectTimeout(Duration.ofSeconds(2))
+      .build();
+
+  @Override
+  public void run(ApplicationArguments args) {
+    if (!enabled) {
+      return;
+    }
+    AvailabilityChangeEvent.publish(eventPublisher, this, ReadinessState.REFUSING_TRAFFIC);
+
+    List<HandlerCall> calls = handlerCalls();
+    List<URI> endpoints = readEndpoints();
+    log.info("Warming up: {} iterations over {} entity types, {} handlers and {} endpoints",
+        iterations, entityManager.getMetamodel().getEntities().size(), calls.size(), endpoints.size());
+    long start = System.nanoTime();
+
+    for (int i = 0; i < iterations; i++) {
+      loadAndSerializeEntities();
+      int iteration = i;
+      callAsUser(calls.stream().filter(call -> !call.wholeTable() || iteration < wholeTableIterations).toList());
+      endpoints.forEach(this::get);
+    }
+
+    Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+    log.info("Warm-up finished in {} ms", elapsed.toMillis());
+    AvailabilityChangeEvent.publish(eventPublisher, this, ReadinessState.ACCEPTING_TRAFFIC);
+
+    if (exitWhenDone) {
+      System.exit(SpringApplication.exit(applicationContext));
+    }
+  }
+
+  void loadAndSerializeEntities() {
+    TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+    transaction.setReadOnly(true);
+    transaction.executeWithoutResult(status -> {
+      status.setRollbackOnly();
+      for (EntityType<?> entity : entityManager.getMetamodel().getEntities()) {
+        List<?> loaded = entityManager
+            .createQuery("select e from " + entity.getName() + " e", entity.getJavaType())
+            .setMaxResults(rows)
+            .getResultList();
+        try {
+          objectMapper.writeValueAsBytes(loaded);
+        } catch (JsonProcessingException e) {
+          throw new UncheckedIOException(e);
+        }
+      }
+    });
+  }
+
+  List<HandlerCall> handlerCalls() {
+    List<HandlerCall> calls = new ArrayList<>();
+    handlerMapping.getHandlerMethods().forEach((info, handler) -> {
+      if (isApiGet(info) && info.getParamsCondition().getExpressions().isEmpty()) {
+        Object[] arguments = defaultArguments(handler);
+        if (arguments != null) {
+          String path = info.getPatternValues().stream().filter(p -> p.startsWith("/api/")).findFirst().orElseThrow();
+          boolean wholeTable = Arrays.stream(wholeTablePaths)
+              .anyMatch(pattern -> pathMatcher.match(pattern.trim(), path));
+          calls.add(new HandlerCall(handler.createWithResolvedBean(), path, arguments, wholeTable));
+        }
+      }
+    });
+    return calls;
+  }
+
+  void callAsUser(List<HandlerCall> calls) {
+    SecurityContext context = SecurityContextHolder.createEmptyContext();
+    context.setAuthentication(new UsernamePasswordAuthenticationToken("warmup", null,
+        List.of(new SimpleGrantedAuthority("ROLE_USER"))));
+    SecurityContextHolder.setContext(context);
+    try {
+      for (HandlerCall call : calls) {
+        HttpServletRequest request = WarmupRequest.get(call.path());
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+        try {
+          Object result = call.handler().getMethod().invoke(call.handler().getBean(), call.arguments(request));
+          if (result instanceof ResponseEntity<?> entity) {
+            result = entity.getBody();
+          }
+          if (result != null && !(result instanceof byte[])) {
+            objectMapper.writeValueAsBytes(result);
+          }
+        } catch (InvocationTargetException e) {
+          log.debug("Warm-up call to {} failed: {}", call.handler(), e.getCause().toString());
+        } catch (IllegalAccessException | JsonProcessingException e) {
+          log.debug("Warm-up call to {} failed: {}", call.handler(), e.toString());
+        } finally {
+          RequestContextHolder.resetRequestAttributes();
+        }
+      }
+    } finally {
+      SecurityContextHolder.clearContext();
+    }
+  }
+
+  // what a request without any parameters would bind, leaving the servlet
+  // request itself null, or null if some parameter is required or is
+  // neither a request parameter nor the servlet request
+  private Object[] defaultArguments(HandlerMethod handler) {
+    MethodParameter[] parameters = handler.getMethodParameters();
+    Object[] arguments = new Object[parameters.length];
+    for (int i = 0; i < parameters.length; i++) {
+      if (isServletRequest(parameters[i])) {
+        continue;
+      }
+      RequestParam param = parameters[i].getParameterAnnotation(RequestParam.class);
+      if (param == null) {
+        return null;
+      }
+      if (!ValueConstants.DEFAULT_NONE.equals(param.defaultValue())) {
+        arguments[i] = conversionService.convert(param.defaultValue(),
+            TypeDescriptor.valueOf(String.class), new TypeDescriptor(parameters[i]));
+      } else if (param.required() || parameters[i].getParameterType().isPrimitive()) {
+        return null;
+      }
+    }
+    return arguments;
+  }
+
+  private static boolean isServletRequest(MethodParameter parameter) {
+    return parameter.getParameterType().isAssignableFrom(HttpServletRequest.class)
+        && parameter.getParameterType() != Object.class;
+  }
+
+  private static boolean isApiGet(RequestMappingInfo info) {
+    return info.getMethodsCondition().getMethods().contains(RequestMethod.GET)
+        && info.getPatternValues().stream().anyMatch(path -> path.startsWith("/api/"));
+  }
+
+  List<URI> readEndpoints() {
+    if (!(applicationContext instanceof WebServerApplicationContext webContext)
+        || webContext.getWebServer() == null) {
+      return List.of();
+    }
+    int port = webContext.getWebServer().getPort();
+
+    TreeSet<String> paths = new TreeSet<>();
+    handlerMapping.getHandlerMethods().entrySet().stream()
+        .filter(entry -> entry.getKey().getMethodsCondition().getMethods().contains(RequestMethod.GET))
+        .filter(entry -> !hasRequiredParameters(entry.getValue()))
+        .flatMap(entry -> entry.getKey().getPatternValues().stream())
+        .filter(path -> path.startsWith("/api/") && !path.contains("{"))
+        .forEach(paths::add);
+    return paths.stream()
+        .map(path -> URI.create("http://localhost:%d%s".formatted(port, path)))
+        .toList();
+  }
+
+  private static boolean hasRequiredParameters(HandlerMethod handler) {
+    return Arrays.stream(handler.getMethodParameters())
+        .map(parameter -> parameter.getParameterAnnotation(RequestParam.class))
+        .anyMatch(param -> param != null && param.required() && ValueConstants.DEFAULT_NONE.equals(param.defaultValue()));
+  }
+
+  private void get(URI uri) {
+    HttpRequest request = HttpRequest.newBuilder(uri).timeout(Duration.ofSeconds(5)).GET().build();
+    try {
+      httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+    } catch (IOException e) {
+      log.debug("Warm-up request to {} failed: {}", uri, e.getMessage());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -0,0 +1,148 @@
+package edu.ucsb.cs156.example.aop;
+
+import edu.ucsb.cs156.example.cache.NotFoundCache;
+import edu.ucsb.cs156.example.cache.SingleFlight;
+import edu.ucsb.cs156.example.controllers.ApiController;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.ClassPathScanningCandidateComponentProvider;
+import org.springframework.core.type.filter.AssignableTypeFilter;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ReadOnlyTransactionAspectTests {
+
+  public static class SampleController extends ApiController {
+    @GetMapping("/all")
+    @ReadOnly
+    public String all() {
+      return "all";
+    }
+
+    @GetMapping("/broken")
+    @ReadOnly
+    public String broken() throws IOException {
+      throw new IOException("disk full");
+    }
+
+    @GetMapping("/cached")
+    public String cached() {
+      return "cached";
+    }
+
+    @PostMapping("/post")
+    public String post() {
+      return "post";
+    }
+  }
+
+  private PlatformTransactionManager transactionManager;
+  private SimpleTransactionStatus transaction;
+  private SampleController controller;
+
+  @BeforeEach
+  public void setUp() {
+    transaction = new SimpleTransactionStatus();
+    transactionManager = mock(PlatformTransactionManager.class);
+    when(transactionManager.getTransaction(any())).thenReturn(transaction);
+
+    AspectJProxyFactory factory = new AspectJProxyFactory(new SampleController());
+    factory.setProxyTargetClass(true);
+    factory.addAspect(new ReadOnlyTransactionAspect(transactionManager));
+    controller = factory.getProxy();
+  }
+
+  @Test
+  public void read_only_handlers_run_in_a_read_only_transaction() {
+    assertEquals("all", controller.all());
+
+    ArgumentCaptor<TransactionDefinition> definition = ArgumentCaptor.forClass(TransactionDefinition.class);
+    verify(transactionManager).getTransaction(definition.capture());
+    assertTrue(definition.getValue().isReadOnly());
+    assertEquals(TransactionDefinition.PROPAGATION_REQUIRED, definition.getValue().getPropagationBehavior());
+    verify(transactionManager).commit(transaction);
+  }
+
+  @Test
+  public void checked_exceptions_from_the_handler_are_rethrown_unwrapped() {
+    IOException thrown = assertThrows(IOException.class, () -> controller.broken());
+
+    assertEquals("disk full", thrown.getMessage());
+    verify(transactionManager).rollback(transaction);
+  }
+
+  @Test
+  public void unmarked_handlers_are_left_alone() {
+    assertEquals("cached", controller.cached());
+    assertEquals("post", controller.post());
+
+    verify(transactionManager, never()).getTransaction(any());
+  }
+
+  /** The application's API controllers that have a field of the given type */
+  private static List<Class<?>> controllersWith(Class<?> fieldType) throws ClassNotFoundException {
+    ClassPathScanningCandidateComponentProvider scanner = new ClassPathScanningCandidateComponentProvider(false);
+    scanner.addIncludeFilter(new AssignableTypeFilter(ApiController.class));
+    List<Class<?>> controllers = new ArrayList<>();
+    for (BeanDefinition candidate : scanner.findCandidateComponents("edu.ucsb.cs156.example.controllers")) {
+      Class<?> controller = Class.forName(candidate.getBeanClassName());
+      for (Field field : controller.getDeclaredFields()) {
+        if (field.getType() == fieldType) {
+          controllers.add(controller);
+          break;
+        }
+      }
+    }
+    return controllers;
+  }
+
+  @Test
+  public void get_by_id_handlers_coalescing_loads_take_no_connection_while_waiting() throws Exception {
+    List<Class<?>> controllers = controllersWith(SingleFlight.class);
+
+    assertFalse(controllers.isEmpty());
+    for (Class<?> controller : controllers) {
+      Method getById = Arrays.stream(controller.getDeclaredMethods())
+          .filter(method -> method.getName().equals("getById")).findFirst().orElseThrow();
+      assertFalse(getById.isAnnotationPresent(ReadOnly.class), controller.getSimpleName() + ".getById");
+    }
+  }
+
+  @Test
+  public void handlers_checking_missing_ids_answer_a_hit_without_a_transaction() throws Exception {
+    List<Class<?>> controllers = controllersWith(NotFoundCache.class);
+
+    assertFalse(controllers.isEmpty());
+    for (Class<?> controller : controllers) {
+      for (Method method : controller.getDeclaredMethods()) {
+        if (method.getName().equals("getById") || method.getName().equals("getByIds")) {
+          assertFalse(method.isAnnotationPresent(ReadOnly.class), controller.getSimpleName() + "." + method.getName());
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,108 @@
+package edu.ucsb.cs156.example.benchmarks;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import edu.ucsb.cs156.example.entities.HelpRequest;
+import edu.ucsb.cs156.example.entities.MenuItemReview;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compares payload size and encode/decode time of JSON, Smile and CBOR for
+ * the MenuItemReview and HelpRequest lists.
+ *
+ * Not picked up by the regular test run (the class name does not end in
+ * Tests); run it explicitly with:
+ *
+ * <pre>mvn test -Dtest=BinaryFormatBenchmark</pre>
+ */
+public class BinaryFormatBenchmark {
+
+  private static final int ROWS = 5_000;
+  private static final int WARMUP_ROUNDS = 50;
+  private static final int MEASURED_ROUNDS = 100;
+
+  private final ObjectMapper json = Jackson2ObjectMapperBuilder.json().build();
+  private final ObjectMapper smile = Jackson2ObjectMapperBuilder.smile().build();
+  private final ObjectMapper cbor = Jackson2ObjectMapperBuilder.cbor().build();
+
+  @Test
+  public void menuItemReviews() throws Exception {
+    List<MenuItemReview> reviews = new ArrayList<>();
+    LocalDateTime start = LocalDateTime.parse("2022-01-03T12:00:00");
+    for (int i = 0; i < ROWS; i++) {
+      reviews.add(MenuItemReview.builder()
+          .id(i + 1)
+          .itemid(i % 250)
+          .reviewerEmail("student%d@ucsb.edu".formatted(i % 900))
+          .stars(1 + i % 5)
+          .dateReviewed(start.plusMinutes(i * 17L))
+          .comments("comment number %d about this dish".formatted(i))
+          .build());
+    }
+    compare("MenuItemReview", reviews, new TypeReference<List<MenuItemReview>>() {});
+  }
+
+  @Test
+  public void helpRequests() throws Exception {
+    List<HelpRequest> requests = new ArrayList<>();
+    LocalDateTime start = LocalDateTime.parse("2022-04-20T17:35:00");
+    for (int i = 0; i < ROWS; i++) {
+      requests.add(HelpRequest.builder()
+          .id(i + 1)
+          .requesterEmail("student%d@ucsb.edu".formatted(i % 900))
+          .teamId("f23-5pm-%d".formatted(i % 8))
+          .tableOrBreakoutRoom(Integer.toString(i % 12))
+          .requestTime(start.plusMinutes(i * 3L))
+          .explanation("Our build fails in step %d and we do not know why".formatted(i))
+          .solved(i % 3 == 0)
+          .build());
+    }
+    compare("HelpRequest", requests, new TypeReference<List<HelpRequest>>() {});
+  }
+
+  private <T> void compare(String label, List<T> rows, TypeReference<List<T>> type) throws Exception {
+    byte[] jsonBytes = measure(label, "json", json, rows, type);
+    byte[] smileBytes = measure(label, "smile", smile, rows, type);
+    byte[] cborBytes = measure(label, "cbor", cbor, rows, type);
+
+    assertTrue(smileBytes.length < jsonBytes.length);
+    assertTrue(cborBytes.length < jsonBytes.length);
+  }
+
+  private <T> byte[] measure(String label, String format, ObjectMapper mapper, List<T> rows,
+      TypeReference<List<T>> type) throws Exception {
+    byte[] encoded = mapper.writeValueAsBytes(rows);
+    assertEquals(rows, mapper.readValue(encoded, type));
+
+    for (int i = 0; i < WARMUP_ROUNDS; i++) {
+      mapper.readValue(mapper.writeValueAsBytes(rows), type);
+    }
+
+    long encodeNanos = 0;
+    long decodeNanos = 0;
+    for (int i = 0; i < MEASURED_ROUNDS; i++) {
+      long t0 = System.nanoTime();
+      encoded = mapper.writeValueAsBytes(rows);
+      long t1 = System.nanoTime();
+      mapper.readValue(encoded, type);
+      long t2 = System.nanoTime();
+      encodeNanos += t1 - t0;
+      decodeNanos += t2 - t1;
+    }
+
+    System.out.printf("%-15s %-6s %,10d bytes  encode %8.3f ms  decode %8.3f ms%n",
+        label, format, encoded.length,
+        encodeNanos / 1e6 / MEASURED_ROUNDS, decodeNanos / 1e6 / MEASURED_ROUNDS);
+    return encoded;
+  }
+}
@@ -0,0 +1,136 @@
+package edu.ucsb.cs156.example.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import edu.ucsb.cs156.example.aop.ReadOnlyTransactionAspect;
+import edu.ucsb.cs156.example.entities.HelpRequest;
+import edu.ucsb.cs156.example.entities.MenuItemReview;
+import edu.ucsb.cs156.example.repositories.HelpRequestRepository;
+import edu.ucsb.cs156.example.repositories.MenuItemReviewRepository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compares heap allocation and CPU time per /all-style read with and without
+ * the read-only transaction {@link ReadOnlyTransactionAspect} puts around @ReadOnly
+ * handlers: a plain findAll, which Spring Data already runs read-only, and a
+ * derived query method, which it runs without a transaction. Rows are
+ * serialized with Jackson as the controllers would.
+ *
+ * Not picked up by the regular test run; run it explicitly with:
+ *
+ * <pre>mvn test -Dtest=ReadOnlyGetBenchmark</pre>
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class ReadOnlyGetBenchmark {
+
+  private static final int ROWS = 5_000;
+  private static final int WARMUP_ROUNDS = 30;
+  private static final int MEASURED_ROUNDS = 50;
+  private static final String EMAIL = "student@ucsb.edu";
+
+  private final com.sun.management.ThreadMXBean threads =
+      (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+  @Autowired
+  MenuItemReviewRepository menuItemReviewRepository;
+
+  @Autowired
+  HelpRequestRepository helpRequestRepository;
+
+  @Autowired
+  PlatformTransactionManager transactionManager;
+
+  private final ObjectMapper mapper = Jackson2ObjectMapperBuilder.json().build();
+
+  private TransactionTemplate readOnly;
+
+  @BeforeEach
+  public void seed() {
+    readOnly = new TransactionTemplate(transactionManager, ReadOnlyTransactionAspect.READ_ONLY);
+    if (menuItemReviewRepository.count() > 0) {
+      return;
+    }
+    LocalDateTime start = LocalDateTime.parse("2022-01-03T12:00:00");
+    List<MenuItemReview> reviews = new ArrayList<>();
+    List<HelpRequest> requests = new ArrayList<>();
+    for (int i = 0; i < ROWS; i++) {
+      reviews.add(MenuItemReview.builder()
+          .itemid(i % 250)
+          .reviewerEmail("student%d@ucsb.edu".formatted(i % 900))
+          .stars(1 + i % 5)
+          .dateReviewed(start.plusMinutes(i * 17L))
+          .comments("comment number %d about this dish".formatted(i))
+          .build());
+      requests.add(HelpRequest.builder()
+          .requesterEmail(EMAIL)
+          .teamId("f23-5pm-%d".formatted(i % 8))
+          .tableOrBreakoutRoom(Integer.toString(i % 12))
+          .requestTime(start.plusMinutes(i * 3L))
+          .explanation("Our build fails in step %d and we do not know why".formatted(i))
+          .solved(i % 3 == 0)
+          .build());
+    }
+    menuItemReviewRepository.saveAll(reviews);
+    helpRequestRepository.saveAll(requests);
+  }
+
+  @Test
+  public void findAll() throws Exception {
+    compare("findAll", () -> menuItemReviewRepository.findAll());
+  }
+
+  @Test
+  public void derivedQuery() throws Exception {
+    compare("findAllByRequesterEmail", () -> helpRequestRepository.findAllByRequesterEmail(EMAIL));
+  }
+
+  private void compare(String label, Supplier<Iterable<?>> load) throws Exception {
+    measure(label, "no outer tx", () -> serialize(load.get()));
+    measure(label, "read-only tx", () -> readOnly.execute(status -> serialize(load.get())));
+  }
+
+  private int serialize(Iterable<?> rows) {
+    try {
+      return mapper.writeValueAsBytes(rows).length;
+    } catch (Exception e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private void measure(String label, String mode, Supplier<Integer> read) {
+    int bytes = read.get();
+    for (int i = 0; i < WARMUP_ROUNDS; i++) {
+      assertEquals(bytes, read.get());
+    }
+
+    long thread = Thread.currentThread().getId();
+    long allocated0 = threads.getThreadAllocatedBytes(thread);
+    long cpu0 = threads.getCurrentThreadCpuTime();
+    for (int i = 0; i < MEASURED_ROUNDS; i++) {
+      read.get();
+    }
+    long allocated = threads.getThreadAllocatedBytes(thread) - allocated0;
+    long cpu = threads.getCurrentThreadCpuTime() - cpu0;
+
+    System.out.printf("%-24s %-13s %8.2f MB allocated  %8.3f ms cpu  per read%n",
+        label, mode, allocated / 1e6 / MEASURED_ROUNDS, cpu / 1e6 / MEASURED_ROUNDS);
+  }
+}
@@ -0,0 +1,80 @@
+package edu.ucsb.cs156.example.benchmarks;
+
+import edu.ucsb.cs156.example.entities.MenuItemReview;
+import edu.ucsb.cs156.example.events.MenuItemReviewsChanged;
+import edu.ucsb.cs156.example.services.ReviewAnalyticsService;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Wall time per query of {@link ReviewAnalyticsService}'s fork-join scans
+ * over a large in-memory review table (10 million reviews by default; set
+ * -Dreviews=... to change it, with a heap to match at about 30 bytes per
+ * review).
+ *
+ * Not picked up by the regular test run; run it explicitly with:
+ *
+ * <pre>mvn test -Dtest=ReviewAnalyticsBenchmark</pre>
+ */
+public class ReviewAnalyticsBenchmark {
+
+  private static final int REVIEWS = Integer.getInteger("reviews", 10_000_000);
+  private static final int BATCH = 100_000;
+  private static final int WARMUP_ROUNDS = 10;
+  private static final int MEASURED_ROUNDS = 20;
+
+  private final ReviewAnalyticsService analytics = new ReviewAnalyticsService();
+
+  @BeforeEach
+  public void seed() {
+    LocalDateTime start = LocalDateTime.parse("2020-01-06T12:00:00");
+    for (int first = 0; first < REVIEWS; first += BATCH) {
+      List<MenuItemReview> reviews = new ArrayList<>(BATCH);
+      for (int i = first; i < Math.min(first + BATCH, REVIEWS); i++) {
+        reviews.add(MenuItemReview.builder()
+            .id(i + 1)
+            .itemid(i % 2_500)
+            .reviewerEmail("student%d@ucsb.edu".formatted(i % 20_000))
+            .stars(1 + i % 5)
+            .dateReviewed(start.plusSeconds(i * 9L))
+            .build());
+      }
+      analytics.reviewsChanged(MenuItemReviewsChanged.added(reviews));
+    }
+    assertEquals(REVIEWS, analytics.size());
+  }
+
+  @Test
+  public void queries() {
+    measure("by item", () -> analytics.stats("item", null, null, null).size());
+    measure("by reviewer", () -> analytics.stats("reviewer", null, null, null).size());
+    measure("by week", () -> analytics.stats("week", null, null, null).size());
+    measure("one item by week", () -> analytics.stats("week", 42L, null, null).size());
+    measure("by item, one month", () ->
+        analytics.stats("item", null, LocalDate.parse("2021-03-01"), LocalDate.parse("2021-03-31")).size());
+  }
+
+  private void measure(String label, Supplier<Integer> query) {
+    int groups = query.get();
+    for (int i = 0; i < WARMUP_ROUNDS; i++) {
+      assertEquals(groups, query.get());
+    }
+    long started = System.nanoTime();
+    for (int i = 0; i < MEASURED_ROUNDS; i++) {
+      query.get();
+    }
+    long elapsed = System.nanoTime() - started;
+
+    System.out.printf("%-20s %8d groups  %8.2f ms per query over %d reviews%n",
+        label, groups, elapsed / 1e6 / MEASURED_ROUNDS, REVIEWS);
+  }
+}
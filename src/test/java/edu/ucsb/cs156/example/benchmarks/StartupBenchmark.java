@@ -0,0 +1,115 @@
+package edu.ucsb.cs156.example.benchmarks;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Measures time-to-first-request, from process start to the first 200 from
+ * /api/systemInfo, for the fat jar and for the unpacked application with
+ * its AppCDS archive, both started through scripts/start.sh. Warm-up is
+ * switched off so only startup is measured.
+ *
+ * Needs the archive, so build it first; not picked up by the regular test
+ * run:
+ *
+ * <pre>
+ * mvn -Plocalhost,cds package -DskipTests
+ * mvn test -Dtest=StartupBenchmark
+ * </pre>
+ */
+public class StartupBenchmark {
+
+  private static final int RUNS = 3;
+  private static final Duration TIMEOUT = Duration.ofMinutes(2);
+
+  private final HttpClient client = HttpClient.newBuilder()
+      .connectTimeout(Duration.ofMillis(200))
+      .build();
+
+  @Test
+  public void timeToFirstRequest() throws Exception {
+    assumeTrue(Files.exists(Path.of("target", "cds", "app.jsa")),
+        "no AppCDS archive; run mvn -Plocalhost,cds package first");
+
+    long jar = median("jar");
+    long cds = median("cds");
+
+    System.out.printf("time to first request: jar %d ms, cds %d ms (%.0f%% faster)%n",
+        jar, cds, 100.0 * (jar - cds) / jar);
+    assertTrue(cds < jar);
+  }
+
+  private long median(String mode) throws Exception {
+    List<Long> millis = new ArrayList<>();
+    for (int run = 0; run < RUNS; run++) {
+      long elapsed = timeToFirstRequest(mode);
+      System.out.printf("  %s run %d: %d ms%n", mode, run + 1, elapsed);
+      millis.add(elapsed);
+    }
+    Collections.sort(millis);
+    return millis.get(RUNS / 2);
+  }
+
+  private long timeToFirstRequest(String mode) throws Exception {
+    int port = freePort();
+    ProcessBuilder builder = new ProcessBuilder("bash", "scripts/start.sh",
+        "--server.port=" + port,
+        "--app.warmup.enabled=false",
+        "--spring.datasource.url=jdbc:h2:mem:startup-benchmark")
+        .redirectErrorStream(true)
+        .redirectOutput(new File("target/startup-benchmark-%s.log".formatted(mode)));
+    builder.environment().put("START_MODE", mode);
+
+    HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:%d/api/systemInfo".formatted(port)))
+        .timeout(Duration.ofSeconds(5))
+        .build();
+
+    long start = System.nanoTime();
+    Process process = builder.start();
+    try {
+      while (System.nanoTime() - start < TIMEOUT.toNanos()) {
+        if (!process.isAlive()) {
+          throw new IllegalStateException("%s start exited with %d, see target/startup-benchmark-%s.log"
+              .formatted(mode, process.exitValue(), mode));
+        }
+        try {
+          if (client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+            return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+          }
+        } catch (IOException notListeningYet) {
+          // keep polling
+        }
+        Thread.sleep(20);
+      }
+      throw new IllegalStateException(mode + " start did not answer within " + TIMEOUT);
+    } finally {
+      process.destroy();
+      if (!process.waitFor(30, TimeUnit.SECONDS)) {
+        process.destroyForcibly();
+      }
+    }
+  }
+
+  private static int freePort() throws IOException {
+    try (ServerSocket socket = new ServerSocket(0)) {
+      return socket.getLocalPort();
+    }
+  }
+}
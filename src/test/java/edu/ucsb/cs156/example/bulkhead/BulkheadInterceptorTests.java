@@ -0,0 +1,103 @@
+package edu.ucsb.cs156.example.bulkhead;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BulkheadInterceptorTests {
+
+  static class PlainController {
+    public void read() {
+    }
+
+    @Bulkhead(BulkheadCategory.EXPORT)
+    public void export() {
+    }
+  }
+
+  @Bulkhead(BulkheadCategory.ADMIN_WRITE)
+  static class AdminController {
+    public void read() {
+    }
+
+    @Bulkhead(BulkheadCategory.USER_READ)
+    public void lookup() {
+    }
+  }
+
+  private final BulkheadInterceptor interceptor = new BulkheadInterceptor(Map.of(
+      BulkheadCategory.ADMIN_WRITE, 1,
+      BulkheadCategory.USER_READ, 2,
+      BulkheadCategory.EXPORT, 1), 0);
+
+  private static HandlerMethod handler(Object bean, String method) throws Exception {
+    return new HandlerMethod(bean, method);
+  }
+
+  @Test
+  public void categories_come_from_annotations_then_http_method() throws Exception {
+    MockHttpServletRequest get = new MockHttpServletRequest("GET", "/api/x");
+    MockHttpServletRequest post = new MockHttpServletRequest("POST", "/api/x");
+
+    assertEquals(BulkheadCategory.USER_READ, BulkheadInterceptor.categoryOf(handler(new PlainController(), "read"), get));
+    assertEquals(BulkheadCategory.ADMIN_WRITE, BulkheadInterceptor.categoryOf(handler(new PlainController(), "read"), post));
+    assertEquals(BulkheadCategory.EXPORT, BulkheadInterceptor.categoryOf(handler(new PlainController(), "export"), get));
+    assertEquals(BulkheadCategory.ADMIN_WRITE, BulkheadInterceptor.categoryOf(handler(new AdminController(), "read"), get));
+    assertEquals(BulkheadCategory.USER_READ, BulkheadInterceptor.categoryOf(handler(new AdminController(), "lookup"), post));
+  }
+
+  @Test
+  public void a_permit_is_held_for_the_duration_of_the_handler() throws Exception {
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/export");
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    HandlerMethod handler = handler(new PlainController(), "export");
+
+    assertTrue(interceptor.preHandle(request, response, handler));
+    assertEquals(0, interceptor.available(BulkheadCategory.EXPORT));
+    assertEquals(BulkheadCategory.EXPORT, BulkheadContext.current());
+
+    interceptor.afterCompletion(request, response, handler, null);
+    assertEquals(1, interceptor.available(BulkheadCategory.EXPORT));
+    assertNull(BulkheadContext.current());
+  }
+
+  @Test
+  public void a_full_category_rejects_without_affecting_the_others() throws Exception {
+    HandlerMethod export = handler(new PlainController(), "export");
+    HandlerMethod read = handler(new PlainController(), "read");
+    MockHttpServletRequest running = new MockHttpServletRequest("GET", "/api/export");
+    assertTrue(interceptor.preHandle(running, new MockHttpServletResponse(), export));
+
+    MockHttpServletRequest rejected = new MockHttpServletRequest("GET", "/api/export");
+    MockHttpServletResponse rejectedResponse = new MockHttpServletResponse();
+    assertFalse(interceptor.preHandle(rejected, rejectedResponse, export));
+    assertEquals(503, rejectedResponse.getStatus());
+    assertEquals("1", rejectedResponse.getHeader("Retry-After"));
+    assertTrue(rejectedResponse.getContentAsString().contains("Too many concurrent export requests"));
+
+    // the rejected request never got a permit, so completing it releases nothing
+    interceptor.afterCompletion(rejected, rejectedResponse, export, null);
+    assertEquals(0, interceptor.available(BulkheadCategory.EXPORT));
+
+    MockHttpServletRequest reading = new MockHttpServletRequest("GET", "/api/read");
+    assertTrue(interceptor.preHandle(reading, new MockHttpServletResponse(), read));
+
+    interceptor.afterCompletion(reading, new MockHttpServletResponse(), read, null);
+    interceptor.afterCompletion(running, new MockHttpServletResponse(), export, null);
+    assertEquals(1, interceptor.available(BulkheadCategory.EXPORT));
+  }
+
+  @Test
+  public void non_controller_handlers_are_not_limited() throws Exception {
+    assertTrue(interceptor.preHandle(new MockHttpServletRequest(), new MockHttpServletResponse(), new Object()));
+    assertEquals(2, interceptor.available(BulkheadCategory.USER_READ));
+  }
+}
@@ -0,0 +1,61 @@
+package edu.ucsb.cs156.example.bulkhead;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.EnumMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BulkheadRoutingDataSourceTests {
+
+  private final Map<BulkheadCategory, HikariDataSource> pools = new EnumMap<>(BulkheadCategory.class);
+  private final BulkheadRoutingDataSource dataSource;
+
+  public BulkheadRoutingDataSourceTests() {
+    for (BulkheadCategory category : BulkheadCategory.values()) {
+      HikariDataSource pool = new HikariDataSource();
+      pool.setJdbcUrl("jdbc:h2:mem:bulkhead-" + category.key());
+      pools.put(category, pool);
+    }
+    dataSource = new BulkheadRoutingDataSource(pools);
+    dataSource.afterPropertiesSet();
+  }
+
+  @AfterEach
+  public void tearDown() {
+    BulkheadContext.clear();
+    dataSource.close();
+  }
+
+  private String connectedUrl() throws SQLException {
+    try (Connection connection = dataSource.getConnection()) {
+      return connection.getMetaData().getURL();
+    }
+  }
+
+  @Test
+  public void connections_come_from_the_current_category_pool() throws SQLException {
+    for (BulkheadCategory category : BulkheadCategory.values()) {
+      BulkheadContext.set(category);
+      assertEquals("jdbc:h2:mem:bulkhead-" + category.key(), connectedUrl());
+    }
+  }
+
+  @Test
+  public void work_outside_a_request_uses_the_user_read_pool() throws SQLException {
+    assertEquals("jdbc:h2:mem:bulkhead-user-read", connectedUrl());
+  }
+
+  @Test
+  public void closing_closes_every_pool() {
+    dataSource.close();
+    pools.values().forEach(pool -> assertTrue(pool.isClosed()));
+  }
+}
@@ -0,0 +1,67 @@
+package edu.ucsb.cs156.example.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class InvalidatingCacheTests {
+
+  @Test
+  public void loads_once_until_invalidated() {
+    InvalidatingCache<String, Integer> cache = new InvalidatingCache<>();
+    AtomicInteger loads = new AtomicInteger();
+
+    assertEquals(1, cache.get("all", loads::incrementAndGet));
+    assertEquals(1, cache.get("all", loads::incrementAndGet));
+
+    cache.invalidate();
+
+    assertEquals(2, cache.get("all", loads::incrementAndGet));
+    assertEquals(2, loads.get());
+  }
+
+  @Test
+  public void load_overlapping_an_invalidation_is_not_served_again() {
+    InvalidatingCache<String, String> cache = new InvalidatingCache<>();
+
+    String stale = cache.get("all", () -> {
+      cache.invalidate();
+      return "stale";
+    });
+
+    assertEquals("stale", stale);
+    assertEquals("fresh", cache.get("all", () -> "fresh"));
+  }
+
+  @Test
+  public void get_all_loads_only_the_missing_keys_in_one_call() {
+    InvalidatingCache<Integer, String> cache = new InvalidatingCache<>();
+    List<Set<Integer>> loads = new ArrayList<>();
+
+    cache.getAll(List.of(1, 2), keys -> {
+      loads.add(keys);
+      return Map.of(1, "one", 2, "two");
+    });
+    Map<Integer, String> values = cache.getAll(List.of(3, 2, 1, 4), keys -> {
+      loads.add(keys);
+      return Map.of(3, "three");
+    });
+
+    assertEquals(List.of(Set.of(1, 2), Set.of(3, 4)), loads);
+    assertEquals(List.of(3, 2, 1, 4), new ArrayList<>(values.keySet()));
+    assertEquals("three", values.get(3));
+    assertEquals("two", values.get(2));
+    assertEquals(null, values.get(4));
+    assertEquals(null, cache.get(4, () -> "not loaded again"));
+
+    cache.invalidate();
+
+    assertEquals("reloaded", cache.getAll(List.of(1), keys -> Map.of(1, "reloaded")).get(1));
+  }
+}
@@ -0,0 +1,94 @@
+package edu.ucsb.cs156.example.cache;
+
+import edu.ucsb.cs156.example.entities.Articles;
+import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class NotFoundCacheTests {
+
+  private final AtomicLong now = new AtomicLong();
+  private final NotFoundCache<Long> cache =
+      new NotFoundCache<>(Articles.class, Duration.ofSeconds(30), now::get);
+
+  @Test
+  public void missing_ids_are_remembered_until_the_ttl_passes() {
+    assertDoesNotThrow(() -> cache.check(7L));
+
+    assertEquals(Optional.empty(), cache.find(7L, Optional::empty));
+    assertEquals("Articles with id 7 not found", cache.notFound(7L).getMessage());
+
+    now.addAndGet(Duration.ofSeconds(29).toNanos());
+    EntityNotFoundException e = assertThrows(EntityNotFoundException.class, () -> cache.check(7L));
+    assertEquals("Articles with id 7 not found", e.getMessage());
+    assertEquals(0, e.getStackTrace().length);
+
+    now.addAndGet(Duration.ofSeconds(1).toNanos());
+    assertDoesNotThrow(() -> cache.check(7L));
+  }
+
+  @Test
+  public void batch_lookups_ask_without_throwing() {
+    assertFalse(cache.isMissing(7L));
+
+    cache.remember(7L, cache.stamp());
+    assertTrue(cache.isMissing(7L));
+    assertThrows(EntityNotFoundException.class, () -> cache.check(7L));
+
+    now.addAndGet(Duration.ofSeconds(30).toNanos());
+    assertFalse(cache.isMissing(7L));
+  }
+
+  @Test
+  public void found_ids_are_not_remembered() {
+    assertEquals(Optional.of("found"), cache.find(7L, () -> Optional.of("found")));
+
+    assertFalse(cache.isMissing(7L));
+  }
+
+  @Test
+  public void forgotten_ids_are_looked_up_again() {
+    cache.remember(7L, cache.stamp());
+    cache.forget(7L);
+
+    assertDoesNotThrow(() -> cache.check(7L));
+  }
+
+  @Test
+  public void a_miss_that_overlaps_a_create_is_not_remembered() {
+    // the id is created and forgotten while its lookup runs
+    cache.find(7L, () -> {
+      cache.forget(7L);
+      return Optional.empty();
+    });
+    long stamp = cache.stamp();
+    cache.forget(8L);
+    cache.remember(9L, stamp);
+
+    assertFalse(cache.isMissing(7L));
+    assertFalse(cache.isMissing(9L));
+  }
+
+  @Test
+  public void the_cache_is_emptied_when_it_reaches_its_bound() {
+    for (long id = 0; id < NotFoundCache.MAX_ENTRIES; id++) {
+      cache.remember(id, cache.stamp());
+    }
+    assertThrows(EntityNotFoundException.class, () -> cache.check(0L));
+
+    cache.remember(-1L, cache.stamp());
+
+    assertDoesNotThrow(() -> cache.check(0L));
+    assertThrows(EntityNotFoundException.class, () -> cache.check(-1L));
+  }
+}
@@ -0,0 +1,131 @@
+package edu.ucsb.cs156.example.cache;
+
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class SingleFlightTests {
+
+  private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+  @BeforeEach
+  public void addRegistry() {
+    Metrics.addRegistry(registry);
+  }
+
+  @AfterEach
+  public void removeRegistry() {
+    Metrics.removeRegistry(registry);
+  }
+
+  private double loads(String name, String result) {
+    return registry.counter("app.singleflight.loads", "name", name, "result", result).count();
+  }
+
+  @Test
+  public void concurrent_loads_of_the_same_key_share_one_call() throws Exception {
+    SingleFlight<Long, String> flight = new SingleFlight<>("concurrent");
+    AtomicInteger calls = new AtomicInteger();
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    int callers = 8;
+
+    ExecutorService pool = Executors.newFixedThreadPool(callers);
+    try {
+      List<Future<String>> results = new ArrayList<>();
+      results.add(pool.submit(() -> flight.load(1L, () -> {
+        calls.incrementAndGet();
+        started.countDown();
+        await(release);
+        return "row 1";
+      })));
+      started.await(5, TimeUnit.SECONDS);
+      for (int i = 1; i < callers; i++) {
+        results.add(pool.submit(() -> flight.load(1L, () -> {
+          calls.incrementAndGet();
+          return "second load";
+        })));
+      }
+      while (loads("concurrent", "coalesced") < callers - 1) {
+        Thread.sleep(5);
+      }
+      release.countDown();
+
+      for (Future<String> result : results) {
+        assertEquals("row 1", result.get(5, TimeUnit.SECONDS));
+      }
+    } finally {
+      pool.shutdownNow();
+    }
+
+    assertEquals(1, calls.get());
+    assertEquals(1.0, loads("concurrent", "issued"));
+    assertEquals(callers - 1.0, loads("concurrent", "coalesced"));
+  }
+
+  @Test
+  public void sequential_loads_each_go_to_the_loader() {
+    SingleFlight<Long, Integer> flight = new SingleFlight<>("sequential");
+    AtomicInteger calls = new AtomicInteger();
+
+    assertEquals(1, flight.load(1L, calls::incrementAndGet));
+    assertEquals(2, flight.load(1L, calls::incrementAndGet));
+    assertEquals(2.0, loads("sequential", "issued"));
+  }
+
+  @Test
+  public void failures_are_shared_with_waiting_callers() throws Exception {
+    SingleFlight<Long, String> flight = new SingleFlight<>("failing");
+    IllegalStateException failure = new IllegalStateException("database down");
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+
+    ExecutorService pool = Executors.newFixedThreadPool(2);
+    try {
+      Future<String> first = pool.submit(() -> flight.load(1L, () -> {
+        started.countDown();
+        await(release);
+        throw failure;
+      }));
+      started.await(5, TimeUnit.SECONDS);
+      Future<String> second = pool.submit(() -> flight.load(1L, () -> "unused"));
+      while (loads("failing", "coalesced") < 1) {
+        Thread.sleep(5);
+      }
+      release.countDown();
+
+      Exception e1 = assertThrows(Exception.class, () -> first.get(5, TimeUnit.SECONDS));
+      Exception e2 = assertThrows(Exception.class, () -> second.get(5, TimeUnit.SECONDS));
+      assertSame(failure, e1.getCause());
+      assertSame(failure, e2.getCause());
+    } finally {
+      pool.shutdownNow();
+    }
+
+    assertEquals("recovered", flight.load(1L, () -> "recovered"));
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await(5, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
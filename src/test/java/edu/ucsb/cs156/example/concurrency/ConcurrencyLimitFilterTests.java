@@ -0,0 +1,96 @@
+package edu.ucsb.cs156.example.concurrency;
+
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ConcurrencyLimitFilterTests {
+
+  private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+  private ConcurrencyLimitFilter filter;
+
+  @BeforeEach
+  public void setUp() {
+    Metrics.addRegistry(registry);
+    filter = new ConcurrencyLimitFilter(true, 3, 1, 2, 2, 2);
+  }
+
+  @AfterEach
+  public void tearDown() {
+    Metrics.removeRegistry(registry);
+  }
+
+  private MockHttpServletResponse perform(String method, String uri) throws Exception {
+    MockHttpServletRequest request = new MockHttpServletRequest(method, uri);
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    MockFilterChain chain = new MockFilterChain();
+    filter.doFilter(request, response, chain);
+    if (response.getStatus() == 200) {
+      assertNotNull(chain.getRequest());
+    }
+    return response;
+  }
+
+  @Test
+  public void requests_are_grouped_by_path_and_method() {
+    assertEquals(EndpointGroup.ADMIN, EndpointGroup.of(new MockHttpServletRequest("GET", "/api/admin/users")));
+    assertEquals(EndpointGroup.READS, EndpointGroup.of(new MockHttpServletRequest("GET", "/api/articles/all")));
+    assertEquals(EndpointGroup.READS, EndpointGroup.of(new MockHttpServletRequest("HEAD", "/api/articles/all")));
+    assertEquals(EndpointGroup.WRITES, EndpointGroup.of(new MockHttpServletRequest("POST", "/api/articles/post")));
+    assertEquals(EndpointGroup.WRITES, EndpointGroup.of(new MockHttpServletRequest("DELETE", "/api/articles")));
+    assertEquals(EndpointGroup.READS, EndpointGroup.of(new MockHttpServletRequest("POST", "/api/graphql")));
+  }
+
+  @Test
+  public void requests_under_the_limit_pass_through() throws Exception {
+    MockHttpServletResponse response = perform("GET", "/api/articles/all");
+
+    assertEquals(200, response.getStatus());
+    assertNull(response.getHeader("Retry-After"));
+    assertEquals(0, filter.limitFor(EndpointGroup.READS).getInFlight());
+  }
+
+  @Test
+  public void requests_over_the_limit_are_shed_with_retry_after() throws Exception {
+    GradientLimit reads = filter.limitFor(EndpointGroup.READS);
+    reads.tryAcquire();
+
+    MockHttpServletResponse response = perform("GET", "/api/articles/all");
+
+    assertEquals(503, response.getStatus());
+    assertEquals("3", response.getHeader("Retry-After"));
+    assertTrue(response.getContentAsString().contains("Too many concurrent reads requests"));
+    assertEquals(1.0, registry.counter("app.concurrency.rejected", "group", "reads").count());
+    assertEquals(1, reads.getLimit());
+  }
+
+  @Test
+  public void each_group_has_its_own_budget() throws Exception {
+    filter.limitFor(EndpointGroup.READS).tryAcquire();
+
+    assertEquals(200, perform("POST", "/api/articles/post").getStatus());
+    assertEquals(200, perform("GET", "/api/admin/users").getStatus());
+    assertEquals(503, perform("GET", "/api/articles/all").getStatus());
+  }
+
+  @Test
+  public void non_api_paths_and_disabled_filters_are_not_limited() throws Exception {
+    filter.limitFor(EndpointGroup.READS).tryAcquire();
+    assertEquals(200, perform("GET", "/swagger-ui/index.html").getStatus());
+
+    filter = new ConcurrencyLimitFilter(false, 3, 1, 2, 2, 2);
+    filter.limitFor(EndpointGroup.READS).tryAcquire();
+    assertEquals(200, perform("GET", "/api/articles/all").getStatus());
+  }
+}
@@ -0,0 +1,86 @@
+package edu.ucsb.cs156.example.concurrency;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class GradientLimitTests {
+
+  private static final long MILLIS = 1_000_000L;
+
+  /** Runs {@code limit} requests concurrently, all taking {@code rttNanos}. */
+  private static void saturate(GradientLimit limit, long rttNanos, boolean dropped) {
+    int n = limit.getLimit();
+    for (int i = 0; i < n; i++) {
+      assertTrue(limit.tryAcquire());
+    }
+    for (int i = 0; i < n; i++) {
+      limit.release(rttNanos, dropped);
+    }
+  }
+
+  @Test
+  public void rejects_once_the_limit_is_in_flight() {
+    GradientLimit limit = new GradientLimit(2, 1, 10);
+
+    assertTrue(limit.tryAcquire());
+    assertTrue(limit.tryAcquire());
+    assertFalse(limit.tryAcquire());
+
+    limit.release(10 * MILLIS, false);
+    assertTrue(limit.tryAcquire());
+  }
+
+  @Test
+  public void grows_while_latency_stays_flat_under_load() {
+    GradientLimit limit = new GradientLimit(10, 4, 100);
+
+    for (int round = 0; round < 5; round++) {
+      saturate(limit, 10 * MILLIS, false);
+    }
+
+    assertTrue(limit.getLimit() > 10, "limit was " + limit.getLimit());
+  }
+
+  @Test
+  public void shrinks_when_latency_rises() {
+    GradientLimit limit = new GradientLimit(50, 4, 100);
+    for (int round = 0; round < 3; round++) {
+      saturate(limit, 10 * MILLIS, false);
+    }
+    int before = limit.getLimit();
+
+    saturate(limit, 200 * MILLIS, false);
+
+    assertTrue(limit.getLimit() < before, before + " -> " + limit.getLimit());
+  }
+
+  @Test
+  public void ignores_samples_while_mostly_idle() {
+    GradientLimit limit = new GradientLimit(20, 4, 100);
+
+    for (int i = 0; i < 100; i++) {
+      assertTrue(limit.tryAcquire());
+      limit.release(i % 2 == 0 ? 10 * MILLIS : 500 * MILLIS, false);
+    }
+
+    assertEquals(20, limit.getLimit());
+  }
+
+  @Test
+  public void backs_off_on_errors_but_not_below_the_minimum() {
+    GradientLimit limit = new GradientLimit(20, 4, 100);
+
+    assertTrue(limit.tryAcquire());
+    limit.release(10 * MILLIS, true);
+    assertEquals(18, limit.getLimit());
+
+    for (int i = 0; i < 100; i++) {
+      assertTrue(limit.tryAcquire());
+      limit.release(10 * MILLIS, true);
+    }
+    assertEquals(4, limit.getLimit());
+  }
+}
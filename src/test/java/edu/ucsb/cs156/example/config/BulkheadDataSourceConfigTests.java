@@ -0,0 +1,48 @@
+package edu.ucsb.cs156.example.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import edu.ucsb.cs156.example.bulkhead.BulkheadRoutingDataSource;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.mock.env.MockEnvironment;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class BulkheadDataSourceConfigTests {
+
+  @Test
+  public void every_pool_gets_the_hikari_settings_and_its_own_size() throws Exception {
+    DataSourceProperties properties = new DataSourceProperties();
+    properties.setUrl("jdbc:h2:mem:bulkhead-config");
+    properties.afterPropertiesSet();
+    MockEnvironment env = new MockEnvironment()
+        .withProperty("spring.datasource.hikari.connection-timeout", "4321")
+        .withProperty("spring.datasource.hikari.max-lifetime", "654321")
+        .withProperty("spring.datasource.hikari.maximum-pool-size", "50")
+        .withProperty("app.bulkhead.datasource.export.pool-size", "1");
+
+    BulkheadRoutingDataSource dataSource = new BulkheadDataSourceConfig().dataSource(properties, env);
+    try {
+      dataSource.afterPropertiesSet();
+      dataSource.getResolvedDataSources().values().forEach(resolved -> {
+        HikariDataSource pool = (HikariDataSource) resolved;
+        assertEquals(4321, pool.getConnectionTimeout());
+        assertEquals(654321, pool.getMaxLifetime());
+      });
+      assertEquals(1, pool(dataSource, "export").getMaximumPoolSize());
+      assertEquals(3, pool(dataSource, "admin-write").getMaximumPoolSize());
+      assertEquals(6, pool(dataSource, "user-read").getMaximumPoolSize());
+    } finally {
+      dataSource.close();
+    }
+  }
+
+  private HikariDataSource pool(BulkheadRoutingDataSource dataSource, String key) {
+    return dataSource.getResolvedDataSources().values().stream()
+        .map(HikariDataSource.class::cast)
+        .filter(pool -> pool.getPoolName().equals("bulkhead-" + key))
+        .findFirst().orElseThrow();
+  }
+}
@@ -0,0 +1,84 @@
+package edu.ucsb.cs156.example.config;
+
+import org.junit.jupiter.api.Test;
+import org.springdoc.core.SpringDocConfigProperties;
+import org.springdoc.core.SpringDocConfiguration;
+import org.springdoc.core.SpringDocUIConfiguration;
+import org.springdoc.core.SwaggerUiConfigParameters;
+import org.springdoc.core.SwaggerUiConfigProperties;
+import org.springdoc.core.SwaggerUiOAuthProperties;
+import org.springdoc.webmvc.core.SpringDocWebMvcConfiguration;
+import org.springdoc.webmvc.ui.SwaggerConfig;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.autoconfigure.http.HttpMessageConvertersAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.WebMvcAutoConfiguration;
+import org.springframework.boot.test.context.runner.WebApplicationContextRunner;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class OpenApiStaticConfigTests {
+
+  private final WebApplicationContextRunner runner = new WebApplicationContextRunner()
+      .withConfiguration(AutoConfigurations.of(
+          JacksonAutoConfiguration.class, HttpMessageConvertersAutoConfiguration.class,
+          WebMvcAutoConfiguration.class,
+          SpringDocConfiguration.class, SpringDocConfigProperties.class, SpringDocWebMvcConfiguration.class,
+          SwaggerConfig.class, SwaggerUiConfigProperties.class, SwaggerUiConfigParameters.class,
+          SpringDocUIConfiguration.class, SwaggerUiOAuthProperties.class))
+      .withUserConfiguration(OpenApiStaticConfig.class);
+
+  @Test
+  public void springdoc_beans_are_eager_by_default() {
+    runner.run(context -> {
+      assertFalse(context.getBeanFactory().getBeanDefinition("openApiResource").isLazyInit());
+      assertTrue(context.getBeanFactory().containsSingleton("openApiResource"));
+    });
+  }
+
+  @Test
+  public void static_mode_defers_springdoc_beans_until_first_use() {
+    runner.withPropertyValues("app.openapi.static=true").run(context -> {
+      assertTrue(context.getBeanFactory().getBeanDefinition("openApiResource").isLazyInit());
+      assertFalse(context.getBeanFactory().containsSingleton("openApiResource"));
+
+      context.getBean("openApiResource");
+      assertTrue(context.getBeanFactory().containsSingleton("openApiResource"));
+    });
+  }
+
+  @Test
+  public void static_mode_keeps_swagger_ui_resource_handler_and_configuration_classes_eager() {
+    runner.withPropertyValues("app.openapi.static=true").run(context -> {
+      assertFalse(context.getBeanFactory().getBeanDefinition("swaggerWebMvcConfigurer").isLazyInit());
+      assertTrue(context.getBeanFactory().containsSingleton("swaggerWebMvcConfigurer"));
+      String uiConfiguration = context.getBeanNamesForType(SpringDocUIConfiguration.class)[0];
+      assertTrue(context.getBeanFactory().containsSingleton(uiConfiguration));
+    });
+  }
+
+  @Test
+  public void swagger_ui_is_pointed_at_the_generated_spec() {
+    SwaggerUiConfigProperties properties = new SwaggerUiConfigProperties();
+    OpenApiStaticConfig.pointSwaggerUiAtStaticSpec(true).postProcessAfterInitialization(properties, "swaggerUiConfig");
+    assertEquals(OpenApiStaticConfig.STATIC_SPEC_URL, properties.getUrl());
+  }
+
+  @Test
+  public void swagger_ui_stays_on_api_docs_without_a_generated_spec() {
+    SwaggerUiConfigProperties properties = new SwaggerUiConfigProperties();
+    OpenApiStaticConfig.pointSwaggerUiAtStaticSpec(false).postProcessAfterInitialization(properties, "swaggerUiConfig");
+    assertNull(properties.getUrl());
+  }
+
+  @Test
+  public void an_explicit_swagger_ui_url_is_kept() {
+    SwaggerUiConfigProperties properties = new SwaggerUiConfigProperties();
+    properties.setUrl("/elsewhere.json");
+    OpenApiStaticConfig.pointSwaggerUiAtStaticSpec(true).postProcessAfterInitialization(properties, "swaggerUiConfig");
+    assertEquals("/elsewhere.json", properties.getUrl());
+  }
+}
@@ -4,23 +4,34 @@ import edu.ucsb.cs156.example.repositories.UserRepository;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
 import edu.ucsb.cs156.example.ControllerTestCase;
 import edu.ucsb.cs156.example.entities.Articles;
+import edu.ucsb.cs156.example.models.ArticleRow;
+import edu.ucsb.cs156.example.models.BatchResult;
 import edu.ucsb.cs156.example.repositories.ArticlesRepository;
+import edu.ucsb.cs156.example.repositories.JsonRowsRepository;
+import edu.ucsb.cs156.example.repositories.SelectedFieldsRepository;
+import edu.ucsb.cs156.example.repositories.ListRowsRepository;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.util.AopTestUtils;
 import org.springframework.test.web.servlet.MvcResult;
 
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 
 import java.util.Optional;
@@ -31,6 +42,7 @@ import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.never;
 
 @WebMvcTest(controllers = ArticlesController.class)
 @Import(TestConfig.class)
@@ -38,9 +50,28 @@ public class ArticlesControllerTests extends ControllerTestCase {
     @MockBean
     ArticlesRepository articlesRepository;
 
+    @MockBean
+    ListRowsRepository listRowsRepository;
+
+    @MockBean
+    JsonRowsRepository jsonRowsRepository;
+
+    @MockBean
+    SelectedFieldsRepository selectedFields;
+
     @MockBean
     UserRepository userRepository;
 
+    @Autowired
+    ArticlesController controller;
+
+    @BeforeEach
+    public void clearCache() {
+        ArticlesController target = AopTestUtils.getUltimateTargetObject(controller);
+        target.missingIds.clear();
+        target.listReadEngine = "jpa";
+    }
+
     // Tests for GET /api/articles/all
 
     @Test
@@ -98,6 +129,126 @@ public class ArticlesControllerTests extends ControllerTestCase {
             assertEquals(expectedJson, responseString);
     }
 
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void jdbc_list_engine_returns_rows_serialized_like_the_entities() throws Exception {
+
+            // arrange
+            Articles article = Articles.builder()
+                    .id(7L)
+                    .title("Using testing-playground")
+                    .url("https://www.youtube.com/watch?v=pY3kZZ0HR0c")
+                    .explanation("Using testing-playground with React Testing Library")
+                    .email("cgaucho@ucsb.edu")
+                    .dateAdded(LocalDateTime.parse("2022-04-20T17:35"))
+                    .build();
+            ArticleRow row = new ArticleRow(7L, "Using testing-playground", "https://www.youtube.com/watch?v=pY3kZZ0HR0c",
+                        "Using testing-playground with React Testing Library", "cgaucho@ucsb.edu", LocalDateTime.parse("2022-04-20T17:35"));
+
+            ArticlesController target = AopTestUtils.getUltimateTargetObject(controller);
+            target.listReadEngine = "jdbc";
+            when(listRowsRepository.articles()).thenReturn(List.of(row));
+
+            // act
+            MvcResult response = mockMvc.perform(get("/api/articles/all"))
+                    .andExpect(status().isOk()).andReturn();
+
+            // assert
+            verify(articlesRepository, never()).findAll();
+            String expectedJson = mapper.writeValueAsString(List.of(article));
+            assertEquals(expectedJson, response.getResponse().getContentAsString());
+    }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void json_list_engine_streams_the_json_built_by_the_database() throws Exception {
+
+            // arrange
+            ArticlesController target = AopTestUtils.getUltimateTargetObject(controller);
+            target.listReadEngine = "json";
+            when(jsonRowsRepository.isSupported()).thenReturn(true);
+            when(jsonRowsRepository.articles()).thenReturn(out -> out.write("[{\"id\":3,\"title\":\"Using testing-playground\"}]".getBytes(StandardCharsets.UTF_8)));
+
+            // act
+            MvcResult response = mockMvc.perform(get("/api/articles/all"))
+                    .andExpect(status().isOk()).andReturn();
+
+            // assert
+            verify(articlesRepository, never()).findAll();
+            assertEquals("application/json;charset=UTF-8", response.getResponse().getContentType());
+            assertEquals("[{\"id\":3,\"title\":\"Using testing-playground\"}]", response.getResponse().getContentAsString());
+    }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void json_list_engine_falls_back_to_jpa_when_the_database_is_not_postgres() throws Exception {
+
+            // arrange
+            ArticlesController target = AopTestUtils.getUltimateTargetObject(controller);
+            target.listReadEngine = "json";
+            when(jsonRowsRepository.isSupported()).thenReturn(false);
+            when(articlesRepository.findAll()).thenReturn(List.of());
+
+            // act
+            MvcResult response = mockMvc.perform(get("/api/articles/all"))
+                    .andExpect(status().isOk()).andReturn();
+
+            // assert
+            verify(jsonRowsRepository, never()).articles();
+            verify(articlesRepository, times(1)).findAll();
+            assertEquals("[]", response.getResponse().getContentAsString());
+    }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void logged_in_user_can_get_sparse_fieldset() throws Exception {
+
+            // arrange
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("id", 1L);
+            row.put("title", "Using testing-playground");
+            when(selectedFields.findAll(Articles.class, List.of("id", "title"))).thenReturn(List.of(row));
+
+            // act
+            MvcResult response = mockMvc.perform(get("/api/articles/all?fields=id,title,id"))
+                            .andExpect(status().isOk()).andReturn();
+
+            // assert
+            verify(selectedFields, times(1)).findAll(Articles.class, List.of("id", "title"));
+            verify(articlesRepository, times(0)).findAll();
+            String responseString = response.getResponse().getContentAsString();
+            assertEquals("[{\"id\":1,\"title\":\"Using testing-playground\"}]", responseString);
+    }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void logged_in_user_gets_bad_request_for_empty_fields() throws Exception {
+
+            // act
+            MvcResult response = mockMvc.perform(get("/api/articles/all?fields="))
+                            .andExpect(status().isBadRequest()).andReturn();
+
+            // assert
+            verify(selectedFields, never()).findAll(any(), any());
+            Map<String, Object> json = responseToJson(response);
+            assertEquals("BadRequestException", json.get("type"));
+            assertEquals("fields must be a comma separated list of field names", json.get("message"));
+    }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void logged_in_user_gets_bad_request_for_unknown_field() throws Exception {
+
+            // act
+            MvcResult response = mockMvc.perform(get("/api/articles/all?fields=id,class"))
+                            .andExpect(status().isBadRequest()).andReturn();
+
+            // assert
+            Map<String, Object> json = responseToJson(response);
+            assertEquals("BadRequestException", json.get("type"));
+            assertEquals("Unknown field class for Articles", json.get("message"));
+    }
+
     // Tests for POST /api/articles/post...
 
     @Test
@@ -200,6 +351,61 @@ public class ArticlesControllerTests extends ControllerTestCase {
             assertEquals("Articles with id 7 not found", json.get("message"));
     }
 
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void repeated_lookups_of_a_missing_id_do_not_query_again() throws Exception {
+
+            // arrange
+
+            when(articlesRepository.findById(eq(7L))).thenReturn(Optional.empty());
+
+            // act
+            mockMvc.perform(get("/api/articles?id=7"))
+                            .andExpect(status().isNotFound());
+            MvcResult response = mockMvc.perform(get("/api/articles?id=7"))
+                            .andExpect(status().isNotFound()).andReturn();
+
+            // assert
+
+            verify(articlesRepository, times(1)).findById(eq(7L));
+            Map<String, Object> json = responseToJson(response);
+            assertEquals("EntityNotFoundException", json.get("type"));
+            assertEquals("Articles with id 7 not found", json.get("message"));
+    }
+
+    @WithMockUser(roles = { "ADMIN", "USER" })
+    @Test
+    public void posting_an_article_forgets_that_its_id_was_missing() throws Exception {
+
+            // arrange
+
+            Articles article = Articles.builder()
+                            .id(7L)
+                            .title("HowToRead")
+                            .url("localhost.com")
+                            .explanation("hahaha")
+                            .email("wyattspivak@ucsb.edu")
+                            .dateAdded(LocalDateTime.parse("2022-01-03T00:00:00"))
+                            .build();
+
+            when(articlesRepository.findById(eq(7L))).thenReturn(Optional.empty(), Optional.of(article));
+            when(articlesRepository.save(any())).thenReturn(article);
+
+            // act
+            mockMvc.perform(get("/api/articles?id=7"))
+                            .andExpect(status().isNotFound());
+            mockMvc.perform(post("/api/articles/post?title=HowToRead&url=localhost.com&explanation=hahaha&email=wyattspivak@ucsb.edu&dateAdded=2022-01-03T00:00:00")
+                            .with(csrf()))
+                            .andExpect(status().isOk());
+            MvcResult response = mockMvc.perform(get("/api/articles?id=7"))
+                            .andExpect(status().isOk()).andReturn();
+
+            // assert
+
+            verify(articlesRepository, times(2)).findById(eq(7L));
+            assertEquals(mapper.writeValueAsString(article), response.getResponse().getContentAsString());
+    }
+
     // Tests for DELETE /api/articles?id=... 
 
     @WithMockUser(roles = { "ADMIN", "USER" })
@@ -334,4 +540,31 @@ public class ArticlesControllerTests extends ControllerTestCase {
         Map<String, Object> json = responseToJson(response);
         assertEquals("Articles with id 67 not found", json.get("message"));
     }
+
+    // Tests for GET /api/articles?ids=
+
+    @Test
+    public void logged_out_users_cannot_get_by_ids() throws Exception {
+            mockMvc.perform(get("/api/articles?ids=1,2"))
+                    .andExpect(status().is(403));
+    }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void get_by_ids_returns_items_in_request_order_and_reports_missing_ids() throws Exception {
+
+            // arrange
+            Articles first = Articles.builder().id(1L).build();
+            Articles third = Articles.builder().id(3L).build();
+            when(articlesRepository.findAllById(eq(List.of(3L, 2L, 1L)))).thenReturn(List.of(first, third));
+
+            // act
+            MvcResult response = mockMvc.perform(get("/api/articles?ids=3,2,1,3"))
+                    .andExpect(status().isOk()).andReturn();
+
+            // assert
+            verify(articlesRepository, times(1)).findAllById(eq(List.of(3L, 2L, 1L)));
+            String expectedJson = mapper.writeValueAsString(new BatchResult<>(List.of(third, first), List.of(2L)));
+            assertEquals(expectedJson, response.getResponse().getContentAsString());
+    }
 }
@@ -0,0 +1,64 @@
+package edu.ucsb.cs156.example.controllers;
+
+import edu.ucsb.cs156.example.ControllerTestCase;
+import edu.ucsb.cs156.example.entities.Articles;
+import edu.ucsb.cs156.example.models.Dashboard;
+import edu.ucsb.cs156.example.models.DashboardSection;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.DashboardService;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(controllers = DashboardController.class)
+public class DashboardControllerTests extends ControllerTestCase {
+
+  @MockBean
+  UserRepository userRepository;
+
+  @MockBean
+  DashboardService dashboardService;
+
+  @Test
+  public void dashboard__logged_out() throws Exception {
+    mockMvc.perform(get("/api/dashboard"))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = { "USER" })
+  @Test
+  public void dashboard__user_logged_in_gets_partial_results() throws Exception {
+
+    // arrange
+
+    Articles article = Articles.builder().id(4L).title("Caching").build();
+    Map<String, DashboardSection> sections = new LinkedHashMap<>();
+    sections.put("articles", DashboardSection.ok(12, List.of(article)));
+    sections.put("helpRequests", DashboardSection.unavailable(DashboardSection.TIMEOUT));
+    when(dashboardService.getDashboard()).thenReturn(new Dashboard(false, sections));
+
+    // act
+
+    MvcResult response = mockMvc.perform(get("/api/dashboard"))
+        .andExpect(status().isOk()).andReturn();
+
+    // assert
+
+    String expectedJson = "{\"complete\":false,\"sections\":{"
+        + "\"articles\":{\"status\":\"ok\",\"count\":12,\"latest\":[" + mapper.writeValueAsString(article) + "]},"
+        + "\"helpRequests\":{\"status\":\"timeout\"}}}";
+    assertEquals(expectedJson, response.getResponse().getContentAsString());
+  }
+}
@@ -0,0 +1,79 @@
+package edu.ucsb.cs156.example.controllers;
+
+import edu.ucsb.cs156.example.ControllerTestCase;
+import edu.ucsb.cs156.example.models.GraphQLRequest;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.GraphQLService;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(controllers = GraphQLController.class)
+public class GraphQLControllerTests extends ControllerTestCase {
+
+  @MockBean
+  UserRepository userRepository;
+
+  @MockBean
+  GraphQLService graphQLService;
+
+  @Test
+  public void graphql__logged_out() throws Exception {
+    mockMvc.perform(post("/api/graphql").with(csrf())
+        .contentType(MediaType.APPLICATION_JSON).content("{\"query\":\"{ articles { id } }\"}"))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = { "USER" })
+  @Test
+  public void graphql__user_logged_in_runs_a_query() throws Exception {
+
+    // arrange
+
+    Map<String, Object> variables = Map.of("ids", List.of("1"));
+    GraphQLRequest request = GraphQLRequest.builder()
+        .query("query Items($ids: [ID!]!) { menuItems(ids: $ids) { name } }")
+        .operationName("Items")
+        .variables(variables)
+        .build();
+    Map<String, Object> result = Map.of("data", Map.of("menuItems", List.of(Map.of("name", "Tacos"))));
+    when(graphQLService.execute(request.getQuery(), "Items", variables)).thenReturn(result);
+
+    // act
+
+    MvcResult response = mockMvc.perform(post("/api/graphql").with(csrf())
+        .contentType(MediaType.APPLICATION_JSON).content(mapper.writeValueAsString(request)))
+        .andExpect(status().isOk()).andReturn();
+
+    // assert
+
+    assertEquals("{\"data\":{\"menuItems\":[{\"name\":\"Tacos\"}]}}", response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = { "USER" })
+  @Test
+  public void graphql__blank_query_is_a_bad_request() throws Exception {
+    mockMvc.perform(post("/api/graphql").with(csrf())
+        .contentType(MediaType.APPLICATION_JSON).content("{\"query\":\"  \"}"))
+        .andExpect(status().isBadRequest());
+
+    verify(graphQLService, never()).execute(anyString(), any(), any());
+  }
+}
@@ -1,37 +1,59 @@
 package edu.ucsb.cs156.example.controllers;
 
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
 import edu.ucsb.cs156.example.repositories.UserRepository;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
 import edu.ucsb.cs156.example.ControllerTestCase;
 import edu.ucsb.cs156.example.entities.HelpRequest;
+import edu.ucsb.cs156.example.models.HelpRequestRow;
+import edu.ucsb.cs156.example.models.BatchResult;
+import edu.ucsb.cs156.example.models.GroupCount;
 
 import edu.ucsb.cs156.example.repositories.HelpRequestRepository;
+import edu.ucsb.cs156.example.repositories.JsonRowsRepository;
+import edu.ucsb.cs156.example.repositories.SelectedFieldsRepository;
+import edu.ucsb.cs156.example.repositories.ListRowsRepository;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.skyscreamer.jsonassert.JSONAssert;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
 import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
 import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.util.AopTestUtils;
 import org.springframework.test.web.servlet.MvcResult;
 
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 
 import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.never;
 
 @WebMvcTest(controllers = HelpRequestController.class)
 @Import(TestConfig.class)
@@ -39,9 +61,33 @@ public class HelpRequestControllerTests extends ControllerTestCase {
     @MockBean
     HelpRequestRepository helpRequestRepository;
 
+    @MockBean
+    ListRowsRepository listRowsRepository;
+
+    @MockBean
+    JsonRowsRepository jsonRowsRepository;
+
+    @MockBean
+    SelectedFieldsRepository selectedFields;
+
     @MockBean
     UserRepository userRepository;
 
+    @Autowired
+    HelpRequestController controller;
+
+    @BeforeEach
+    public void clearCache() {
+        HelpRequestController target = AopTestUtils.getUltimateTargetObject(controller);
+        target.missingIds.clear();
+        target.countCache.invalidate();
+        target.listReadEngine = "jpa";
+    }
+
+    private GroupCount groupCount(Object value, long count) {
+        return new SpelAwareProxyProjectionFactory().createProjection(GroupCount.class, Map.of("value", value, "count", count));
+    }
+
     // Tests for GET /api/helprequests/all
         
     @Test
@@ -101,6 +147,329 @@ public class HelpRequestControllerTests extends ControllerTestCase {
             assertEquals(expectedJson, responseString);
     }
 
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void jdbc_list_engine_returns_rows_serialized_like_the_entities() throws Exception {
+
+            // arrange
+            HelpRequest helpRequest = HelpRequest.builder()
+                    .id(7L)
+                    .requesterEmail("cgaucho@ucsb.edu")
+                    .teamId("s22-5pm-3")
+                    .tableOrBreakoutRoom("7")
+                    .requestTime(LocalDateTime.parse("2022-04-20T17:35"))
+                    .explanation("Need help with Swagger-ui")
+                    .solved(true)
+                    .build();
+            HelpRequestRow row = new HelpRequestRow(7L, "cgaucho@ucsb.edu", "s22-5pm-3", "7",
+                        LocalDateTime.parse("2022-04-20T17:35"), "Need help with Swagger-ui", true);
+
+            HelpRequestController target = AopTestUtils.getUltimateTargetObject(controller);
+            target.listReadEngine = "jdbc";
+            when(listRowsRepository.helpRequests()).thenReturn(List.of(row));
+
+            // act
+            MvcResult response = mockMvc.perform(get("/api/helprequests/all"))
+                    .andExpect(status().isOk()).andReturn();
+
+            // assert
+            verify(helpRequestRepository, never()).findAll();
+            String expectedJson = mapper.writeValueAsString(List.of(helpRequest));
+            assertEquals(expectedJson, response.getResponse().getContentAsString());
+    }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void json_list_engine_streams_the_json_built_by_the_database() throws Exception {
+
+            // arrange
+            HelpRequestController target = AopTestUtils.getUltimateTargetObject(controller);
+            target.listReadEngine = "json";
+            when(jsonRowsRepository.isSupported()).thenReturn(true);
+            when(jsonRowsRepository.helpRequests()).thenReturn(out -> out.write("[{\"id\":7,\"teamId\":\"s22-5pm-3\"}]".getBytes(StandardCharsets.UTF_8)));
+
+            // act
+            MvcResult response = mockMvc.perform(get("/api/helprequests/all"))
+                    .andExpect(status().isOk()).andReturn();
+
+            // assert
+            verify(helpRequestRepository, never()).findAll();
+            assertEquals("application/json;charset=UTF-8", response.getResponse().getContentType());
+            assertEquals("[{\"id\":7,\"teamId\":\"s22-5pm-3\"}]", response.getResponse().getContentAsString());
+    }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void json_list_engine_falls_back_to_jpa_when_the_database_is_not_postgres() throws Exception {
+
+            // arrange
+            HelpRequestController target = AopTestUtils.getUltimateTargetObject(controller);
+            target.listReadEngine = "json";
+            when(jsonRowsRepository.isSupported()).thenReturn(false);
+            when(helpRequestRepository.findAll()).thenReturn(List.of());
+
+            // act
+            MvcResult response = mockMvc.perform(get("/api/helprequests/all"))
+                    .andExpect(status().isOk()).andReturn();
+
+            // assert
+            verify(jsonRowsRepository, never()).helpRequests();
+            verify(helpRequestRepository, times(1)).findAll();
+            assertEquals("[]", response.getResponse().getContentAsString());
+    }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void json_list_engine_leaves_other_representations_to_jpa() throws Exception {
+
+            // arrange
+            HelpRequestController target = AopTestUtils.getUltimateTargetObject(controller);
+            target.listReadEngine = "json";
+            when(jsonRowsRepository.isSupported()).thenReturn(true);
+            when(helpRequestRepository.findAll()).thenReturn(List.of());
+
+            // act
+            mockMvc.perform(get("/api/helprequests/all").accept("application/x-jackson-smile"))
+                    .andExpect(status().isOk());
+
+            // assert
+            verify(jsonRowsRepository, never()).helpRequests();
+            verify(helpRequestRepository, times(1)).findAll();
+    }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void logged_in_user_can_get_sparse_fieldset() throws Exception {
+
+            // arrange
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("id", 1L);
+            row.put("teamId", "s22-5pm-3");
+            row.put("solved", true);
+            when(selectedFields.findAll(HelpRequest.class, List.of("id", "teamId", "solved"))).thenReturn(List.of(row));
+
+            // act
+            MvcResult response = mockMvc.perform(get("/api/helprequests/all?fields=id,teamId,solved,id"))
+                            .andExpect(status().isOk()).andReturn();
+
+            // assert
+            verify(selectedFields, times(1)).findAll(HelpRequest.class, List.of("id", "teamId", "solved"));
+            verify(helpRequestRepository, times(0)).findAll();
+            String responseString = response.getResponse().getContentAsString();
+            assertEquals("[{\"id\":1,\"teamId\":\"s22-5pm-3\",\"solved\":true}]", responseString);
+    }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void logged_in_user_gets_bad_request_for_empty_fields() throws Exception {
+
+            // act
+            MvcResult response = mockMvc.perform(get("/api/helprequests/all?fields="))
+                            .andExpect(status().isBadRequest()).andReturn();
+
+            // assert
+            verify(selectedFields, never()).findAll(any(), any());
+            Map<String, Object> json = responseToJson(response);
+            assertEquals("BadRequestException", json.get("type"));
+            assertEquals("fields must be a comma separated list of field names", json.get("message"));
+    }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void logged_in_user_gets_bad_request_for_unknown_field() throws Exception {
+
+            // act
+            MvcResult response = mockMvc.perform(get("/api/helprequests/all?fields=nonsense"))
+                            .andExpect(status().isBadRequest()).andReturn();
+
+            // assert
+            Map<String, Object> json = responseToJson(response);
+            assertEquals("BadRequestException", json.get("type"));
+            assertEquals("Unknown field nonsense for HelpRequest", json.get("message"));
+    }
+
+    // Tests for GET /api/helprequests/count
+
+    @Test
+    public void logged_out_users_cannot_count() throws Exception {
+            mockMvc.perform(get("/api/helprequests/count"))
+                            .andExpect(status().is(403));
+    }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void logged_in_user_can_count_all_helprequests() throws Exception {
+
+            // arrange
+            when(helpRequestRepository.count()).thenReturn(7L);
+
+            // act
+            MvcResult response = mockMvc.perform(get("/api/helprequests/count"))
+                            .andExpect(status().isOk()).andReturn();
+
+            // assert
+            assertEquals("{\"total\":7}", response.getResponse().getContentAsString());
+    }
+
+    @WithMockUser(roles = { "ADMIN", "USER" })
+    @Test
+    public void grouped_counts_are_served_from_cache_until_a_write() throws Exception {
+
+            // arrange
+            HelpRequest helpRequest = HelpRequest.builder().id(3L).teamId("s22-5pm-3").build();
+            when(helpRequestRepository.countGroupedBySolved()).thenReturn(List.of(groupCount(false, 4L), groupCount(true, 2L)));
+            when(helpRequestRepository.findById(eq(3L))).thenReturn(Optional.of(helpRequest));
+
+            // act
+            MvcResult response = mockMvc.perform(get("/api/helprequests/count?groupBy=solved"))
+                            .andExpect(status().isOk()).andReturn();
+            mockMvc.perform(get("/api/helprequests/count?groupBy=solved"))
+                            .andExpect(status().isOk());
+            verify(helpRequestRepository, times(1)).countGroupedBySolved();
+
+            mockMvc.perform(delete("/api/helprequests?id=3").with(csrf()))
+                            .andExpect(status().isOk());
+            mockMvc.perform(get("/api/helprequests/count?groupBy=solved"))
+                            .andExpect(status().isOk());
+
+            // assert
+            verify(helpRequestRepository, times(2)).countGroupedBySolved();
+            verify(helpRequestRepository, never()).count();
+            String expectedJson = "{\"total\":6,\"groups\":[{\"value\":false,\"count\":4},{\"value\":true,\"count\":2}]}";
+            JSONAssert.assertEquals(expectedJson, response.getResponse().getContentAsString(), true);
+    }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void logged_in_user_can_count_helprequests_per_team() throws Exception {
+
+            // arrange
+            when(helpRequestRepository.countGroupedByTeamId()).thenReturn(List.of(groupCount("s22-5pm-3", 2L)));
+
+            // act
+            MvcResult response = mockMvc.perform(get("/api/helprequests/count?groupBy=teamId"))
+                            .andExpect(status().isOk()).andReturn();
+
+            // assert
+            JSONAssert.assertEquals("{\"total\":2,\"groups\":[{\"value\":\"s22-5pm-3\",\"count\":2}]}",
+                            response.getResponse().getContentAsString(), true);
+    }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void logged_in_user_gets_bad_request_for_unknown_group_by() throws Exception {
+
+            // act
+            MvcResult response = mockMvc.perform(get("/api/helprequests/count?groupBy=explanation"))
+                            .andExpect(status().isBadRequest()).andReturn();
+
+            // assert
+            Map<String, Object> json = responseToJson(response);
+            assertEquals("BadRequestException", json.get("type"));
+            assertEquals("groupBy must be one of solved, teamId", json.get("message"));
+    }
+
+    // Tests for binary content negotiation on /api/helprequests/all and /bulk
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void logged_in_user_can_get_all_helprequests_as_smile() throws Exception {
+
+            // arrange
+            HelpRequest helpRequest1 = HelpRequest.builder()
+                            .id(1L)
+                            .requesterEmail("cgaucho@ucsb.edu")
+                            .teamId("s22-5pm-3")
+                            .tableOrBreakoutRoom("7")
+                            .requestTime(LocalDateTime.parse("2022-04-20T17:35"))
+                            .explanation("Need help with Swagger-ui")
+                            .solved(false)
+                            .build();
+
+            List<HelpRequest> expectedRequests = List.of(helpRequest1);
+            when(helpRequestRepository.findAll()).thenReturn(expectedRequests);
+
+            // act
+            MvcResult response = mockMvc.perform(get("/api/helprequests/all").accept("application/x-jackson-smile"))
+                            .andExpect(status().isOk()).andReturn();
+
+            // assert
+            ObjectMapper smileMapper = Jackson2ObjectMapperBuilder.smile().build();
+            assertEquals("application/x-jackson-smile", response.getResponse().getContentType());
+            List<HelpRequest> decoded = smileMapper.readValue(response.getResponse().getContentAsByteArray(),
+                            new TypeReference<List<HelpRequest>>() {});
+            assertEquals(expectedRequests, decoded);
+    }
+
+    @Test
+    public void logged_out_users_cannot_post_bulk() throws Exception {
+            mockMvc.perform(post("/api/helprequests/bulk"))
+                            .andExpect(status().is(403));
+    }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void logged_in_regular_users_cannot_post_bulk() throws Exception {
+            mockMvc.perform(post("/api/helprequests/bulk"))
+                            .andExpect(status().is(403)); // only admins can post
+    }
+
+    @WithMockUser(roles = { "ADMIN", "USER" })
+    @Test
+    public void an_admin_user_can_post_bulk_helprequests_as_smile() throws Exception {
+
+            // arrange
+            HelpRequest incoming = HelpRequest.builder()
+                            .id(42L)
+                            .requesterEmail("cgaucho@ucsb.edu")
+                            .teamId("s22-5pm-3")
+                            .tableOrBreakoutRoom("7")
+                            .requestTime(LocalDateTime.parse("2022-04-20T17:35"))
+                            .explanation("Need help with Swagger-ui")
+                            .solved(false)
+                            .build();
+
+            HelpRequest toSave = HelpRequest.builder()
+                            .id(0L)
+                            .requesterEmail("cgaucho@ucsb.edu")
+                            .teamId("s22-5pm-3")
+                            .tableOrBreakoutRoom("7")
+                            .requestTime(LocalDateTime.parse("2022-04-20T17:35"))
+                            .explanation("Need help with Swagger-ui")
+                            .solved(false)
+                            .build();
+
+            HelpRequest saved = HelpRequest.builder()
+                            .id(5L)
+                            .requesterEmail("cgaucho@ucsb.edu")
+                            .teamId("s22-5pm-3")
+                            .tableOrBreakoutRoom("7")
+                            .requestTime(LocalDateTime.parse("2022-04-20T17:35"))
+                            .explanation("Need help with Swagger-ui")
+                            .solved(false)
+                            .build();
+
+            when(helpRequestRepository.saveAll(eq(List.of(toSave)))).thenReturn(List.of(saved));
+
+            ObjectMapper smileMapper = Jackson2ObjectMapperBuilder.smile().build();
+            byte[] body = smileMapper.writeValueAsBytes(List.of(incoming));
+
+            // act
+            MvcResult response = mockMvc.perform(
+                            post("/api/helprequests/bulk")
+                                            .contentType("application/x-jackson-smile")
+                                            .accept("application/x-jackson-smile")
+                                            .content(body)
+                                            .with(csrf()))
+                            .andExpect(status().isOk()).andReturn();
+
+            // assert
+            verify(helpRequestRepository, times(1)).saveAll(List.of(toSave));
+            List<HelpRequest> decoded = smileMapper.readValue(response.getResponse().getContentAsByteArray(),
+                            new TypeReference<List<HelpRequest>>() {});
+            assertEquals(List.of(saved), decoded);
+    }
+
     // Tests for POST /api/helprequests/post...
 
     @Test
@@ -339,4 +708,100 @@ public class HelpRequestControllerTests extends ControllerTestCase {
                 assertEquals("HelpRequest with id 123 not found", json.get("message"));
         }
 
+    // Tests for GET /api/helprequests?ids=
+
+    @Test
+    public void logged_out_users_cannot_get_by_ids() throws Exception {
+            mockMvc.perform(get("/api/helprequests?ids=1,2"))
+                    .andExpect(status().is(403));
+    }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void get_by_ids_returns_items_in_request_order_and_reports_missing_ids() throws Exception {
+
+            // arrange
+            HelpRequest first = HelpRequest.builder().id(1L).build();
+            HelpRequest third = HelpRequest.builder().id(3L).build();
+            when(helpRequestRepository.findAllById(eq(List.of(3L, 2L, 1L)))).thenReturn(List.of(first, third));
+
+            // act
+            MvcResult response = mockMvc.perform(get("/api/helprequests?ids=3,2,1,3"))
+                    .andExpect(status().isOk()).andReturn();
+
+            // assert
+            verify(helpRequestRepository, times(1)).findAllById(eq(List.of(3L, 2L, 1L)));
+            String expectedJson = mapper.writeValueAsString(new BatchResult<>(List.of(third, first), List.of(2L)));
+            assertEquals(expectedJson, response.getResponse().getContentAsString());
+    }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void get_by_ids_does_not_query_ids_recently_found_missing() throws Exception {
+
+            // arrange
+            HelpRequest first = HelpRequest.builder().id(1L).build();
+            when(helpRequestRepository.findAllById(eq(List.of(1L, 2L)))).thenReturn(List.of(first));
+            when(helpRequestRepository.findAllById(eq(List.of(1L)))).thenReturn(List.of(first));
+            mockMvc.perform(get("/api/helprequests?ids=1,2")).andExpect(status().isOk());
+
+            // act
+            MvcResult response = mockMvc.perform(get("/api/helprequests?ids=2,1"))
+                    .andExpect(status().isOk()).andReturn();
+            mockMvc.perform(get("/api/helprequests?ids=2"))
+                    .andExpect(status().isOk())
+                    .andExpect(content().json("{\"items\":[],\"missingIds\":[2]}"));
+
+            // assert
+            verify(helpRequestRepository, times(1)).findAllById(eq(List.of(1L)));
+            verify(helpRequestRepository, times(2)).findAllById(any());
+            String expectedJson = mapper.writeValueAsString(new BatchResult<>(List.of(first), List.of(2L)));
+            assertEquals(expectedJson, response.getResponse().getContentAsString());
+    }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void a_miss_that_overlaps_a_create_is_not_remembered() throws Exception {
+
+            // arrange
+            HelpRequestController target = AopTestUtils.getUltimateTargetObject(controller);
+            HelpRequest created = HelpRequest.builder().id(7L).build();
+            // the row is created, and the id forgotten, while each lookup runs
+            when(helpRequestRepository.findById(eq(7L))).thenAnswer(invocation -> {
+                    target.missingIds.forget(7L);
+                    return Optional.empty();
+            }).thenReturn(Optional.of(created));
+            when(helpRequestRepository.findAllById(eq(List.of(8L)))).thenAnswer(invocation -> {
+                    target.missingIds.forget(8L);
+                    return List.of();
+            });
+
+            // act
+            mockMvc.perform(get("/api/helprequests?id=7")).andExpect(status().isNotFound());
+            mockMvc.perform(get("/api/helprequests?ids=8")).andExpect(status().isOk());
+
+            // assert
+            mockMvc.perform(get("/api/helprequests?id=7")).andExpect(status().isOk());
+            verify(helpRequestRepository, times(2)).findById(7L);
+            assertFalse(target.missingIds.isMissing(8L));
+    }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void get_by_ids_rejects_no_ids_too_many_or_empty_ids() throws Exception {
+            String tooMany = LongStream.rangeClosed(1, ApiController.MAX_BATCH_IDS + 1)
+                    .mapToObj(Long::toString).collect(Collectors.joining(","));
+
+            mockMvc.perform(get("/api/helprequests?ids="))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(content().json("{\"message\":\"ids must not be empty\"}"));
+            mockMvc.perform(get("/api/helprequests?ids=" + tooMany))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(content().json("{\"message\":\"At most " + ApiController.MAX_BATCH_IDS + " ids may be requested at once\"}"));
+            mockMvc.perform(get("/api/helprequests?ids=1,,2"))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(content().json("{\"message\":\"ids must not contain empty values\"}"));
+
+            verify(helpRequestRepository, never()).findAllById(any());
+    }
 }
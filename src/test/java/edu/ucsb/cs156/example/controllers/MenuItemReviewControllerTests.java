@@ -1,28 +1,44 @@
 package edu.ucsb.cs156.example.controllers;
 
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
 import edu.ucsb.cs156.example.repositories.UserRepository;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
 import edu.ucsb.cs156.example.ControllerTestCase;
 import edu.ucsb.cs156.example.entities.MenuItemReview;
 import edu.ucsb.cs156.example.entities.UCSBDate;
+import edu.ucsb.cs156.example.events.MenuItemReviewsChanged;
+import edu.ucsb.cs156.example.models.MenuItemReviewRow;
+import edu.ucsb.cs156.example.models.BatchResult;
 import edu.ucsb.cs156.example.repositories.MenuItemReviewRepository;
 import edu.ucsb.cs156.example.repositories.UCSBDateRepository;
+import edu.ucsb.cs156.example.repositories.JsonRowsRepository;
+import edu.ucsb.cs156.example.repositories.ListRowsRepository;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
 import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
+import org.springframework.test.util.AopTestUtils;
 import org.springframework.test.web.servlet.MvcResult;
 
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 
 import java.util.Optional;
@@ -33,17 +49,38 @@ import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.never;
 
 @WebMvcTest(controllers = MenuItemReviewController.class)
 @Import(TestConfig.class)
+@RecordApplicationEvents
 public class MenuItemReviewControllerTests extends ControllerTestCase {
 
     @MockBean
         MenuItemReviewRepository menuItemReviewRepository;
 
+    @MockBean
+    ListRowsRepository listRowsRepository;
+
+    @MockBean
+    JsonRowsRepository jsonRowsRepository;
+
     @MockBean
     UserRepository userRepository;
 
+    @Autowired
+    MenuItemReviewController controller;
+
+    @Autowired
+    ApplicationEvents events;
+
+    @BeforeEach
+    public void clearCache() {
+        MenuItemReviewController target = AopTestUtils.getUltimateTargetObject(controller);
+        target.missingIds.clear();
+        target.listReadEngine = "jpa";
+    }
+
     // Tests for GET /api/ucsbdates/all
         
         @Test
@@ -108,6 +145,243 @@ public class MenuItemReviewControllerTests extends ControllerTestCase {
                 assertEquals(expectedJson, responseString);
         }
 
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void jdbc_list_engine_returns_rows_serialized_like_the_entities() throws Exception {
+
+                // arrange
+                MenuItemReview menuItemReview = MenuItemReview.builder()
+                        .id(7L)
+                        .itemid(123)
+                        .reviewerEmail("chrisgaucho@ucsb.edu")
+                        .stars(5)
+                        .dateReviewed(LocalDateTime.parse("2022-01-03T00:00:00"))
+                        .comments("this is a comment")
+                        .build();
+                MenuItemReviewRow row = new MenuItemReviewRow(7L, 123L, "chrisgaucho@ucsb.edu", 5,
+                            LocalDateTime.parse("2022-01-03T00:00:00"), "this is a comment");
+
+                MenuItemReviewController target = AopTestUtils.getUltimateTargetObject(controller);
+                target.listReadEngine = "jdbc";
+                when(listRowsRepository.menuItemReviews()).thenReturn(List.of(row));
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/menuitemreview/all"))
+                        .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(menuItemReviewRepository, never()).findAll();
+                String expectedJson = mapper.writeValueAsString(List.of(menuItemReview));
+                assertEquals(expectedJson, response.getResponse().getContentAsString());
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void json_list_engine_streams_the_json_built_by_the_database() throws Exception {
+
+                // arrange
+                MenuItemReviewController target = AopTestUtils.getUltimateTargetObject(controller);
+                target.listReadEngine = "json";
+                when(jsonRowsRepository.isSupported()).thenReturn(true);
+                when(jsonRowsRepository.menuItemReviews()).thenReturn(out -> out.write("[{\"id\":5,\"stars\":4}]".getBytes(StandardCharsets.UTF_8)));
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/menuitemreview/all"))
+                        .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(menuItemReviewRepository, never()).findAll();
+                assertEquals("application/json;charset=UTF-8", response.getResponse().getContentType());
+                assertEquals("[{\"id\":5,\"stars\":4}]", response.getResponse().getContentAsString());
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void json_list_engine_falls_back_to_jpa_when_the_database_is_not_postgres() throws Exception {
+
+                // arrange
+                MenuItemReviewController target = AopTestUtils.getUltimateTargetObject(controller);
+                target.listReadEngine = "json";
+                when(jsonRowsRepository.isSupported()).thenReturn(false);
+                when(menuItemReviewRepository.findAll()).thenReturn(List.of());
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/menuitemreview/all"))
+                        .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(jsonRowsRepository, never()).menuItemReviews();
+                verify(menuItemReviewRepository, times(1)).findAll();
+                assertEquals("[]", response.getResponse().getContentAsString());
+        }
+
+
+        // Tests for binary content negotiation on /api/menuitemreview/all and /bulk
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_get_all_menuitemreviews_as_smile() throws Exception {
+
+                // arrange
+                MenuItemReview menuItemReview1 = MenuItemReview.builder()
+                                .id(1L)
+                                .itemid(123)
+                                .reviewerEmail("chrisgaucho@ucsb.edu")
+                                .stars(5)
+                                .dateReviewed(LocalDateTime.parse("2022-01-03T00:00:00"))
+                                .comments("this is a comment")
+                                .build();
+
+                List<MenuItemReview> expectedMenuItemReviews = List.of(menuItemReview1);
+                when(menuItemReviewRepository.findAll()).thenReturn(expectedMenuItemReviews);
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/menuitemreview/all").accept("application/x-jackson-smile"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                ObjectMapper smileMapper = Jackson2ObjectMapperBuilder.smile().build();
+                assertEquals("application/x-jackson-smile", response.getResponse().getContentType());
+                List<MenuItemReview> decoded = smileMapper.readValue(response.getResponse().getContentAsByteArray(),
+                                new TypeReference<List<MenuItemReview>>() {});
+                assertEquals(expectedMenuItemReviews, decoded);
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_get_all_menuitemreviews_as_cbor() throws Exception {
+
+                // arrange
+                MenuItemReview menuItemReview1 = MenuItemReview.builder()
+                                .id(1L)
+                                .itemid(123)
+                                .reviewerEmail("chrisgaucho@ucsb.edu")
+                                .stars(4)
+                                .dateReviewed(LocalDateTime.parse("2022-01-03T00:00:00"))
+                                .comments("this is a comment")
+                                .build();
+
+                List<MenuItemReview> expectedMenuItemReviews = List.of(menuItemReview1);
+                when(menuItemReviewRepository.findAll()).thenReturn(expectedMenuItemReviews);
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/menuitemreview/all").accept("application/cbor"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                ObjectMapper cborMapper = Jackson2ObjectMapperBuilder.cbor().build();
+                assertEquals("application/cbor", response.getResponse().getContentType());
+                List<MenuItemReview> decoded = cborMapper.readValue(response.getResponse().getContentAsByteArray(),
+                                new TypeReference<List<MenuItemReview>>() {});
+                assertEquals(expectedMenuItemReviews, decoded);
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_get_all_menuitemreviews_in_columnar_format() throws Exception {
+
+                // arrange
+                MenuItemReview menuItemReview1 = MenuItemReview.builder()
+                                .id(1L)
+                                .itemid(123)
+                                .reviewerEmail("chrisgaucho@ucsb.edu")
+                                .stars(5)
+                                .dateReviewed(LocalDateTime.parse("2022-01-03T00:00:00"))
+                                .comments("good")
+                                .build();
+
+                MenuItemReview menuItemReview2 = MenuItemReview.builder()
+                                .id(2L)
+                                .itemid(124)
+                                .reviewerEmail("johndoe@ucsb.edu")
+                                .stars(2)
+                                .dateReviewed(LocalDateTime.parse("2022-03-11T00:00:00"))
+                                .comments("bad")
+                                .build();
+
+                when(menuItemReviewRepository.findAll()).thenReturn(List.of(menuItemReview1, menuItemReview2));
+
+                // act
+                MvcResult viaHeader = mockMvc.perform(get("/api/menuitemreview/all").accept("application/vnd.ucsb.columnar.v2.json"))
+                                .andExpect(status().isOk()).andReturn();
+                MvcResult viaParameter = mockMvc.perform(get("/api/menuitemreview/all?format=columnar"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                String expected = "{\"version\":2,\"count\":2,\"dates\":[\"dateReviewed\"],\"columns\":{"
+                                + "\"id\":[1,2],\"itemid\":[123,124],\"reviewerEmail\":[\"chrisgaucho@ucsb.edu\",\"johndoe@ucsb.edu\"],"
+                                + "\"stars\":[5,2],\"dateReviewed\":[1641168000000,1646956800000],\"comments\":[\"good\",\"bad\"]}}";
+                assertEquals(expected, viaHeader.getResponse().getContentAsString());
+                assertEquals(expected, viaParameter.getResponse().getContentAsString());
+                assertEquals("application/vnd.ucsb.columnar.v2.json", viaParameter.getResponse().getContentType());
+        }
+
+        @Test
+        public void logged_out_users_cannot_post_bulk() throws Exception {
+                mockMvc.perform(post("/api/menuitemreview/bulk"))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_regular_users_cannot_post_bulk() throws Exception {
+                mockMvc.perform(post("/api/menuitemreview/bulk"))
+                                .andExpect(status().is(403)); // only admins can post
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void an_admin_user_can_post_bulk_menuitemreviews_as_cbor() throws Exception {
+
+                // arrange
+                MenuItemReview incoming = MenuItemReview.builder()
+                                .id(99L)
+                                .itemid(123)
+                                .reviewerEmail("chrisgaucho@ucsb.edu")
+                                .stars(3)
+                                .dateReviewed(LocalDateTime.parse("2022-01-03T00:00:00"))
+                                .comments("bulk")
+                                .build();
+
+                MenuItemReview toSave = MenuItemReview.builder()
+                                .id(0L)
+                                .itemid(123)
+                                .reviewerEmail("chrisgaucho@ucsb.edu")
+                                .stars(3)
+                                .dateReviewed(LocalDateTime.parse("2022-01-03T00:00:00"))
+                                .comments("bulk")
+                                .build();
+
+                MenuItemReview saved = MenuItemReview.builder()
+                                .id(7L)
+                                .itemid(123)
+                                .reviewerEmail("chrisgaucho@ucsb.edu")
+                                .stars(3)
+                                .dateReviewed(LocalDateTime.parse("2022-01-03T00:00:00"))
+                                .comments("bulk")
+                                .build();
+
+                when(menuItemReviewRepository.saveAll(eq(List.of(toSave)))).thenReturn(List.of(saved));
+
+                ObjectMapper cborMapper = Jackson2ObjectMapperBuilder.cbor().build();
+                byte[] body = cborMapper.writeValueAsBytes(List.of(incoming));
+
+                // act
+                MvcResult response = mockMvc.perform(
+                                post("/api/menuitemreview/bulk")
+                                                .contentType("application/cbor")
+                                                .content(body)
+                                                .with(csrf()))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(menuItemReviewRepository, times(1)).saveAll(List.of(toSave));
+                assertEquals(List.of(MenuItemReviewsChanged.added(List.of(saved))),
+                                events.stream(MenuItemReviewsChanged.class).toList());
+                String expectedJson = mapper.writeValueAsString(List.of(saved));
+                String responseString = response.getResponse().getContentAsString();
+                assertEquals(expectedJson, responseString);
+        }
 
         // Tests for POST /api/ucsbdates/post...
 
@@ -149,6 +423,8 @@ public class MenuItemReviewControllerTests extends ControllerTestCase {
 
                 // assert
                 verify(menuItemReviewRepository, times(1)).save(menuItemReview1);
+                assertEquals(List.of(MenuItemReviewsChanged.added(List.of(menuItemReview1))),
+                                events.stream(MenuItemReviewsChanged.class).toList());
                 String expectedJson = mapper.writeValueAsString(menuItemReview1);
                 String responseString = response.getResponse().getContentAsString();
                 assertEquals(expectedJson, responseString);
@@ -242,6 +518,8 @@ public class MenuItemReviewControllerTests extends ControllerTestCase {
                  // assert
                  verify(menuItemReviewRepository, times(1)).findById(15L);
                  verify(menuItemReviewRepository, times(1)).delete(any());
+                 assertEquals(List.of(MenuItemReviewsChanged.removed(menuItemReview1)),
+                                 events.stream(MenuItemReviewsChanged.class).toList());
  
                  Map<String, Object> json = responseToJson(response);
                  assertEquals("MenuItemReview with id 15 deleted", json.get("message"));
@@ -296,6 +574,7 @@ public class MenuItemReviewControllerTests extends ControllerTestCase {
                 String requestBody = mapper.writeValueAsString(menuItemReviewEdited);
 
                 when(menuItemReviewRepository.findById(eq(67L))).thenReturn(Optional.of(menuItemReviewOrig));
+                MenuItemReview before = menuItemReviewOrig.toBuilder().build();
 
                 // act
                 MvcResult response = mockMvc.perform(
@@ -309,6 +588,8 @@ public class MenuItemReviewControllerTests extends ControllerTestCase {
                 // assert
                 verify(menuItemReviewRepository, times(1)).findById(67L);
                 verify(menuItemReviewRepository, times(1)).save(menuItemReviewEdited); // should be saved with correct user
+                assertEquals(List.of(MenuItemReviewsChanged.replaced(before, menuItemReviewEdited)),
+                                events.stream(MenuItemReviewsChanged.class).toList());
                 String responseString = response.getResponse().getContentAsString();
                 assertEquals(requestBody, responseString);
         }
@@ -348,5 +629,31 @@ public class MenuItemReviewControllerTests extends ControllerTestCase {
                 assertEquals("MenuItemReview with id 67 not found", json.get("message"));
 
         }
-    
+
+        // Tests for GET /api/menuitemreview?ids=
+
+        @Test
+        public void logged_out_users_cannot_get_by_ids() throws Exception {
+                mockMvc.perform(get("/api/menuitemreview?ids=1,2"))
+                        .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void get_by_ids_returns_items_in_request_order_and_reports_missing_ids() throws Exception {
+
+                // arrange
+                MenuItemReview first = MenuItemReview.builder().id(1L).build();
+                MenuItemReview third = MenuItemReview.builder().id(3L).build();
+                when(menuItemReviewRepository.findAllById(eq(List.of(3L, 2L, 1L)))).thenReturn(List.of(first, third));
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/menuitemreview?ids=3,2,1,3"))
+                        .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(menuItemReviewRepository, times(1)).findAllById(eq(List.of(3L, 2L, 1L)));
+                String expectedJson = mapper.writeValueAsString(new BatchResult<>(List.of(third, first), List.of(2L)));
+                assertEquals(expectedJson, response.getResponse().getContentAsString());
+        }
 }
@@ -4,26 +4,40 @@ import edu.ucsb.cs156.example.repositories.UserRepository;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
 import edu.ucsb.cs156.example.ControllerTestCase;
 import edu.ucsb.cs156.example.entities.RecommendationRequest;
+import edu.ucsb.cs156.example.models.RecommendationRequestRow;
+import edu.ucsb.cs156.example.models.BatchResult;
 import edu.ucsb.cs156.example.repositories.RecommendationRequestRepository;
+import edu.ucsb.cs156.example.repositories.JsonRowsRepository;
+import edu.ucsb.cs156.example.repositories.SelectedFieldsRepository;
+import edu.ucsb.cs156.example.repositories.ListRowsRepository;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.util.AopTestUtils;
 import org.springframework.test.web.servlet.MvcResult;
 
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 
 import java.util.Optional;
+import edu.ucsb.cs156.example.models.GroupCount;
+import org.skyscreamer.jsonassert.JSONAssert;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
@@ -31,6 +45,7 @@ import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.never;
 
 @WebMvcTest(controllers = RecommendationRequestController.class)
 @Import(TestConfig.class)
@@ -39,9 +54,54 @@ public class RecommendationRequestControllerTests extends ControllerTestCase {
         @MockBean
         RecommendationRequestRepository recommendationRequestRepository;
 
+        @MockBean
+        ListRowsRepository listRowsRepository;
+
+        @MockBean
+        JsonRowsRepository jsonRowsRepository;
+
+        @MockBean
+        SelectedFieldsRepository selectedFields;
+
         @MockBean
         UserRepository userRepository;
 
+        @Autowired
+        RecommendationRequestController controller;
+
+        @BeforeEach
+        public void clearCache() {
+                RecommendationRequestController target = AopTestUtils.getUltimateTargetObject(controller);
+                target.missingIds.clear();
+                target.countCache.invalidate();
+                target.listReadEngine = "jpa";
+        }
+
+        private GroupCount groupCount(Object value, long count) {
+                return new SpelAwareProxyProjectionFactory().createProjection(GroupCount.class, Map.of("value", value, "count", count));
+        }
+
+        // Tests for GET /api/recommendationrequests/count
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_count_per_done() throws Exception {
+
+                // arrange
+                when(recommendationRequestRepository.countGroupedByDone()).thenReturn(List.of(groupCount(false, 3L), groupCount(true, 1L)));
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/recommendationrequests/count?groupBy=done"))
+                                .andExpect(status().isOk()).andReturn();
+                mockMvc.perform(get("/api/recommendationrequests/count?groupBy=done"))
+                                .andExpect(status().isOk());
+
+                // assert
+                verify(recommendationRequestRepository, times(1)).countGroupedByDone();
+                String expectedJson = "{\"total\":4,\"groups\":[{\"value\":false,\"count\":3},{\"value\":true,\"count\":1}]}";
+                JSONAssert.assertEquals(expectedJson, response.getResponse().getContentAsString(), true);
+        }
+
         // Tests for GET /api/recommendationrequests/all
         
         @Test
@@ -103,6 +163,127 @@ public class RecommendationRequestControllerTests extends ControllerTestCase {
                 assertEquals(expectedJson, responseString);
         }
 
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void jdbc_list_engine_returns_rows_serialized_like_the_entities() throws Exception {
+
+                // arrange
+                RecommendationRequest recommendationRequest = RecommendationRequest.builder()
+                        .id(7L)
+                        .requesterEmail("cgaucho@ucsb.edu")
+                        .professorEmail("phtcon@ucsb.edu")
+                        .explanation("BS/MS program")
+                        .dateRequested(LocalDateTime.parse("2022-04-20T17:35"))
+                        .dateNeeded(LocalDateTime.parse("2022-05-01T00:00"))
+                        .done(false)
+                        .build();
+                RecommendationRequestRow row = new RecommendationRequestRow(7L, "cgaucho@ucsb.edu", "phtcon@ucsb.edu", "BS/MS program",
+                            LocalDateTime.parse("2022-04-20T17:35"), LocalDateTime.parse("2022-05-01T00:00"), false);
+
+                RecommendationRequestController target = AopTestUtils.getUltimateTargetObject(controller);
+                target.listReadEngine = "jdbc";
+                when(listRowsRepository.recommendationRequests()).thenReturn(List.of(row));
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/recommendationrequests/all"))
+                        .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(recommendationRequestRepository, never()).findAll();
+                String expectedJson = mapper.writeValueAsString(List.of(recommendationRequest));
+                assertEquals(expectedJson, response.getResponse().getContentAsString());
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void json_list_engine_streams_the_json_built_by_the_database() throws Exception {
+
+                // arrange
+                RecommendationRequestController target = AopTestUtils.getUltimateTargetObject(controller);
+                target.listReadEngine = "json";
+                when(jsonRowsRepository.isSupported()).thenReturn(true);
+                when(jsonRowsRepository.recommendationRequests()).thenReturn(out -> out.write("[{\"id\":2,\"done\":false}]".getBytes(StandardCharsets.UTF_8)));
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/recommendationrequests/all"))
+                        .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(recommendationRequestRepository, never()).findAll();
+                assertEquals("application/json;charset=UTF-8", response.getResponse().getContentType());
+                assertEquals("[{\"id\":2,\"done\":false}]", response.getResponse().getContentAsString());
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void json_list_engine_falls_back_to_jpa_when_the_database_is_not_postgres() throws Exception {
+
+                // arrange
+                RecommendationRequestController target = AopTestUtils.getUltimateTargetObject(controller);
+                target.listReadEngine = "json";
+                when(jsonRowsRepository.isSupported()).thenReturn(false);
+                when(recommendationRequestRepository.findAll()).thenReturn(List.of());
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/recommendationrequests/all"))
+                        .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(jsonRowsRepository, never()).recommendationRequests();
+                verify(recommendationRequestRepository, times(1)).findAll();
+                assertEquals("[]", response.getResponse().getContentAsString());
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_get_sparse_fieldset() throws Exception {
+
+                // arrange
+                Map<String, Object> row = new LinkedHashMap<>();
+                row.put("id", 1L);
+                row.put("done", false);
+                when(selectedFields.findAll(RecommendationRequest.class, List.of("id", "done"))).thenReturn(List.of(row));
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/recommendationrequests/all?fields=id,done,id"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(selectedFields, times(1)).findAll(RecommendationRequest.class, List.of("id", "done"));
+                verify(recommendationRequestRepository, times(0)).findAll();
+                String responseString = response.getResponse().getContentAsString();
+                assertEquals("[{\"id\":1,\"done\":false}]", responseString);
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_gets_bad_request_for_empty_fields() throws Exception {
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/recommendationrequests/all?fields="))
+                                .andExpect(status().isBadRequest()).andReturn();
+
+                // assert
+                verify(selectedFields, never()).findAll(any(), any());
+                Map<String, Object> json = responseToJson(response);
+                assertEquals("BadRequestException", json.get("type"));
+                assertEquals("fields must be a comma separated list of field names", json.get("message"));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_gets_bad_request_for_unknown_field() throws Exception {
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/recommendationrequests/all?fields=id,grade"))
+                                .andExpect(status().isBadRequest()).andReturn();
+
+                // assert
+                Map<String, Object> json = responseToJson(response);
+                assertEquals("BadRequestException", json.get("type"));
+                assertEquals("Unknown field grade for RecommendationRequest", json.get("message"));
+        }
+
         // Tests for POST /api/recommendationrequests/post...
 
         @Test
@@ -354,4 +535,31 @@ public class RecommendationRequestControllerTests extends ControllerTestCase {
                 assertEquals("RecommendationRequest with id 67 not found", json.get("message"));
 
         }
+
+        // Tests for GET /api/recommendationrequests?ids=
+
+        @Test
+        public void logged_out_users_cannot_get_by_ids() throws Exception {
+                mockMvc.perform(get("/api/recommendationrequests?ids=1,2"))
+                        .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void get_by_ids_returns_items_in_request_order_and_reports_missing_ids() throws Exception {
+
+                // arrange
+                RecommendationRequest first = RecommendationRequest.builder().id(1L).build();
+                RecommendationRequest third = RecommendationRequest.builder().id(3L).build();
+                when(recommendationRequestRepository.findAllById(eq(List.of(3L, 2L, 1L)))).thenReturn(List.of(first, third));
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/recommendationrequests?ids=3,2,1,3"))
+                        .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(recommendationRequestRepository, times(1)).findAllById(eq(List.of(3L, 2L, 1L)));
+                String expectedJson = mapper.writeValueAsString(new BatchResult<>(List.of(third, first), List.of(2L)));
+                assertEquals(expectedJson, response.getResponse().getContentAsString());
+        }
 }
@@ -0,0 +1,77 @@
+package edu.ucsb.cs156.example.controllers;
+
+import edu.ucsb.cs156.example.ControllerTestCase;
+import edu.ucsb.cs156.example.errors.BadRequestException;
+import edu.ucsb.cs156.example.models.ReviewStats;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.ReviewAnalyticsService;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(controllers = ReviewAnalyticsController.class)
+public class ReviewAnalyticsControllerTests extends ControllerTestCase {
+
+  @MockBean
+  UserRepository userRepository;
+
+  @MockBean
+  ReviewAnalyticsService reviewAnalyticsService;
+
+  @Test
+  public void analytics__logged_out() throws Exception {
+    mockMvc.perform(get("/api/menuitemreview/analytics?groupBy=item"))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = { "USER" })
+  @Test
+  public void analytics__user_logged_in_gets_stats_per_week() throws Exception {
+
+    // arrange
+
+    when(reviewAnalyticsService.stats("week", 7L, LocalDate.parse("2022-01-01"), LocalDate.parse("2022-01-31")))
+        .thenReturn(List.of(new ReviewStats(LocalDate.parse("2022-01-03"), 4, 3.5)));
+
+    // act
+
+    MvcResult response = mockMvc.perform(get("/api/menuitemreview/analytics?groupBy=week&itemid=7&from=2022-01-01&to=2022-01-31"))
+        .andExpect(status().isOk()).andReturn();
+
+    // assert
+
+    assertEquals("[{\"key\":\"2022-01-03\",\"count\":4,\"averageStars\":3.5}]", response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = { "USER" })
+  @Test
+  public void analytics__unknown_grouping_is_a_bad_request() throws Exception {
+
+    // arrange
+
+    when(reviewAnalyticsService.stats("stars", null, null, null))
+        .thenThrow(new BadRequestException("groupBy must be one of item, reviewer, week"));
+
+    // act
+
+    MvcResult response = mockMvc.perform(get("/api/menuitemreview/analytics?groupBy=stars"))
+        .andExpect(status().isBadRequest()).andReturn();
+
+    // assert
+
+    Map<String, Object> json = responseToJson(response);
+    assertEquals("groupBy must be one of item, reviewer, week", json.get("message"));
+  }
+}
@@ -0,0 +1,77 @@
+package edu.ucsb.cs156.example.controllers;
+
+import edu.ucsb.cs156.example.ControllerTestCase;
+import edu.ucsb.cs156.example.errors.BadRequestException;
+import edu.ucsb.cs156.example.models.TopRatedItem;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.TopRatedMenuItemsService;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(controllers = TopRatedMenuItemsController.class)
+public class TopRatedMenuItemsControllerTests extends ControllerTestCase {
+
+  @MockBean
+  UserRepository userRepository;
+
+  @MockBean
+  TopRatedMenuItemsService topRatedMenuItemsService;
+
+  @Test
+  public void toprated__logged_out() throws Exception {
+    mockMvc.perform(get("/api/ucsbdiningcommonsmenuitem/toprated?diningCommonsCode=ortega"))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = { "USER" })
+  @Test
+  public void toprated__user_logged_in_gets_the_ten_best_by_default() throws Exception {
+
+    // arrange
+
+    when(topRatedMenuItemsService.topRated("ortega", 10))
+        .thenReturn(List.of(new TopRatedItem(7, "Pasta", "Entrees", 6, 4.0, 3.75)));
+
+    // act
+
+    MvcResult response = mockMvc.perform(get("/api/ucsbdiningcommonsmenuitem/toprated?diningCommonsCode=ortega"))
+        .andExpect(status().isOk()).andReturn();
+
+    // assert
+
+    assertEquals("[{\"id\":7,\"name\":\"Pasta\",\"station\":\"Entrees\",\"reviews\":6,\"averageStars\":4.0,\"score\":3.75}]",
+        response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = { "USER" })
+  @Test
+  public void toprated__too_many_is_a_bad_request() throws Exception {
+
+    // arrange
+
+    when(topRatedMenuItemsService.topRated("ortega", 500))
+        .thenThrow(new BadRequestException("k must be between 1 and 50"));
+
+    // act
+
+    MvcResult response = mockMvc.perform(get("/api/ucsbdiningcommonsmenuitem/toprated?diningCommonsCode=ortega&k=500"))
+        .andExpect(status().isBadRequest()).andReturn();
+
+    // assert
+
+    Map<String, Object> json = responseToJson(response);
+    assertEquals("k must be between 1 and 50", json.get("message"));
+  }
+}
@@ -0,0 +1,79 @@
+package edu.ucsb.cs156.example.controllers;
+
+import edu.ucsb.cs156.example.ControllerTestCase;
+import edu.ucsb.cs156.example.errors.BadRequestException;
+import edu.ucsb.cs156.example.models.TrendingRating;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.TrendingRatingsService;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(controllers = TrendingRatingsController.class)
+public class TrendingRatingsControllerTests extends ControllerTestCase {
+
+  @MockBean
+  UserRepository userRepository;
+
+  @MockBean
+  TrendingRatingsService trendingRatingsService;
+
+  @Test
+  public void trending__logged_out() throws Exception {
+    mockMvc.perform(get("/api/menuitemreview/trending"))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = { "USER" })
+  @Test
+  public void trending__user_logged_in_gets_one_items_windows() throws Exception {
+
+    // arrange
+
+    when(trendingRatingsService.trending(7L, 10)).thenReturn(List.of(new TrendingRating(7,
+        new TrendingRating.Window(0, null), new TrendingRating.Window(2, 4.5), new TrendingRating.Window(4, 3.0), 1.5)));
+
+    // act
+
+    MvcResult response = mockMvc.perform(get("/api/menuitemreview/trending?itemid=7"))
+        .andExpect(status().isOk()).andReturn();
+
+    // assert
+
+    assertEquals("[{\"itemid\":7,\"lastDay\":{\"reviews\":0,\"averageStars\":null},"
+        + "\"last7Days\":{\"reviews\":2,\"averageStars\":4.5},"
+        + "\"last30Days\":{\"reviews\":4,\"averageStars\":3.0},\"trend\":1.5}]",
+        response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = { "USER" })
+  @Test
+  public void trending__too_many_is_a_bad_request() throws Exception {
+
+    // arrange
+
+    when(trendingRatingsService.trending(null, 500))
+        .thenThrow(new BadRequestException("limit must be between 1 and 100"));
+
+    // act
+
+    MvcResult response = mockMvc.perform(get("/api/menuitemreview/trending?limit=500"))
+        .andExpect(status().isBadRequest()).andReturn();
+
+    // assert
+
+    Map<String, Object> json = responseToJson(response);
+    assertEquals("limit must be between 1 and 100", json.get("message"));
+  }
+}
@@ -8,26 +8,38 @@ import edu.ucsb.cs156.example.repositories.UCSBDateRepository;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.util.AopTestUtils;
 import org.springframework.test.web.servlet.MvcResult;
 
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 
+import java.time.Clock;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 
 import java.util.Optional;
+import edu.ucsb.cs156.example.models.BatchResult;
+import edu.ucsb.cs156.example.models.GroupCount;
+import org.skyscreamer.jsonassert.JSONAssert;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -42,6 +54,43 @@ public class UCSBDatesControllerTests extends ControllerTestCase {
         @MockBean
         UserRepository userRepository;
 
+        @Autowired
+        UCSBDatesController controller;
+
+        @BeforeEach
+        public void clearCache() {
+                UCSBDatesController target = AopTestUtils.getUltimateTargetObject(controller);
+                target.allCache.invalidate();
+                target.missingIds.clear();
+                target.countCache.invalidate();
+                target.quarterCache.invalidate();
+        }
+
+        private GroupCount groupCount(Object value, long count) {
+                return new SpelAwareProxyProjectionFactory().createProjection(GroupCount.class, Map.of("value", value, "count", count));
+        }
+
+        // Tests for GET /api/ucsbdates/count
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_count_per_quarterYYYYQ() throws Exception {
+
+                // arrange
+                when(ucsbDateRepository.countGroupedByQuarterYYYYQ()).thenReturn(List.of(groupCount("20221", 3L), groupCount("20222", 1L)));
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/ucsbdates/count?groupBy=quarterYYYYQ"))
+                                .andExpect(status().isOk()).andReturn();
+                mockMvc.perform(get("/api/ucsbdates/count?groupBy=quarterYYYYQ"))
+                                .andExpect(status().isOk());
+
+                // assert
+                verify(ucsbDateRepository, times(1)).countGroupedByQuarterYYYYQ();
+                String expectedJson = "{\"total\":4,\"groups\":[{\"value\":\"20221\",\"count\":3},{\"value\":\"20222\",\"count\":1}]}";
+                JSONAssert.assertEquals(expectedJson, response.getResponse().getContentAsString(), true);
+        }
+
         // Tests for GET /api/ucsbdates/all
         
         @Test
@@ -95,6 +144,150 @@ public class UCSBDatesControllerTests extends ControllerTestCase {
                 assertEquals(expectedJson, responseString);
         }
 
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void get_all_is_cached_until_a_date_is_posted() throws Exception {
+
+                // arrange
+
+                LocalDateTime ldt1 = LocalDateTime.parse("2022-01-03T00:00:00");
+
+                UCSBDate ucsbDate1 = UCSBDate.builder()
+                                .name("firstDayOfClasses")
+                                .quarterYYYYQ("20222")
+                                .localDateTime(ldt1)
+                                .build();
+                when(ucsbDateRepository.findAll()).thenReturn(new ArrayList<>(), List.of(ucsbDate1));
+                when(ucsbDateRepository.save(eq(ucsbDate1))).thenReturn(ucsbDate1);
+
+                // act
+
+                mockMvc.perform(get("/api/ucsbdates/all")).andExpect(status().isOk());
+                MvcResult cached = mockMvc.perform(get("/api/ucsbdates/all"))
+                                .andExpect(status().isOk()).andReturn();
+                mockMvc.perform(post("/api/ucsbdates/post?name=firstDayOfClasses&quarterYYYYQ=20222&localDateTime=2022-01-03T00:00:00")
+                                .with(csrf()))
+                                .andExpect(status().isOk());
+                MvcResult afterPost = mockMvc.perform(get("/api/ucsbdates/all"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+
+                verify(ucsbDateRepository, times(2)).findAll();
+                assertEquals("[]", cached.getResponse().getContentAsString());
+                assertEquals(mapper.writeValueAsString(List.of(ucsbDate1)), afterPost.getResponse().getContentAsString());
+        }
+
+        // Tests for GET /api/ucsbdates/quarters and /quarters/current
+
+        private UCSBDate dateIn(long id, int quarterKey) {
+                return UCSBDate.builder().id(id).name("date" + id).quarterYYYYQ(String.valueOf(quarterKey)).quarterKey(quarterKey)
+                                .localDateTime(LocalDateTime.parse("2022-01-03T00:00:00")).build();
+        }
+
+        @Test
+        public void logged_out_users_cannot_get_quarters() throws Exception {
+                mockMvc.perform(get("/api/ucsbdates/quarters?from=20221&to=20224"))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void quarters_are_loaded_once_and_then_served_per_quarter_from_cache() throws Exception {
+
+                // arrange
+                UCSBDate fall = dateIn(1L, 20224);
+                UCSBDate winter = dateIn(2L, 20231);
+                UCSBDate spring = dateIn(3L, 20232);
+                when(ucsbDateRepository.findAllInQuarters(20224, 20231)).thenReturn(List.of(fall, winter));
+                when(ucsbDateRepository.findAllInQuarters(20232, 20232)).thenReturn(List.of(spring));
+
+                // act
+                MvcResult first = mockMvc.perform(get("/api/ucsbdates/quarters?from=20224&to=20231"))
+                                .andExpect(status().isOk()).andReturn();
+                MvcResult second = mockMvc.perform(get("/api/ucsbdates/quarters?from=20231&to=20232"))
+                                .andExpect(status().isOk()).andReturn();
+                mockMvc.perform(get("/api/ucsbdates/quarters?from=20224&to=20232"))
+                                .andExpect(status().isOk());
+
+                // assert
+                verify(ucsbDateRepository, times(1)).findAllInQuarters(20224, 20231);
+                verify(ucsbDateRepository, times(1)).findAllInQuarters(20232, 20232);
+                assertEquals(mapper.writeValueAsString(List.of(fall, winter)), first.getResponse().getContentAsString());
+                assertEquals(mapper.writeValueAsString(List.of(winter, spring)), second.getResponse().getContentAsString());
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void quarters_are_reloaded_after_a_write() throws Exception {
+
+                // arrange
+                UCSBDate winter = dateIn(2L, 20231);
+                when(ucsbDateRepository.findAllInQuarters(20231, 20231)).thenReturn(List.of(winter));
+                when(ucsbDateRepository.findById(eq(2L))).thenReturn(Optional.of(winter));
+
+                // act
+                mockMvc.perform(get("/api/ucsbdates/quarters?from=20231&to=20231")).andExpect(status().isOk());
+                mockMvc.perform(delete("/api/ucsbdates?id=2").with(csrf())).andExpect(status().isOk());
+                mockMvc.perform(get("/api/ucsbdates/quarters?from=20231&to=20231")).andExpect(status().isOk());
+
+                // assert
+                verify(ucsbDateRepository, times(2)).findAllInQuarters(20231, 20231);
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void the_current_quarter_follows_the_clock_in_santa_barbara() throws Exception {
+
+                // arrange
+                UCSBDatesController target = AopTestUtils.getUltimateTargetObject(controller);
+                Clock original = target.clock;
+                // already Fall's first day in UTC, still Summer's last in California
+                target.clock = Clock.fixed(Instant.parse("2022-09-22T03:00:00Z"), ZoneId.of("America/Los_Angeles"));
+                UCSBDate summer = dateIn(4L, 20223);
+                when(ucsbDateRepository.findAllInQuarters(20223, 20223)).thenReturn(List.of(summer));
+
+                // act
+                MvcResult response;
+                try {
+                        response = mockMvc.perform(get("/api/ucsbdates/quarters/current"))
+                                        .andExpect(status().isOk()).andReturn();
+                } finally {
+                        target.clock = original;
+                }
+
+                // assert
+                assertEquals(mapper.writeValueAsString(List.of(summer)), response.getResponse().getContentAsString());
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void quarter_ranges_must_name_quarters_in_order_and_not_too_many() throws Exception {
+                MvcResult badQuarter = mockMvc.perform(get("/api/ucsbdates/quarters?from=20225&to=20231"))
+                                .andExpect(status().isBadRequest()).andReturn();
+                MvcResult backwards = mockMvc.perform(get("/api/ucsbdates/quarters?from=20231&to=20224"))
+                                .andExpect(status().isBadRequest()).andReturn();
+                MvcResult tooMany = mockMvc.perform(get("/api/ucsbdates/quarters?from=20001&to=20101"))
+                                .andExpect(status().isBadRequest()).andReturn();
+
+                assertEquals("quarterYYYYQ must be a year followed by a quarter 1-4, e.g. 20224, not 20225",
+                                responseToJson(badQuarter).get("message"));
+                assertEquals("from 20231 is after to 20224", responseToJson(backwards).get("message"));
+                assertEquals("at most 40 quarters at a time", responseToJson(tooMany).get("message"));
+                verify(ucsbDateRepository, never()).findAllInQuarters(any(Integer.class), any(Integer.class));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void quarter_ranges_cannot_start_in_year_zero() throws Exception {
+                MvcResult response = mockMvc.perform(get("/api/ucsbdates/quarters?from=00001&to=20231"))
+                                .andExpect(status().isBadRequest()).andReturn();
+
+                assertEquals("quarterYYYYQ must be a year followed by a quarter 1-4, e.g. 20224, not 00001",
+                                responseToJson(response).get("message"));
+                verify(ucsbDateRepository, never()).findAllInQuarters(any(Integer.class), any(Integer.class));
+        }
+
         // Tests for POST /api/ucsbdates/post...
 
         @Test
@@ -138,6 +331,66 @@ public class UCSBDatesControllerTests extends ControllerTestCase {
                 assertEquals(expectedJson, responseString);
         }
 
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void an_admin_user_cannot_post_a_date_in_no_quarter() throws Exception {
+                MvcResult response = mockMvc.perform(post("/api/ucsbdates/post?name=firstDayOfClasses&quarterYYYYQ=2022F&localDateTime=2022-01-03T00:00:00")
+                                .with(csrf()))
+                                .andExpect(status().isBadRequest()).andReturn();
+
+                verify(ucsbDateRepository, never()).save(any());
+                assertEquals("quarterYYYYQ must be a year followed by a quarter 1-4, e.g. 20224, not 2022F",
+                                responseToJson(response).get("message"));
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void an_admin_user_cannot_post_a_date_in_year_zero() throws Exception {
+                MvcResult response = mockMvc.perform(post("/api/ucsbdates/post?name=firstDayOfClasses&quarterYYYYQ=00001&localDateTime=2022-01-03T00:00:00")
+                                .with(csrf()))
+                                .andExpect(status().isBadRequest()).andReturn();
+
+                verify(ucsbDateRepository, never()).save(any());
+                assertEquals("quarterYYYYQ must be a year followed by a quarter 1-4, e.g. 20224, not 00001",
+                                responseToJson(response).get("message"));
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void admin_cannot_edit_a_date_into_no_quarter() throws Exception {
+                UCSBDate ucsbDateOrig = UCSBDate.builder().name("firstDayOfClasses").quarterYYYYQ("20222").build();
+                UCSBDate ucsbDateEdited = UCSBDate.builder().name("firstDayOfClasses").quarterYYYYQ("spring").build();
+                when(ucsbDateRepository.findById(eq(67L))).thenReturn(Optional.of(ucsbDateOrig));
+
+                mockMvc.perform(put("/api/ucsbdates?id=67")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(mapper.writeValueAsString(ucsbDateEdited))
+                                .with(csrf()))
+                                .andExpect(status().isBadRequest());
+
+                verify(ucsbDateRepository, never()).save(any());
+                assertEquals("20222", ucsbDateOrig.getQuarterYYYYQ());
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void admin_cannot_edit_a_date_into_year_zero() throws Exception {
+                UCSBDate ucsbDateOrig = UCSBDate.builder().name("firstDayOfClasses").quarterYYYYQ("20222").build();
+                UCSBDate ucsbDateEdited = UCSBDate.builder().name("firstDayOfClasses").quarterYYYYQ("00001").build();
+                when(ucsbDateRepository.findById(eq(67L))).thenReturn(Optional.of(ucsbDateOrig));
+
+                MvcResult response = mockMvc.perform(put("/api/ucsbdates?id=67")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(mapper.writeValueAsString(ucsbDateEdited))
+                                .with(csrf()))
+                                .andExpect(status().isBadRequest()).andReturn();
+
+                verify(ucsbDateRepository, never()).save(any());
+                assertEquals("20222", ucsbDateOrig.getQuarterYYYYQ());
+                assertEquals("quarterYYYYQ must be a year followed by a quarter 1-4, e.g. 20224, not 00001",
+                                responseToJson(response).get("message"));
+        }
+
         // Tests for GET /api/ucsbdates?id=...
 
         @Test
@@ -320,4 +573,31 @@ public class UCSBDatesControllerTests extends ControllerTestCase {
                 assertEquals("UCSBDate with id 67 not found", json.get("message"));
 
         }
-}
\ No newline at end of file
+
+        // Tests for GET /api/ucsbdates?ids=
+
+        @Test
+        public void logged_out_users_cannot_get_by_ids() throws Exception {
+                mockMvc.perform(get("/api/ucsbdates?ids=1,2"))
+                        .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void get_by_ids_returns_items_in_request_order_and_reports_missing_ids() throws Exception {
+
+                // arrange
+                UCSBDate first = UCSBDate.builder().id(1L).build();
+                UCSBDate third = UCSBDate.builder().id(3L).build();
+                when(ucsbDateRepository.findAllById(eq(List.of(3L, 2L, 1L)))).thenReturn(List.of(first, third));
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/ucsbdates?ids=3,2,1,3"))
+                        .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(ucsbDateRepository, times(1)).findAllById(eq(List.of(3L, 2L, 1L)));
+                String expectedJson = mapper.writeValueAsString(new BatchResult<>(List.of(third, first), List.of(2L)));
+                assertEquals(expectedJson, response.getResponse().getContentAsString());
+        }
+}
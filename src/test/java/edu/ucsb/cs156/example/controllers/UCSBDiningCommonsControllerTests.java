@@ -6,15 +6,21 @@ import edu.ucsb.cs156.example.ControllerTestCase;
 import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
 import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsRepository;
 
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.util.AopTestUtils;
 import org.springframework.test.web.servlet.MvcResult;
 
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -22,6 +28,8 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 
 import java.util.Optional;
+import java.util.zip.GZIPInputStream;
+import edu.ucsb.cs156.example.models.BatchResult;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
@@ -40,6 +48,16 @@ public class UCSBDiningCommonsControllerTests extends ControllerTestCase {
         @MockBean
         UserRepository userRepository;
 
+        @Autowired
+        UCSBDiningCommonsController controller;
+
+        @BeforeEach
+        public void clearCache() {
+                UCSBDiningCommonsController target = AopTestUtils.getUltimateTargetObject(controller);
+                target.allCache.invalidate();
+                target.missingIds.clear();
+        }
+
         // Tests for GET /api/ucsbdiningcommons/all
 
         @Test
@@ -118,6 +136,183 @@ public class UCSBDiningCommonsControllerTests extends ControllerTestCase {
                 assertEquals(expectedJson, responseString);
         }
 
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void repeated_get_all_is_served_from_the_cache() throws Exception {
+
+                // arrange
+
+                UCSBDiningCommons carrillo = UCSBDiningCommons.builder()
+                                .name("Carrillo")
+                                .code("carrillo")
+                                .hasDiningCam(true)
+                                .build();
+                List<UCSBDiningCommons> expectedCommons = List.of(carrillo);
+                when(ucsbDiningCommonsRepository.findAll()).thenReturn(expectedCommons);
+
+                // act
+
+                MvcResult first = mockMvc.perform(get("/api/ucsbdiningcommons/all"))
+                                .andExpect(status().isOk())
+                                .andExpect(header().string("Vary", "Accept-Encoding"))
+                                .andReturn();
+                MvcResult second = mockMvc.perform(get("/api/ucsbdiningcommons/all"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+
+                verify(ucsbDiningCommonsRepository, times(1)).findAll();
+                String expectedJson = mapper.writeValueAsString(expectedCommons);
+                assertEquals(expectedJson, first.getResponse().getContentAsString());
+                assertEquals(expectedJson, second.getResponse().getContentAsString());
+                assertEquals(first.getResponse().getHeader("ETag"), second.getResponse().getHeader("ETag"));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void get_all_with_matching_etag_returns_not_modified() throws Exception {
+
+                // arrange
+
+                when(ucsbDiningCommonsRepository.findAll()).thenReturn(new ArrayList<>());
+                String etag = mockMvc.perform(get("/api/ucsbdiningcommons/all"))
+                                .andExpect(status().isOk()).andReturn().getResponse().getHeader("ETag");
+
+                // act
+
+                MvcResult response = mockMvc.perform(get("/api/ucsbdiningcommons/all").header("If-None-Match", etag))
+                                .andExpect(status().isNotModified()).andReturn();
+
+                // assert
+
+                assertEquals(etag, response.getResponse().getHeader("ETag"));
+                assertEquals(0, response.getResponse().getContentLength());
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void get_all_serves_the_precompressed_body_when_gzip_is_accepted() throws Exception {
+
+                // arrange
+
+                UCSBDiningCommons ortega = UCSBDiningCommons.builder()
+                                .name("Ortega")
+                                .code("ortega")
+                                .hasTakeOutMeal(true)
+                                .build();
+                List<UCSBDiningCommons> expectedCommons = List.of(ortega);
+                when(ucsbDiningCommonsRepository.findAll()).thenReturn(expectedCommons);
+
+                // act
+
+                MvcResult response = mockMvc.perform(get("/api/ucsbdiningcommons/all").header("Accept-Encoding", "gzip, deflate"))
+                                .andExpect(status().isOk())
+                                .andExpect(header().string("Content-Encoding", "gzip"))
+                                .andReturn();
+
+                // assert
+
+                byte[] compressed = response.getResponse().getContentAsByteArray();
+                try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+                        String json = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+                        assertEquals(mapper.writeValueAsString(expectedCommons), json);
+                }
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void get_all_with_the_etag_in_a_list_or_a_wildcard_returns_not_modified() throws Exception {
+
+                // arrange
+
+                when(ucsbDiningCommonsRepository.findAll()).thenReturn(new ArrayList<>());
+                String etag = mockMvc.perform(get("/api/ucsbdiningcommons/all"))
+                                .andExpect(status().isOk()).andReturn().getResponse().getHeader("ETag");
+
+                // act and assert
+
+                mockMvc.perform(get("/api/ucsbdiningcommons/all").header("If-None-Match", "\"stale\", W/" + etag))
+                                .andExpect(status().isNotModified());
+                mockMvc.perform(get("/api/ucsbdiningcommons/all").header("If-None-Match", "*"))
+                                .andExpect(status().isNotModified());
+                mockMvc.perform(get("/api/ucsbdiningcommons/all").header("If-None-Match", "\"stale\", \"older\""))
+                                .andExpect(status().isOk());
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void get_all_honours_the_quality_given_to_gzip() throws Exception {
+
+                // arrange
+
+                when(ucsbDiningCommonsRepository.findAll()).thenReturn(new ArrayList<>());
+
+                // act and assert
+
+                mockMvc.perform(get("/api/ucsbdiningcommons/all").header("Accept-Encoding", "gzip;q=0, deflate"))
+                                .andExpect(status().isOk())
+                                .andExpect(header().doesNotExist("Content-Encoding"))
+                                .andExpect(content().string("[]"));
+                mockMvc.perform(get("/api/ucsbdiningcommons/all").header("Accept-Encoding", "*;q=0"))
+                                .andExpect(status().isOk())
+                                .andExpect(header().doesNotExist("Content-Encoding"));
+                mockMvc.perform(get("/api/ucsbdiningcommons/all").header("Accept-Encoding", "br, *;q=0.5"))
+                                .andExpect(status().isOk())
+                                .andExpect(header().string("Content-Encoding", "gzip"));
+                mockMvc.perform(get("/api/ucsbdiningcommons/all").header("Accept-Encoding", "GZIP; Q=0.8, *;q=0"))
+                                .andExpect(status().isOk())
+                                .andExpect(header().string("Content-Encoding", "gzip"));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void get_all_bypasses_the_cache_for_non_json_formats() throws Exception {
+
+                // arrange
+
+                when(ucsbDiningCommonsRepository.findAll()).thenReturn(new ArrayList<>());
+
+                // act
+
+                mockMvc.perform(get("/api/ucsbdiningcommons/all").accept("application/x-jackson-smile"))
+                                .andExpect(status().isOk())
+                                .andExpect(content().contentType("application/x-jackson-smile"));
+                mockMvc.perform(get("/api/ucsbdiningcommons/all?format=smile"))
+                                .andExpect(status().isOk());
+
+                // assert
+
+                verify(ucsbDiningCommonsRepository, times(2)).findAll();
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void writes_invalidate_the_cached_list() throws Exception {
+
+                // arrange
+
+                UCSBDiningCommons ortega = UCSBDiningCommons.builder()
+                                .name("Ortega")
+                                .code("ortega")
+                                .build();
+                when(ucsbDiningCommonsRepository.findAll()).thenReturn(new ArrayList<>(), List.of(ortega));
+                when(ucsbDiningCommonsRepository.save(eq(ortega))).thenReturn(ortega);
+
+                // act
+
+                mockMvc.perform(get("/api/ucsbdiningcommons/all")).andExpect(status().isOk());
+                mockMvc.perform(post("/api/ucsbdiningcommons/post?name=Ortega&code=ortega&hasSackMeal=false&hasTakeOutMeal=false&hasDiningCam=false&latitude=0&longitude=0")
+                                .with(csrf()))
+                                .andExpect(status().isOk());
+                MvcResult response = mockMvc.perform(get("/api/ucsbdiningcommons/all"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+
+                verify(ucsbDiningCommonsRepository, times(2)).findAll();
+                assertEquals(mapper.writeValueAsString(List.of(ortega)), response.getResponse().getContentAsString());
+        }
+
         // Tests for POST /api/ucsbdiningcommons...
 
         @Test
@@ -337,4 +532,31 @@ public class UCSBDiningCommonsControllerTests extends ControllerTestCase {
                 assertEquals("UCSBDiningCommons with id munger-hall not found", json.get("message"));
 
         }
+
+        // Tests for GET /api/ucsbdiningcommons?codes=
+
+        @Test
+        public void logged_out_users_cannot_get_by_codes() throws Exception {
+                mockMvc.perform(get("/api/ucsbdiningcommons?codes=ortega,carrillo"))
+                        .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void get_by_codes_returns_items_in_request_order_and_reports_missing_codes() throws Exception {
+
+                // arrange
+                UCSBDiningCommons first = UCSBDiningCommons.builder().code("ortega").build();
+                UCSBDiningCommons third = UCSBDiningCommons.builder().code("dlg").build();
+                when(ucsbDiningCommonsRepository.findAllById(eq(List.of("dlg", "carrillo", "ortega")))).thenReturn(List.of(first, third));
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/ucsbdiningcommons?codes=dlg,carrillo,ortega,dlg"))
+                        .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(ucsbDiningCommonsRepository, times(1)).findAllById(eq(List.of("dlg", "carrillo", "ortega")));
+                String expectedJson = mapper.writeValueAsString(new BatchResult<>(List.of(third, first), List.of("carrillo")));
+                assertEquals(expectedJson, response.getResponse().getContentAsString());
+        }
 }
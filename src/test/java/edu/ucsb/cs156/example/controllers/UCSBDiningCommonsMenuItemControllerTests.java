@@ -4,19 +4,31 @@ import edu.ucsb.cs156.example.repositories.UserRepository;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
 import edu.ucsb.cs156.example.ControllerTestCase;
 import edu.ucsb.cs156.example.entities.UCSBDiningCommonsMenuItem;
+import edu.ucsb.cs156.example.events.MenuItemsChanged;
+import edu.ucsb.cs156.example.models.MenuItemRating;
+import edu.ucsb.cs156.example.models.BatchResult;
 import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsMenuItemRepository;
 import edu.ucsb.cs156.example.controllers.UCSBDiningCommonsMenuItemController;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.skyscreamer.jsonassert.JSONAssert;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
+import org.springframework.test.util.AopTestUtils;
 import org.springframework.test.web.servlet.MvcResult;
 
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -25,16 +37,19 @@ import static org.springframework.security.test.web.servlet.request.SecurityMock
 
 
 import java.util.Optional;
+import edu.ucsb.cs156.example.models.GroupCount;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @WebMvcTest(controllers = UCSBDiningCommonsMenuItemController.class)
 @Import(TestConfig.class)
+@RecordApplicationEvents
 public class UCSBDiningCommonsMenuItemControllerTests extends ControllerTestCase{
     
         @MockBean
@@ -43,6 +58,131 @@ public class UCSBDiningCommonsMenuItemControllerTests extends ControllerTestCase
         @MockBean
         UserRepository userRepository;
 
+        @Autowired
+        UCSBDiningCommonsMenuItemController controller;
+
+        @Autowired
+        ApplicationEvents events;
+
+        @BeforeEach
+        public void clearCache() {
+                UCSBDiningCommonsMenuItemController target = AopTestUtils.getUltimateTargetObject(controller);
+                target.missingIds.clear();
+                target.countCache.invalidate();
+        }
+
+        private GroupCount groupCount(Object value, long count) {
+                return new SpelAwareProxyProjectionFactory().createProjection(GroupCount.class, Map.of("value", value, "count", count));
+        }
+
+        // Tests for GET /api/ucsbdiningcommonsmenuitem/count
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_count_per_diningCommonsCode() throws Exception {
+
+                // arrange
+                when(ucsbDiningCommonsMenuItemRepository.countGroupedByDiningCommonsCode()).thenReturn(List.of(groupCount("dlg", 12L), groupCount("ortega", 30L)));
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/ucsbdiningcommonsmenuitem/count?groupBy=diningCommonsCode"))
+                                .andExpect(status().isOk()).andReturn();
+                mockMvc.perform(get("/api/ucsbdiningcommonsmenuitem/count?groupBy=diningCommonsCode"))
+                                .andExpect(status().isOk());
+
+                // assert
+                verify(ucsbDiningCommonsMenuItemRepository, times(1)).countGroupedByDiningCommonsCode();
+                String expectedJson = "{\"total\":42,\"groups\":[{\"value\":\"dlg\",\"count\":12},{\"value\":\"ortega\",\"count\":30}]}";
+                JSONAssert.assertEquals(expectedJson, response.getResponse().getContentAsString(), true);
+        }
+
+
+        private MenuItemRating rating(long id, String station, String name, long reviewCount, Double averageStars) {
+                Map<String, Object> row = new HashMap<>();
+                row.put("id", id);
+                row.put("station", station);
+                row.put("name", name);
+                row.put("reviewCount", reviewCount);
+                row.put("averageStars", averageStars);
+                return new SpelAwareProxyProjectionFactory().createProjection(MenuItemRating.class, row);
+        }
+
+        // Tests for GET /api/ucsbdiningcommonsmenuitem/ratings
+
+        @Test
+        public void logged_out_users_cannot_get_ratings() throws Exception {
+                mockMvc.perform(get("/api/ucsbdiningcommonsmenuitem/ratings?diningCommonsCode=ortega"))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_users_get_ratings_grouped_by_station() throws Exception {
+
+                // arrange
+
+                when(ucsbDiningCommonsMenuItemRepository.findRatingsByStation(eq("ortega"), eq(2), eq(4L))).thenReturn(List.of(
+                                rating(3L, "Greens", "Salad", 1, 2.0),
+                                rating(1L, "Grill", "Burrito", 0, null),
+                                rating(2L, "Grill", "Tacos", 2, 4.5)));
+
+                // act
+
+                MvcResult response = mockMvc.perform(get("/api/ucsbdiningcommonsmenuitem/ratings?diningCommonsCode=ortega&page=2&size=2"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+
+                verify(ucsbDiningCommonsMenuItemRepository, times(1)).findRatingsByStation(eq("ortega"), eq(2), eq(4L));
+                verify(ucsbDiningCommonsMenuItemRepository, never()).findAll();
+                String expectedJson = "[{\"station\":\"Greens\",\"items\":["
+                                + "{\"id\":3,\"station\":\"Greens\",\"name\":\"Salad\",\"reviewCount\":1,\"averageStars\":2.0}]},"
+                                + "{\"station\":\"Grill\",\"items\":["
+                                + "{\"id\":1,\"station\":\"Grill\",\"name\":\"Burrito\",\"reviewCount\":0,\"averageStars\":null},"
+                                + "{\"id\":2,\"station\":\"Grill\",\"name\":\"Tacos\",\"reviewCount\":2,\"averageStars\":4.5}]}]";
+                JSONAssert.assertEquals(expectedJson, response.getResponse().getContentAsString(), true);
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void items_without_a_station_are_grouped_under_null() throws Exception {
+                when(ucsbDiningCommonsMenuItemRepository.findRatingsByStation(eq("ortega"), eq(10), eq(0L))).thenReturn(List.of(
+                                rating(1L, "Grill", "Burrito", 0, null),
+                                rating(4L, null, "Special", 1, 3.0)));
+
+                MvcResult response = mockMvc.perform(get("/api/ucsbdiningcommonsmenuitem/ratings?diningCommonsCode=ortega"))
+                                .andExpect(status().isOk()).andReturn();
+
+                String expectedJson = "[{\"station\":\"Grill\",\"items\":["
+                                + "{\"id\":1,\"station\":\"Grill\",\"name\":\"Burrito\",\"reviewCount\":0,\"averageStars\":null}]},"
+                                + "{\"station\":null,\"items\":["
+                                + "{\"id\":4,\"station\":null,\"name\":\"Special\",\"reviewCount\":1,\"averageStars\":3.0}]}]";
+                JSONAssert.assertEquals(expectedJson, response.getResponse().getContentAsString(), true);
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void ratings_default_to_the_first_ten_stations() throws Exception {
+                mockMvc.perform(get("/api/ucsbdiningcommonsmenuitem/ratings?diningCommonsCode=dlg"))
+                                .andExpect(status().isOk())
+                                .andExpect(content().json("[]"));
+
+                verify(ucsbDiningCommonsMenuItemRepository, times(1)).findRatingsByStation(eq("dlg"), eq(10), eq(0L));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void ratings_reject_a_negative_page_or_a_size_out_of_range() throws Exception {
+                mockMvc.perform(get("/api/ucsbdiningcommonsmenuitem/ratings?diningCommonsCode=dlg&page=-1"))
+                                .andExpect(status().isBadRequest());
+                mockMvc.perform(get("/api/ucsbdiningcommonsmenuitem/ratings?diningCommonsCode=dlg&size=0"))
+                                .andExpect(status().isBadRequest());
+                mockMvc.perform(get("/api/ucsbdiningcommonsmenuitem/ratings?diningCommonsCode=dlg&size=101"))
+                                .andExpect(status().isBadRequest())
+                                .andExpect(content().json("{\"message\":\"page must be at least 0 and size between 1 and 100\"}"));
+
+                verify(ucsbDiningCommonsMenuItemRepository, never()).findRatingsByStation(any(), any(Integer.class), any(Long.class));
+        }
 
         // Tests for GET /api/ucsbdiningcommonsmenuitem/all
 
@@ -129,6 +269,8 @@ public class UCSBDiningCommonsMenuItemControllerTests extends ControllerTestCase
 
                 // assert
                 verify(ucsbDiningCommonsMenuItemRepository, times(1)).save(ucsbDiningCommonsMenuItem1);
+                assertEquals(List.of(MenuItemsChanged.added(ucsbDiningCommonsMenuItem1)),
+                                events.stream(MenuItemsChanged.class).toList());
                 String expectedJson = mapper.writeValueAsString(ucsbDiningCommonsMenuItem1);
                 String responseString = response.getResponse().getContentAsString();
                 assertEquals(expectedJson, responseString);
@@ -210,6 +352,8 @@ public class UCSBDiningCommonsMenuItemControllerTests extends ControllerTestCase
                 // assert
                 verify(ucsbDiningCommonsMenuItemRepository, times(1)).findById(15L);
                 verify(ucsbDiningCommonsMenuItemRepository, times(1)).delete(any());
+                assertEquals(List.of(MenuItemsChanged.removed(ucsbDiningCommonsMenuItem1)),
+                                events.stream(MenuItemsChanged.class).toList());
 
                 Map<String, Object> json = responseToJson(response);
                 assertEquals("UCSBDiningCommonsMenuItem with id 15 deleted", json.get("message"));
@@ -257,6 +401,7 @@ public class UCSBDiningCommonsMenuItemControllerTests extends ControllerTestCase
                  String requestBody = mapper.writeValueAsString(ucsbDiningCommonsMenuItemEdited);
  
                  when(ucsbDiningCommonsMenuItemRepository.findById(eq(67L))).thenReturn(Optional.of(ucsbDiningCommonsMenuItemOrig));
+                 UCSBDiningCommonsMenuItem before = ucsbDiningCommonsMenuItemOrig.toBuilder().build();
  
                  // act
                  MvcResult response = mockMvc.perform(
@@ -270,6 +415,8 @@ public class UCSBDiningCommonsMenuItemControllerTests extends ControllerTestCase
                  // assert
                  verify(ucsbDiningCommonsMenuItemRepository, times(1)).findById(67L);
                  verify(ucsbDiningCommonsMenuItemRepository, times(1)).save(ucsbDiningCommonsMenuItemEdited); // should be saved with correct user
+                 assertEquals(List.of(MenuItemsChanged.replaced(before, ucsbDiningCommonsMenuItemEdited)),
+                                 events.stream(MenuItemsChanged.class).toList());
                  String responseString = response.getResponse().getContentAsString();
                  assertEquals(requestBody, responseString);
          }
@@ -304,4 +451,31 @@ public class UCSBDiningCommonsMenuItemControllerTests extends ControllerTestCase
                  assertEquals("UCSBDiningCommonsMenuItem with id 67 not found", json.get("message"));
  
          }
+
+        // Tests for GET /api/ucsbdiningcommonsmenuitem?ids=
+
+        @Test
+        public void logged_out_users_cannot_get_by_ids() throws Exception {
+                mockMvc.perform(get("/api/ucsbdiningcommonsmenuitem?ids=1,2"))
+                        .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void get_by_ids_returns_items_in_request_order_and_reports_missing_ids() throws Exception {
+
+                // arrange
+                UCSBDiningCommonsMenuItem first = UCSBDiningCommonsMenuItem.builder().id(1L).build();
+                UCSBDiningCommonsMenuItem third = UCSBDiningCommonsMenuItem.builder().id(3L).build();
+                when(ucsbDiningCommonsMenuItemRepository.findAllById(eq(List.of(3L, 2L, 1L)))).thenReturn(List.of(first, third));
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/ucsbdiningcommonsmenuitem?ids=3,2,1,3"))
+                        .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(ucsbDiningCommonsMenuItemRepository, times(1)).findAllById(eq(List.of(3L, 2L, 1L)));
+                String expectedJson = mapper.writeValueAsString(new BatchResult<>(List.of(third, first), List.of(2L)));
+                assertEquals(expectedJson, response.getResponse().getContentAsString());
+        }
 }
@@ -8,13 +8,17 @@ import edu.ucsb.cs156.example.repositories.UCSBOrganizationRepository;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.util.AopTestUtils;
 import org.springframework.test.web.servlet.MvcResult;
 
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -22,10 +26,15 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 
 import java.util.Optional;
+import edu.ucsb.cs156.example.models.BatchResult;
+import edu.ucsb.cs156.example.models.GroupCount;
+import org.skyscreamer.jsonassert.JSONAssert;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -40,6 +49,42 @@ public class UCSBOrganizationControllerTests extends ControllerTestCase {
         @MockBean
         UserRepository userRepository;
 
+        @Autowired
+        UCSBOrganizationController controller;
+
+        @BeforeEach
+        public void clearCache() {
+                UCSBOrganizationController target = AopTestUtils.getUltimateTargetObject(controller);
+                target.allCache.invalidate();
+                target.missingIds.clear();
+                target.countCache.invalidate();
+        }
+
+        private GroupCount groupCount(Object value, long count) {
+                return new SpelAwareProxyProjectionFactory().createProjection(GroupCount.class, Map.of("value", value, "count", count));
+        }
+
+        // Tests for GET /api/ucsborganization/count
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_count_per_inactive() throws Exception {
+
+                // arrange
+                when(ucsbOrganizationRepository.countGroupedByInactive()).thenReturn(List.of(groupCount(false, 5L), groupCount(true, 2L)));
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/ucsborganization/count?groupBy=inactive"))
+                                .andExpect(status().isOk()).andReturn();
+                mockMvc.perform(get("/api/ucsborganization/count?groupBy=inactive"))
+                                .andExpect(status().isOk());
+
+                // assert
+                verify(ucsbOrganizationRepository, times(1)).countGroupedByInactive();
+                String expectedJson = "{\"total\":7,\"groups\":[{\"value\":false,\"count\":5},{\"value\":true,\"count\":2}]}";
+                JSONAssert.assertEquals(expectedJson, response.getResponse().getContentAsString(), true);
+        }
+
         // Tests for GET /api/ucsborganization/all
 
         @Test
@@ -112,6 +157,38 @@ public class UCSBOrganizationControllerTests extends ControllerTestCase {
                 assertEquals(expectedJson, responseString);
         }
 
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void get_all_is_cached_until_an_organization_is_deleted() throws Exception {
+
+                // arrange
+
+                UCSBOrganization krc = UCSBOrganization.builder()
+                                .orgTranslation("KOREAN RADIO CLUB")
+                                .orgcode("KRC")
+                                .orgTranslationShort("KOREAN RADIO CL")
+                                .inactive(false)
+                                .build();
+                when(ucsbOrganizationRepository.findAll()).thenReturn(List.of(krc), new ArrayList<>());
+                when(ucsbOrganizationRepository.findById(eq("KRC"))).thenReturn(Optional.of(krc));
+
+                // act
+
+                mockMvc.perform(get("/api/ucsborganization/all")).andExpect(status().isOk());
+                MvcResult cached = mockMvc.perform(get("/api/ucsborganization/all"))
+                                .andExpect(status().isOk()).andReturn();
+                mockMvc.perform(delete("/api/ucsborganization?orgcode=KRC").with(csrf()))
+                                .andExpect(status().isOk());
+                MvcResult afterDelete = mockMvc.perform(get("/api/ucsborganization/all"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+
+                verify(ucsbOrganizationRepository, times(2)).findAll();
+                assertEquals(mapper.writeValueAsString(List.of(krc)), cached.getResponse().getContentAsString());
+                assertEquals("[]", afterDelete.getResponse().getContentAsString());
+        }
+
         // Tests for POST /api/ucsbOrganization...
 
         @Test
@@ -313,5 +390,44 @@ public class UCSBOrganizationControllerTests extends ControllerTestCase {
                 assertEquals("UCSBOrganization with id XCX not found", json.get("message"));
 
         }
-        
+
+        // Tests for GET /api/ucsborganization?orgcodes=
+
+        @Test
+        public void logged_out_users_cannot_get_by_orgcodes() throws Exception {
+                mockMvc.perform(get("/api/ucsborganization?orgcodes=ortega,carrillo"))
+                        .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void get_by_orgcodes_returns_items_in_request_order_and_reports_missing_orgcodes() throws Exception {
+
+                // arrange
+                UCSBOrganization first = UCSBOrganization.builder().orgcode("ortega").build();
+                UCSBOrganization third = UCSBOrganization.builder().orgcode("dlg").build();
+                when(ucsbOrganizationRepository.findAllById(eq(List.of("dlg", "carrillo", "ortega")))).thenReturn(List.of(first, third));
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/ucsborganization?orgcodes=dlg,carrillo,ortega,dlg"))
+                        .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(ucsbOrganizationRepository, times(1)).findAllById(eq(List.of("dlg", "carrillo", "ortega")));
+                String expectedJson = mapper.writeValueAsString(new BatchResult<>(List.of(third, first), List.of("carrillo")));
+                assertEquals(expectedJson, response.getResponse().getContentAsString());
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void get_by_orgcodes_rejects_no_orgcodes_or_empty_ones() throws Exception {
+                mockMvc.perform(get("/api/ucsborganization?orgcodes="))
+                        .andExpect(status().isBadRequest())
+                        .andExpect(content().json("{\"message\":\"ids must not be empty\"}"));
+                mockMvc.perform(get("/api/ucsborganization?orgcodes=dlg,,ortega"))
+                        .andExpect(status().isBadRequest())
+                        .andExpect(content().json("{\"message\":\"ids must not contain empty values\"}"));
+
+                verify(ucsbOrganizationRepository, never()).findAllById(any());
+        }
 }
@@ -2,33 +2,63 @@ package edu.ucsb.cs156.example.controllers;
 
 import edu.ucsb.cs156.example.ControllerTestCase;
 import edu.ucsb.cs156.example.entities.User;
+import edu.ucsb.cs156.example.repositories.JsonRowsRepository;
 import edu.ucsb.cs156.example.repositories.UserRepository;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
 
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
 import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.util.AopTestUtils;
 import org.springframework.test.web.servlet.MvcResult;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
 
 @WebMvcTest(controllers = UsersController.class)
 @Import(TestConfig.class)
 public class UsersControllerTests extends ControllerTestCase {
 
+  private static final PageRequest BATCH = PageRequest.of(0, UsersController.BATCH_ROWS, Sort.by("id"));
+
   @MockBean
   UserRepository userRepository;
 
+  @MockBean
+  JsonRowsRepository jsonRowsRepository;
+
+  @Autowired
+  UsersController controller;
+
+  @BeforeEach
+  public void resetListEngine() {
+    UsersController target = AopTestUtils.getUltimateTargetObject(controller);
+    target.listReadEngine = "jpa";
+  }
+
   @Test
   public void users__logged_out() throws Exception {
     mockMvc.perform(get("/api/admin/users"))
@@ -55,9 +85,9 @@ public class UsersControllerTests extends ControllerTestCase {
     ArrayList<User> expectedUsers = new ArrayList<>();
     expectedUsers.addAll(Arrays.asList(u1, u2, u));
 
-    when(userRepository.findAll()).thenReturn(expectedUsers);
+    when(userRepository.findAllByIdGreaterThan(eq(Long.MIN_VALUE), eq(BATCH))).thenReturn(new SliceImpl<>(expectedUsers));
     String expectedJson = mapper.writeValueAsString(expectedUsers);
-    
+
     // act
 
     MvcResult response = mockMvc.perform(get("/api/admin/users"))
@@ -65,9 +95,209 @@ public class UsersControllerTests extends ControllerTestCase {
 
     // assert
 
-    verify(userRepository, times(1)).findAll();
+    verify(userRepository, times(1)).findAllByIdGreaterThan(eq(Long.MIN_VALUE), eq(BATCH));
+    verify(userRepository, never()).findAll();
     String responseString = response.getResponse().getContentAsString();
     assertEquals(expectedJson, responseString);
+    assertEquals("application/json;charset=UTF-8", response.getResponse().getContentType());
+
+  }
+
+  @WithMockUser(roles = { "ADMIN", "USER" })
+  @Test
+  public void users__all_users_are_read_a_slice_at_a_time_after_the_last_id() throws Exception {
+
+    // arrange
+
+    User u1 = User.builder().id(1L).email("a@ucsb.edu").build();
+    User u2 = User.builder().id(2L).email("b@ucsb.edu").build();
+    User u3 = User.builder().id(3L).email("c@ucsb.edu").build();
+
+    when(userRepository.findAllByIdGreaterThan(eq(Long.MIN_VALUE), eq(BATCH))).thenReturn(new SliceImpl<>(List.of(u1, u2), BATCH, true));
+    when(userRepository.findAllByIdGreaterThan(eq(2L), eq(BATCH))).thenReturn(new SliceImpl<>(List.of(u3), BATCH, false));
+    String expectedJson = mapper.writeValueAsString(List.of(u1, u2, u3));
+
+    // act
+
+    MvcResult response = mockMvc.perform(get("/api/admin/users"))
+        .andExpect(status().isOk()).andReturn();
+
+    // assert
+
+    verify(userRepository, times(2)).findAllByIdGreaterThan(anyLong(), eq(BATCH));
+    assertEquals(expectedJson, response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = { "ADMIN", "USER" })
+  @Test
+  public void users__size_without_page_is_rejected() throws Exception {
+
+    // act
+
+    MvcResult response = mockMvc.perform(get("/api/admin/users?size=2"))
+        .andExpect(status().isBadRequest()).andReturn();
+
+    // assert
+
+    verify(userRepository, never()).findAllByIdGreaterThan(anyLong(), any());
+    Map<String, Object> json = responseToJson(response);
+    assertEquals("size may only be given together with page", json.get("message"));
+  }
+
+  @WithMockUser(roles = { "ADMIN", "USER" })
+  @Test
+  public void users__size_above_the_cap_is_rejected() throws Exception {
+
+    // act
+
+    MvcResult response = mockMvc.perform(get("/api/admin/users?page=0&size=" + (UsersController.MAX_PAGE_SIZE + 1)))
+        .andExpect(status().isBadRequest()).andReturn();
+
+    // assert
+
+    verify(userRepository, never()).findAll(any(Pageable.class));
+    Map<String, Object> json = responseToJson(response);
+    assertEquals("page must be at least 0 and size between 1 and 1000", json.get("message"));
+  }
+
+  @WithMockUser(roles = { "ADMIN", "USER" })
+  @Test
+  public void users__admin_can_page_through_users() throws Exception {
+
+    // arrange
+
+    User u3 = User.builder().id(3L).email("c@ucsb.edu").build();
+    User u4 = User.builder().id(4L).email("d@ucsb.edu").build();
+    PageRequest expectedPage = PageRequest.of(1, 2, Sort.by("id"));
+
+    when(userRepository.findAll(eq(expectedPage))).thenReturn(new PageImpl<>(List.of(u3, u4), expectedPage, 5));
+    String expectedJson = mapper.writeValueAsString(List.of(u3, u4));
+
+    // act
+
+    MvcResult response = mockMvc.perform(get("/api/admin/users?page=1&size=2"))
+        .andExpect(status().isOk()).andReturn();
+
+    // assert
+
+    verify(userRepository, times(1)).findAll(eq(expectedPage));
+    verify(userRepository, times(0)).findAll();
+    String responseString = response.getResponse().getContentAsString();
+    assertEquals(expectedJson, responseString);
+  }
+
+  @WithMockUser(roles = { "ADMIN", "USER" })
+  @Test
+  public void users__admin_can_list_only_admins() throws Exception {
+
+    // arrange
+
+    User u1 = User.builder().id(1L).email("admin@ucsb.edu").admin(true).build();
+
+    when(userRepository.findAllByAdminAndIdGreaterThan(eq(true), eq(Long.MIN_VALUE), eq(BATCH))).thenReturn(new SliceImpl<>(List.of(u1)));
+    String expectedJson = mapper.writeValueAsString(List.of(u1));
+
+    // act
+
+    MvcResult response = mockMvc.perform(get("/api/admin/users?admin=true"))
+        .andExpect(status().isOk()).andReturn();
+
+    // assert
+
+    verify(userRepository, times(1)).findAllByAdminAndIdGreaterThan(eq(true), eq(Long.MIN_VALUE), eq(BATCH));
+    String responseString = response.getResponse().getContentAsString();
+    assertEquals(expectedJson, responseString);
+  }
+
+  @WithMockUser(roles = { "ADMIN", "USER" })
+  @Test
+  public void users__admin_can_page_through_non_admins() throws Exception {
+
+    // arrange
+
+    User u2 = User.builder().id(2L).email("student@ucsb.edu").admin(false).build();
+    PageRequest expectedPage = PageRequest.of(0, 100, Sort.by("id"));
+
+    when(userRepository.findAllByAdmin(eq(false), eq(expectedPage))).thenReturn(new PageImpl<>(List.of(u2), expectedPage, 1));
+    String expectedJson = mapper.writeValueAsString(List.of(u2));
+
+    // act
+
+    MvcResult response = mockMvc.perform(get("/api/admin/users?admin=false&page=0"))
+        .andExpect(status().isOk()).andReturn();
+
+    // assert
+
+    verify(userRepository, times(1)).findAllByAdmin(eq(false), eq(expectedPage));
+    String responseString = response.getResponse().getContentAsString();
+    assertEquals(expectedJson, responseString);
+  }
+
+  @WithMockUser(roles = { "ADMIN", "USER" })
+  @Test
+  public void users__json_engine_streams_the_json_built_by_the_database() throws Exception {
+
+    // arrange
+
+    UsersController target = AopTestUtils.getUltimateTargetObject(controller);
+    target.listReadEngine = "json";
+    when(jsonRowsRepository.isSupported()).thenReturn(true);
+    when(jsonRowsRepository.users(eq(true))).thenReturn(out -> out.write("[{\"id\":1,\"admin\":true}]".getBytes(StandardCharsets.UTF_8)));
+
+    // act
+
+    MvcResult response = mockMvc.perform(get("/api/admin/users?admin=true"))
+        .andExpect(status().isOk()).andReturn();
+
+    // assert
+
+    verify(userRepository, never()).findAllByAdminAndIdGreaterThan(eq(true), anyLong(), any());
+    assertEquals("[{\"id\":1,\"admin\":true}]", response.getResponse().getContentAsString());
+    assertEquals("application/json;charset=UTF-8", response.getResponse().getContentType());
+  }
+
+  @WithMockUser(roles = { "ADMIN", "USER" })
+  @Test
+  public void users__json_engine_reads_one_page_when_a_page_is_given() throws Exception {
+
+    // arrange
+
+    UsersController target = AopTestUtils.getUltimateTargetObject(controller);
+    target.listReadEngine = "json";
+    when(jsonRowsRepository.isSupported()).thenReturn(true);
+    when(jsonRowsRepository.usersPage(null, 1, 2)).thenReturn(out -> out.write("[{\"id\":3}]".getBytes(StandardCharsets.UTF_8)));
+
+    // act
+
+    MvcResult response = mockMvc.perform(get("/api/admin/users?page=1&size=2"))
+        .andExpect(status().isOk()).andReturn();
+
+    // assert
+
+    verify(jsonRowsRepository, never()).users(null);
+    assertEquals("[{\"id\":3}]", response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = { "ADMIN", "USER" })
+  @Test
+  public void users__json_engine_falls_back_to_jpa_when_the_database_is_not_postgres() throws Exception {
+
+    // arrange
+
+    UsersController target = AopTestUtils.getUltimateTargetObject(controller);
+    target.listReadEngine = "json";
+    when(jsonRowsRepository.isSupported()).thenReturn(false);
+    when(userRepository.findAllByIdGreaterThan(eq(Long.MIN_VALUE), eq(BATCH))).thenReturn(new SliceImpl<>(List.of()));
+
+    // act
+
+    MvcResult response = mockMvc.perform(get("/api/admin/users"))
+        .andExpect(status().isOk()).andReturn();
+
+    // assert
 
+    verify(jsonRowsRepository, never()).users(null);
+    verify(userRepository, times(1)).findAllByIdGreaterThan(eq(Long.MIN_VALUE), eq(BATCH));
+    assertEquals("[]", response.getResponse().getContentAsString());
   }
 }
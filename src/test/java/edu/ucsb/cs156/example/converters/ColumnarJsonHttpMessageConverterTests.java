@@ -0,0 +1,85 @@
+package edu.ucsb.cs156.example.converters;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import edu.ucsb.cs156.example.entities.UCSBDate;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.mock.http.MockHttpInputMessage;
+import org.springframework.mock.http.MockHttpOutputMessage;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ColumnarJsonHttpMessageConverterTests {
+
+  private final ObjectMapper mapper = Jackson2ObjectMapperBuilder.json().build();
+  private final ColumnarJsonHttpMessageConverter converter = new ColumnarJsonHttpMessageConverter(mapper);
+
+  @Test
+  public void writes_entities_column_wise_with_dates_as_epoch_millis() throws Exception {
+    UCSBDate d1 = UCSBDate.builder().id(1L).quarterYYYYQ("20222").name("first")
+        .localDateTime(LocalDateTime.parse("2022-01-03T00:00:00")).build();
+    UCSBDate d2 = UCSBDate.builder().id(2L).quarterYYYYQ("20222").name("last")
+        .localDateTime(null).build();
+
+    MockHttpOutputMessage out = new MockHttpOutputMessage();
+    converter.write(List.of(d1, d2), ColumnarJsonHttpMessageConverter.COLUMNAR_JSON, out);
+
+    assertEquals("{\"version\":2,\"count\":2,\"dates\":[\"localDateTime\"],\"columns\":{"
+        + "\"id\":[1,2],\"quarterYYYYQ\":[\"20222\",\"20222\"],\"name\":[\"first\",\"last\"],"
+        + "\"localDateTime\":[1641168000000,null]}}", out.getBodyAsString());
+  }
+
+  @Test
+  public void pads_columns_missing_from_some_map_rows() throws Exception {
+    Map<String, Object> r1 = new LinkedHashMap<>();
+    r1.put("id", 1);
+    r1.put("when", LocalDateTime.parse("1970-01-01T00:00:01"));
+    Map<String, Object> r2 = new LinkedHashMap<>();
+    r2.put("id", 2);
+    r2.put("extra", "x");
+
+    MockHttpOutputMessage out = new MockHttpOutputMessage();
+    converter.write(List.of(r1, r2), ColumnarJsonHttpMessageConverter.COLUMNAR_JSON, out);
+
+    assertEquals("{\"version\":2,\"count\":2,\"dates\":[\"when\"],\"columns\":{"
+        + "\"id\":[1,2],\"when\":[1000,null],\"extra\":[null,\"x\"]}}", out.getBodyAsString());
+  }
+
+  @Test
+  public void writes_empty_document_for_empty_list() throws Exception {
+    MockHttpOutputMessage out = new MockHttpOutputMessage();
+    converter.write(new ArrayList<>(), ColumnarJsonHttpMessageConverter.COLUMNAR_JSON, out);
+    assertEquals("{\"version\":2,\"count\":0,\"dates\":[],\"columns\":{}}", out.getBodyAsString());
+  }
+
+  @Test
+  public void rejects_rows_that_are_not_objects() {
+    MockHttpOutputMessage out = new MockHttpOutputMessage();
+    assertThrows(HttpMessageNotWritableException.class,
+        () -> converter.write(List.of("a", "b"), ColumnarJsonHttpMessageConverter.COLUMNAR_JSON, out));
+  }
+
+  @Test
+  public void only_writes_iterables_and_never_reads() {
+    assertTrue(converter.canWrite(ArrayList.class, ColumnarJsonHttpMessageConverter.COLUMNAR_JSON));
+    assertFalse(converter.canWrite(UCSBDate.class, ColumnarJsonHttpMessageConverter.COLUMNAR_JSON));
+    assertFalse(converter.canWrite(ArrayList.class, MediaType.APPLICATION_JSON));
+    assertFalse(converter.canRead(ArrayList.class, ColumnarJsonHttpMessageConverter.COLUMNAR_JSON));
+    assertThrows(HttpMessageNotReadableException.class,
+        () -> converter.read(null, new MockHttpInputMessage(new byte[0])));
+  }
+}
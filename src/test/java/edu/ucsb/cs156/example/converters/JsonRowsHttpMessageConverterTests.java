@@ -0,0 +1,42 @@
+package edu.ucsb.cs156.example.converters;
+
+import edu.ucsb.cs156.example.models.JsonRows;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.mock.http.MockHttpInputMessage;
+import org.springframework.mock.http.MockHttpOutputMessage;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class JsonRowsHttpMessageConverterTests {
+
+  private final JsonRowsHttpMessageConverter converter = new JsonRowsHttpMessageConverter();
+
+  @Test
+  public void copies_the_rows_to_the_body_as_utf8_json() throws Exception {
+    JsonRows rows = out -> out.write("[{\"name\":\"Gauchö\"}]".getBytes(StandardCharsets.UTF_8));
+
+    MockHttpOutputMessage out = new MockHttpOutputMessage();
+    converter.write(rows, null, out);
+
+    assertEquals("[{\"name\":\"Gauchö\"}]", out.getBodyAsString(StandardCharsets.UTF_8));
+    assertEquals("application/json;charset=UTF-8", out.getHeaders().getContentType().toString());
+  }
+
+  @Test
+  public void writes_only_json_rows_and_reads_nothing() {
+    assertTrue(converter.canWrite(JsonRows.class, MediaType.APPLICATION_JSON));
+    assertFalse(converter.canWrite(List.class, MediaType.APPLICATION_JSON));
+    assertFalse(converter.canRead(JsonRows.class, MediaType.APPLICATION_JSON));
+    assertThrows(HttpMessageNotReadableException.class,
+        () -> converter.read(JsonRows.class, new MockHttpInputMessage("[]".getBytes(StandardCharsets.UTF_8))));
+  }
+}
@@ -0,0 +1,124 @@
+package edu.ucsb.cs156.example.health;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.Status;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class DatabaseLatencyHealthIndicatorTests {
+
+  private static final long MILLIS = 1_000_000L;
+
+  private final AtomicLong now = new AtomicLong(1_000 * MILLIS);
+  private HikariDataSource dataSource;
+  private HikariPoolMXBean pool;
+  private Connection connection;
+  private DatabaseLatencyHealthIndicator indicator;
+
+  /** Makes the next validation take {@code millis} on the fake clock. */
+  private void roundTrip(long millis) throws SQLException {
+    when(connection.isValid(anyInt())).thenAnswer(invocation -> {
+      now.addAndGet(millis * MILLIS);
+      return true;
+    });
+  }
+
+  @BeforeEach
+  public void setUp() throws SQLException {
+    connection = mock(Connection.class);
+    pool = mock(HikariPoolMXBean.class);
+    dataSource = mock(HikariDataSource.class);
+    when(dataSource.getConnection()).thenReturn(connection);
+    when(dataSource.getHikariPoolMXBean()).thenReturn(pool);
+    indicator = new DatabaseLatencyHealthIndicator(dataSource, 100, 2, 1000, now::get);
+  }
+
+  @Test
+  public void fast_database_with_no_queue_is_up() throws SQLException {
+    roundTrip(5);
+
+    Health health = indicator.health();
+
+    assertEquals(Status.UP, health.getStatus());
+    assertEquals(5.0, health.getDetails().get("latencyMillis"));
+    assertEquals(0, health.getDetails().get("pendingThreads"));
+  }
+
+  @Test
+  public void slow_round_trips_degrade_readiness() throws SQLException {
+    roundTrip(400);
+
+    assertEquals(DatabaseLatencyHealthIndicator.DEGRADED, indicator.health().getStatus());
+  }
+
+  @Test
+  public void slow_connection_acquisition_counts_towards_latency() throws SQLException {
+    roundTrip(5);
+    when(dataSource.getConnection()).thenAnswer(invocation -> {
+      now.addAndGet(300 * MILLIS);
+      return connection;
+    });
+
+    Health health = indicator.health();
+
+    assertEquals(DatabaseLatencyHealthIndicator.DEGRADED, health.getStatus());
+    assertEquals(305.0, health.getDetails().get("latencyMillis"));
+  }
+
+  @Test
+  public void threads_waiting_for_connections_degrade_readiness() throws SQLException {
+    roundTrip(5);
+    when(pool.getThreadsAwaitingConnection()).thenReturn(3);
+
+    Health health = indicator.health();
+
+    assertEquals(DatabaseLatencyHealthIndicator.DEGRADED, health.getStatus());
+    assertEquals(3, health.getDetails().get("pendingThreads"));
+  }
+
+  @Test
+  public void latency_is_averaged_and_probed_at_most_once_per_interval() throws SQLException {
+    roundTrip(10);
+    indicator.health();
+
+    roundTrip(310);
+    // within the interval: the previous average is reused
+    assertEquals(10.0, indicator.health().getDetails().get("latencyMillis"));
+    verify(connection, times(1)).isValid(anyInt());
+
+    now.addAndGet(1000 * MILLIS);
+    Health health = indicator.health();
+
+    // 10 + (310 - 10) * 0.3
+    assertEquals(100.0, health.getDetails().get("latencyMillis"));
+    assertEquals(Status.UP, health.getStatus());
+  }
+
+  @Test
+  public void an_unreachable_database_is_down() throws SQLException {
+    when(dataSource.getConnection()).thenThrow(new SQLException("connection refused"));
+
+    assertEquals(Status.DOWN, indicator.health().getStatus());
+  }
+
+  @Test
+  public void a_connection_failing_validation_is_down() throws SQLException {
+    when(connection.isValid(anyInt())).thenReturn(false);
+
+    assertEquals(Status.DOWN, indicator.health().getStatus());
+  }
+}
@@ -0,0 +1,46 @@
+package edu.ucsb.cs156.example.models;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class QuarterTests {
+
+  private int containing(String date) {
+    return Quarter.containing(LocalDate.parse(date)).key();
+  }
+
+  @Test
+  public void dates_fall_in_the_ucsb_quarter_in_session() {
+    assertEquals(20231, containing("2023-01-09"));
+    assertEquals(20232, containing("2023-04-03"));
+    assertEquals(20233, containing("2023-07-04"));
+    assertEquals(20234, containing("2023-10-02"));
+  }
+
+  @Test
+  public void late_june_is_summer_and_late_september_is_fall() {
+    assertEquals(20232, containing("2023-06-14"));
+    assertEquals(20233, containing("2023-06-15"));
+    assertEquals(20233, containing("2023-09-21"));
+    assertEquals(20234, containing("2023-09-22"));
+  }
+
+  @Test
+  public void breaks_belong_to_the_quarter_that_starts_next() {
+    assertEquals(20232, containing("2023-03-25"));
+    assertEquals(20234, containing("2023-12-14"));
+    assertEquals(20241, containing("2023-12-15"));
+    assertEquals(20241, containing("2023-12-31"));
+  }
+
+  @Test
+  public void keys_need_a_four_digit_year() {
+    assertEquals(10001, Quarter.keyOrNull("10001"));
+    assertNull(Quarter.keyOrNull("00001"));
+    assertNull(Quarter.keyOrNull("09994"));
+  }
+}
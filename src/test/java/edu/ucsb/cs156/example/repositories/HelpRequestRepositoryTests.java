@@ -0,0 +1,46 @@
+package edu.ucsb.cs156.example.repositories;
+
+import edu.ucsb.cs156.example.entities.HelpRequest;
+import edu.ucsb.cs156.example.models.GroupCount;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DataJpaTest
+public class HelpRequestRepositoryTests {
+
+  @Autowired
+  HelpRequestRepository helpRequestRepository;
+
+  private void request(String teamId, boolean solved) {
+    helpRequestRepository.save(HelpRequest.builder().requesterEmail("a@ucsb.edu").teamId(teamId).solved(solved).build());
+  }
+
+  @BeforeEach
+  public void requests() {
+    request("s22-5pm-3", false);
+    request("s22-5pm-3", true);
+    request("s22-6pm-1", false);
+    request(null, false);
+  }
+
+  private static List<String> describe(List<GroupCount> counts) {
+    return counts.stream().map(c -> c.getValue() + "=" + c.getCount()).toList();
+  }
+
+  @Test
+  public void requests_are_counted_per_solved_flag() {
+    assertEquals(List.of("false=3", "true=1"), describe(helpRequestRepository.countGroupedBySolved()));
+  }
+
+  @Test
+  public void requests_are_counted_per_team_with_missing_teams_as_null() {
+    assertEquals(List.of("null=1", "s22-5pm-3=2", "s22-6pm-1=1"), describe(helpRequestRepository.countGroupedByTeamId()));
+  }
+}
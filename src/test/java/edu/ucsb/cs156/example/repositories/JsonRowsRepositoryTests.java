@@ -0,0 +1,202 @@
+package edu.ucsb.cs156.example.repositories;
+
+import edu.ucsb.cs156.example.models.JsonRows;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class JsonRowsRepositoryTests {
+
+  /** Answers each window query with the next prepared window and records the arguments */
+  private static class FakeJdbcTemplate extends JdbcTemplate {
+    final Deque<Object[]> windows = new ArrayDeque<>();
+    final List<String> queries = new ArrayList<>();
+    final List<List<Object>> args = new ArrayList<>();
+    String productName = "PostgreSQL";
+    int metadataLookups;
+
+    void window(String json, long lastId, long rows) {
+      windows.add(new Object[] { json, lastId, rows });
+    }
+
+    @Override
+    public <T> T query(String sql, ResultSetExtractor<T> extractor, Object... queryArgs) {
+      queries.add(sql);
+      args.add(Arrays.asList(queryArgs));
+      Object[] window = windows.isEmpty() ? new Object[] { null, 0L, 0L } : windows.poll();
+      try {
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.next()).thenReturn(true);
+        when(rs.getBytes(1)).thenReturn(window[0] == null ? null : ((String) window[0]).getBytes(StandardCharsets.UTF_8));
+        when(rs.getLong(2)).thenReturn((Long) window[1]);
+        when(rs.getLong(3)).thenReturn((Long) window[2]);
+        return extractor.extractData(rs);
+      } catch (SQLException e) {
+        throw new IllegalStateException(e);
+      }
+    }
+
+    @Override
+    public <T> T execute(ConnectionCallback<T> action) {
+      metadataLookups++;
+      try {
+        DatabaseMetaData metaData = mock(DatabaseMetaData.class);
+        when(metaData.getDatabaseProductName()).thenReturn(productName);
+        Connection connection = mock(Connection.class);
+        when(connection.getMetaData()).thenReturn(metaData);
+        return action.doInConnection(connection);
+      } catch (SQLException e) {
+        throw new IllegalStateException(e);
+      }
+    }
+  }
+
+  /** Records the transactions opened and whether the windows were read inside one */
+  private class FakeTransactionManager implements PlatformTransactionManager {
+    final List<TransactionDefinition> definitions = new ArrayList<>();
+    final List<Integer> queriesAtCommit = new ArrayList<>();
+
+    @Override
+    public TransactionStatus getTransaction(TransactionDefinition definition) {
+      definitions.add(definition);
+      return new SimpleTransactionStatus();
+    }
+
+    @Override
+    public void commit(TransactionStatus status) {
+      queriesAtCommit.add(jdbcTemplate.queries.size());
+    }
+
+    @Override
+    public void rollback(TransactionStatus status) {
+    }
+  }
+
+  private final FakeJdbcTemplate jdbcTemplate = new FakeJdbcTemplate();
+  private final FakeTransactionManager transactionManager = new FakeTransactionManager();
+  private final JsonRowsRepository repository = new JsonRowsRepository(jdbcTemplate, transactionManager, 2);
+
+  private String written(JsonRows rows) throws Exception {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    rows.writeTo(out);
+    return out.toString(StandardCharsets.UTF_8);
+  }
+
+  @Test
+  public void supported_only_on_postgres_and_checked_once() {
+    assertTrue(repository.isSupported());
+    assertTrue(repository.isSupported());
+    assertEquals(1, jdbcTemplate.metadataLookups);
+
+    FakeJdbcTemplate h2 = new FakeJdbcTemplate();
+    h2.productName = "H2";
+    assertFalse(new JsonRowsRepository(h2, transactionManager, 2).isSupported());
+  }
+
+  @Test
+  public void windows_are_read_by_keyset_until_a_short_window() throws Exception {
+    jdbcTemplate.window("{\"id\":1},{\"id\":4}", 4, 2);
+    jdbcTemplate.window("{\"id\":9}", 9, 1);
+
+    assertEquals("[{\"id\":1},{\"id\":4},{\"id\":9}]", written(repository.helpRequests()));
+
+    assertEquals(List.of(List.of(Long.MIN_VALUE, 2), List.of(4L, 2)), jdbcTemplate.args);
+    assertTrue(jdbcTemplate.queries.get(0).contains("from helprequest where id > ? order by id limit ?"));
+    assertTrue(jdbcTemplate.queries.get(0).contains("requester_email as \"requesterEmail\""));
+  }
+
+  @Test
+  public void all_windows_of_a_list_are_read_in_one_read_only_snapshot() throws Exception {
+    jdbcTemplate.window("{\"id\":1},{\"id\":4}", 4, 2);
+    jdbcTemplate.window("{\"id\":9}", 9, 1);
+    JsonRows rows = repository.helpRequests();
+
+    assertEquals(List.of(), transactionManager.definitions);
+    written(rows);
+
+    assertEquals(1, transactionManager.definitions.size());
+    assertTrue(transactionManager.definitions.get(0).isReadOnly());
+    assertEquals(TransactionDefinition.ISOLATION_REPEATABLE_READ, transactionManager.definitions.get(0).getIsolationLevel());
+    assertEquals(List.of(2), transactionManager.queriesAtCommit);
+  }
+
+  @Test
+  public void a_failed_write_ends_the_snapshot_and_is_rethrown() {
+    OutputStream closed = new OutputStream() {
+      @Override
+      public void write(int b) throws IOException {
+        throw new IOException("connection reset");
+      }
+    };
+
+    IOException thrown = assertThrows(IOException.class, () -> repository.articles().writeTo(closed));
+
+    assertEquals("connection reset", thrown.getMessage());
+    assertEquals(List.of(), transactionManager.queriesAtCommit);
+  }
+
+  @Test
+  public void a_full_last_window_ends_at_the_next_empty_one() throws Exception {
+    jdbcTemplate.window("{\"id\":1},{\"id\":2}", 2, 2);
+
+    assertEquals("[{\"id\":1},{\"id\":2}]", written(repository.menuItemReviews()));
+    assertEquals(2, jdbcTemplate.queries.size());
+  }
+
+  @Test
+  public void empty_tables_are_empty_arrays() throws Exception {
+    assertEquals("[]", written(repository.articles()));
+    assertEquals("[]", written(repository.recommendationRequests()));
+    assertTrue(jdbcTemplate.queries.get(1).contains("from recommendationrequests where id > ?"));
+  }
+
+  @Test
+  public void users_can_be_filtered_by_admin_flag() throws Exception {
+    jdbcTemplate.window("{\"id\":3}", 3, 1);
+
+    assertEquals("[{\"id\":3}]", written(repository.users(true)));
+    assertEquals(List.of(List.of(Long.MIN_VALUE, true, 2)), jdbcTemplate.args);
+    assertTrue(jdbcTemplate.queries.get(0).contains("from users where id > ? and admin = ? order by id limit ?"));
+
+    assertEquals("[]", written(repository.users(null)));
+    assertEquals(List.of(Long.MIN_VALUE, 2), jdbcTemplate.args.get(1));
+  }
+
+  @Test
+  public void a_page_of_users_is_one_window_at_an_offset() throws Exception {
+    jdbcTemplate.window("{\"id\":21},{\"id\":22}", 22, 2);
+
+    assertEquals("[{\"id\":21},{\"id\":22}]", written(repository.usersPage(null, 2, 10)));
+    assertEquals("[]", written(repository.usersPage(false, 0, 10)));
+
+    assertEquals(List.of(List.of(Long.MIN_VALUE, 10, 20L), List.of(Long.MIN_VALUE, false, 10, 0L)), jdbcTemplate.args);
+    assertTrue(jdbcTemplate.queries.get(0).contains("order by id limit ? offset ?"));
+  }
+}
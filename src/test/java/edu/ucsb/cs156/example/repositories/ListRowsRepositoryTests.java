@@ -0,0 +1,86 @@
+package edu.ucsb.cs156.example.repositories;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import edu.ucsb.cs156.example.entities.Articles;
+import edu.ucsb.cs156.example.entities.HelpRequest;
+import edu.ucsb.cs156.example.entities.MenuItemReview;
+import edu.ucsb.cs156.example.entities.RecommendationRequest;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DataJpaTest
+@Import(ListRowsRepository.class)
+public class ListRowsRepositoryTests {
+
+  private final ObjectMapper mapper = Jackson2ObjectMapperBuilder.json().build();
+
+  @Autowired
+  ListRowsRepository listRows;
+
+  @Autowired
+  HelpRequestRepository helpRequestRepository;
+
+  @Autowired
+  MenuItemReviewRepository menuItemReviewRepository;
+
+  @Autowired
+  ArticlesRepository articlesRepository;
+
+  @Autowired
+  RecommendationRequestRepository recommendationRequestRepository;
+
+  private final LocalDateTime time = LocalDateTime.parse("2022-04-20T17:35:12");
+
+  @Test
+  public void help_requests_match_the_entities() throws Exception {
+    Iterable<HelpRequest> saved = helpRequestRepository.saveAll(List.of(
+        HelpRequest.builder().requesterEmail("a@ucsb.edu").teamId("s22-5pm-3").tableOrBreakoutRoom("7")
+            .requestTime(time).explanation("Swagger").solved(true).build(),
+        HelpRequest.builder().requesterEmail("b@ucsb.edu").teamId("s22-6pm-1").tableOrBreakoutRoom(null)
+            .requestTime(null).explanation("Dokku").solved(false).build()));
+
+    assertEquals(mapper.writeValueAsString(saved), mapper.writeValueAsString(listRows.helpRequests()));
+  }
+
+  @Test
+  public void menu_item_reviews_match_the_entities() throws Exception {
+    Iterable<MenuItemReview> saved = menuItemReviewRepository.saveAll(List.of(
+        MenuItemReview.builder().itemid(123).reviewerEmail("a@ucsb.edu").stars(5).dateReviewed(time)
+            .comments("great").build(),
+        MenuItemReview.builder().itemid(7).reviewerEmail("b@ucsb.edu").stars(1).comments("cold").build()));
+
+    assertEquals(mapper.writeValueAsString(saved), mapper.writeValueAsString(listRows.menuItemReviews()));
+  }
+
+  @Test
+  public void articles_match_the_entities() throws Exception {
+    Iterable<Articles> saved = articlesRepository.saveAll(List.of(
+        Articles.builder().title("Testing").url("https://example.org/1").explanation("RTL")
+            .email("a@ucsb.edu").dateAdded(time).build(),
+        Articles.builder().title("Mocking").url("https://example.org/2").explanation("Mockito")
+            .email("b@ucsb.edu").build()));
+
+    assertEquals(mapper.writeValueAsString(saved), mapper.writeValueAsString(listRows.articles()));
+  }
+
+  @Test
+  public void recommendation_requests_match_the_entities() throws Exception {
+    Iterable<RecommendationRequest> saved = recommendationRequestRepository.saveAll(List.of(
+        RecommendationRequest.builder().requesterEmail("a@ucsb.edu").professorEmail("p@ucsb.edu")
+            .explanation("MS").dateRequested(time).dateNeeded(time.plusDays(10)).done(true).build(),
+        RecommendationRequest.builder().requesterEmail("b@ucsb.edu").professorEmail("q@ucsb.edu")
+            .explanation("PhD").done(false).build()));
+
+    assertEquals(mapper.writeValueAsString(saved), mapper.writeValueAsString(listRows.recommendationRequests()));
+  }
+}
@@ -0,0 +1,37 @@
+package edu.ucsb.cs156.example.repositories;
+
+import edu.ucsb.cs156.example.entities.HelpRequest;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DataJpaTest
+@Import(SelectedFieldsRepository.class)
+public class SelectedFieldsRepositoryTests {
+
+  @Autowired
+  HelpRequestRepository helpRequestRepository;
+
+  @Autowired
+  SelectedFieldsRepository selectedFields;
+
+  @Test
+  public void rows_have_only_the_requested_fields_in_the_requested_order() {
+    HelpRequest second = helpRequestRepository.save(HelpRequest.builder().requesterEmail("b@ucsb.edu").teamId("s22-6pm-1").solved(true).build());
+    HelpRequest first = helpRequestRepository.save(HelpRequest.builder().requesterEmail("a@ucsb.edu").teamId("s22-5pm-3").solved(false).build());
+
+    List<Map<String, Object>> rows = selectedFields.findAll(HelpRequest.class, List.of("solved", "id", "teamId"));
+
+    assertEquals(2, rows.size());
+    assertEquals(List.of("solved", "id", "teamId"), List.copyOf(rows.get(0).keySet()));
+    assertEquals(Map.of("solved", true, "id", second.getId(), "teamId", "s22-6pm-1"), rows.get(0));
+    assertEquals(Map.of("solved", false, "id", first.getId(), "teamId", "s22-5pm-3"), rows.get(1));
+  }
+}
@@ -0,0 +1,60 @@
+package edu.ucsb.cs156.example.repositories;
+
+import edu.ucsb.cs156.example.entities.UCSBDate;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+@DataJpaTest
+public class UCSBDateRepositoryTests {
+
+  @Autowired
+  UCSBDateRepository ucsbDateRepository;
+
+  @Autowired
+  TestEntityManager entityManager;
+
+  private UCSBDate date(String quarterYYYYQ, String name, String localDateTime) {
+    return ucsbDateRepository.save(UCSBDate.builder()
+        .quarterYYYYQ(quarterYYYYQ).name(name).localDateTime(LocalDateTime.parse(localDateTime)).build());
+  }
+
+  @Test
+  public void the_quarter_key_follows_the_quarter_string() {
+    UCSBDate date = date("20224", "firstDayOfClasses", "2022-09-22T00:00:00");
+    entityManager.flush();
+    assertEquals(20224, date.getQuarterKey());
+
+    date.setQuarterYYYYQ("20231");
+    entityManager.flush();
+    assertEquals(20231, date.getQuarterKey());
+
+    date.setQuarterYYYYQ("fall");
+    entityManager.flush();
+    assertNull(date.getQuarterKey());
+  }
+
+  @Test
+  public void dates_of_a_range_of_quarters_come_by_quarter_then_time() {
+    date("20223", "summer", "2022-06-21T00:00:00");
+    date("20224", "lastDayOfClasses", "2022-12-02T00:00:00");
+    date("20224", "firstDayOfClasses", "2022-09-22T00:00:00");
+    date("20231", "firstDayOfClasses", "2023-01-09T00:00:00");
+    date("20232", "firstDayOfClasses", "2023-04-03T00:00:00");
+    date("bad", "unkeyed", "2023-01-01T00:00:00");
+    entityManager.flush();
+
+    List<String> names = ucsbDateRepository.findAllInQuarters(20224, 20231).stream()
+        .map(d -> d.getQuarterYYYYQ() + " " + d.getName()).toList();
+
+    assertEquals(List.of("20224 firstDayOfClasses", "20224 lastDayOfClasses", "20231 firstDayOfClasses"), names);
+  }
+}
@@ -0,0 +1,94 @@
+package edu.ucsb.cs156.example.repositories;
+
+import edu.ucsb.cs156.example.entities.MenuItemReview;
+import edu.ucsb.cs156.example.entities.UCSBDiningCommonsMenuItem;
+import edu.ucsb.cs156.example.models.MenuItemRating;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+@DataJpaTest
+public class UCSBDiningCommonsMenuItemRepositoryTests {
+
+  @Autowired
+  UCSBDiningCommonsMenuItemRepository itemRepository;
+
+  @Autowired
+  MenuItemReviewRepository reviewRepository;
+
+  private UCSBDiningCommonsMenuItem tacos;
+  private UCSBDiningCommonsMenuItem burrito;
+  private UCSBDiningCommonsMenuItem salad;
+
+  private UCSBDiningCommonsMenuItem item(String commons, String name, String station) {
+    return itemRepository.save(UCSBDiningCommonsMenuItem.builder()
+        .diningCommonsCode(commons).name(name).station(station).build());
+  }
+
+  private void review(UCSBDiningCommonsMenuItem item, int stars) {
+    reviewRepository.save(MenuItemReview.builder().itemid(item.getId()).reviewerEmail("a@ucsb.edu").stars(stars).build());
+  }
+
+  @BeforeEach
+  public void menu() {
+    tacos = item("ortega", "Tacos", "Grill");
+    burrito = item("ortega", "Burrito", "Grill");
+    salad = item("ortega", "Salad", "Greens");
+    item("ortega", "Soup", "Kettle");
+    UCSBDiningCommonsMenuItem pizza = item("dlg", "Pizza", "Grill");
+
+    review(tacos, 5);
+    review(tacos, 4);
+    review(salad, 2);
+    review(pizza, 1);
+  }
+
+  private String describe(MenuItemRating r) {
+    return "%s/%s %d %s".formatted(r.getStation(), r.getName(), r.getReviewCount(), r.getAverageStars());
+  }
+
+  @Test
+  public void ratings_cover_every_item_of_a_window_of_stations() {
+    List<String> first = itemRepository.findRatingsByStation("ortega", 2, 0).stream().map(this::describe).toList();
+    List<String> second = itemRepository.findRatingsByStation("ortega", 2, 2).stream().map(this::describe).toList();
+
+    assertEquals(List.of("Greens/Salad 1 2.0", "Grill/Burrito 0 null", "Grill/Tacos 2 4.5"), first);
+    assertEquals(List.of("Kettle/Soup 0 null"), second);
+    assertEquals(List.of(), itemRepository.findRatingsByStation("ortega", 2, 4));
+  }
+
+  @Test
+  public void items_without_a_station_come_last_as_one_station() {
+    UCSBDiningCommonsMenuItem special = item("ortega", "Special", null);
+    review(special, 3);
+    item("ortega", "Cookie", null);
+
+    List<String> last = itemRepository.findRatingsByStation("ortega", 2, 2).stream().map(this::describe).toList();
+
+    assertEquals(List.of("Kettle/Soup 0 null", "null/Cookie 0 null", "null/Special 1 3.0"), last);
+    assertEquals(List.of(), itemRepository.findRatingsByStation("ortega", 2, 4));
+  }
+
+  @Test
+  public void ratings_carry_the_item_ids() {
+    MenuItemRating rating = itemRepository.findRatingsByStation("ortega", 1, 1).get(0);
+
+    assertEquals(burrito.getId(), rating.getId());
+    assertNull(rating.getAverageStars());
+  }
+
+  @Test
+  public void items_are_counted_per_commons_in_one_query() {
+    List<String> counts = itemRepository.countGroupedByDiningCommonsCode().stream()
+        .map(c -> c.getValue() + "=" + c.getCount()).toList();
+
+    assertEquals(List.of("dlg=1", "ortega=4"), counts);
+  }
+}
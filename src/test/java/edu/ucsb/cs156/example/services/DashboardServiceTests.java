@@ -0,0 +1,128 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.entities.Articles;
+import edu.ucsb.cs156.example.entities.HelpRequest;
+import edu.ucsb.cs156.example.models.Dashboard;
+import edu.ucsb.cs156.example.models.DashboardSection;
+import edu.ucsb.cs156.example.repositories.ArticlesRepository;
+import edu.ucsb.cs156.example.repositories.HelpRequestRepository;
+import edu.ucsb.cs156.example.repositories.MenuItemReviewRepository;
+import edu.ucsb.cs156.example.repositories.RecommendationRequestRepository;
+import edu.ucsb.cs156.example.repositories.UCSBDateRepository;
+import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsMenuItemRepository;
+import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsRepository;
+import edu.ucsb.cs156.example.repositories.UCSBOrganizationRepository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class DashboardServiceTests {
+
+  private final CountDownLatch release = new CountDownLatch(1);
+  private final DashboardService service = new DashboardService();
+
+  private DashboardService start(int threads, int queueCapacity) {
+    service.ucsbDateRepository = mock(UCSBDateRepository.class);
+    service.ucsbDiningCommonsRepository = mock(UCSBDiningCommonsRepository.class);
+    service.ucsbOrganizationRepository = mock(UCSBOrganizationRepository.class);
+    service.ucsbDiningCommonsMenuItemRepository = mock(UCSBDiningCommonsMenuItemRepository.class);
+    service.menuItemReviewRepository = mock(MenuItemReviewRepository.class);
+    service.articlesRepository = mock(ArticlesRepository.class);
+    service.helpRequestRepository = mock(HelpRequestRepository.class);
+    service.recommendationRequestRepository = mock(RecommendationRequestRepository.class);
+    for (DashboardService.Source source : service.sources()) {
+      when(source.repository().findAll(any(Pageable.class))).thenReturn(Page.empty());
+    }
+    service.threads = threads;
+    service.queueCapacity = queueCapacity;
+    service.sourceTimeoutMillis = 200;
+    service.latest = 2;
+    service.startExecutor();
+    return service;
+  }
+
+  @AfterEach
+  public void stop() {
+    release.countDown();
+    service.stopExecutor();
+  }
+
+  private Page<HelpRequest> blockUntilReleased() throws InterruptedException {
+    release.await();
+    return Page.empty();
+  }
+
+  private Map<String, String> statuses(Dashboard dashboard) {
+    return dashboard.getSections().entrySet().stream()
+        .collect(Collectors.toMap(Map.Entry::getKey, e -> e.getValue().getStatus()));
+  }
+
+  @Test
+  public void every_source_reports_its_count_and_latest_rows() {
+    start(8, 8);
+    Articles newest = Articles.builder().id(9L).build();
+    Articles previous = Articles.builder().id(8L).build();
+    PageRequest latestTwo = PageRequest.of(0, 2, Sort.by(Sort.Direction.DESC, "id"));
+    when(service.articlesRepository.findAll(latestTwo)).thenReturn(new PageImpl<>(List.of(newest, previous), latestTwo, 9));
+
+    Dashboard dashboard = service.getDashboard();
+
+    assertTrue(dashboard.getComplete());
+    assertEquals(List.of("ucsbDates", "ucsbDiningCommons", "ucsbOrganizations", "menuItems",
+        "menuItemReviews", "articles", "helpRequests", "recommendationRequests"),
+        List.copyOf(dashboard.getSections().keySet()));
+    assertEquals(DashboardSection.ok(9, List.of(newest, previous)), dashboard.getSections().get("articles"));
+    assertEquals(DashboardSection.ok(0, List.of()), dashboard.getSections().get("ucsbDates"));
+    verify(service.ucsbDiningCommonsRepository).findAll(PageRequest.of(0, 2, Sort.by(Sort.Direction.DESC, "code")));
+    verify(service.ucsbOrganizationRepository).findAll(PageRequest.of(0, 2, Sort.by(Sort.Direction.DESC, "orgcode")));
+  }
+
+  @Test
+  public void slow_and_failing_sources_are_left_out() {
+    start(8, 8);
+    when(service.helpRequestRepository.findAll(any(Pageable.class))).thenAnswer(invocation -> blockUntilReleased());
+    when(service.articlesRepository.findAll(any(Pageable.class))).thenThrow(new IllegalStateException("connection refused"));
+
+    long started = System.nanoTime();
+    Dashboard dashboard = service.getDashboard();
+    long tookMillis = (System.nanoTime() - started) / 1_000_000;
+
+    assertFalse(dashboard.getComplete());
+    assertEquals(DashboardSection.unavailable(DashboardSection.TIMEOUT), dashboard.getSections().get("helpRequests"));
+    assertEquals(DashboardSection.unavailable(DashboardSection.FAILED), dashboard.getSections().get("articles"));
+    assertEquals(DashboardSection.OK, dashboard.getSections().get("menuItemReviews").getStatus());
+    assertTrue(tookMillis < 2000, "took " + tookMillis + "ms");
+  }
+
+  @Test
+  public void sources_beyond_the_pool_and_queue_are_rejected() {
+    start(1, 1);
+    when(service.ucsbDateRepository.findAll(any(Pageable.class))).thenAnswer(invocation -> blockUntilReleased());
+
+    Dashboard dashboard = service.getDashboard();
+
+    Map<String, String> statuses = statuses(dashboard);
+    assertEquals(DashboardSection.TIMEOUT, statuses.get("ucsbDates"));
+    assertEquals(DashboardSection.TIMEOUT, statuses.get("ucsbDiningCommons"));
+    assertEquals(DashboardSection.REJECTED, statuses.get("ucsbOrganizations"));
+    assertEquals(DashboardSection.REJECTED, statuses.get("recommendationRequests"));
+  }
+}
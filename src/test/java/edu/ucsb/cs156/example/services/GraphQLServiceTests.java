@@ -0,0 +1,262 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.entities.Articles;
+import edu.ucsb.cs156.example.entities.MenuItemReview;
+import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
+import edu.ucsb.cs156.example.entities.UCSBDiningCommonsMenuItem;
+import edu.ucsb.cs156.example.repositories.ArticlesRepository;
+import edu.ucsb.cs156.example.repositories.MenuItemReviewRepository;
+import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsMenuItemRepository;
+import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsRepository;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import javax.persistence.EntityManagerFactory;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Import({ GraphQLService.class, GraphQLDataLoaders.class })
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+public class GraphQLServiceTests {
+
+  @Autowired
+  GraphQLService graphQLService;
+
+  @Autowired
+  UCSBDiningCommonsRepository commonsRepository;
+
+  @Autowired
+  UCSBDiningCommonsMenuItemRepository itemRepository;
+
+  @Autowired
+  MenuItemReviewRepository reviewRepository;
+
+  @Autowired
+  ArticlesRepository articlesRepository;
+
+  @Autowired
+  EntityManagerFactory entityManagerFactory;
+
+  @Autowired
+  TestEntityManager entityManager;
+
+  private Statistics statistics;
+  private UCSBDiningCommonsMenuItem tacos;
+  private UCSBDiningCommonsMenuItem salad;
+
+  private UCSBDiningCommonsMenuItem item(String commons, String name) {
+    return itemRepository.save(UCSBDiningCommonsMenuItem.builder().diningCommonsCode(commons).name(name).station("Grill").build());
+  }
+
+  private void review(UCSBDiningCommonsMenuItem item, int stars) {
+    reviewRepository.save(MenuItemReview.builder().itemid(item.getId()).reviewerEmail("a@ucsb.edu").stars(stars).build());
+  }
+
+  @BeforeEach
+  public void menu() {
+    commonsRepository.save(UCSBDiningCommons.builder().code("ortega").name("Ortega").build());
+    commonsRepository.save(UCSBDiningCommons.builder().code("dlg").name("De La Guerra").build());
+    tacos = item("ortega", "Tacos");
+    salad = item("ortega", "Salad");
+    UCSBDiningCommonsMenuItem pizza = item("dlg", "Pizza");
+    review(tacos, 5);
+    review(tacos, 3);
+    review(pizza, 4);
+
+    statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    statistics.clear();
+  }
+
+  @SuppressWarnings("unchecked")
+  private <T> T at(Object node, Object... path) {
+    for (Object step : path) {
+      node = step instanceof Integer i ? ((List<Object>) node).get(i) : ((Map<String, Object>) node).get(step);
+    }
+    return (T) node;
+  }
+
+  @Test
+  public void nested_fields_are_loaded_with_one_query_per_level() {
+    Map<String, Object> result = graphQLService.execute(
+        "{ diningCommons(first: 10) { code menuItems(first: 10) { name reviews(first: 5) { stars } } } }", null, null);
+
+    assertNull(result.get("errors"));
+    List<Map<String, Object>> commons = at(result, "data", "diningCommons");
+    Map<String, Object> ortega = commons.stream().filter(c -> "ortega".equals(c.get("code"))).findFirst().orElseThrow();
+    assertEquals("Tacos", at(ortega, "menuItems", 0, "name"));
+    assertEquals(List.of(Map.of("stars", 5), Map.of("stars", 3)), at(ortega, "menuItems", 0, "reviews"));
+    assertEquals(List.of(), at(ortega, "menuItems", 1, "reviews"));
+    assertEquals(3, statistics.getPrepareStatementCount());
+  }
+
+  @Test
+  public void items_by_id_resolve_their_commons_and_report_missing_ids_as_null() {
+    Map<String, Object> result = graphQLService.execute(
+        "query Items($ids: [ID!]!) { menuItems(ids: $ids) { id diningCommons { name } } }",
+        "Items", Map.of("ids", List.of(String.valueOf(salad.getId()), "-1", String.valueOf(tacos.getId()))));
+
+    assertNull(result.get("errors"));
+    assertEquals(String.valueOf(salad.getId()), at(result, "data", "menuItems", 0, "id"));
+    assertNull(at(result, "data", "menuItems", 1));
+    assertEquals("Ortega", at(result, "data", "menuItems", 2, "diningCommons", "name"));
+    // the two items share one commons lookup
+    assertEquals(2, statistics.getPrepareStatementCount());
+  }
+
+  @Test
+  public void reviews_by_id_resolve_their_item_and_commons_by_code() {
+    Map<String, Object> result = graphQLService.execute(
+        "{ menuItemReviews(ids: [\"" + reviewRepository.findAll().iterator().next().getId() + "\"]) { stars item { name } }"
+            + " diningCommons(codes: [\"dlg\", \"none\"]) { name } }", null, null);
+
+    assertNull(result.get("errors"));
+    assertEquals(5, (Integer) at(result, "data", "menuItemReviews", 0, "stars"));
+    assertEquals("Tacos", at(result, "data", "menuItemReviews", 0, "item", "name"));
+    assertEquals("De La Guerra", at(result, "data", "diningCommons", 0, "name"));
+    assertNull(at(result, "data", "diningCommons", 1));
+  }
+
+  @Test
+  public void the_other_entities_are_listed() {
+    articlesRepository.save(Articles.builder().title("GraphQL").build());
+
+    Map<String, Object> result = graphQLService.execute(
+        "{ articles { title } ucsbDates { id } ucsbOrganizations { orgcode } helpRequests { id } recommendationRequests { id } }",
+        null, null);
+
+    assertNull(result.get("errors"));
+    assertEquals(List.of(Map.of("title", "GraphQL")), at(result, "data", "articles"));
+    assertEquals(List.of(), at(result, "data", "helpRequests"));
+  }
+
+  @Test
+  public void lists_return_their_first_rows_in_id_order() {
+    articlesRepository.save(Articles.builder().title("First").build());
+    articlesRepository.save(Articles.builder().title("Second").build());
+    articlesRepository.save(Articles.builder().title("Third").build());
+
+    Map<String, Object> result = graphQLService.execute(
+        "{ articles(first: 2) { title } menuItems(ids: [\"" + tacos.getId() + "\"]) { reviews(first: 1) { stars } } }", null, null);
+
+    assertNull(result.get("errors"));
+    assertEquals(List.of(Map.of("title", "First"), Map.of("title", "Second")), at(result, "data", "articles"));
+    assertEquals(List.of(Map.of("stars", 5)), at(result, "data", "menuItems", 0, "reviews"));
+  }
+
+  @Test
+  public void nested_lists_load_only_their_first_rows_per_parent() {
+    for (int stars = 1; stars <= 4; stars++) {
+      review(tacos, stars);
+    }
+    entityManager.flush();
+    entityManager.clear();
+    statistics.clear();
+
+    Map<String, Object> result = graphQLService.execute(
+        "{ menuItems(ids: [\"" + tacos.getId() + "\"]) { reviews(first: 2) { stars } } }", null, null);
+
+    assertNull(result.get("errors"));
+    assertEquals(List.of(Map.of("stars", 5), Map.of("stars", 3)), at(result, "data", "menuItems", 0, "reviews"));
+    // the item and two of its six reviews
+    assertEquals(3, statistics.getEntityLoadCount());
+  }
+
+  @Test
+  public void the_same_list_can_ask_for_different_numbers_of_rows() {
+    entityManager.flush();
+    entityManager.clear();
+    statistics.clear();
+
+    Map<String, Object> result = graphQLService.execute(
+        "{ diningCommons(codes: [\"ortega\"]) { one: menuItems(first: 1) { name } two: menuItems(first: 2) { name } } }",
+        null, null);
+
+    assertNull(result.get("errors"));
+    assertEquals(List.of(Map.of("name", "Tacos")), at(result, "data", "diningCommons", 0, "one"));
+    assertEquals(List.of(Map.of("name", "Tacos"), Map.of("name", "Salad")), at(result, "data", "diningCommons", 0, "two"));
+    // one query per number of rows asked for
+    assertEquals(3, statistics.getPrepareStatementCount());
+  }
+
+  @Test
+  public void first_beyond_the_list_size_cap_is_refused() {
+    Map<String, Object> result = graphQLService.execute("{ articles(first: 101) { title } }", null, null);
+
+    assertTrue(at(result, "errors", 0, "message").toString().contains("first must be between 1 and 100"));
+    assertEquals(0, statistics.getPrepareStatementCount());
+  }
+
+  @Test
+  public void more_ids_than_a_batch_are_refused() {
+    List<String> ids = LongStream.rangeClosed(1, 101).mapToObj(Long::toString).toList();
+
+    Map<String, Object> result = graphQLService.execute(
+        "query Reviews($ids: [ID!]!) { menuItemReviews(ids: $ids) { id } }", "Reviews", Map.of("ids", ids));
+
+    assertTrue(at(result, "errors", 0, "message").toString().contains("At most 100 ids may be requested at once"));
+    assertEquals(0, statistics.getPrepareStatementCount());
+  }
+
+  @Test
+  public void dates_are_written_as_the_rest_api_writes_them() {
+    articlesRepository.save(Articles.builder().title("Midnight").dateAdded(LocalDateTime.of(2022, 1, 3, 0, 0)).build());
+
+    Map<String, Object> result = graphQLService.execute("{ articles { dateAdded } }", null, null);
+
+    assertNull(result.get("errors"));
+    assertEquals("2022-01-03T00:00:00", at(result, "data", "articles", 0, "dateAdded"));
+  }
+
+  @Test
+  public void nested_lists_are_weighed_by_the_rows_they_can_return() {
+    Map<String, Object> unbounded = graphQLService.execute(
+        "{ diningCommons { menuItems { reviews { stars } } } }", null, null);
+    Map<String, Object> bounded = graphQLService.execute(
+        "{ diningCommons(first: 5) { menuItems(first: 20) { reviews(first: 10) { stars } } } }", null, null);
+
+    assertNull(unbounded.get("data"));
+    assertTrue(at(unbounded, "errors", 0, "message").toString().contains("complexity"));
+    assertNull(bounded.get("errors"));
+  }
+
+  @Test
+  public void queries_nested_too_deeply_are_refused_before_loading() {
+    Map<String, Object> result = graphQLService.execute(
+        "{ diningCommons { menuItems { reviews { item { reviews { item { reviews { stars } } } } } } } }", null, null);
+
+    assertNull(result.get("data"));
+    assertTrue(at(result, "errors", 0, "message").toString().contains("depth"));
+    assertEquals(0, statistics.getPrepareStatementCount());
+  }
+
+  @Test
+  public void queries_selecting_too_many_fields_are_refused_before_loading() {
+    String aliases = IntStream.rangeClosed(1, 26).mapToObj(i -> "a" + i + ": articles { id title }")
+        .collect(Collectors.joining(" "));
+
+    Map<String, Object> result = graphQLService.execute("{ " + aliases + " }", null, null);
+
+    assertNull(result.get("data"));
+    assertTrue(at(result, "errors", 0, "message").toString().contains("complexity"));
+    assertEquals(0, statistics.getPrepareStatementCount());
+  }
+}
@@ -0,0 +1,53 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.entities.UCSBDate;
+import edu.ucsb.cs156.example.repositories.UCSBDateRepository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import java.util.List;
+import java.util.stream.StreamSupport;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DataJpaTest(properties = "app.quarter-key.backfill-batch=2")
+@Import(QuarterKeyBackfill.class)
+public class QuarterKeyBackfillTests {
+
+  @Autowired
+  QuarterKeyBackfill backfill;
+
+  @Autowired
+  UCSBDateRepository ucsbDateRepository;
+
+  @Autowired
+  TestEntityManager entityManager;
+
+  @Test
+  public void rows_written_before_the_key_existed_are_keyed_in_batches() {
+    for (String quarter : List.of("20221", "20222", "spring", "20223", "20224")) {
+      ucsbDateRepository.save(UCSBDate.builder().quarterYYYYQ(quarter).name(quarter).build());
+    }
+    ucsbDateRepository.save(UCSBDate.builder().quarterYYYYQ("20231").name("keyed already").build());
+    entityManager.flush();
+    // as the rows from before the column was added look
+    entityManager.getEntityManager()
+        .createNativeQuery("update ucsbdates set quarter_key = null where name <> 'keyed already'")
+        .executeUpdate();
+    entityManager.clear();
+
+    assertEquals(4, backfill.backfill());
+    entityManager.flush();
+    entityManager.clear();
+
+    List<String> keys = StreamSupport.stream(ucsbDateRepository.findAll().spliterator(), false)
+        .map(d -> d.getName() + "=" + d.getQuarterKey()).toList();
+    assertEquals(List.of("20221=20221", "20222=20222", "spring=null", "20223=20223", "20224=20224",
+        "keyed already=20231"), keys);
+    assertEquals(0, backfill.backfill());
+  }
+}
@@ -0,0 +1,136 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.entities.MenuItemReview;
+import edu.ucsb.cs156.example.errors.BadRequestException;
+import edu.ucsb.cs156.example.events.MenuItemReviewsChanged;
+import edu.ucsb.cs156.example.models.ReviewStats;
+import edu.ucsb.cs156.example.repositories.MenuItemReviewRepository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@DataJpaTest
+@Import(ReviewAnalyticsService.class)
+public class ReviewAnalyticsServiceTests {
+
+  @Autowired
+  ReviewAnalyticsService analytics;
+
+  @Autowired
+  MenuItemReviewRepository reviewRepository;
+
+  private static MenuItemReview review(long id, long itemid, String reviewer, int stars, String day) {
+    return MenuItemReview.builder().id(id).itemid(itemid).reviewerEmail(reviewer).stars(stars)
+        .dateReviewed(day == null ? null : LocalDate.parse(day).atTime(12, 0)).build();
+  }
+
+  private static List<String> describe(List<ReviewStats> stats) {
+    return stats.stream().map(s -> "%s %d %.2f".formatted(s.getKey(), s.getCount(), s.getAverageStars())).toList();
+  }
+
+  @Test
+  public void the_table_is_loaded_at_startup_and_grouped_by_item_reviewer_and_week() {
+    reviewRepository.save(review(0, 7, "b@ucsb.edu", 5, "2022-01-03"));
+    reviewRepository.save(review(0, 7, "a@ucsb.edu", 2, "2022-01-09"));
+    reviewRepository.save(review(0, 3, "a@ucsb.edu", 4, "2022-01-10"));
+    reviewRepository.save(review(0, 3, "b@ucsb.edu", 1, null));
+
+    analytics.run(null);
+
+    assertEquals(4, analytics.size());
+    assertEquals(List.of("3 2 2.50", "7 2 3.50"), describe(analytics.stats("item", null, null, null)));
+    assertEquals(List.of("a@ucsb.edu 2 3.00", "b@ucsb.edu 2 3.00"), describe(analytics.stats("reviewer", null, null, null)));
+    // Monday 2022-01-03 to Sunday 2022-01-09 is one week; undated reviews have none
+    assertEquals(List.of("2022-01-03 2 3.50", "2022-01-10 1 4.00"), describe(analytics.stats("week", null, null, null)));
+  }
+
+  @Test
+  public void filters_narrow_the_scan_to_an_item_and_a_range_of_days() {
+    analytics.reviewsChanged(MenuItemReviewsChanged.added(List.of(
+        review(1, 7, "a@ucsb.edu", 5, "2022-01-03"),
+        review(2, 7, "a@ucsb.edu", 3, "2022-01-04"),
+        review(3, 7, "b@ucsb.edu", 1, "2022-01-05"),
+        review(4, 8, "a@ucsb.edu", 4, "2022-01-04"),
+        review(5, 7, "a@ucsb.edu", 2, null))));
+
+    assertEquals(List.of("a@ucsb.edu 3 3.33", "b@ucsb.edu 1 1.00"),
+        describe(analytics.stats("reviewer", 7L, null, null)));
+    assertEquals(List.of("7 1 3.00", "8 1 4.00"),
+        describe(analytics.stats("item", null, LocalDate.parse("2022-01-04"), LocalDate.parse("2022-01-04"))));
+    assertEquals(List.of("7 2 2.00"),
+        describe(analytics.stats("item", 7L, LocalDate.parse("2022-01-04"), null)));
+  }
+
+  @Test
+  public void writes_are_followed_in_place() {
+    MenuItemReview first = review(10, 7, "a@ucsb.edu", 5, "2022-01-03");
+    MenuItemReview second = review(20, 7, "b@ucsb.edu", 1, "2022-01-03");
+    analytics.reviewsChanged(MenuItemReviewsChanged.added(List.of(first, second)));
+    // a write that committed out of id order
+    analytics.reviewsChanged(MenuItemReviewsChanged.added(List.of(review(15, 8, "c@ucsb.edu", 3, "2022-01-03"))));
+
+    analytics.reviewsChanged(MenuItemReviewsChanged.replaced(second, review(20, 8, "b@ucsb.edu", 5, "2022-01-03")));
+    assertEquals(List.of("7 1 5.00", "8 2 4.00"), describe(analytics.stats("item", null, null, null)));
+
+    analytics.reviewsChanged(MenuItemReviewsChanged.removed(first));
+    assertEquals(List.of("8 2 4.00"), describe(analytics.stats("item", null, null, null)));
+    assertEquals(2, analytics.size());
+
+    // deleting the rest compacts, and deleted ids can be written again
+    analytics.reviewsChanged(new MenuItemReviewsChanged(
+        List.of(review(15, 8, "c@ucsb.edu", 3, null), review(20, 8, "b@ucsb.edu", 5, null)), List.of()));
+    analytics.reviewsChanged(MenuItemReviewsChanged.added(List.of(review(10, 9, "a@ucsb.edu", 2, null))));
+    assertEquals(List.of("9 1 2.00"), describe(analytics.stats("item", null, null, null)));
+    assertEquals(1, analytics.size());
+  }
+
+  @Test
+  public void large_tables_are_scanned_in_parallel_with_the_same_totals() {
+    List<MenuItemReview> reviews = new ArrayList<>();
+    LongStream.rangeClosed(1, 200_000).forEach(id -> reviews.add(
+        review(id, id % 1000, "r" + (id % 37) + "@ucsb.edu", (int) (id / 1000 % 5) + 1, null)));
+    analytics.reviewsChanged(MenuItemReviewsChanged.added(reviews));
+
+    List<ReviewStats> byItem = analytics.stats("item", null, null, null);
+
+    assertEquals(1000, byItem.size());
+    assertEquals(200_000, byItem.stream().mapToLong(ReviewStats::getCount).sum());
+    // item 0 has ids 1000, 2000, ..., whose stars cycle through 1 2 3 4 5
+    assertEquals("0 200 3.00", describe(byItem.subList(0, 1)).get(0));
+    assertEquals(37, analytics.stats("reviewer", null, null, null).size());
+  }
+
+  @Test
+  public void items_too_far_apart_to_count_in_arrays_are_grouped_all_the_same() {
+    List<MenuItemReview> reviews = List.of(
+        review(1, Long.MIN_VALUE + 1, "a@ucsb.edu", 5, "2022-01-03"),
+        review(2, 1, "a@ucsb.edu", 3, "2022-01-03"),
+        review(3, Long.MAX_VALUE, "a@ucsb.edu", 1, "2022-01-03"),
+        review(4, 1, "a@ucsb.edu", 4, "2022-01-03"));
+    analytics.reviewsChanged(MenuItemReviewsChanged.added(reviews));
+
+    assertEquals(List.of(Long.MIN_VALUE + 1 + " 1 5.00", "1 2 3.50", Long.MAX_VALUE + " 1 1.00"),
+        describe(analytics.stats("item", null, null, null)));
+
+    // the service outlives the test
+    reviews.forEach(review -> analytics.reviewsChanged(MenuItemReviewsChanged.removed(review)));
+  }
+
+  @Test
+  public void unknown_groupings_are_refused() {
+    BadRequestException e = assertThrows(BadRequestException.class,
+        () -> analytics.stats("stars", null, null, null));
+    assertEquals("groupBy must be one of item, reviewer, week", e.getMessage());
+  }
+}
@@ -0,0 +1,152 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.entities.MenuItemReview;
+import edu.ucsb.cs156.example.entities.UCSBDiningCommonsMenuItem;
+import edu.ucsb.cs156.example.errors.BadRequestException;
+import edu.ucsb.cs156.example.events.MenuItemReviewsChanged;
+import edu.ucsb.cs156.example.events.MenuItemsChanged;
+import edu.ucsb.cs156.example.models.TopRatedItem;
+import edu.ucsb.cs156.example.repositories.MenuItemReviewRepository;
+import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsMenuItemRepository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@DataJpaTest(properties = { "app.top-rated.max-k=3", "app.top-rated.prior-reviews=2", "app.top-rated.prior-stars=3" })
+@Import(TopRatedMenuItemsService.class)
+public class TopRatedMenuItemsServiceTests {
+
+  @Autowired
+  TopRatedMenuItemsService topRated;
+
+  @Autowired
+  UCSBDiningCommonsMenuItemRepository menuItemRepository;
+
+  @Autowired
+  MenuItemReviewRepository reviewRepository;
+
+  @BeforeEach
+  public void startEmpty() {
+    // the service outlives each test's rolled back rows
+    topRated.load();
+  }
+
+  private static UCSBDiningCommonsMenuItem item(long id, String commons, String name) {
+    return UCSBDiningCommonsMenuItem.builder().id(id).diningCommonsCode(commons).name(name).station("Entrees").build();
+  }
+
+  private static MenuItemReview review(long id, long itemid, int stars) {
+    return MenuItemReview.builder().id(id).itemid(itemid).reviewerEmail("a@ucsb.edu").stars(stars).build();
+  }
+
+  private static List<String> describe(List<TopRatedItem> items) {
+    return items.stream()
+        .map(i -> "%s %d %.2f %.2f".formatted(i.getName(), i.getReviews(), i.getAverageStars(), i.getScore()))
+        .toList();
+  }
+
+  @Test
+  public void items_are_ranked_at_startup_with_few_reviews_pulled_towards_the_prior() {
+    long pasta = menuItemRepository.save(item(0, "ortega", "Pasta")).getId();
+    long salad = menuItemRepository.save(item(0, "ortega", "Salad")).getId();
+    long soup = menuItemRepository.save(item(0, "ortega", "Soup")).getId();
+    menuItemRepository.save(item(0, "ortega", "Unreviewed"));
+    long tacos = menuItemRepository.save(item(0, "dlg", "Tacos")).getId();
+    // one perfect review scores below many good ones
+    reviewRepository.save(review(0, pasta, 5));
+    for (int i = 0; i < 6; i++) {
+      reviewRepository.save(review(0, salad, 4));
+    }
+    reviewRepository.save(review(0, soup, 1));
+    reviewRepository.save(review(0, tacos, 2));
+
+    topRated.run(null);
+
+    assertEquals(List.of("Salad 6 4.00 3.75", "Pasta 1 5.00 3.67", "Soup 1 1.00 2.33"),
+        describe(topRated.topRated("ortega", 3)));
+    assertEquals(List.of("Salad 6 4.00 3.75"), describe(topRated.topRated("ortega", 1)));
+    assertEquals(List.of("Tacos 1 2.00 2.67"), describe(topRated.topRated("dlg", 3)));
+    assertEquals(List.of(), topRated.topRated("carrillo", 3));
+  }
+
+  @Test
+  public void review_writes_move_only_their_own_item() {
+    topRated.menuItemsChanged(MenuItemsChanged.added(item(1, "ortega", "Pasta")));
+    topRated.menuItemsChanged(MenuItemsChanged.added(item(2, "ortega", "Salad")));
+    MenuItemReview pastaReview = review(1, 1, 4);
+    topRated.reviewsChanged(MenuItemReviewsChanged.added(List.of(pastaReview, review(2, 2, 3))));
+    assertEquals(List.of("Pasta 1 4.00 3.33", "Salad 1 3.00 3.00"), describe(topRated.topRated("ortega", 3)));
+
+    MenuItemReview lowered = pastaReview.toBuilder().stars(1).build();
+    topRated.reviewsChanged(MenuItemReviewsChanged.replaced(pastaReview, lowered));
+    assertEquals(List.of("Salad 1 3.00 3.00", "Pasta 1 1.00 2.33"), describe(topRated.topRated("ortega", 3)));
+
+    // an item whose last review is deleted drops out
+    topRated.reviewsChanged(MenuItemReviewsChanged.removed(lowered));
+    assertEquals(List.of("Salad 1 3.00 3.00"), describe(topRated.topRated("ortega", 3)));
+  }
+
+  @Test
+  public void menu_item_writes_rename_move_and_remove_items() {
+    UCSBDiningCommonsMenuItem pasta = item(1, "ortega", "Pasta");
+    topRated.menuItemsChanged(MenuItemsChanged.added(pasta));
+    topRated.reviewsChanged(MenuItemReviewsChanged.added(List.of(review(1, 1, 5))));
+
+    UCSBDiningCommonsMenuItem renamed = item(1, "ortega", "Pesto Pasta");
+    topRated.menuItemsChanged(MenuItemsChanged.replaced(pasta, renamed));
+    assertEquals(List.of("Pesto Pasta 1 5.00 3.67"), describe(topRated.topRated("ortega", 3)));
+
+    UCSBDiningCommonsMenuItem moved = item(1, "portola", "Pesto Pasta");
+    topRated.menuItemsChanged(MenuItemsChanged.replaced(renamed, moved));
+    assertEquals(List.of(), topRated.topRated("ortega", 3));
+    assertEquals(List.of("Pesto Pasta 1 5.00 3.67"), describe(topRated.topRated("portola", 3)));
+
+    topRated.menuItemsChanged(MenuItemsChanged.removed(moved));
+    assertEquals(List.of(), topRated.topRated("portola", 3));
+  }
+
+  @Test
+  public void only_the_best_max_k_are_kept_and_ties_go_to_the_older_item() {
+    for (long id = 1; id <= 5; id++) {
+      topRated.menuItemsChanged(MenuItemsChanged.added(item(id, "ortega", "Item " + id)));
+    }
+    topRated.reviewsChanged(MenuItemReviewsChanged.added(List.of(
+        review(1, 1, 2), review(2, 2, 4), review(3, 3, 4), review(4, 4, 5), review(5, 5, 3))));
+
+    assertEquals(List.of("Item 4 1 5.00 3.67", "Item 2 1 4.00 3.33", "Item 3 1 4.00 3.33"),
+        describe(topRated.topRated("ortega", 3)));
+  }
+
+  @Test
+  public void events_for_writes_the_load_already_saw_change_nothing() {
+    long pasta = menuItemRepository.save(item(0, "ortega", "Pasta")).getId();
+    MenuItemReview added = reviewRepository.save(review(0, pasta, 5));
+    MenuItemReview updated = reviewRepository.save(review(0, pasta, 1));
+    MenuItemReview updatedBefore = updated.toBuilder().stars(4).build();
+    // deleted before the load, so never counted
+    MenuItemReview deleted = review(updated.getId() + 1, pasta, 2);
+
+    topRated.load();
+    // the events of those writes, queued behind the load
+    topRated.reviewsChanged(MenuItemReviewsChanged.added(List.of(added)));
+    topRated.reviewsChanged(MenuItemReviewsChanged.replaced(updatedBefore, updated));
+    topRated.reviewsChanged(MenuItemReviewsChanged.removed(deleted));
+
+    assertEquals(List.of("Pasta 2 3.00 3.00"), describe(topRated.topRated("ortega", 3)));
+  }
+
+  @Test
+  public void k_must_be_between_one_and_max_k() {
+    BadRequestException tooMany = assertThrows(BadRequestException.class, () -> topRated.topRated("ortega", 4));
+    assertEquals("k must be between 1 and 3", tooMany.getMessage());
+    assertThrows(BadRequestException.class, () -> topRated.topRated("ortega", 0));
+  }
+}
@@ -0,0 +1,184 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.entities.MenuItemReview;
+import edu.ucsb.cs156.example.errors.BadRequestException;
+import edu.ucsb.cs156.example.events.MenuItemReviewsChanged;
+import edu.ucsb.cs156.example.models.TrendingRating;
+import edu.ucsb.cs156.example.repositories.MenuItemReviewRepository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@DataJpaTest(properties = { "app.trending.min-reviews=2", "app.trending.max-items=5" })
+@Import(TrendingRatingsService.class)
+public class TrendingRatingsServiceTests {
+
+  // 2022-03-15 in Santa Barbara, but already 2022-03-16 in UTC
+  private static final Clock MARCH_15 = Clock.fixed(Instant.parse("2022-03-16T05:00:00Z"), ZoneId.of("America/Los_Angeles"));
+
+  @Autowired
+  TrendingRatingsService trending;
+
+  @Autowired
+  MenuItemReviewRepository reviewRepository;
+
+  private Clock original;
+
+  @BeforeEach
+  public void fixTheClock() {
+    original = trending.clock;
+    trending.clock = MARCH_15;
+    // the service outlives each test's rolled back rows
+    trending.load();
+  }
+
+  @AfterEach
+  public void restoreTheClock() {
+    trending.clock = original;
+  }
+
+  private static MenuItemReview review(long id, long itemid, int stars, String day) {
+    return MenuItemReview.builder().id(id).itemid(itemid).reviewerEmail("a@ucsb.edu").stars(stars)
+        .dateReviewed(day == null ? null : LocalDate.parse(day).atTime(18, 0)).build();
+  }
+
+  private static String describe(TrendingRating r) {
+    return "%d day %d %s week %d %s month %d %s trend %s".formatted(r.getItemid(),
+        r.getLastDay().getReviews(), r.getLastDay().getAverageStars(),
+        r.getLast7Days().getReviews(), r.getLast7Days().getAverageStars(),
+        r.getLast30Days().getReviews(), r.getLast30Days().getAverageStars(), r.getTrend());
+  }
+
+  private List<String> describe(Long itemid) {
+    return trending.trending(itemid, 5).stream().map(TrendingRatingsServiceTests::describe).toList();
+  }
+
+  @Test
+  public void the_last_thirty_days_are_rebuilt_from_date_reviewed_at_startup() {
+    reviewRepository.save(review(0, 7, 5, "2022-03-15"));
+    reviewRepository.save(review(0, 7, 4, "2022-03-10"));
+    reviewRepository.save(review(0, 7, 1, "2022-02-20"));
+    reviewRepository.save(review(0, 7, 2, "2022-02-14"));
+    // outside the window, and undated
+    reviewRepository.save(review(0, 7, 1, "2022-02-13"));
+    reviewRepository.save(review(0, 7, 1, "2022-03-16"));
+    reviewRepository.save(review(0, 7, 1, null));
+
+    trending.run(null);
+
+    assertEquals(List.of("7 day 1 5.0 week 2 4.5 month 4 3.0 trend 1.5"), describe(7L));
+  }
+
+  @Test
+  public void writes_are_counted_on_the_day_they_were_reviewed() {
+    MenuItemReview today = review(1, 7, 5, "2022-03-15");
+    trending.reviewsChanged(MenuItemReviewsChanged.added(List.of(today, review(2, 7, 2, "2022-03-01"))));
+    assertEquals(List.of("7 day 1 5.0 week 1 5.0 month 2 3.5 trend 1.5"), describe(7L));
+
+    MenuItemReview moved = today.toBuilder().stars(3).dateReviewed(LocalDate.parse("2022-03-12").atStartOfDay()).build();
+    trending.reviewsChanged(MenuItemReviewsChanged.replaced(today, moved));
+    assertEquals(List.of("7 day 0 null week 1 3.0 month 2 2.5 trend 0.5"), describe(7L));
+
+    trending.reviewsChanged(MenuItemReviewsChanged.removed(moved));
+    assertEquals(List.of("7 day 0 null week 0 null month 1 2.0 trend null"), describe(7L));
+  }
+
+  @Test
+  public void buckets_age_out_as_the_days_pass() {
+    trending.reviewsChanged(MenuItemReviewsChanged.added(List.of(review(1, 7, 4, "2022-03-15"), review(2, 7, 2, "2022-02-20"))));
+
+    trending.clock = Clock.offset(MARCH_15, Duration.ofDays(7));
+    assertEquals(List.of("7 day 0 null week 0 null month 1 4.0 trend null"), describe(7L));
+
+    // a review thirty days on lands in the first one's slot
+    trending.reviewsChanged(MenuItemReviewsChanged.added(List.of(review(3, 7, 1, "2022-03-22"))));
+    assertEquals(List.of("7 day 1 1.0 week 1 1.0 month 2 2.5 trend -1.5"), describe(7L));
+
+    trending.clock = Clock.offset(MARCH_15, Duration.ofDays(60));
+    assertEquals(List.of(), describe(7L));
+    assertEquals(List.of(), describe((Long) null));
+  }
+
+  @Test
+  public void reviews_dated_after_today_are_counted_when_their_day_comes() {
+    long saved = reviewRepository.save(review(0, 7, 5, "2022-03-17")).getId();
+    trending.load();
+    MenuItemReview tomorrow = review(saved + 1, 7, 3, "2022-03-16");
+    trending.reviewsChanged(MenuItemReviewsChanged.added(List.of(tomorrow)));
+    assertEquals(List.of(), describe(7L));
+
+    trending.clock = Clock.offset(MARCH_15, Duration.ofDays(1));
+    assertEquals(List.of("7 day 1 3.0 week 1 3.0 month 1 3.0 trend 0.0"), describe(7L));
+
+    trending.clock = Clock.offset(MARCH_15, Duration.ofDays(2));
+    assertEquals(List.of("7 day 1 5.0 week 2 4.0 month 2 4.0 trend 0.0"), describe(7L));
+  }
+
+  @Test
+  public void removing_reviews_that_were_never_counted_takes_nothing_away() {
+    MenuItemReview counted = review(1, 7, 4, "2022-03-15");
+    MenuItemReview later = review(2, 7, 1, "2022-03-20");
+    trending.reviewsChanged(MenuItemReviewsChanged.added(List.of(counted, later)));
+
+    // held back, then deleted before its day; and one the service never saw
+    trending.reviewsChanged(MenuItemReviewsChanged.removed(later));
+    trending.reviewsChanged(MenuItemReviewsChanged.removed(review(3, 7, 5, "2022-03-15")));
+    assertEquals(List.of("7 day 1 4.0 week 1 4.0 month 1 4.0 trend 0.0"), describe(7L));
+
+    trending.clock = Clock.offset(MARCH_15, Duration.ofDays(5));
+    assertEquals(List.of("7 day 0 null week 1 4.0 month 1 4.0 trend 0.0"), describe(7L));
+  }
+
+  @Test
+  public void events_for_writes_the_load_already_saw_change_nothing() {
+    MenuItemReview added = reviewRepository.save(review(0, 7, 5, "2022-03-15"));
+    MenuItemReview updated = reviewRepository.save(review(0, 7, 1, "2022-03-14"));
+    MenuItemReview updatedBefore = updated.toBuilder().stars(4).dateReviewed(LocalDate.parse("2022-03-01").atStartOfDay()).build();
+    // deleted before the load, so never counted
+    MenuItemReview deleted = review(updated.getId() + 1, 7, 2, "2022-03-15");
+
+    trending.load();
+    // the events of those writes, queued behind the load
+    trending.reviewsChanged(MenuItemReviewsChanged.added(List.of(added)));
+    trending.reviewsChanged(MenuItemReviewsChanged.replaced(updatedBefore, updated));
+    trending.reviewsChanged(MenuItemReviewsChanged.removed(deleted));
+
+    assertEquals(List.of("7 day 1 5.0 week 2 3.0 month 2 3.0 trend 0.0"), describe(7L));
+  }
+
+  @Test
+  public void the_most_improved_items_with_enough_recent_reviews_come_first() {
+    trending.reviewsChanged(MenuItemReviewsChanged.added(List.of(
+        // 7 is steady, 8 has improved, 9 has got worse, 10 has too few reviews this week
+        review(1, 7, 3, "2022-03-14"), review(2, 7, 3, "2022-03-13"), review(3, 7, 3, "2022-03-01"),
+        review(4, 8, 5, "2022-03-14"), review(5, 8, 5, "2022-03-13"), review(6, 8, 1, "2022-03-01"),
+        review(7, 9, 1, "2022-03-14"), review(8, 9, 2, "2022-03-13"), review(9, 9, 5, "2022-03-01"),
+        review(10, 10, 5, "2022-03-14"), review(11, 10, 1, "2022-03-01"))));
+
+    assertEquals(List.of(8L, 7L, 9L), trending.trending(null, 5).stream().map(TrendingRating::getItemid).toList());
+    assertEquals(List.of(8L), trending.trending(null, 1).stream().map(TrendingRating::getItemid).toList());
+    // asked for by id, an item is returned however few its reviews
+    assertEquals(List.of(10L), trending.trending(10L, 5).stream().map(TrendingRating::getItemid).toList());
+  }
+
+  @Test
+  public void limit_must_be_between_one_and_max_items() {
+    BadRequestException tooMany = assertThrows(BadRequestException.class, () -> trending.trending(null, 6));
+    assertEquals("limit must be between 1 and 5", tooMany.getMessage());
+    assertThrows(BadRequestException.class, () -> trending.trending(null, 0));
+  }
+}
@@ -0,0 +1,193 @@
+package edu.ucsb.cs156.example.warmup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import edu.ucsb.cs156.example.entities.Articles;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.context.support.StaticApplicationContext;
+import org.springframework.format.support.DefaultFormattingConversionService;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import javax.persistence.metamodel.EntityType;
+import javax.persistence.metamodel.Metamodel;
+import javax.servlet.http.HttpServletRequest;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class WarmupRunnerTests {
+
+  public static class SampleController {
+    final List<String> calls = new ArrayList<>();
+
+    public List<String> list(@RequestParam(defaultValue = "10") int limit, @RequestParam(required = false) Long itemid) {
+      Authentication user = SecurityContextHolder.getContext().getAuthentication();
+      calls.add("list limit=%d itemid=%s as %s".formatted(limit, itemid,
+          user.getAuthorities().stream().map(GrantedAuthority::getAuthority).toList()));
+      return List.of("a", "b");
+    }
+
+    public List<String> all(HttpServletRequest request) {
+      HttpServletRequest current = ((ServletRequestAttributes) RequestContextHolder.getRequestAttributes()).getRequest();
+      calls.add("all %s %s, current %s".formatted(request.getMethod(), request.getRequestURI(), current == request));
+      return List.of("everything");
+    }
+
+    public String byId(@RequestParam Long id) {
+      calls.add("byId");
+      return "one";
+    }
+  }
+
+  private WarmupRunner runner;
+  private SampleController controller;
+  private List<Object> events;
+  private TypedQuery<Articles> query;
+  private PlatformTransactionManager transactionManager;
+  private SimpleTransactionStatus transaction;
+
+  @BeforeEach
+  @SuppressWarnings("unchecked")
+  public void setUp() throws Exception {
+    EntityType<Articles> articles = mock(EntityType.class);
+    when(articles.getName()).thenReturn("Articles");
+    when(articles.getJavaType()).thenReturn(Articles.class);
+    Metamodel metamodel = mock(Metamodel.class);
+    when(metamodel.getEntities()).thenReturn(Set.of(articles));
+
+    query = mock(TypedQuery.class);
+    when(query.setMaxResults(anyInt())).thenReturn(query);
+    when(query.getResultList()).thenReturn(List.of(Articles.builder().title("t").build()));
+
+    EntityManager entityManager = mock(EntityManager.class);
+    when(entityManager.getMetamodel()).thenReturn(metamodel);
+    when(entityManager.createQuery("select e from Articles e", Articles.class)).thenReturn(query);
+
+    transaction = new SimpleTransactionStatus();
+    transactionManager = mock(PlatformTransactionManager.class);
+    when(transactionManager.getTransaction(any())).thenReturn(transaction);
+
+    runner = new WarmupRunner();
+    runner.enabled = true;
+    runner.iterations = 3;
+    runner.rows = 5;
+    runner.wholeTableIterations = 1;
+    runner.wholeTablePaths = new String[] {"/api/**/all"};
+    runner.entityManager = entityManager;
+    runner.transactionManager = transactionManager;
+    runner.objectMapper = new ObjectMapper().findAndRegisterModules();
+    runner.conversionService = new DefaultFormattingConversionService();
+    runner.applicationContext = new StaticApplicationContext();
+    events = new ArrayList<>();
+    runner.eventPublisher = events::add;
+
+    controller = new SampleController();
+    Map<RequestMappingInfo, HandlerMethod> handlers = new LinkedHashMap<>();
+    handlers.put(RequestMappingInfo.paths("/api/sample/list").methods(RequestMethod.GET).build(),
+        new HandlerMethod(controller, "list", int.class, Long.class));
+    handlers.put(RequestMappingInfo.paths("/api/sample/all").methods(RequestMethod.GET).build(),
+        new HandlerMethod(controller, "all", HttpServletRequest.class));
+    handlers.put(RequestMappingInfo.paths("/api/sample").methods(RequestMethod.GET).build(),
+        new HandlerMethod(controller, "byId", Long.class));
+    RequestMappingHandlerMapping handlerMapping = mock(RequestMappingHandlerMapping.class);
+    when(handlerMapping.getHandlerMethods()).thenReturn(handlers);
+    runner.handlerMapping = handlerMapping;
+  }
+
+  private List<ReadinessState> readinessChanges() {
+    return events.stream().map(event -> (ReadinessState) ((AvailabilityChangeEvent<?>) event).getState()).toList();
+  }
+
+  @Test
+  public void loads_every_entity_each_iteration_and_rolls_back() {
+    runner.run(null);
+
+    verify(query, times(3)).setMaxResults(5);
+    verify(query, times(3)).getResultList();
+    // the template hands a rollback-only status to commit, which rolls back
+    verify(transactionManager, times(3)).commit(transaction);
+    assertTrue(transaction.isRollbackOnly());
+  }
+
+  @Test
+  public void readiness_refuses_traffic_until_the_warm_up_has_finished() {
+    runner.run(null);
+
+    assertEquals(List.of(ReadinessState.REFUSING_TRAFFIC, ReadinessState.ACCEPTING_TRAFFIC), readinessChanges());
+  }
+
+  @Test
+  public void handlers_are_called_as_a_signed_in_user_with_their_defaults_and_without_required_parameters() {
+    runner.run(null);
+
+    String call = "list limit=10 itemid=null as [ROLE_USER]";
+    assertEquals(List.of(call, call, call), controller.calls.stream().filter(c -> c.startsWith("list")).toList());
+    assertNull(SecurityContextHolder.getContext().getAuthentication());
+  }
+
+  @Test
+  public void handlers_taking_the_request_get_a_get_of_their_path_bound_as_the_current_request() {
+    runner.wholeTableIterations = 3;
+
+    runner.run(null);
+
+    String call = "all GET /api/sample/all, current true";
+    assertEquals(List.of(call, call, call), controller.calls.stream().filter(c -> c.startsWith("all")).toList());
+    assertNull(RequestContextHolder.getRequestAttributes());
+  }
+
+  @Test
+  public void whole_table_handlers_are_only_called_in_the_first_iterations() {
+    runner.run(null);
+
+    assertEquals(1, controller.calls.stream().filter(c -> c.startsWith("all")).count());
+    assertEquals(3, controller.calls.stream().filter(c -> c.startsWith("list")).count());
+  }
+
+  @Test
+  public void without_a_web_server_there_are_no_endpoints_to_call() {
+    assertEquals(List.of(), runner.readEndpoints());
+  }
+
+  @Test
+  public void disabled_warmup_leaves_readiness_to_spring_boot() {
+    runner.enabled = false;
+
+    runner.run(null);
+
+    verify(query, never()).getResultList();
+    assertEquals(List.of(), controller.calls);
+    assertEquals(List.of(), events);
+  }
+}